@@ -0,0 +1,93 @@
+package com.monopoly.server.monopoly.classes.money;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Percorsi dell'affitto e del trasferimento con Money (centesimi in un long) e con BigDecimal,
+ * scritti come prima della conversione. Con -prof gc si confrontano anche le allocazioni.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyBenchmark {
+
+    private BigDecimal decimalBalance = new BigDecimal("1500.00");
+    private BigDecimal decimalOtherBalance = new BigDecimal("1500.00");
+    private final BigDecimal decimalRent = new BigDecimal("26.00");
+    private final BigDecimal decimalPrice = new BigDecimal("260.00");
+
+    private Money balance = Money.of(1500);
+    private Money otherBalance = Money.of(1500);
+    private final Money rent = Money.of(26);
+    private final Money price = Money.of(260);
+
+    /**
+     * Affitto doppio con gruppo completo, tassa d'ipoteca del 10% e pagamento se i fondi bastano
+     */
+    @Benchmark
+    public BigDecimal rentWithBigDecimal() {
+        BigDecimal due = decimalRent.multiply(BigDecimal.valueOf(2));
+        BigDecimal mortgageTax = decimalPrice.multiply(BigDecimal.valueOf(0.1)).setScale(2, RoundingMode.HALF_UP);
+        BigDecimal total = due.add(mortgageTax);
+        if (decimalBalance.compareTo(total) >= 0) {
+            decimalBalance = decimalBalance.subtract(total).add(total);
+        }
+        return decimalBalance;
+    }
+
+    @Benchmark
+    public Money rentWithMoney() {
+        Money due = rent.times(2);
+        Money mortgageTax = price.percent(10);
+        Money total = due.plus(mortgageTax);
+        if (!balance.isLessThan(total)) {
+            balance = balance.minus(total).plus(total);
+        }
+        return balance;
+    }
+
+    /**
+     * Trasferimento tra giocatori con il valore d'ipoteca (metà del prezzo) come importo
+     */
+    @Benchmark
+    public BigDecimal transferWithBigDecimal() {
+        BigDecimal amount = decimalPrice.divide(BigDecimal.valueOf(2), 2, RoundingMode.HALF_UP);
+        if (decimalBalance.compareTo(amount) >= 0) {
+            decimalBalance = decimalBalance.subtract(amount);
+            decimalOtherBalance = decimalOtherBalance.add(amount);
+        }
+        // Scambio dei ruoli: i saldi restano stabili tra le invocazioni
+        BigDecimal swap = decimalBalance;
+        decimalBalance = decimalOtherBalance;
+        decimalOtherBalance = swap;
+        return decimalBalance;
+    }
+
+    @Benchmark
+    public Money transferWithMoney() {
+        Money amount = price.half();
+        if (!balance.isLessThan(amount)) {
+            balance = balance.minus(amount);
+            otherBalance = otherBalance.plus(amount);
+        }
+        Money swap = balance;
+        balance = otherBalance;
+        otherBalance = swap;
+        return balance;
+    }
+}
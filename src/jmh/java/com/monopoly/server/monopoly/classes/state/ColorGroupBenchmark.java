@@ -0,0 +1,126 @@
+package com.monopoly.server.monopoly.classes.state;
+
+import com.monopoly.server.monopoly.classes.money.Money;
+import com.monopoly.server.monopoly.enums.GameStatus;
+import com.monopoly.server.monopoly.enums.PropertyColor;
+import com.monopoly.server.monopoly.enums.PropertyType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Controllo "gruppo completo e senza ipoteche" per tutti i colori di un giocatore, su un tabellone
+ * da 28 titoli diviso tra due giocatori. bitmask: contatori di PlayerHoldings mantenuti a ogni
+ * modifica; scan: filtro dei possessi del giocatore per colore, come facevano le regole prima.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ColorGroupBenchmark {
+
+    private static final Long PLAYER_ID = 10L;
+    private static final Long OTHER_ID = 11L;
+
+    private static final PropertyColor[] COLORS = PropertyColor.values();
+
+    // Ordine dei titoli sul tabellone classico: 22 strade, 4 stazioni (BLACK), 2 società (WHITE)
+    private static final PropertyColor[] BOARD = {null,
+            PropertyColor.BROWN, PropertyColor.BROWN, PropertyColor.BLACK,
+            PropertyColor.LIGHT_BLUE, PropertyColor.LIGHT_BLUE, PropertyColor.LIGHT_BLUE,
+            PropertyColor.PINK, PropertyColor.WHITE, PropertyColor.PINK, PropertyColor.PINK, PropertyColor.BLACK,
+            PropertyColor.ORANGE, PropertyColor.ORANGE, PropertyColor.ORANGE,
+            PropertyColor.RED, PropertyColor.RED, PropertyColor.RED, PropertyColor.BLACK,
+            PropertyColor.YELLOW, PropertyColor.YELLOW, PropertyColor.WHITE, PropertyColor.YELLOW,
+            PropertyColor.GREEN, PropertyColor.GREEN, PropertyColor.GREEN, PropertyColor.BLACK,
+            PropertyColor.DARK_BLUE, PropertyColor.DARK_BLUE};
+
+    private BoardLayout board;
+    private SessionState state;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        board = classicBoard();
+        state = new SessionState(1L, "ABC123", "Anna", LocalDateTime.now(), GameStatus.IN_PROGRESS, board);
+
+        // Il giocatore ha marroni, azzurri, arancioni (uno ipotecato) e metà del resto
+        for (long id = 1; id <= board.getMaxPropertyId(); id++) {
+            PropertyColor color = board.colorOf(id);
+            boolean mine = color == PropertyColor.BROWN || color == PropertyColor.LIGHT_BLUE
+                    || color == PropertyColor.ORANGE || id % 2 == 0;
+            state.addOwnership(new OwnershipSlot(100 + id, id, mine ? PLAYER_ID : OTHER_ID,
+                    0, false, id == 13, null));
+        }
+    }
+
+    @Benchmark
+    public int bitmask() {
+        PlayerHoldings holdings = state.holdingsOf(PLAYER_ID);
+        int full = 0;
+        for (PropertyColor color : COLORS) {
+            if (holdings.hasFullUnmortgagedGroup(color)) {
+                full |= 1 << color.ordinal();
+            }
+        }
+        return full;
+    }
+
+    @Benchmark
+    public int scan() {
+        int full = 0;
+        for (PropertyColor color : COLORS) {
+            if (scanFullUnmortgagedGroup(color)) {
+                full |= 1 << color.ordinal();
+            }
+        }
+        return full;
+    }
+
+    private boolean scanFullUnmortgagedGroup(PropertyColor color) {
+        int unmortgaged = 0;
+        for (OwnershipSlot slot : state.getOwnershipsOf(PLAYER_ID)) {
+            if (board.colorOf(slot.getPropertyId()) == color) {
+                if (slot.isMortgaged()) {
+                    return false;
+                }
+                unmortgaged++;
+            }
+        }
+        return unmortgaged == board.groupSize(color);
+    }
+
+    private static BoardLayout classicBoard() {
+        Money[] streetRents = {
+                Money.of(10), Money.of(50), Money.of(150), Money.of(450), Money.of(625), Money.of(750)
+        };
+        PropertyType[] types = new PropertyType[BOARD.length];
+        Money[][] rents = new Money[BOARD.length][];
+        int[] groupSizes = new int[COLORS.length];
+        for (int id = 1; id < BOARD.length; id++) {
+            PropertyColor color = BOARD[id];
+            groupSizes[color.ordinal()]++;
+            if (color == PropertyColor.BLACK) {
+                types[id] = PropertyType.RAILROAD;
+            } else if (color == PropertyColor.WHITE) {
+                types[id] = PropertyType.UTILITY;
+            } else {
+                types[id] = PropertyType.STREET;
+                rents[id] = streetRents;
+            }
+        }
+        return new BoardLayout(BOARD, types, rents, groupSizes);
+    }
+}
@@ -0,0 +1,113 @@
+package com.monopoly.server.monopoly.configurations;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.monopoly.server.monopoly.classes.dto.PlayerDto;
+import com.monopoly.server.monopoly.classes.dto.TransactionDto;
+import com.monopoly.server.monopoly.classes.dto.WebSocketMessage;
+import com.monopoly.server.monopoly.classes.money.Money;
+import com.monopoly.server.monopoly.enums.PayloadEncoding;
+import com.monopoly.server.monopoly.enums.PlayerColor;
+import com.monopoly.server.monopoly.enums.TransactionType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo e dimensione di un frame per codifica, con i mapper di PayloadEncodingInterceptor.
+ * encode: serializzazione diretta del WebSocketMessage; transcode: ricodifica dei byte JSON
+ * già pronti, come fa l'interceptor (una volta per codifica e frame). Le dimensioni vengono
+ * stampate all'avvio di ogni prova.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PayloadEncodingBenchmark {
+
+    @Param({"JSON", "CBOR", "SMILE"})
+    private PayloadEncoding encoding;
+
+    private ObjectMapper mapper;
+    private ObjectMapper jsonMapper;
+    private WebSocketMessage message;
+    private byte[] json;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // Stessa configurazione di Spring Boot: date ISO-8601, non timestamp numerici
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        PayloadEncodingInterceptor interceptor = new PayloadEncodingInterceptor(objectMapper, new SimpleMeterRegistry());
+        mapper = interceptor.mapper(encoding);
+        jsonMapper = interceptor.mapper(PayloadEncoding.JSON);
+
+        message = balanceUpdate();
+        json = jsonMapper.writeValueAsBytes(message);
+        byte[] encoded = mapper.writeValueAsBytes(jsonMapper.readTree(json));
+        System.out.println("✅ " + encoding + ": " + encoded.length + " byte (JSON " + json.length + ")");
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return mapper.writeValueAsBytes(message);
+    }
+
+    @Benchmark
+    public byte[] transcode() throws IOException {
+        return mapper.writeValueAsBytes(jsonMapper.readTree(json));
+    }
+
+    /**
+     * Aggiornamento dei saldi con 8 giocatori e l'ultimo movimento, come BALANCE_UPDATE
+     */
+    private static WebSocketMessage balanceUpdate() {
+        PlayerColor[] colors = PlayerColor.values();
+        List<PlayerDto> players = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            players.add(PlayerDto.builder()
+                    .id(100L + i)
+                    .name("Player" + i)
+                    .balance(Money.of(1500 - 37 * i))
+                    .color(colors[i % colors.length])
+                    .isHost(i == 0)
+                    .propertiesCount(i % 4)
+                    .build());
+        }
+        TransactionDto transaction = TransactionDto.builder()
+                .id(900L)
+                .type(TransactionType.RENT_PAYMENT)
+                .amount(Money.of(52))
+                .fromPlayerName("Player3")
+                .toPlayerName("Player0")
+                .description("Rent for Vicolo Corto")
+                .timestamp(LocalDateTime.now())
+                .build();
+
+        WebSocketMessage message = new WebSocketMessage("BALANCE_UPDATE", "ABC123",
+                Map.of("players", players, "transaction", transaction));
+        message.setSequence(1L);
+        return message;
+    }
+}
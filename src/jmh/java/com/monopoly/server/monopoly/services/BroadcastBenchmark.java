@@ -0,0 +1,177 @@
+package com.monopoly.server.monopoly.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.monopoly.server.monopoly.classes.dto.GameSessionDto;
+import com.monopoly.server.monopoly.classes.dto.PlayerDto;
+import com.monopoly.server.monopoly.classes.dto.TransactionDto;
+import com.monopoly.server.monopoly.classes.dto.WebSocketMessage;
+import com.monopoly.server.monopoly.classes.money.Money;
+import com.monopoly.server.monopoly.enums.GameStatus;
+import com.monopoly.server.monopoly.enums.PlayerColor;
+import com.monopoly.server.monopoly.enums.TransactionType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Un broadcast su /topic/session/{code} attraverso il simple broker, con N iscritti.
+ * Prima: il frame veniva serializzato per il buffer di replay e di nuovo da convertAndSend.
+ * Ora: i byte del buffer partono così come sono (messagingTemplate.send di un byte[]).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BroadcastBenchmark {
+
+    private static final String SESSION_CODE = "ABC123";
+    private static final String DESTINATION = "/topic/session/" + SESSION_CODE;
+
+    @Param({"1", "8", "32"})
+    private int subscribers;
+
+    private ObjectMapper objectMapper;
+    private SimpleBrokerMessageHandler broker;
+    private SimpMessagingTemplate messagingTemplate;
+    private WebSocketMessage message;
+
+    // Frame consegnati al canale in uscita: un broadcast ne produce uno per iscritto
+    private long delivered;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // Stessa configurazione di Spring Boot: date ISO-8601, non timestamp numerici
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+
+        MessageChannel clientOutbound = (frame, timeout) -> {
+            delivered++;
+            return true;
+        };
+        ExecutorSubscribableChannel brokerChannel = new ExecutorSubscribableChannel();
+        broker = new SimpleBrokerMessageHandler(new ExecutorSubscribableChannel(), clientOutbound,
+                brokerChannel, List.of("/topic"));
+        broker.start();
+
+        for (int i = 0; i < subscribers; i++) {
+            String sessionId = "client-" + i;
+            broker.handleMessage(control(SimpMessageType.CONNECT, sessionId));
+            broker.handleMessage(control(SimpMessageType.SUBSCRIBE, sessionId));
+        }
+
+        messagingTemplate = new SimpMessagingTemplate(brokerChannel);
+        MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter();
+        converter.setObjectMapper(objectMapper);
+        messagingTemplate.setMessageConverter(converter);
+
+        message = balanceUpdate();
+        System.out.println("✅ Frame di " + objectMapper.writeValueAsBytes(message).length
+                + " byte per " + subscribers + " iscritti");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        broker.stop();
+    }
+
+    @Benchmark
+    public long convertAndSend() throws IOException {
+        byte[] replay = objectMapper.writeValueAsBytes(message);
+        messagingTemplate.convertAndSend(DESTINATION, message);
+        return replay.length + delivered;
+    }
+
+    @Benchmark
+    public long preEncoded() throws IOException {
+        byte[] replay = objectMapper.writeValueAsBytes(message);
+        messagingTemplate.send(DESTINATION, MessageBuilder
+                .withPayload(replay)
+                .setHeader(MessageHeaders.CONTENT_TYPE, MimeTypeUtils.APPLICATION_JSON)
+                .build());
+        return replay.length + delivered;
+    }
+
+    private static Message<byte[]> control(SimpMessageType type, String sessionId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(type);
+        accessor.setSessionId(sessionId);
+        if (type == SimpMessageType.SUBSCRIBE) {
+            accessor.setSubscriptionId("sub-0");
+            accessor.setDestination(DESTINATION);
+        }
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    /**
+     * Pagamento d'affitto con lo stato della sessione: 8 giocatori e il movimento appena registrato
+     */
+    private static WebSocketMessage balanceUpdate() {
+        PlayerColor[] colors = PlayerColor.values();
+        List<PlayerDto> players = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            players.add(PlayerDto.builder()
+                    .id(100L + i)
+                    .name("Player" + i)
+                    .balance(Money.of(1500 - 37 * i))
+                    .color(colors[i % colors.length])
+                    .isHost(i == 0)
+                    .propertiesCount(i % 4)
+                    .build());
+        }
+        GameSessionDto session = GameSessionDto.builder()
+                .id(1L)
+                .sessionCode(SESSION_CODE)
+                .hostName("Player0")
+                .status(GameStatus.IN_PROGRESS)
+                .players(players)
+                .createdAt(LocalDateTime.now())
+                .version(42L)
+                .build();
+        TransactionDto transaction = TransactionDto.builder()
+                .id(900L)
+                .type(TransactionType.RENT_PAYMENT)
+                .amount(Money.of(52))
+                .fromPlayerName("Player3")
+                .toPlayerName("Player0")
+                .description("Rent for Vicolo Corto")
+                .timestamp(LocalDateTime.now())
+                .build();
+
+        WebSocketMessage message = new WebSocketMessage("BALANCE_UPDATE", SESSION_CODE,
+                Map.of("session", session, "transaction", transaction));
+        message.setSequence(1L);
+        return message;
+    }
+}
@@ -16,5 +16,7 @@ public class GameSessionDto {
     private GameStatus status;
     private List<PlayerDto> players;
     private LocalDateTime createdAt;
+    // Versione dello stato: base per GET /api/sessions/{code}/delta?since=
+    private Long version;
 
 }
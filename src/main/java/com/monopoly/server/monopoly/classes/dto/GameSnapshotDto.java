@@ -0,0 +1,21 @@
+package com.monopoly.server.monopoly.classes.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Tutto ciò che serve a disegnare una partita in una sola risposta: sessione e giocatori,
+ * possessi con l'affitto corrente e le ultime transazioni (al più transactionLimit).
+ * Versione e limite formano l'ETag della risposta.
+ */
+@Builder
+@Data
+public class GameSnapshotDto {
+    private long version;
+    private int transactionLimit;
+    private GameSessionDto session;
+    private List<PropertyOwnershipDto> ownerships;
+    private List<TransactionDto> transactions;
+}
@@ -0,0 +1,15 @@
+package com.monopoly.server.monopoly.classes.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Builder
+@Data
+public class OwnershipSlotDto {
+    private Long id;
+    private Long propertyId;
+    private Long ownerId;
+    private int houses;
+    private boolean hasHotel;
+    private boolean mortgaged;
+}
@@ -1,5 +1,6 @@
 package com.monopoly.server.monopoly.classes.dto;
 
+import com.monopoly.server.monopoly.classes.money.Money;
 import com.monopoly.server.monopoly.entities.Player;
 import com.monopoly.server.monopoly.entities.Property;
 import com.monopoly.server.monopoly.enums.PropertyColor;
@@ -9,7 +10,6 @@ import lombok.Builder;
 import lombok.Data;
 import org.hibernate.annotations.CreationTimestamp;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Builder
@@ -18,12 +18,12 @@ public class PropertyOwnershipDto {
     private Long id;
     private Long propertyId;
     private String propertyName;
-    private BigDecimal propertyPrice;
+    private Money propertyPrice;
     private PropertyType propertyType;
     private PropertyColor colorGroup;
     private int houses;
     private boolean hasHotel;
     private boolean mortgaged;
-    private BigDecimal currentRent;
+    private Money currentRent;
     private LocalDateTime purchasedAt;
 }
@@ -0,0 +1,21 @@
+package com.monopoly.server.monopoly.classes.dto;
+
+import com.fasterxml.jackson.databind.util.RawValue;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Frame WebSocket di una sessione successivi a "after", così come sono stati inviati.
+ * Con resyncRequired i frame non sono più disponibili e il client deve ricaricare la sessione.
+ */
+@Builder
+@Data
+public class ReplayDto {
+    private String sessionCode;
+    private long after;
+    private long latestSequence;
+    private boolean resyncRequired;
+    private List<RawValue> frames;
+}
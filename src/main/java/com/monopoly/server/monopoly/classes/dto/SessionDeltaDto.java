@@ -0,0 +1,24 @@
+package com.monopoly.server.monopoly.classes.dto;
+
+import com.monopoly.server.monopoly.enums.GameStatus;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Modifiche di una sessione tra fromVersion e version: stato attuale di giocatori e possessi toccati.
+ * Con resyncRequired i dati non sono disponibili e il client deve ricaricare la sessione.
+ */
+@Builder
+@Data
+public class SessionDeltaDto {
+    private String sessionCode;
+    private long fromVersion;
+    private long version;
+    private boolean resyncRequired;
+    private GameStatus status;
+    private List<PlayerDto> players;
+    private List<OwnershipSlotDto> ownerships;
+    private List<Long> removedOwnershipIds;
+}
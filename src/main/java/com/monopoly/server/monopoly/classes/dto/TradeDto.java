@@ -0,0 +1,26 @@
+package com.monopoly.server.monopoly.classes.dto;
+
+import com.monopoly.server.monopoly.classes.money.Money;
+import com.monopoly.server.monopoly.enums.TradeStatus;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Builder(toBuilder = true)
+@Data
+public class TradeDto {
+    private String id;
+    private String sessionCode;
+    private Long proposerPlayerId;
+    private Long recipientPlayerId;
+    private List<Long> offeredOwnershipIds;
+    private Money offeredMoney;
+    private List<Long> requestedOwnershipIds;
+    private Money requestedMoney;
+    private TradeStatus status;
+    private LocalDateTime createdAt;
+    private LocalDateTime expiresAt;
+    private List<TransactionDto> transactions; // Movimenti registrati, solo a scambio eseguito
+}
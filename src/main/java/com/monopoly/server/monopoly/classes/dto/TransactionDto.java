@@ -1,9 +1,9 @@
 package com.monopoly.server.monopoly.classes.dto;
 
+import com.monopoly.server.monopoly.classes.money.Money;
 import com.monopoly.server.monopoly.enums.TransactionType;
 import lombok.*;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Builder
@@ -11,7 +11,7 @@ import java.time.LocalDateTime;
 public class TransactionDto {
     private Long id;
     private TransactionType type;
-    private BigDecimal amount;
+    private Money amount;
     private String fromPlayerName;
     private String toPlayerName;
     private String description;
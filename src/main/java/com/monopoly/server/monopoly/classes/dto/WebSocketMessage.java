@@ -1,5 +1,6 @@
 package com.monopoly.server.monopoly.classes.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 
 import java.time.LocalDateTime;
@@ -9,6 +10,14 @@ public class WebSocketMessage {
     private String sessionCode;
     private Object data;
     private LocalDateTime timestamp;
+    // Versione dello stato della sessione (solo sui messaggi STATE_DELTA)
+    private Long version;
+    // Numero progressivo del frame nella sessione, per GET /api/sessions/{code}/replay?after=
+    // (assente nel JSON finché il frame non viene numerato all'invio)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long sequence;
+    // Id del comando STOMP a cui risponde (solo sui messaggi COMMAND_RESULT/COMMAND_ERROR)
+    private String correlationId;
 
     public WebSocketMessage(String type, String sessionCode, Object data) {
         this.type = type;
@@ -0,0 +1,18 @@
+package com.monopoly.server.monopoly.classes.money;
+
+import com.monopoly.server.monopoly.enums.TransactionType;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Movimento da registrare in blocco con BankService.settle (id giocatore null = Banca)
+ */
+@Getter
+@RequiredArgsConstructor
+public class LedgerEntry {
+    private final TransactionType type;
+    private final Money amount;
+    private final Long fromPlayerId;
+    private final Long toPlayerId;
+    private final String description;
+}
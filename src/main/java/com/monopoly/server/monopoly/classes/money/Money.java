@@ -0,0 +1,143 @@
+package com.monopoly.server.monopoly.classes.money;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Importo monetario a virgola fissa, rappresentato come numero intero di centesimi.
+ * Tutte le operazioni aritmetiche controllano l'overflow (ArithmeticException).
+ */
+@JsonSerialize(using = MoneyJsonSerializer.class)
+@JsonDeserialize(using = MoneyJsonDeserializer.class)
+public final class Money implements Comparable<Money>, Serializable {
+
+    private static final long CENTS_PER_UNIT = 100;
+
+    public static final Money ZERO = new Money(0);
+
+    private final long cents;
+
+    private Money(long cents) {
+        this.cents = cents;
+    }
+
+    public static Money ofCents(long cents) {
+        return cents == 0 ? ZERO : new Money(cents);
+    }
+
+    public static Money of(long units) {
+        return ofCents(Math.multiplyExact(units, CENTS_PER_UNIT));
+    }
+
+    /**
+     * Converte un importo decimale arrotondando al centesimo (HALF_UP)
+     */
+    public static Money of(BigDecimal amount) {
+        return ofCents(amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+    }
+
+    public long getCents() {
+        return cents;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    public Money plus(Money other) {
+        return ofCents(Math.addExact(cents, other.cents));
+    }
+
+    public Money minus(Money other) {
+        return ofCents(Math.subtractExact(cents, other.cents));
+    }
+
+    public Money times(long factor) {
+        return ofCents(Math.multiplyExact(cents, factor));
+    }
+
+    /**
+     * Percentuale dell'importo, arrotondata al centesimo (HALF_UP): percent(10) = 10%
+     */
+    public Money percent(int percentage) {
+        return ofCents(divideHalfUp(Math.multiplyExact(cents, percentage), 100));
+    }
+
+    public Money half() {
+        return percent(50);
+    }
+
+    public Money negate() {
+        return ofCents(Math.negateExact(cents));
+    }
+
+    public Money abs() {
+        return cents < 0 ? negate() : this;
+    }
+
+    public int signum() {
+        return Long.signum(cents);
+    }
+
+    public boolean isZero() {
+        return cents == 0;
+    }
+
+    public boolean isPositive() {
+        return cents > 0;
+    }
+
+    public boolean isNegative() {
+        return cents < 0;
+    }
+
+    public boolean isLessThan(Money other) {
+        return cents < other.cents;
+    }
+
+    public boolean isGreaterThan(Money other) {
+        return cents > other.cents;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(cents, other.cents);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof Money other && cents == other.cents);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(cents);
+    }
+
+    /**
+     * Formato decimale semplice: "1500" per importi interi, "100.50" altrimenti
+     */
+    @Override
+    public String toString() {
+        long units = cents / CENTS_PER_UNIT;
+        long remainder = Math.abs(cents % CENTS_PER_UNIT);
+        if (remainder == 0) {
+            return Long.toString(units);
+        }
+        String sign = cents < 0 && units == 0 ? "-" : "";
+        return sign + units + (remainder < 10 ? ".0" : ".") + remainder;
+    }
+
+    private static long divideHalfUp(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (Math.abs(remainder) * 2 >= divisor) {
+            quotient += Long.signum(dividend);
+        }
+        return quotient;
+    }
+}
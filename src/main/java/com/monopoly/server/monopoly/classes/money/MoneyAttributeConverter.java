@@ -0,0 +1,23 @@
+package com.monopoly.server.monopoly.classes.money;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+
+/**
+ * Mantiene le colonne DECIMAL esistenti (e data.sql) convertendo da/verso Money solo al confine JDBC
+ */
+@Converter(autoApply = true)
+public class MoneyAttributeConverter implements AttributeConverter<Money, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(Money attribute) {
+        return attribute != null ? attribute.toBigDecimal() : null;
+    }
+
+    @Override
+    public Money convertToEntityAttribute(BigDecimal dbData) {
+        return dbData != null ? Money.of(dbData) : null;
+    }
+}
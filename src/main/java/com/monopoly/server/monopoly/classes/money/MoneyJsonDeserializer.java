@@ -0,0 +1,39 @@
+package com.monopoly.server.monopoly.classes.money;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * Accetta importi come numero intero, decimale o stringa ("12.50")
+ */
+public class MoneyJsonDeserializer extends StdDeserializer<Money> {
+
+    public MoneyJsonDeserializer() {
+        super(Money.class);
+    }
+
+    @Override
+    public Money deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        JsonToken token = p.currentToken();
+        try {
+            if (token == JsonToken.VALUE_NUMBER_INT) {
+                return Money.of(p.getLongValue());
+            }
+            if (token == JsonToken.VALUE_NUMBER_FLOAT) {
+                return Money.of(p.getDecimalValue());
+            }
+            if (token == JsonToken.VALUE_STRING) {
+                return Money.of(new BigDecimal(p.getText().trim()));
+            }
+        } catch (ArithmeticException | NumberFormatException e) {
+            throw JsonMappingException.from(p, "Importo non valido: " + p.getText(), e);
+        }
+        return (Money) ctxt.handleUnexpectedToken(Money.class, p);
+    }
+}
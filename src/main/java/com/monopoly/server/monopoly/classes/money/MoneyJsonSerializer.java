@@ -0,0 +1,27 @@
+package com.monopoly.server.monopoly.classes.money;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Serializza Money come numero JSON (1500, 100.5) senza passare da BigDecimal
+ */
+public class MoneyJsonSerializer extends StdSerializer<Money> {
+
+    public MoneyJsonSerializer() {
+        super(Money.class);
+    }
+
+    @Override
+    public void serialize(Money value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        long cents = value.getCents();
+        if (cents % 100 == 0) {
+            gen.writeNumber(cents / 100);
+        } else {
+            gen.writeNumber(value.toString());
+        }
+    }
+}
@@ -1,13 +1,13 @@
 package com.monopoly.server.monopoly.classes.request;
 
+import com.monopoly.server.monopoly.classes.money.Money;
 import lombok.Data;
 
-import java.math.BigDecimal;
 
 @Data
 public class BankPaymentRequest {
     private Long playerId;
-    private BigDecimal amount;
+    private Money amount;
     private String description;
 
 
@@ -1,10 +1,10 @@
 package com.monopoly.server.monopoly.classes.request;
 
+import com.monopoly.server.monopoly.classes.money.Money;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 
-import java.math.BigDecimal;
 
 /**
  * Request per l'acquisto di una proprietà a prezzo personalizzato
@@ -14,5 +14,5 @@ import java.math.BigDecimal;
 @AllArgsConstructor
 public class CustomPurchaseRequest {
     private Long playerId;
-    private BigDecimal customPrice;
+    private Money customPrice;
 }
\ No newline at end of file
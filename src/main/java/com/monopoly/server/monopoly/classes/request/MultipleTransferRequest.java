@@ -1,14 +1,14 @@
 package com.monopoly.server.monopoly.classes.request;
 
+import com.monopoly.server.monopoly.classes.money.Money;
 import lombok.Data;
 
-import java.math.BigDecimal;
 import java.util.List;
 
 @Data
 public class MultipleTransferRequest {
     private List<Long> ownershipIds;
     private Long newOwnerId;
-    private BigDecimal compensationAmount; // Positivo = nuovo proprietario paga, Negativo = nuovo proprietario riceve
+    private Money compensationAmount; // Positivo = nuovo proprietario paga, Negativo = nuovo proprietario riceve
     private String description;
 }
@@ -0,0 +1,16 @@
+package com.monopoly.server.monopoly.classes.request;
+
+import com.monopoly.server.monopoly.classes.money.Money;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class TradeProposalRequest {
+    private Long proposerPlayerId;
+    private Long recipientPlayerId;
+    private List<Long> offeredOwnershipIds;   // Proprietà cedute da chi propone
+    private Money offeredMoney;               // Denaro dato da chi propone
+    private List<Long> requestedOwnershipIds; // Proprietà chieste al destinatario
+    private Money requestedMoney;             // Denaro chiesto al destinatario
+}
@@ -1,16 +1,11 @@
 package com.monopoly.server.monopoly.classes.request;
 
+import com.monopoly.server.monopoly.classes.money.Money;
 import lombok.Data;
 
-import java.math.BigDecimal;
-
-import lombok.Data;
-
-import java.math.BigDecimal;
-
 @Data
 public class TransferPropertyRequest {
     private Long newOwnerId;
-    private BigDecimal price; // Può essere null per trasferimenti gratuiti
+    private Money price; // Può essere null per trasferimenti gratuiti
     private String description; // AGGIUNTO: Descrizione opzionale
-}
\ No newline at end of file
+}
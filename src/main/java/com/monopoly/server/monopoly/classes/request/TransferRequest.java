@@ -1,14 +1,14 @@
 package com.monopoly.server.monopoly.classes.request;
 
+import com.monopoly.server.monopoly.classes.money.Money;
 import lombok.Data;
 
-import java.math.BigDecimal;
 
 @Data
 public class TransferRequest {
     private Long fromPlayerId;
     private Long toPlayerId;
-    private BigDecimal amount;
+    private Money amount;
     private String description;
 
 
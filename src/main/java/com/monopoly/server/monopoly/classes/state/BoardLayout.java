@@ -0,0 +1,82 @@
+package com.monopoly.server.monopoly.classes.state;
+
+import com.monopoly.server.monopoly.classes.money.Money;
+import com.monopoly.server.monopoly.enums.PropertyColor;
+import com.monopoly.server.monopoly.enums.PropertyType;
+
+import java.util.Arrays;
+
+/**
+ * Struttura immutabile del tabellone che serve allo stato delle sessioni: gruppo colore, tipo e
+ * affitti di ogni proprietà (indicizzati per id) e dimensione di ogni gruppo (per ordinal() del colore)
+ */
+public final class BoardLayout {
+
+    private final PropertyColor[] colorById;
+    private final PropertyType[] typeById;
+    private final int[] groupSizes;
+
+    // Affitti per id: base, con 1-4 case, con hotel (null dove il titolo non li prevede)
+    private final Money[][] rentsById;
+
+    // Id delle proprietà dello stesso gruppo colore, per ordinal() del colore
+    private final int[][] idsByColor;
+
+    public BoardLayout(PropertyColor[] colorById, PropertyType[] typeById, Money[][] rentsById, int[] groupSizes) {
+        this.colorById = colorById.clone();
+        this.typeById = typeById.clone();
+        this.groupSizes = groupSizes.clone();
+        this.rentsById = new Money[rentsById.length][];
+        for (int id = 0; id < rentsById.length; id++) {
+            this.rentsById[id] = rentsById[id] != null ? rentsById[id].clone() : null;
+        }
+
+        this.idsByColor = new int[PropertyColor.values().length][];
+        for (PropertyColor color : PropertyColor.values()) {
+            int[] ids = new int[groupSizes[color.ordinal()]];
+            int next = 0;
+            for (int id = 0; id < colorById.length; id++) {
+                if (colorById[id] == color) {
+                    ids[next++] = id;
+                }
+            }
+            idsByColor[color.ordinal()] = Arrays.copyOf(ids, next);
+        }
+    }
+
+    /**
+     * Id massimo presente sul tabellone: dimensione utile per array indicizzati per proprietà
+     */
+    public int getMaxPropertyId() {
+        return colorById.length - 1;
+    }
+
+    public PropertyColor colorOf(Long propertyId) {
+        return colorById[propertyId.intValue()];
+    }
+
+    public PropertyType typeOf(Long propertyId) {
+        return typeById[propertyId.intValue()];
+    }
+
+    public int groupSize(PropertyColor colorGroup) {
+        return groupSizes[colorGroup.ordinal()];
+    }
+
+    /**
+     * Affitto del titolo: livello 0 = base, 1-4 = case, 5 = hotel
+     */
+    Money rentAt(int propertyId, int level) {
+        Money[] rents = rentsById[propertyId];
+        return rents != null ? rents[level] : null;
+    }
+
+    /**
+     * Proprietà il cui affitto dipende da quello della proprietà indicata: il suo gruppo colore
+     * (stazioni e società hanno un colore proprio), o solo lei se non ne ha uno
+     */
+    int[] rentGroupOf(int propertyId) {
+        PropertyColor colorGroup = colorById[propertyId];
+        return colorGroup != null ? idsByColor[colorGroup.ordinal()] : new int[]{propertyId};
+    }
+}
@@ -0,0 +1,51 @@
+package com.monopoly.server.monopoly.classes.state;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Possesso di una proprietà in una sessione caricata in memoria (una riga di property_ownership).
+ * Gli attributi si modificano solo tramite SessionState, che li marca da persistere.
+ */
+@Getter
+public class OwnershipSlot {
+    private final Long id;
+    private final Long propertyId;
+    private final LocalDateTime purchasedAt;
+    private Long ownerId;
+    private int houses;
+    private boolean hasHotel;
+    private boolean mortgaged;
+
+    public OwnershipSlot(Long id, Long propertyId, Long ownerId, int houses, boolean hasHotel,
+                         boolean mortgaged, LocalDateTime purchasedAt) {
+        this.id = id;
+        this.propertyId = propertyId;
+        this.ownerId = ownerId;
+        this.houses = houses;
+        this.hasHotel = hasHotel;
+        this.mortgaged = mortgaged;
+        this.purchasedAt = purchasedAt;
+    }
+
+    public boolean isOwnedBy(Long playerId) {
+        return ownerId.equals(playerId);
+    }
+
+    void setOwnerId(Long ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    void setHouses(int houses) {
+        this.houses = houses;
+    }
+
+    void setHasHotel(boolean hasHotel) {
+        this.hasHotel = hasHotel;
+    }
+
+    void setMortgaged(boolean mortgaged) {
+        this.mortgaged = mortgaged;
+    }
+}
@@ -0,0 +1,83 @@
+package com.monopoly.server.monopoly.classes.state;
+
+import com.monopoly.server.monopoly.enums.PropertyColor;
+import com.monopoly.server.monopoly.enums.PropertyType;
+import lombok.Getter;
+
+/**
+ * Conteggi dei possessi di un giocatore, aggiornati da SessionState a ogni acquisto, passaggio,
+ * ipoteca, riscatto e bancarotta: proprietà per gruppo colore (tutte e non ipotecate), stazioni,
+ * società e maschere dei gruppi completi (un bit per ordinal() del colore).
+ */
+public class PlayerHoldings {
+
+    static final PlayerHoldings NONE = new PlayerHoldings();
+
+    private final int[] ownedByColor = new int[PropertyColor.values().length];
+    private final int[] unmortgagedByColor = new int[PropertyColor.values().length];
+
+    @Getter
+    private int count;
+    @Getter
+    private int railroads;
+    @Getter
+    private int utilities;
+
+    // Gruppi posseduti per intero, e per intero senza ipoteche
+    @Getter
+    private int fullGroups;
+    @Getter
+    private int fullUnmortgagedGroups;
+
+    public boolean hasFullGroup(PropertyColor colorGroup) {
+        return colorGroup != null && (fullGroups & bit(colorGroup)) != 0;
+    }
+
+    public boolean hasFullUnmortgagedGroup(PropertyColor colorGroup) {
+        return colorGroup != null && (fullUnmortgagedGroups & bit(colorGroup)) != 0;
+    }
+
+    public int ownedIn(PropertyColor colorGroup) {
+        return colorGroup != null ? ownedByColor[colorGroup.ordinal()] : 0;
+    }
+
+    public int unmortgagedIn(PropertyColor colorGroup) {
+        return colorGroup != null ? unmortgagedByColor[colorGroup.ordinal()] : 0;
+    }
+
+    /**
+     * Aggiunge (sign = 1) o toglie (sign = -1) un possesso dai conteggi
+     */
+    void apply(BoardLayout board, OwnershipSlot slot, int sign) {
+        count += sign;
+
+        PropertyType type = board.typeOf(slot.getPropertyId());
+        if (type == PropertyType.RAILROAD) {
+            railroads += sign;
+        } else if (type == PropertyType.UTILITY) {
+            utilities += sign;
+        }
+
+        PropertyColor colorGroup = board.colorOf(slot.getPropertyId());
+        if (colorGroup == null) {
+            return;
+        }
+        int group = colorGroup.ordinal();
+        int size = board.groupSize(colorGroup);
+
+        ownedByColor[group] += sign;
+        if (!slot.isMortgaged()) {
+            unmortgagedByColor[group] += sign;
+        }
+        fullGroups = withBit(fullGroups, colorGroup, ownedByColor[group] == size);
+        fullUnmortgagedGroups = withBit(fullUnmortgagedGroups, colorGroup, unmortgagedByColor[group] == size);
+    }
+
+    private static int bit(PropertyColor colorGroup) {
+        return 1 << colorGroup.ordinal();
+    }
+
+    private static int withBit(int mask, PropertyColor colorGroup, boolean set) {
+        return set ? mask | bit(colorGroup) : mask & ~bit(colorGroup);
+    }
+}
@@ -0,0 +1,30 @@
+package com.monopoly.server.monopoly.classes.state;
+
+import com.monopoly.server.monopoly.classes.money.Money;
+import com.monopoly.server.monopoly.enums.PlayerColor;
+import lombok.Getter;
+
+/**
+ * Giocatore di una sessione caricata in memoria.
+ * Il saldo si modifica solo tramite SessionState, che lo marca da persistere.
+ */
+@Getter
+public class PlayerState {
+    private final Long id;
+    private final String name;
+    private final PlayerColor color;
+    private final boolean host;
+    private Money balance;
+
+    public PlayerState(Long id, String name, PlayerColor color, boolean host, Money balance) {
+        this.id = id;
+        this.name = name;
+        this.color = color;
+        this.host = host;
+        this.balance = balance;
+    }
+
+    void setBalance(Money balance) {
+        this.balance = balance;
+    }
+}
@@ -0,0 +1,81 @@
+package com.monopoly.server.monopoly.classes.state;
+
+import com.monopoly.server.monopoly.classes.money.Money;
+import com.monopoly.server.monopoly.enums.PropertyType;
+
+/**
+ * Affitti correnti di una sessione, uno per casella, più il moltiplicatore dei dadi per le società.
+ * Li aggiorna SessionState, per il solo gruppo toccato, quando cambiano proprietario, edifici
+ * o ipoteca di un possesso: chi paga o mostra un affitto legge solo gli array.
+ */
+final class RentTable {
+
+    private static final int HOTEL_LEVEL = 5;
+
+    // Affitti ufficiali per stazioni possedute: 25, 50, 100, 200
+    private static final Money[] RAILROAD_RENTS = {
+            Money.ZERO, Money.of(25), Money.of(50), Money.of(100), Money.of(200)
+    };
+
+    // Moltiplicatore ufficiale: x4 (1 società) o x10 (2 società)
+    private static final int SINGLE_UTILITY_MULTIPLIER = 4;
+    private static final int BOTH_UTILITIES_MULTIPLIER = 10;
+
+    private final Money[] rents;
+    private final int[] utilityMultipliers;
+
+    RentTable(int size) {
+        this.rents = new Money[size];
+        this.utilityMultipliers = new int[size];
+    }
+
+    /**
+     * Affitto della proprietà (zero se della banca o ipotecata); per le società dipende dai dadi
+     */
+    Money rentOf(Long propertyId, int diceRoll) {
+        int id = propertyId.intValue();
+        if (utilityMultipliers[id] > 0) {
+            return Money.of((long) diceRoll * utilityMultipliers[id]);
+        }
+        return rents[id] != null ? rents[id] : Money.ZERO;
+    }
+
+    /**
+     * Ricalcola l'affitto di una casella (slot null = proprietà della banca)
+     */
+    void refresh(BoardLayout board, int propertyId, OwnershipSlot slot, PlayerHoldings holdings) {
+        rents[propertyId] = Money.ZERO;
+        utilityMultipliers[propertyId] = 0;
+        if (slot == null || slot.isMortgaged()) {
+            return;
+        }
+
+        PropertyType type = board.typeOf((long) propertyId);
+        if (type == PropertyType.STREET) {
+            rents[propertyId] = streetRent(board, propertyId, slot, holdings);
+        } else if (type == PropertyType.RAILROAD) {
+            rents[propertyId] = RAILROAD_RENTS[Math.min(holdings.getRailroads(), RAILROAD_RENTS.length - 1)];
+        } else if (type == PropertyType.UTILITY) {
+            utilityMultipliers[propertyId] = holdings.getUtilities() == 2
+                    ? BOTH_UTILITIES_MULTIPLIER
+                    : SINGLE_UTILITY_MULTIPLIER;
+        }
+    }
+
+    private static Money streetRent(BoardLayout board, int propertyId, OwnershipSlot slot, PlayerHoldings holdings) {
+        // Con hotel o con 1-4 case: valore puntuale scritto sul titolo
+        if (slot.isHasHotel()) {
+            return board.rentAt(propertyId, HOTEL_LEVEL);
+        }
+        if (slot.getHouses() > 0) {
+            if (slot.getHouses() >= HOTEL_LEVEL) {
+                throw new IllegalStateException("Numero di case non valido: " + slot.getHouses());
+            }
+            return board.rentAt(propertyId, slot.getHouses());
+        }
+
+        // Nessuna costruzione: affitto doppio con il gruppo completo e nessun atto ipotecato
+        Money baseRent = board.rentAt(propertyId, 0);
+        return holdings.hasFullUnmortgagedGroup(board.colorOf((long) propertyId)) ? baseRent.times(2) : baseRent;
+    }
+}
@@ -0,0 +1,151 @@
+package com.monopoly.server.monopoly.classes.state;
+
+import com.monopoly.server.monopoly.enums.GameStatus;
+import com.monopoly.server.monopoly.enums.PlayerColor;
+import com.monopoly.server.monopoly.enums.SessionEventType;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Modifica elementare dello stato di una sessione, registrata nel journal.
+ * La sequenza coincide con la versione di SessionState dopo la modifica;
+ * i valori sono copiati al momento della modifica, quindi l'evento è immutabile.
+ */
+@Getter
+public abstract class SessionEvent {
+
+    private final long sequence;
+
+    protected SessionEvent(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public abstract SessionEventType getType();
+
+    @Getter
+    public static final class PlayerJoined extends SessionEvent {
+        private final long playerId;
+        private final String name;
+        private final PlayerColor color;
+        private final boolean host;
+        private final long balanceCents;
+
+        public PlayerJoined(long sequence, long playerId, String name, PlayerColor color, boolean host,
+                            long balanceCents) {
+            super(sequence);
+            this.playerId = playerId;
+            this.name = name;
+            this.color = color;
+            this.host = host;
+            this.balanceCents = balanceCents;
+        }
+
+        @Override
+        public SessionEventType getType() {
+            return SessionEventType.PLAYER_JOINED;
+        }
+    }
+
+    /**
+     * Movimento di denaro su un giocatore (positivo = accredito)
+     */
+    @Getter
+    public static final class BalanceAdjusted extends SessionEvent {
+        private final long playerId;
+        private final long deltaCents;
+
+        public BalanceAdjusted(long sequence, long playerId, long deltaCents) {
+            super(sequence);
+            this.playerId = playerId;
+            this.deltaCents = deltaCents;
+        }
+
+        @Override
+        public SessionEventType getType() {
+            return SessionEventType.BALANCE_ADJUSTED;
+        }
+    }
+
+    @Getter
+    public static final class StatusChanged extends SessionEvent {
+        private final GameStatus status;
+
+        public StatusChanged(long sequence, GameStatus status) {
+            super(sequence);
+            this.status = status;
+        }
+
+        @Override
+        public SessionEventType getType() {
+            return SessionEventType.STATUS_CHANGED;
+        }
+    }
+
+    /**
+     * Acquisto di una proprietà
+     */
+    @Getter
+    public static final class OwnershipAdded extends SessionEvent {
+        private final long ownershipId;
+        private final long propertyId;
+        private final long ownerId;
+        private final int houses;
+        private final boolean hasHotel;
+        private final boolean mortgaged;
+        private final LocalDateTime purchasedAt;
+
+        public OwnershipAdded(long sequence, long ownershipId, long propertyId, long ownerId, int houses,
+                              boolean hasHotel, boolean mortgaged, LocalDateTime purchasedAt) {
+            super(sequence);
+            this.ownershipId = ownershipId;
+            this.propertyId = propertyId;
+            this.ownerId = ownerId;
+            this.houses = houses;
+            this.hasHotel = hasHotel;
+            this.mortgaged = mortgaged;
+            this.purchasedAt = purchasedAt;
+        }
+
+        @Override
+        public SessionEventType getType() {
+            return SessionEventType.OWNERSHIP_ADDED;
+        }
+    }
+
+    /**
+     * Proprietà restituita alla banca (liquidazione)
+     */
+    @Getter
+    public static final class OwnershipRemoved extends SessionEvent {
+        private final long ownershipId;
+
+        public OwnershipRemoved(long sequence, long ownershipId) {
+            super(sequence);
+            this.ownershipId = ownershipId;
+        }
+
+        @Override
+        public SessionEventType getType() {
+            return SessionEventType.OWNERSHIP_REMOVED;
+        }
+    }
+
+    /**
+     * Nuovo valore di un attributo del possesso: proprietario (trasferimenti), case, hotel o ipoteca
+     * (0/1 per i flag)
+     */
+    @Getter
+    public static final class OwnershipChanged extends SessionEvent {
+        private final SessionEventType type;
+        private final long ownershipId;
+        private final long value;
+
+        public OwnershipChanged(long sequence, SessionEventType type, long ownershipId, long value) {
+            super(sequence);
+            this.type = type;
+            this.ownershipId = ownershipId;
+            this.value = value;
+        }
+    }
+}
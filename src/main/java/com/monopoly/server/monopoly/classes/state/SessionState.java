@@ -0,0 +1,545 @@
+package com.monopoly.server.monopoly.classes.state;
+
+import com.monopoly.server.monopoly.classes.money.Money;
+import com.monopoly.server.monopoly.enums.GameStatus;
+import com.monopoly.server.monopoly.enums.SessionEventType;
+import lombok.Getter;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.LongFunction;
+
+/**
+ * Stato autorevole di una sessione caricata in memoria: giocatori, saldi e possessi.
+ * Va letto e modificato solo dal worker della sessione (SessionCommandExecutor).
+ * Ogni modifica produce un evento per il journal, viene annullata se la transazione
+ * in corso fa rollback e marca le righe da scrivere al prossimo snapshot.
+ */
+public class SessionState {
+
+    private static final int RECENT_EVENTS = 512;
+
+    @Getter
+    private final Long sessionId;
+    @Getter
+    private final String sessionCode;
+    @Getter
+    private final String hostName;
+    @Getter
+    private final LocalDateTime createdAt;
+    @Getter
+    private GameStatus status;
+
+    // Giocatori in ordine di ingresso
+    private final Map<Long, PlayerState> players = new LinkedHashMap<>();
+
+    private final BoardLayout board;
+
+    // Possessi indicizzati per id della proprietà (slot vuoto = proprietà della banca)
+    private final OwnershipSlot[] slotsByProperty;
+    private final Map<Long, OwnershipSlot> slotsById = new HashMap<>();
+
+    // Conteggi dei possessi per proprietario, aggiornati a ogni modifica degli slot
+    private final Map<Long, PlayerHoldings> holdings = new HashMap<>();
+
+    // Affitti correnti per casella, ricalcolati per gruppo a ogni modifica degli slot
+    private final RentTable rents;
+
+    private final Set<PlayerState> dirtyPlayers = new LinkedHashSet<>();
+    private final Set<OwnershipSlot> dirtyOwnerships = new LinkedHashSet<>();
+
+    // Eventi non ancora scritti nel journal, in ordine di sequenza
+    private final List<SessionEvent> pendingEvents = new ArrayList<>();
+
+    // Ultimi eventi applicati, da cui si ricavano i delta per i client
+    private final Deque<SessionEvent> recentEvents = new ArrayDeque<>();
+
+    // Versione dell'ultimo delta inviato ai client
+    private long publishedVersion;
+
+    // Letti anche dal flusher schedulato
+    private volatile boolean dirty;
+    private volatile long version;
+    private volatile long journaledVersion;
+    private volatile long snapshotVersion;
+    private volatile long lastAccess = System.currentTimeMillis();
+
+    // Lease del nodo sulla sessione (sharding): epoch assegnato dal database e scadenza locale in ms
+    private volatile long ownerEpoch;
+    private volatile long leaseExpiresAt = Long.MAX_VALUE;
+
+    public SessionState(Long sessionId, String sessionCode, String hostName, LocalDateTime createdAt,
+                        GameStatus status, BoardLayout board) {
+        this.sessionId = sessionId;
+        this.sessionCode = sessionCode;
+        this.hostName = hostName;
+        this.createdAt = createdAt;
+        this.status = status;
+        this.board = board;
+        this.slotsByProperty = new OwnershipSlot[board.getMaxPropertyId() + 1];
+        this.rents = new RentTable(slotsByProperty.length);
+    }
+
+    // ===== Letture =====
+
+    public Optional<PlayerState> findPlayer(Long playerId) {
+        return Optional.ofNullable(players.get(playerId));
+    }
+
+    public Collection<PlayerState> getPlayers() {
+        return Collections.unmodifiableCollection(players.values());
+    }
+
+    public Optional<OwnershipSlot> findOwnership(Long ownershipId) {
+        return Optional.ofNullable(slotsById.get(ownershipId));
+    }
+
+    public Optional<OwnershipSlot> findOwnershipOfProperty(Long propertyId) {
+        if (propertyId == null || propertyId <= 0 || propertyId >= slotsByProperty.length) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(slotsByProperty[propertyId.intValue()]);
+    }
+
+    public boolean isOwned(Long propertyId) {
+        return findOwnershipOfProperty(propertyId).isPresent();
+    }
+
+    /**
+     * Tutti i possessi della sessione, in ordine di id della proprietà
+     */
+    public List<OwnershipSlot> getOwnerships() {
+        List<OwnershipSlot> result = new ArrayList<>(slotsById.size());
+        for (OwnershipSlot slot : slotsByProperty) {
+            if (slot != null) {
+                result.add(slot);
+            }
+        }
+        return result;
+    }
+
+    public List<OwnershipSlot> getOwnershipsOf(Long playerId) {
+        List<OwnershipSlot> result = new ArrayList<>();
+        for (OwnershipSlot slot : slotsByProperty) {
+            if (slot != null && slot.isOwnedBy(playerId)) {
+                result.add(slot);
+            }
+        }
+        return result;
+    }
+
+    public int countOwnershipsOf(Long playerId) {
+        return holdingsOf(playerId).getCount();
+    }
+
+    /**
+     * Conteggi dei possessi del giocatore (vuoti se non possiede nulla)
+     */
+    public PlayerHoldings holdingsOf(Long playerId) {
+        return holdings.getOrDefault(playerId, PlayerHoldings.NONE);
+    }
+
+    /**
+     * Affitto corrente del possesso (zero se ipotecato); per le società dipende dai dadi
+     */
+    public Money rentOf(OwnershipSlot slot, int diceRoll) {
+        return rents.rentOf(slot.getPropertyId(), diceRoll);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * Versione dell'ultimo evento scritto nel journal
+     */
+    public long getJournaledVersion() {
+        return journaledVersion;
+    }
+
+    /**
+     * Versione dell'ultimo snapshot (righe e immagine binaria)
+     */
+    public long getSnapshotVersion() {
+        return snapshotVersion;
+    }
+
+    /**
+     * Eventi successivi alla versione indicata, se sono ancora tutti in memoria
+     * (vuoto se la versione è troppo vecchia o successiva a quella corrente)
+     */
+    public Optional<List<SessionEvent>> eventsSince(long since) {
+        if (since > version) {
+            return Optional.empty();
+        }
+        if (since == version) {
+            return Optional.of(List.of());
+        }
+        SessionEvent oldest = recentEvents.peekFirst();
+        if (oldest == null || oldest.getSequence() > since + 1) {
+            return Optional.empty();
+        }
+        List<SessionEvent> events = new ArrayList<>((int) (version - since));
+        for (SessionEvent event : recentEvents) {
+            if (event.getSequence() > since) {
+                events.add(event);
+            }
+        }
+        return Optional.of(events);
+    }
+
+    public long getPublishedVersion() {
+        return publishedVersion;
+    }
+
+    public void markPublished(long version) {
+        publishedVersion = version;
+    }
+
+    public long getLastAccess() {
+        return lastAccess;
+    }
+
+    public void touch() {
+        lastAccess = System.currentTimeMillis();
+    }
+
+    public long getOwnerEpoch() {
+        return ownerEpoch;
+    }
+
+    public long getLeaseExpiresAt() {
+        return leaseExpiresAt;
+    }
+
+    public void holdLease(long ownerEpoch, long leaseExpiresAt) {
+        this.ownerEpoch = ownerEpoch;
+        this.leaseExpiresAt = leaseExpiresAt;
+    }
+
+    // ===== Modifiche =====
+
+    public void setStatus(GameStatus status) {
+        GameStatus previous = this.status;
+        this.status = status;
+        changed(sequence -> new SessionEvent.StatusChanged(sequence, status), () -> this.status = previous);
+    }
+
+    public void credit(PlayerState player, Money amount) {
+        setBalance(player, player.getBalance().plus(amount));
+    }
+
+    public void debit(PlayerState player, Money amount) {
+        setBalance(player, player.getBalance().minus(amount));
+    }
+
+    public void setBalance(PlayerState player, Money balance) {
+        Money previous = player.getBalance();
+        player.setBalance(balance);
+        markDirty(player);
+        long delta = balance.minus(previous).getCents();
+        changed(sequence -> new SessionEvent.BalanceAdjusted(sequence, player.getId(), delta), () -> {
+            player.setBalance(previous);
+            markDirty(player);
+        });
+    }
+
+    public void setOwner(OwnershipSlot slot, Long ownerId) {
+        Long previous = slot.getOwnerId();
+        reindex(slot, () -> slot.setOwnerId(ownerId));
+        markDirty(slot);
+        changed(ownershipChanged(slot, SessionEventType.OWNER_CHANGED, ownerId), () -> {
+            reindex(slot, () -> slot.setOwnerId(previous));
+            markDirty(slot);
+        });
+    }
+
+    public void setHouses(OwnershipSlot slot, int houses) {
+        int previous = slot.getHouses();
+        reindex(slot, () -> slot.setHouses(houses));
+        markDirty(slot);
+        changed(ownershipChanged(slot, SessionEventType.HOUSES_CHANGED, houses), () -> {
+            reindex(slot, () -> slot.setHouses(previous));
+            markDirty(slot);
+        });
+    }
+
+    public void setHasHotel(OwnershipSlot slot, boolean hasHotel) {
+        boolean previous = slot.isHasHotel();
+        reindex(slot, () -> slot.setHasHotel(hasHotel));
+        markDirty(slot);
+        changed(ownershipChanged(slot, SessionEventType.HOTEL_CHANGED, hasHotel ? 1 : 0), () -> {
+            reindex(slot, () -> slot.setHasHotel(previous));
+            markDirty(slot);
+        });
+    }
+
+    public void setMortgaged(OwnershipSlot slot, boolean mortgaged) {
+        boolean previous = slot.isMortgaged();
+        reindex(slot, () -> slot.setMortgaged(mortgaged));
+        markDirty(slot);
+        changed(ownershipChanged(slot, SessionEventType.MORTGAGE_CHANGED, mortgaged ? 1 : 0), () -> {
+            reindex(slot, () -> slot.setMortgaged(previous));
+            markDirty(slot);
+        });
+    }
+
+    /**
+     * Registra un giocatore già persistito (join)
+     */
+    public void addPlayer(PlayerState player) {
+        players.put(player.getId(), player);
+        changed(sequence -> new SessionEvent.PlayerJoined(sequence, player.getId(), player.getName(),
+                        player.getColor(), player.isHost(), player.getBalance().getCents()),
+                () -> players.remove(player.getId()));
+    }
+
+    /**
+     * Registra un possesso già persistito (acquisto): la riga esiste, non va marcata
+     */
+    public void addOwnership(OwnershipSlot slot) {
+        putSlot(slot);
+        changed(sequence -> new SessionEvent.OwnershipAdded(sequence, slot.getId(), slot.getPropertyId(),
+                        slot.getOwnerId(), slot.getHouses(), slot.isHasHotel(), slot.isMortgaged(),
+                        slot.getPurchasedAt()),
+                () -> removeSlot(slot));
+    }
+
+    /**
+     * Rimuove un possesso già eliminato dal database
+     */
+    public void removeOwnership(OwnershipSlot slot) {
+        removeSlot(slot);
+        dirtyOwnerships.remove(slot);
+        changed(sequence -> new SessionEvent.OwnershipRemoved(sequence, slot.getId()), () -> putSlot(slot));
+    }
+
+    // ===== Journal e snapshot =====
+
+    public boolean hasPendingEvents() {
+        return !pendingEvents.isEmpty();
+    }
+
+    public List<SessionEvent> drainEvents() {
+        List<SessionEvent> drained = new ArrayList<>(pendingEvents);
+        pendingEvents.clear();
+        return drained;
+    }
+
+    /**
+     * Rimette in testa eventi la cui scrittura nel journal è fallita
+     */
+    public void requeueEvents(List<SessionEvent> events) {
+        pendingEvents.addAll(0, events);
+    }
+
+    public void markJournaled(long version) {
+        journaledVersion = version;
+    }
+
+    public void markSnapshot(long version) {
+        snapshotVersion = version;
+    }
+
+    public List<PlayerState> drainDirtyPlayers() {
+        List<PlayerState> drained = new ArrayList<>(dirtyPlayers);
+        dirtyPlayers.clear();
+        dirty = !dirtyOwnerships.isEmpty();
+        return drained;
+    }
+
+    public List<OwnershipSlot> drainDirtyOwnerships() {
+        List<OwnershipSlot> drained = new ArrayList<>(dirtyOwnerships);
+        dirtyOwnerships.clear();
+        dirty = !dirtyPlayers.isEmpty();
+        return drained;
+    }
+
+    /**
+     * Rimette in coda righe la cui scrittura è fallita
+     */
+    public void requeue(List<PlayerState> players, List<OwnershipSlot> ownerships) {
+        players.forEach(this::markDirty);
+        ownerships.stream()
+                .filter(slot -> slotsById.get(slot.getId()) == slot)
+                .forEach(this::markDirty);
+    }
+
+    /**
+     * Caricamento iniziale dalle righe o da uno snapshot: nulla da persistere
+     */
+    public void load(List<PlayerState> loadedPlayers, List<OwnershipSlot> loadedOwnerships, long loadedVersion) {
+        loadedPlayers.forEach(player -> players.put(player.getId(), player));
+        loadedOwnerships.forEach(this::putSlot);
+        version = loadedVersion;
+        journaledVersion = loadedVersion;
+        snapshotVersion = loadedVersion;
+        publishedVersion = loadedVersion;
+    }
+
+    /**
+     * Riapplica un evento del journal successivo al caricamento. L'evento è già persistito,
+     * ma le righe toccate vanno riscritte al prossimo snapshot.
+     */
+    public void replay(SessionEvent event) {
+        if (event instanceof SessionEvent.PlayerJoined joined) {
+            players.put(joined.getPlayerId(), new PlayerState(joined.getPlayerId(), joined.getName(),
+                    joined.getColor(), joined.isHost(), Money.ofCents(joined.getBalanceCents())));
+        } else if (event instanceof SessionEvent.BalanceAdjusted adjusted) {
+            PlayerState player = players.get(adjusted.getPlayerId());
+            if (player != null) {
+                player.setBalance(player.getBalance().plus(Money.ofCents(adjusted.getDeltaCents())));
+                markDirty(player);
+            }
+        } else if (event instanceof SessionEvent.StatusChanged statusChanged) {
+            status = statusChanged.getStatus();
+        } else if (event instanceof SessionEvent.OwnershipAdded added) {
+            putSlot(new OwnershipSlot(added.getOwnershipId(), added.getPropertyId(), added.getOwnerId(),
+                    added.getHouses(), added.isHasHotel(), added.isMortgaged(), added.getPurchasedAt()));
+        } else if (event instanceof SessionEvent.OwnershipRemoved removed) {
+            OwnershipSlot slot = slotsById.get(removed.getOwnershipId());
+            if (slot != null) {
+                removeSlot(slot);
+                dirtyOwnerships.remove(slot);
+            }
+        } else if (event instanceof SessionEvent.OwnershipChanged ownershipChanged) {
+            OwnershipSlot slot = slotsById.get(ownershipChanged.getOwnershipId());
+            if (slot != null) {
+                reindex(slot, () -> applyChange(slot, ownershipChanged.getType(), ownershipChanged.getValue()));
+                markDirty(slot);
+            }
+        }
+        remember(event);
+        version = event.getSequence();
+        journaledVersion = version;
+        publishedVersion = version;
+    }
+
+    private static void applyChange(OwnershipSlot slot, SessionEventType type, long value) {
+        switch (type) {
+            case OWNER_CHANGED -> slot.setOwnerId(value);
+            case HOUSES_CHANGED -> slot.setHouses((int) value);
+            case HOTEL_CHANGED -> slot.setHasHotel(value != 0);
+            case MORTGAGE_CHANGED -> slot.setMortgaged(value != 0);
+            default -> throw new IllegalArgumentException("Evento non applicabile a un possesso: " + type);
+        }
+    }
+
+    private void putSlot(OwnershipSlot slot) {
+        slotsByProperty[slot.getPropertyId().intValue()] = slot;
+        slotsById.put(slot.getId(), slot);
+        count(slot, 1);
+        refreshRents(slot);
+    }
+
+    private void removeSlot(OwnershipSlot slot) {
+        slotsByProperty[slot.getPropertyId().intValue()] = null;
+        slotsById.remove(slot.getId());
+        count(slot, -1);
+        refreshRents(slot);
+    }
+
+    /**
+     * Modifica uno slot tenendo allineati conteggi e affitti
+     */
+    private void reindex(OwnershipSlot slot, Runnable change) {
+        count(slot, -1);
+        change.run();
+        count(slot, 1);
+        refreshRents(slot);
+    }
+
+    private void count(OwnershipSlot slot, int sign) {
+        PlayerHoldings owner = holdings.computeIfAbsent(slot.getOwnerId(), id -> new PlayerHoldings());
+        owner.apply(board, slot, sign);
+        if (owner.getCount() == 0) {
+            holdings.remove(slot.getOwnerId());
+        }
+    }
+
+    /**
+     * Ricalcola gli affitti del gruppo dello slot: gli unici che la sua modifica può cambiare
+     */
+    private void refreshRents(OwnershipSlot slot) {
+        for (int propertyId : board.rentGroupOf(slot.getPropertyId().intValue())) {
+            OwnershipSlot current = slotsByProperty[propertyId];
+            rents.refresh(board, propertyId, current, current != null ? holdingsOf(current.getOwnerId()) : null);
+        }
+    }
+
+    private void markDirty(PlayerState player) {
+        dirtyPlayers.add(player);
+        dirty = true;
+    }
+
+    private void markDirty(OwnershipSlot slot) {
+        dirtyOwnerships.add(slot);
+        dirty = true;
+    }
+
+    private void remember(SessionEvent event) {
+        if (recentEvents.size() == RECENT_EVENTS) {
+            recentEvents.removeFirst();
+        }
+        recentEvents.addLast(event);
+    }
+
+    private static LongFunction<SessionEvent> ownershipChanged(OwnershipSlot slot, SessionEventType type, long value) {
+        return sequence -> new SessionEvent.OwnershipChanged(sequence, type, slot.getId(), value);
+    }
+
+    /**
+     * Incrementa la versione, accoda l'evento per il journal e registra l'operazione inversa
+     * nella transazione corrente (che scarta anche l'evento)
+     */
+    private void changed(LongFunction<SessionEvent> event, Runnable revert) {
+        SessionEvent recorded = event.apply(++version);
+        pendingEvents.add(recorded);
+        remember(recorded);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        Deque<Runnable> undoLog = (Deque<Runnable>) TransactionSynchronizationManager.getResource(this);
+        if (undoLog == null) {
+            Deque<Runnable> log = new ArrayDeque<>();
+            TransactionSynchronizationManager.bindResource(this, log);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int completionStatus) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(SessionState.this);
+                    if (completionStatus != STATUS_COMMITTED) {
+                        // Annulla in ordine inverso (la deque è usata come stack)
+                        log.forEach(Runnable::run);
+                    }
+                }
+            });
+            undoLog = log;
+        }
+        undoLog.push(() -> {
+            revert.run();
+            // Assente se nel frattempo è già stato scritto nel journal (scarico della sessione)
+            pendingEvents.remove(recorded);
+            recentEvents.removeLastOccurrence(recorded);
+            version--;
+        });
+    }
+}
@@ -0,0 +1,338 @@
+package com.monopoly.server.monopoly.classes.state;
+
+import com.monopoly.server.monopoly.classes.money.Money;
+import com.monopoly.server.monopoly.enums.GameStatus;
+import com.monopoly.server.monopoly.enums.PlayerColor;
+import com.monopoly.server.monopoly.enums.SessionEventType;
+import lombok.Getter;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * Codifica binaria compatta di eventi e snapshot delle sessioni.
+ * Gli interi sono varint (zigzag per i valori con segno), le sequenze di un blocco
+ * sono scritte come differenza dalla precedente. Il primo byte è la versione del formato.
+ */
+public final class SessionStateCodec {
+
+    private static final int FORMAT_VERSION = 1;
+
+    // Valori per codice stabile (non per ordinal(): l'ordine delle costanti può cambiare)
+    private static final SessionEventType[] EVENT_TYPES = byCode(SessionEventType.values(), SessionEventType::getCode);
+    private static final GameStatus[] STATUSES = byCode(GameStatus.values(), GameStatus::getCode);
+    private static final PlayerColor[] COLORS = byCode(PlayerColor.values(), PlayerColor::getCode);
+
+    private SessionStateCodec() {
+    }
+
+    // ===== Eventi =====
+
+    public static byte[] encodeEvents(List<SessionEvent> events) {
+        Writer out = new Writer();
+        out.writeByte(FORMAT_VERSION);
+        out.writeVarLong(events.size());
+        long previousSequence = 0;
+        for (SessionEvent event : events) {
+            out.writeByte(event.getType().getCode());
+            out.writeVarLong(event.getSequence() - previousSequence);
+            previousSequence = event.getSequence();
+            writeEventBody(out, event);
+        }
+        return out.toByteArray();
+    }
+
+    public static List<SessionEvent> decodeEvents(byte[] payload) {
+        Reader in = new Reader(payload);
+        checkFormat(in);
+        int count = (int) in.readVarLong();
+        List<SessionEvent> events = new ArrayList<>(count);
+        long sequence = 0;
+        for (int i = 0; i < count; i++) {
+            SessionEventType type = decode(EVENT_TYPES, in.readByte(), "Tipo di evento");
+            sequence += in.readVarLong();
+            events.add(readEventBody(in, type, sequence));
+        }
+        return events;
+    }
+
+    private static void writeEventBody(Writer out, SessionEvent event) {
+        if (event instanceof SessionEvent.PlayerJoined joined) {
+            out.writeVarLong(joined.getPlayerId());
+            out.writeString(joined.getName());
+            out.writeColor(joined.getColor());
+            out.writeBoolean(joined.isHost());
+            out.writeSignedVarLong(joined.getBalanceCents());
+        } else if (event instanceof SessionEvent.BalanceAdjusted adjusted) {
+            out.writeVarLong(adjusted.getPlayerId());
+            out.writeSignedVarLong(adjusted.getDeltaCents());
+        } else if (event instanceof SessionEvent.StatusChanged statusChanged) {
+            out.writeByte(statusChanged.getStatus().getCode());
+        } else if (event instanceof SessionEvent.OwnershipAdded added) {
+            out.writeVarLong(added.getOwnershipId());
+            out.writeVarLong(added.getPropertyId());
+            out.writeVarLong(added.getOwnerId());
+            out.writeVarLong(added.getHouses());
+            out.writeByte(flags(added.isHasHotel(), added.isMortgaged()));
+            out.writeTimestamp(added.getPurchasedAt());
+        } else if (event instanceof SessionEvent.OwnershipRemoved removed) {
+            out.writeVarLong(removed.getOwnershipId());
+        } else if (event instanceof SessionEvent.OwnershipChanged ownershipChanged) {
+            out.writeVarLong(ownershipChanged.getOwnershipId());
+            out.writeSignedVarLong(ownershipChanged.getValue());
+        } else {
+            throw new IllegalArgumentException("Evento non codificabile: " + event.getType());
+        }
+    }
+
+    private static SessionEvent readEventBody(Reader in, SessionEventType type, long sequence) {
+        switch (type) {
+            case PLAYER_JOINED:
+                return new SessionEvent.PlayerJoined(sequence, in.readVarLong(), in.readString(), in.readColor(),
+                        in.readBoolean(), in.readSignedVarLong());
+            case BALANCE_ADJUSTED:
+                return new SessionEvent.BalanceAdjusted(sequence, in.readVarLong(), in.readSignedVarLong());
+            case STATUS_CHANGED:
+                return new SessionEvent.StatusChanged(sequence, decode(STATUSES, in.readByte(), "Stato"));
+            case OWNERSHIP_ADDED: {
+                long ownershipId = in.readVarLong();
+                long propertyId = in.readVarLong();
+                long ownerId = in.readVarLong();
+                int houses = (int) in.readVarLong();
+                int flags = in.readByte();
+                return new SessionEvent.OwnershipAdded(sequence, ownershipId, propertyId, ownerId, houses,
+                        (flags & 1) != 0, (flags & 2) != 0, in.readTimestamp());
+            }
+            case OWNERSHIP_REMOVED:
+                return new SessionEvent.OwnershipRemoved(sequence, in.readVarLong());
+            default:
+                return new SessionEvent.OwnershipChanged(sequence, type, in.readVarLong(), in.readSignedVarLong());
+        }
+    }
+
+    // ===== Snapshot =====
+
+    /**
+     * Immagine di giocatori e possessi alla versione corrente dello stato
+     * (lo stato della partita resta sulla riga di game_sessions)
+     */
+    public static byte[] encodeSnapshot(SessionState state) {
+        Writer out = new Writer();
+        out.writeByte(FORMAT_VERSION);
+        out.writeVarLong(state.getVersion());
+
+        out.writeVarLong(state.getPlayers().size());
+        for (PlayerState player : state.getPlayers()) {
+            out.writeVarLong(player.getId());
+            out.writeString(player.getName());
+            out.writeColor(player.getColor());
+            out.writeBoolean(player.isHost());
+            out.writeSignedVarLong(player.getBalance().getCents());
+        }
+
+        List<OwnershipSlot> ownerships = state.getOwnerships();
+        out.writeVarLong(ownerships.size());
+        for (OwnershipSlot slot : ownerships) {
+            out.writeVarLong(slot.getId());
+            out.writeVarLong(slot.getPropertyId());
+            out.writeVarLong(slot.getOwnerId());
+            out.writeVarLong(slot.getHouses());
+            out.writeByte(flags(slot.isHasHotel(), slot.isMortgaged()));
+            out.writeTimestamp(slot.getPurchasedAt());
+        }
+        return out.toByteArray();
+    }
+
+    public static Snapshot decodeSnapshot(byte[] payload) {
+        Reader in = new Reader(payload);
+        checkFormat(in);
+        long version = in.readVarLong();
+
+        int playerCount = (int) in.readVarLong();
+        List<PlayerState> players = new ArrayList<>(playerCount);
+        for (int i = 0; i < playerCount; i++) {
+            players.add(new PlayerState(in.readVarLong(), in.readString(), in.readColor(), in.readBoolean(),
+                    Money.ofCents(in.readSignedVarLong())));
+        }
+
+        int ownershipCount = (int) in.readVarLong();
+        List<OwnershipSlot> ownerships = new ArrayList<>(ownershipCount);
+        for (int i = 0; i < ownershipCount; i++) {
+            long id = in.readVarLong();
+            long propertyId = in.readVarLong();
+            long ownerId = in.readVarLong();
+            int houses = (int) in.readVarLong();
+            int flags = in.readByte();
+            ownerships.add(new OwnershipSlot(id, propertyId, ownerId, houses,
+                    (flags & 1) != 0, (flags & 2) != 0, in.readTimestamp()));
+        }
+        return new Snapshot(version, players, ownerships);
+    }
+
+    @Getter
+    public static final class Snapshot {
+        private final long version;
+        private final List<PlayerState> players;
+        private final List<OwnershipSlot> ownerships;
+
+        private Snapshot(long version, List<PlayerState> players, List<OwnershipSlot> ownerships) {
+            this.version = version;
+            this.players = players;
+            this.ownerships = ownerships;
+        }
+    }
+
+    // ===== Primitive =====
+
+    private static int flags(boolean hasHotel, boolean mortgaged) {
+        return (hasHotel ? 1 : 0) | (mortgaged ? 2 : 0);
+    }
+
+    private static void checkFormat(Reader in) {
+        int format = in.readByte();
+        if (format != FORMAT_VERSION) {
+            throw new IllegalStateException("Formato del journal non supportato: " + format);
+        }
+    }
+
+    /**
+     * Stato della partita dal codice stabile (anche per i record di sessione dei segmenti mappati)
+     */
+    public static GameStatus statusOf(int code) {
+        return decode(STATUSES, code, "Stato");
+    }
+
+    private static <E> E[] byCode(E[] values, ToIntFunction<E> code) {
+        int max = 0;
+        for (E value : values) {
+            max = Math.max(max, code.applyAsInt(value));
+        }
+        E[] byCode = Arrays.copyOf(values, max + 1);
+        Arrays.fill(byCode, null);
+        for (E value : values) {
+            if (byCode[code.applyAsInt(value)] != null) {
+                throw new IllegalStateException("Codice ripetuto: " + value + ", " + byCode[code.applyAsInt(value)]);
+            }
+            byCode[code.applyAsInt(value)] = value;
+        }
+        return byCode;
+    }
+
+    private static <E> E decode(E[] byCode, int code, String kind) {
+        E value = code < byCode.length ? byCode[code] : null;
+        if (value == null) {
+            throw new IllegalStateException(kind + " sconosciuto nel journal: " + code);
+        }
+        return value;
+    }
+
+    private static final class Writer {
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(64);
+
+        void writeByte(int value) {
+            buffer.write(value);
+        }
+
+        void writeBoolean(boolean value) {
+            buffer.write(value ? 1 : 0);
+        }
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                buffer.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            buffer.write((int) value);
+        }
+
+        void writeSignedVarLong(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        void writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length);
+            buffer.writeBytes(bytes);
+        }
+
+        // 0 = nessun colore
+        void writeColor(PlayerColor color) {
+            writeByte(color == null ? 0 : color.getCode());
+        }
+
+        // Microsecondi UTC + 1, 0 = null
+        void writeTimestamp(LocalDateTime timestamp) {
+            if (timestamp == null) {
+                writeVarLong(0);
+                return;
+            }
+            long micros = timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + timestamp.getNano() / 1_000;
+            writeSignedVarLong(micros + 1);
+        }
+
+        byte[] toByteArray() {
+            return buffer.toByteArray();
+        }
+    }
+
+    private static final class Reader {
+        private final ByteBuffer buffer;
+
+        Reader(byte[] payload) {
+            this.buffer = ByteBuffer.wrap(payload);
+        }
+
+        int readByte() {
+            return buffer.get() & 0xFF;
+        }
+
+        boolean readBoolean() {
+            return buffer.get() != 0;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            int shift = 0;
+            byte current;
+            do {
+                current = buffer.get();
+                value |= (long) (current & 0x7F) << shift;
+                shift += 7;
+            } while ((current & 0x80) != 0);
+            return value;
+        }
+
+        long readSignedVarLong() {
+            long raw = readVarLong();
+            return (raw >>> 1) ^ -(raw & 1);
+        }
+
+        String readString() {
+            byte[] bytes = new byte[(int) readVarLong()];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        PlayerColor readColor() {
+            int value = readByte();
+            return value == 0 ? null : decode(COLORS, value, "Colore");
+        }
+
+        LocalDateTime readTimestamp() {
+            long value = readSignedVarLong();
+            if (value == 0) {
+                return null;
+            }
+            long micros = value - 1;
+            return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                    (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.monopoly.server.monopoly.configurations;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.activemq.artemis.core.config.Configuration;
+import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
+import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Broker STOMP (Artemis) nel processo, per monopoly.websocket.broker.mode=EMBEDDED.
+ * Il relay di questo nodo si collega a relay-host:relay-port; gli altri nodi in modalità RELAY
+ * puntano allo stesso indirizzo e ricevono così i broadcast di tutti i nodi.
+ */
+@Component
+@ConditionalOnProperty(name = "monopoly.websocket.broker.mode", havingValue = "EMBEDDED")
+public class EmbeddedStompBroker {
+
+    @Value("${monopoly.websocket.broker.embedded-bind:localhost}")
+    private String bindHost;
+
+    @Value("${monopoly.websocket.broker.relay-port:61613}")
+    private int port;
+
+    private EmbeddedActiveMQ server;
+
+    @PostConstruct
+    void start() throws Exception {
+        Path dataDirectory = Files.createTempDirectory("monopoly-broker");
+        Configuration configuration = new ConfigurationImpl()
+                .setPersistenceEnabled(false)
+                .setSecurityEnabled(false)
+                .setJMXManagementEnabled(false)
+                .setBindingsDirectory(dataDirectory.resolve("bindings").toString())
+                .setJournalDirectory(dataDirectory.resolve("journal").toString())
+                .setPagingDirectory(dataDirectory.resolve("paging").toString())
+                .setLargeMessagesDirectory(dataDirectory.resolve("large-messages").toString())
+                .addAcceptorConfiguration("stomp",
+                        "tcp://" + bindHost + ":" + port + "?protocols=STOMP;multicastPrefix=/topic/");
+
+        server = new EmbeddedActiveMQ().setConfiguration(configuration);
+        server.start();
+        System.out.println("✅ Embedded STOMP broker listening on " + bindHost + ":" + port);
+    }
+
+    @PreDestroy
+    void stop() throws Exception {
+        if (server != null) {
+            server.stop();
+        }
+    }
+}
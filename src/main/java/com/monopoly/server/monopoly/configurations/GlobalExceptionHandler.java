@@ -32,12 +32,31 @@ public class GlobalExceptionHandler {
                 .body(new ErrorResponse("UNAUTHORIZED", ex.getMessage()));
     }
 
+    @ExceptionHandler(SessionOwnedElsewhereException.class)
+    public ResponseEntity<ErrorResponse> handleSessionOwnedElsewhere(SessionOwnedElsewhereException ex) {
+        // Sostituita da SessionForwardingFilter con la risposta del nodo proprietario
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(new ErrorResponse("SESSION_OWNED_ELSEWHERE", ex.getMessage()));
+    }
+
+    @ExceptionHandler(SessionLeaseHeldException.class)
+    public ResponseEntity<ErrorResponse> handleSessionLeaseHeld(SessionLeaseHeldException ex) {
+        // Passaggio di consegne in corso: il client può ripetere la richiesta
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(new ErrorResponse("SESSION_LEASE_HELD", ex.getMessage()));
+    }
+
     @ExceptionHandler(PlayerNotFoundException.class)
     public ResponseEntity<ErrorResponse> handlePlayerNotFound(PlayerNotFoundException ex) {
         return ResponseEntity.status(HttpStatus.NOT_FOUND)
                 .body(new ErrorResponse("PLAYER_NOT_FOUND", ex.getMessage()));
     }
 
+    @ExceptionHandler(TradeNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleTradeNotFound(TradeNotFoundException ex) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(new ErrorResponse("TRADE_NOT_FOUND", ex.getMessage()));
+    }
 
     @Data
     public static class ErrorResponse {
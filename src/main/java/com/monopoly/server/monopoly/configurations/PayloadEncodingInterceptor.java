@@ -0,0 +1,216 @@
+package com.monopoly.server.monopoly.configurations;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.monopoly.server.monopoly.enums.PayloadEncoding;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.InvalidMimeTypeException;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Codifica binaria dei frame negoziata per client: SUBSCRIBE con content-type:application/cbor
+ * o application/x-jackson-smile. Il frame JSON viene ricodificato una sola volta per codifica
+ * e condiviso tra gli iscritti; parte come frame binario con content-type
+ * application/octet-stream;format=cbor|smile (il solo tipo che Spring invia come binario).
+ * Solo per le connessioni WebSocket native: su SockJS i frame restano JSON.
+ */
+@Component
+public class PayloadEncodingInterceptor implements ChannelInterceptor, HandshakeInterceptor {
+
+    private static final String BINARY_FRAMES = "binaryFrames";
+
+    private final ObjectReader jsonReader;
+
+    private final Map<PayloadEncoding, ObjectMapper> mappers = new EnumMap<>(PayloadEncoding.class);
+
+    private final Map<PayloadEncoding, MimeType> wireTypes = new EnumMap<>(PayloadEncoding.class);
+
+    // Sessione STOMP -> id sottoscrizione -> codifica binaria richiesta
+    private final ConcurrentHashMap<String, Map<String, PayloadEncoding>> subscriptions = new ConcurrentHashMap<>();
+
+    // Frame già ricodificati, per identità del payload JSON che il broker condivide tra gli iscritti
+    private final Map<PayloadEncoding, Map<byte[], byte[]>> encoded = new EnumMap<>(PayloadEncoding.class);
+
+    private final Map<PayloadEncoding, Counter> sentBytes = new EnumMap<>(PayloadEncoding.class);
+
+    private final Map<PayloadEncoding, Timer> transcodeTime = new EnumMap<>(PayloadEncoding.class);
+
+    public PayloadEncodingInterceptor(ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.jsonReader = objectMapper.readerFor(JsonNode.class)
+                .with(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+        mappers.put(PayloadEncoding.JSON, objectMapper);
+        mappers.put(PayloadEncoding.CBOR, objectMapper.copyWith(new CBORFactory()));
+        mappers.put(PayloadEncoding.SMILE, objectMapper.copyWith(new SmileFactory()));
+
+        for (PayloadEncoding encoding : PayloadEncoding.values()) {
+            String name = encoding.name().toLowerCase();
+            wireTypes.put(encoding, new MimeType(MimeTypeUtils.APPLICATION_OCTET_STREAM, Map.of("format", name)));
+            encoded.put(encoding, new WeakHashMap<>());
+            sentBytes.put(encoding, Counter.builder("monopoly.websocket.payload.bytes")
+                    .description("Byte di payload inviati ai client, per codifica")
+                    .tag("encoding", name)
+                    .register(meterRegistry));
+            transcodeTime.put(encoding, Timer.builder("monopoly.websocket.payload.transcode")
+                    .description("Tempo di ricodifica dei frame JSON")
+                    .tag("encoding", name)
+                    .register(meterRegistry));
+        }
+    }
+
+    public ObjectMapper mapper(PayloadEncoding encoding) {
+        return mappers.get(encoding);
+    }
+
+    // ===== Handshake (solo endpoint nativo) =====
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        attributes.put(BINARY_FRAMES, Boolean.TRUE);
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+    }
+
+    // ===== Canali STOMP =====
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(message.getHeaders());
+        if (type == null) {
+            return message;
+        }
+
+        switch (type) {
+            case SUBSCRIBE -> subscribe(SimpMessageHeaderAccessor.wrap(message));
+            case UNSUBSCRIBE -> unsubscribe(SimpMessageHeaderAccessor.wrap(message));
+            case DISCONNECT -> disconnect(SimpMessageHeaderAccessor.getSessionId(message.getHeaders()));
+            case MESSAGE -> {
+                return encode(message);
+            }
+            default -> {
+            }
+        }
+        return message;
+    }
+
+    private void subscribe(SimpMessageHeaderAccessor accessor) {
+        String contentType = accessor.getFirstNativeHeader("content-type");
+        if (contentType == null || accessor.getSessionId() == null || accessor.getSubscriptionId() == null) {
+            return;
+        }
+
+        PayloadEncoding encoding;
+        try {
+            encoding = PayloadEncoding.of(MimeTypeUtils.parseMimeType(contentType)).orElse(PayloadEncoding.JSON);
+        } catch (InvalidMimeTypeException e) {
+            encoding = PayloadEncoding.JSON;
+        }
+
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        if (encoding == PayloadEncoding.JSON || attributes == null || !attributes.containsKey(BINARY_FRAMES)) {
+            return;
+        }
+
+        subscriptions.computeIfAbsent(accessor.getSessionId(), id -> new ConcurrentHashMap<>())
+                .put(accessor.getSubscriptionId(), encoding);
+        System.out.println("📦 Session " + accessor.getSessionId() + " subscribed to "
+                + accessor.getDestination() + " with " + encoding + " frames");
+    }
+
+    private void unsubscribe(SimpMessageHeaderAccessor accessor) {
+        Map<String, PayloadEncoding> session = accessor.getSessionId() != null
+                ? subscriptions.get(accessor.getSessionId())
+                : null;
+        if (session != null && accessor.getSubscriptionId() != null) {
+            session.remove(accessor.getSubscriptionId());
+        }
+    }
+
+    private void disconnect(String sessionId) {
+        if (sessionId != null) {
+            subscriptions.remove(sessionId);
+        }
+    }
+
+    private PayloadEncoding encodingOf(String sessionId, String subscriptionId) {
+        Map<String, PayloadEncoding> session = sessionId != null ? subscriptions.get(sessionId) : null;
+        return session != null && subscriptionId != null ? session.get(subscriptionId) : null;
+    }
+
+    private Message<?> encode(Message<?> message) {
+        if (!(message.getPayload() instanceof byte[] json)) {
+            return message;
+        }
+
+        PayloadEncoding encoding = encodingOf(SimpMessageHeaderAccessor.getSessionId(message.getHeaders()),
+                SimpMessageHeaderAccessor.getSubscriptionId(message.getHeaders()));
+        MimeType contentType = SimpMessageHeaderAccessor.wrap(message).getContentType();
+        if (encoding == null || (contentType != null && !contentType.equalsTypeAndSubtype(MimeTypeUtils.APPLICATION_JSON))) {
+            sentBytes.get(PayloadEncoding.JSON).increment(json.length);
+            return message;
+        }
+
+        byte[] payload;
+        try {
+            payload = transcode(encoding, json);
+        } catch (IOException e) {
+            System.err.println("❌ Error encoding WebSocket frame as " + encoding + ": " + e.getMessage());
+            sentBytes.get(PayloadEncoding.JSON).increment(json.length);
+            return message;
+        }
+        sentBytes.get(encoding).increment(payload.length);
+
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        accessor.setContentType(wireTypes.get(encoding));
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+
+    private byte[] transcode(PayloadEncoding encoding, byte[] json) throws IOException {
+        Map<byte[], byte[]> cache = encoded.get(encoding);
+        synchronized (cache) {
+            byte[] payload = cache.get(json);
+            if (payload != null) {
+                return payload;
+            }
+        }
+
+        long start = System.nanoTime();
+        JsonNode tree = jsonReader.readValue(json);
+        byte[] payload = mappers.get(encoding).writeValueAsBytes(tree);
+        transcodeTime.get(encoding).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        synchronized (cache) {
+            cache.put(json, payload);
+        }
+        return payload;
+    }
+}
@@ -0,0 +1,75 @@
+package com.monopoly.server.monopoly.configurations;
+
+import com.monopoly.server.monopoly.services.SessionForwarder;
+import com.monopoly.server.monopoly.services.SessionShardRouter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingRequestWrapper;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+
+/**
+ * Con lo sharding attivo, le richieste /api per una sessione di un altro nodo vengono inoltrate
+ * al proprietario. La richiesta viene prima gestita qui: il comando si ferma al controllo del
+ * proprietario (SessionShardRouter.requireLocal), la risposta locale viene scartata e sostituita
+ * con quella del nodo proprietario.
+ */
+@Component
+public class SessionForwardingFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private SessionShardRouter sessionShardRouter;
+
+    @Autowired
+    private SessionForwarder sessionForwarder;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !sessionShardRouter.isEnabled()
+                || !request.getRequestURI().startsWith("/api/")
+                || request.getHeader(SessionForwarder.FORWARDED_HEADER) != null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ContentCachingRequestWrapper cachedRequest = new ContentCachingRequestWrapper(request);
+        ContentCachingResponseWrapper cachedResponse = new ContentCachingResponseWrapper(response);
+        try {
+            chain.doFilter(cachedRequest, cachedResponse);
+
+            Object owner = cachedRequest.getAttribute(SessionShardRouter.FORWARD_TO_ATTRIBUTE);
+            if (owner != null) {
+                forward(cachedRequest, cachedResponse, owner.toString());
+            }
+        } finally {
+            cachedResponse.copyBodyToResponse();
+        }
+    }
+
+    private void forward(ContentCachingRequestWrapper request, ContentCachingResponseWrapper response,
+                         String owner) throws IOException {
+        String pathAndQuery = request.getRequestURI()
+                + (request.getQueryString() != null ? "?" + request.getQueryString() : "");
+
+        response.resetBuffer();
+        try {
+            HttpResponse<byte[]> forwarded = sessionForwarder.forward(owner, request.getMethod(), pathAndQuery,
+                    request.getContentType(), request.getContentAsByteArray());
+            response.setStatus(forwarded.statusCode());
+            forwarded.headers().firstValue("Content-Type").ifPresent(response::setContentType);
+            response.getOutputStream().write(forwarded.body());
+        } catch (IOException e) {
+            System.err.println("❌ Error forwarding " + pathAndQuery + " to " + owner + ": " + e.getMessage());
+            response.setStatus(HttpStatus.BAD_GATEWAY.value());
+        }
+    }
+}
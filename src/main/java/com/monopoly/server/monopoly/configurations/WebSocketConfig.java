@@ -1,30 +1,93 @@
 package com.monopoly.server.monopoly.configurations;
 
+import com.monopoly.server.monopoly.enums.BrokerMode;
+import com.monopoly.server.monopoly.enums.PayloadEncoding;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
 
+import java.util.List;
+
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+
+    @Autowired
+    private PayloadEncodingInterceptor payloadEncodingInterceptor;
+
+    @Value("${monopoly.websocket.broker.mode:SIMPLE}")
+    private BrokerMode brokerMode;
+
+    @Value("${monopoly.websocket.broker.relay-host:localhost}")
+    private String relayHost;
+
+    @Value("${monopoly.websocket.broker.relay-port:61613}")
+    private int relayPort;
+
+    @Value("${monopoly.websocket.broker.login:guest}")
+    private String login;
+
+    @Value("${monopoly.websocket.broker.passcode:guest}")
+    private String passcode;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        // ✅ Configurazione semplice che funziona sia locale che Railway
-        config.enableSimpleBroker("/topic");
+        if (brokerMode == BrokerMode.SIMPLE) {
+            // ✅ Configurazione semplice che funziona sia locale che Railway
+            config.enableSimpleBroker("/topic");
+        } else {
+            // ✅ Relay verso un broker STOMP condiviso: i broadcast raggiungono gli iscritti di ogni nodo
+            config.enableStompBrokerRelay("/topic")
+                    .setRelayHost(brokerMode == BrokerMode.EMBEDDED ? "localhost" : relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(login)
+                    .setClientPasscode(passcode)
+                    .setSystemLogin(login)
+                    .setSystemPasscode(passcode);
+        }
         config.setApplicationDestinationPrefixes("/app");
     }
 
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
+        // ✅ I comandi STOMP di una stessa connessione vengono gestiti nell'ordine di arrivo
+        registry.setPreserveReceiveOrder(true);
+
         // ✅ Endpoint con SockJS per compatibilità browser
         registry.addEndpoint("/ws")
                 .setAllowedOriginPatterns("*")
                 .withSockJS();
 
-        // ✅ Endpoint WebSocket nativo per connessioni dirette
+        // ✅ Endpoint WebSocket nativo per connessioni dirette (frame binari CBOR/Smile su richiesta)
         registry.addEndpoint("/ws")
-                .setAllowedOriginPatterns("*");
+                .setAllowedOriginPatterns("*")
+                .addInterceptors(payloadEncodingInterceptor);
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(payloadEncodingInterceptor);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.interceptors(payloadEncodingInterceptor);
+    }
+
+    @Override
+    public boolean configureMessageConverters(List<MessageConverter> messageConverters) {
+        // ✅ CBOR e Smile per i messaggi con content-type binario, in aggiunta ai convertitori predefiniti
+        for (PayloadEncoding encoding : List.of(PayloadEncoding.CBOR, PayloadEncoding.SMILE)) {
+            messageConverters.add(new MappingJackson2MessageConverter(
+                    payloadEncodingInterceptor.mapper(encoding), encoding.getMimeType()));
+        }
+        return true;
     }
 }
\ No newline at end of file
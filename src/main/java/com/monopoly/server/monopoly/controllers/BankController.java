@@ -6,6 +6,7 @@ import com.monopoly.server.monopoly.exceptions.*;
 import com.monopoly.server.monopoly.exceptions.InvalidTransactionException;
 import com.monopoly.server.monopoly.exceptions.PlayerNotFoundException;
 import com.monopoly.server.monopoly.services.BankService;
+import com.monopoly.server.monopoly.services.SessionCommandExecutor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -20,15 +21,19 @@ public class BankController {
     @Autowired
     private BankService bankService;
 
+    @Autowired
+    private SessionCommandExecutor sessionCommandExecutor;
+
     @PostMapping("/transfer")
     public ResponseEntity<TransactionDto> transferMoney(@RequestBody TransferRequest request) {
         try {
-            TransactionDto transaction = bankService.transferMoney(
-                    request.getFromPlayerId(),
-                    request.getToPlayerId(),
-                    request.getAmount(),
-                    request.getDescription()
-            );
+            TransactionDto transaction = sessionCommandExecutor.executeForPlayer(request.getFromPlayerId(),
+                    () -> bankService.transferMoney(
+                            request.getFromPlayerId(),
+                            request.getToPlayerId(),
+                            request.getAmount(),
+                            request.getDescription()
+                    ));
             return ResponseEntity.ok(transaction);
         } catch (PlayerNotFoundException e) {
             return ResponseEntity.notFound().build();
@@ -40,11 +45,12 @@ public class BankController {
     @PostMapping("/pay-to-bank")
     public ResponseEntity<TransactionDto> payToBank(@RequestBody BankPaymentRequest request) {
         try {
-            TransactionDto transaction = bankService.payToBank(
-                    request.getPlayerId(),
-                    request.getAmount(),
-                    request.getDescription()
-            );
+            TransactionDto transaction = sessionCommandExecutor.executeForPlayer(request.getPlayerId(),
+                    () -> bankService.payToBank(
+                            request.getPlayerId(),
+                            request.getAmount(),
+                            request.getDescription()
+                    ));
             return ResponseEntity.ok(transaction);
         } catch (PlayerNotFoundException e) {
             return ResponseEntity.notFound().build();
@@ -56,11 +62,12 @@ public class BankController {
     @PostMapping("/pay-from-bank")
     public ResponseEntity<TransactionDto> payFromBank(@RequestBody BankPaymentRequest request) {
         try {
-            TransactionDto transaction = bankService.payFromBank(
-                    request.getPlayerId(),
-                    request.getAmount(),
-                    request.getDescription()
-            );
+            TransactionDto transaction = sessionCommandExecutor.executeForPlayer(request.getPlayerId(),
+                    () -> bankService.payFromBank(
+                            request.getPlayerId(),
+                            request.getAmount(),
+                            request.getDescription()
+                    ));
             return ResponseEntity.ok(transaction);
         } catch (PlayerNotFoundException e) {
             return ResponseEntity.notFound().build();
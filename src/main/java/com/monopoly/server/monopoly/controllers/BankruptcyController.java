@@ -1,8 +1,10 @@
 package com.monopoly.server.monopoly.controllers;
 
+import com.monopoly.server.monopoly.classes.money.Money;
 import com.monopoly.server.monopoly.classes.request.BankruptcyRequest;
 import com.monopoly.server.monopoly.exceptions.PlayerNotFoundException;
 import com.monopoly.server.monopoly.services.BankruptcyService;
+import com.monopoly.server.monopoly.services.SessionCommandExecutor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -18,16 +20,20 @@ public class BankruptcyController {
     @Autowired
     private BankruptcyService bankruptcyService;
 
+    @Autowired
+    private SessionCommandExecutor sessionCommandExecutor;
+
     /**
      * Calcola il valore di liquidazione di un giocatore
      */
     @GetMapping("/liquidation-value/{playerId}")
-    public ResponseEntity<BigDecimal> calculateLiquidationValue(@PathVariable Long playerId) {
+    public ResponseEntity<Money> calculateLiquidationValue(@PathVariable Long playerId) {
         try {
             System.out.println("=== CALCULATE LIQUIDATION VALUE ===");
             System.out.println("Player ID: " + playerId);
 
-            BigDecimal value = bankruptcyService.calculateLiquidationValue(playerId);
+            Money value = sessionCommandExecutor.executeForPlayer(playerId,
+                    () -> bankruptcyService.calculateLiquidationValue(playerId));
             System.out.println("Liquidation value: " + value);
             return ResponseEntity.ok(value);
         } catch (PlayerNotFoundException e) {
@@ -44,12 +50,13 @@ public class BankruptcyController {
      * Calcola il patrimonio netto di un giocatore
      */
     @GetMapping("/net-worth/{playerId}")
-    public ResponseEntity<BigDecimal> calculateNetWorth(@PathVariable Long playerId) {
+    public ResponseEntity<Money> calculateNetWorth(@PathVariable Long playerId) {
         try {
             System.out.println("=== CALCULATE NET WORTH ===");
             System.out.println("Player ID: " + playerId);
 
-            BigDecimal netWorth = bankruptcyService.calculatePlayerNetWorth(playerId);
+            Money netWorth = sessionCommandExecutor.executeForPlayer(playerId,
+                    () -> bankruptcyService.calculatePlayerNetWorth(playerId));
             System.out.println("Net worth: " + netWorth);
             return ResponseEntity.ok(netWorth);
         } catch (PlayerNotFoundException e) {
@@ -71,7 +78,8 @@ public class BankruptcyController {
             System.out.println("=== LIQUIDATE ASSETS ===");
             System.out.println("Player ID: " + playerId);
 
-            BigDecimal liquidatedAmount = bankruptcyService.liquidatePlayerAssets(playerId);
+            Money liquidatedAmount = sessionCommandExecutor.executeForPlayer(playerId,
+                    () -> bankruptcyService.liquidatePlayerAssets(playerId));
             System.out.println("Liquidated amount: " + liquidatedAmount);
 
             return ResponseEntity.ok(Map.of(
@@ -98,10 +106,11 @@ public class BankruptcyController {
             System.out.println("Bankrupt Player ID: " + request.getBankruptPlayerId());
             System.out.println("Creditor Player ID: " + request.getCreditorPlayerId());
 
-            bankruptcyService.declareBankruptcy(
-                    request.getBankruptPlayerId(),
-                    request.getCreditorPlayerId()
-            );
+            sessionCommandExecutor.executeForPlayer(request.getBankruptPlayerId(),
+                    () -> bankruptcyService.declareBankruptcy(
+                            request.getBankruptPlayerId(),
+                            request.getCreditorPlayerId()
+                    ));
 
             String message = request.getCreditorPlayerId() != null ?
                     "Proprietà trasferite al creditore" :
@@ -132,14 +141,17 @@ public class BankruptcyController {
             System.out.println("=== CHECK BANKRUPTCY ===");
             System.out.println("Player ID: " + playerId + ", Debt: " + debtAmount);
 
-            boolean isBankrupt = bankruptcyService.isPlayerBankrupt(playerId, debtAmount);
-            BigDecimal liquidationValue = bankruptcyService.calculateLiquidationValue(playerId);
+            Money debt = Money.of(debtAmount);
+            boolean isBankrupt = sessionCommandExecutor.executeForPlayer(playerId,
+                    () -> bankruptcyService.isPlayerBankrupt(playerId, debt));
+            Money liquidationValue = sessionCommandExecutor.executeForPlayer(playerId,
+                    () -> bankruptcyService.calculateLiquidationValue(playerId));
 
             return ResponseEntity.ok(Map.of(
                     "isBankrupt", isBankrupt,
                     "liquidationValue", liquidationValue,
-                    "debtAmount", debtAmount,
-                    "shortfall", isBankrupt ? debtAmount.subtract(liquidationValue) : BigDecimal.ZERO
+                    "debtAmount", debt,
+                    "shortfall", isBankrupt ? debt.minus(liquidationValue) : Money.ZERO
             ));
         } catch (PlayerNotFoundException e) {
             System.err.println("Player not found: " + e.getMessage());
@@ -0,0 +1,434 @@
+package com.monopoly.server.monopoly.controllers;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.monopoly.server.monopoly.classes.dto.WebSocketMessage;
+import com.monopoly.server.monopoly.classes.request.BankPaymentRequest;
+import com.monopoly.server.monopoly.classes.request.BankruptcyRequest;
+import com.monopoly.server.monopoly.classes.request.CustomPurchaseRequest;
+import com.monopoly.server.monopoly.classes.request.MultipleTransferRequest;
+import com.monopoly.server.monopoly.classes.request.PayRentRequest;
+import com.monopoly.server.monopoly.classes.request.TradeProposalRequest;
+import com.monopoly.server.monopoly.classes.request.TransferPropertyRequest;
+import com.monopoly.server.monopoly.classes.request.TransferRequest;
+import com.monopoly.server.monopoly.exceptions.*;
+import com.monopoly.server.monopoly.services.BankService;
+import com.monopoly.server.monopoly.services.BankruptcyService;
+import com.monopoly.server.monopoly.services.PropertyService;
+import com.monopoly.server.monopoly.services.SessionCommandExecutor;
+import com.monopoly.server.monopoly.services.SessionForwarder;
+import com.monopoly.server.monopoly.services.TradeService;
+import com.monopoly.server.monopoly.services.WebSocketService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Controller;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Azioni di gioco via STOMP, speculari alle API REST di banca, proprietà, scambi e bancarotta.
+ * Il client invia a /app/session/{sessionCode}/player/{playerId}/... con l'header correlation-id
+ * e riceve l'esito su /topic/session/{sessionCode}/player/{playerId} (COMMAND_RESULT o COMMAND_ERROR
+ * con lo stesso correlationId). Gli aggiornamenti per la sessione restano i soliti broadcast.
+ * Se la sessione è di un altro nodo il comando viene inoltrato all'API REST equivalente del proprietario.
+ * Il giocatore o la proprietà su cui agisce il comando devono appartenere a {sessionCode}.
+ */
+@Controller
+@MessageMapping("/session/{sessionCode}/player/{playerId}")
+public class GameCommandController {
+
+    public static final String CORRELATION_ID = "correlation-id";
+    public static final String COMMAND_RESULT = "COMMAND_RESULT";
+    public static final String COMMAND_ERROR = "COMMAND_ERROR";
+
+    @Autowired
+    private BankService bankService;
+
+    @Autowired
+    private PropertyService propertyService;
+
+    @Autowired
+    private BankruptcyService bankruptcyService;
+
+    @Autowired
+    private TradeService tradeService;
+
+    @Autowired
+    private SessionCommandExecutor sessionCommandExecutor;
+
+    @Autowired
+    private WebSocketService webSocketService;
+
+    @Autowired
+    private SessionForwarder sessionForwarder;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // ===== Banca =====
+
+    @MessageMapping("/bank/transfer")
+    public void transferMoney(@DestinationVariable String sessionCode, @DestinationVariable Long playerId,
+                              @Header(name = CORRELATION_ID, required = false) String correlationId,
+                              @Payload TransferRequest request) {
+        reply(sessionCode, playerId, correlationId,
+                "/api/bank/transfer", request,
+                () -> sessionCommandExecutor.executeForPlayerAsync(sessionCode, request.getFromPlayerId(),
+                        () -> bankService.transferMoney(
+                                request.getFromPlayerId(),
+                                request.getToPlayerId(),
+                                request.getAmount(),
+                                request.getDescription()
+                        )));
+    }
+
+    @MessageMapping("/bank/pay-to-bank")
+    public void payToBank(@DestinationVariable String sessionCode, @DestinationVariable Long playerId,
+                          @Header(name = CORRELATION_ID, required = false) String correlationId,
+                          @Payload BankPaymentRequest request) {
+        reply(sessionCode, playerId, correlationId,
+                "/api/bank/pay-to-bank", request,
+                () -> sessionCommandExecutor.executeForPlayerAsync(sessionCode, request.getPlayerId(),
+                        () -> bankService.payToBank(
+                                request.getPlayerId(),
+                                request.getAmount(),
+                                request.getDescription()
+                        )));
+    }
+
+    @MessageMapping("/bank/pay-from-bank")
+    public void payFromBank(@DestinationVariable String sessionCode, @DestinationVariable Long playerId,
+                            @Header(name = CORRELATION_ID, required = false) String correlationId,
+                            @Payload BankPaymentRequest request) {
+        reply(sessionCode, playerId, correlationId,
+                "/api/bank/pay-from-bank", request,
+                () -> sessionCommandExecutor.executeForPlayerAsync(sessionCode, request.getPlayerId(),
+                        () -> bankService.payFromBank(
+                                request.getPlayerId(),
+                                request.getAmount(),
+                                request.getDescription()
+                        )));
+    }
+
+    // ===== Proprietà =====
+
+    @MessageMapping("/property/{propertyId}/purchase")
+    public void purchaseProperty(@DestinationVariable String sessionCode, @DestinationVariable Long playerId,
+                                 @DestinationVariable Long propertyId,
+                                 @Header(name = CORRELATION_ID, required = false) String correlationId) {
+        reply(sessionCode, playerId, correlationId,
+                "/api/properties/" + propertyId + "/purchase?playerId=" + playerId, null,
+                () -> sessionCommandExecutor.executeForPlayerAsync(sessionCode, playerId,
+                        () -> propertyService.purchaseProperty(playerId, propertyId)));
+    }
+
+    @MessageMapping("/property/{propertyId}/purchase-custom")
+    public void purchasePropertyCustomPrice(@DestinationVariable String sessionCode, @DestinationVariable Long playerId,
+                                            @DestinationVariable Long propertyId,
+                                            @Header(name = CORRELATION_ID, required = false) String correlationId,
+                                            @Payload CustomPurchaseRequest request) {
+        reply(sessionCode, playerId, correlationId,
+                "/api/properties/" + propertyId + "/purchase-custom", request,
+                () -> sessionCommandExecutor.executeForPlayerAsync(sessionCode, request.getPlayerId(),
+                        () -> propertyService.purchasePropertyCustomPrice(
+                                request.getPlayerId(),
+                                propertyId,
+                                request.getCustomPrice()
+                        )));
+    }
+
+    @MessageMapping("/property/{propertyId}/pay-rent")
+    public void payRent(@DestinationVariable String sessionCode, @DestinationVariable Long playerId,
+                        @DestinationVariable Long propertyId,
+                        @Header(name = CORRELATION_ID, required = false) String correlationId,
+                        @Payload PayRentRequest request) {
+        reply(sessionCode, playerId, correlationId,
+                "/api/properties/" + propertyId + "/pay-rent", request,
+                () -> sessionCommandExecutor.executeForPlayerAsync(sessionCode, request.getTenantPlayerId(),
+                        () -> propertyService.payRent(
+                                propertyId,
+                                request.getTenantPlayerId(),
+                                request.getDiceRoll()
+                        )));
+    }
+
+    @MessageMapping("/property/transfer-multiple")
+    public void transferMultipleProperties(@DestinationVariable String sessionCode, @DestinationVariable Long playerId,
+                                           @Header(name = CORRELATION_ID, required = false) String correlationId,
+                                           @Payload MultipleTransferRequest request) {
+        reply(sessionCode, playerId, correlationId,
+                "/api/properties/transfer-multiple", request,
+                () -> sessionCommandExecutor.executeForPlayerAsync(sessionCode, request.getNewOwnerId(),
+                        () -> propertyService.transferMultipleProperties(
+                                request.getOwnershipIds(),
+                                request.getNewOwnerId(),
+                                request.getCompensationAmount()
+                        )));
+    }
+
+    @MessageMapping("/ownership/{ownershipId}/transfer")
+    public void transferProperty(@DestinationVariable String sessionCode, @DestinationVariable Long playerId,
+                                 @DestinationVariable Long ownershipId,
+                                 @Header(name = CORRELATION_ID, required = false) String correlationId,
+                                 @Payload TransferPropertyRequest request) {
+        reply(sessionCode, playerId, correlationId,
+                "/api/properties/ownership/" + ownershipId + "/transfer", request,
+                () -> sessionCommandExecutor.executeForOwnershipAsync(sessionCode, ownershipId,
+                        () -> propertyService.transferProperty(
+                                ownershipId,
+                                request.getNewOwnerId(),
+                                request.getPrice()
+                        )));
+    }
+
+    @MessageMapping("/ownership/{ownershipId}/mortgage")
+    public void mortgageProperty(@DestinationVariable String sessionCode, @DestinationVariable Long playerId,
+                                 @DestinationVariable Long ownershipId,
+                                 @Header(name = CORRELATION_ID, required = false) String correlationId) {
+        reply(sessionCode, playerId, correlationId,
+                "/api/properties/ownership/" + ownershipId + "/mortgage", null,
+                () -> sessionCommandExecutor.executeForOwnershipAsync(sessionCode, ownershipId,
+                        () -> propertyService.mortgageProperty(ownershipId)));
+    }
+
+    @MessageMapping("/ownership/{ownershipId}/redeem")
+    public void redeemProperty(@DestinationVariable String sessionCode, @DestinationVariable Long playerId,
+                               @DestinationVariable Long ownershipId,
+                               @Header(name = CORRELATION_ID, required = false) String correlationId) {
+        reply(sessionCode, playerId, correlationId,
+                "/api/properties/ownership/" + ownershipId + "/redeem", null,
+                () -> sessionCommandExecutor.executeForOwnershipAsync(sessionCode, ownershipId,
+                        () -> propertyService.redeemProperty(ownershipId)));
+    }
+
+    @MessageMapping("/ownership/{ownershipId}/build-house")
+    public void buildHouse(@DestinationVariable String sessionCode, @DestinationVariable Long playerId,
+                           @DestinationVariable Long ownershipId,
+                           @Header(name = CORRELATION_ID, required = false) String correlationId) {
+        reply(sessionCode, playerId, correlationId,
+                "/api/properties/ownership/" + ownershipId + "/build-house", null,
+                () -> sessionCommandExecutor.executeForOwnershipAsync(sessionCode, ownershipId,
+                        () -> propertyService.buildHouse(ownershipId)));
+    }
+
+    @MessageMapping("/ownership/{ownershipId}/build-hotel")
+    public void buildHotel(@DestinationVariable String sessionCode, @DestinationVariable Long playerId,
+                           @DestinationVariable Long ownershipId,
+                           @Header(name = CORRELATION_ID, required = false) String correlationId) {
+        reply(sessionCode, playerId, correlationId,
+                "/api/properties/ownership/" + ownershipId + "/build-hotel", null,
+                () -> sessionCommandExecutor.executeForOwnershipAsync(sessionCode, ownershipId,
+                        () -> propertyService.buildHotel(ownershipId)));
+    }
+
+    @MessageMapping("/ownership/{ownershipId}/sell-house")
+    public void sellHouse(@DestinationVariable String sessionCode, @DestinationVariable Long playerId,
+                          @DestinationVariable Long ownershipId,
+                          @Header(name = CORRELATION_ID, required = false) String correlationId) {
+        reply(sessionCode, playerId, correlationId,
+                "/api/properties/ownership/" + ownershipId + "/sell-house", null,
+                () -> sessionCommandExecutor.executeForOwnershipAsync(sessionCode, ownershipId,
+                        () -> propertyService.sellHouse(ownershipId)));
+    }
+
+    @MessageMapping("/ownership/{ownershipId}/sell-hotel")
+    public void sellHotel(@DestinationVariable String sessionCode, @DestinationVariable Long playerId,
+                          @DestinationVariable Long ownershipId,
+                          @Header(name = CORRELATION_ID, required = false) String correlationId) {
+        reply(sessionCode, playerId, correlationId,
+                "/api/properties/ownership/" + ownershipId + "/sell-hotel", null,
+                () -> sessionCommandExecutor.executeForOwnershipAsync(sessionCode, ownershipId,
+                        () -> propertyService.sellHotel(ownershipId)));
+    }
+
+    // ===== Bancarotta =====
+
+    @MessageMapping("/bankruptcy/liquidate")
+    public void liquidateAssets(@DestinationVariable String sessionCode, @DestinationVariable Long playerId,
+                                @Header(name = CORRELATION_ID, required = false) String correlationId) {
+        reply(sessionCode, playerId, correlationId,
+                "/api/bankruptcy/liquidate/" + playerId, null,
+                () -> sessionCommandExecutor.executeForPlayerAsync(sessionCode, playerId,
+                        () -> bankruptcyService.liquidatePlayerAssets(playerId)
+                ).thenApply(liquidatedAmount -> Map.of(
+                        "liquidatedAmount", liquidatedAmount,
+                        "message", "Asset liquidati con successo"
+                )));
+    }
+
+    @MessageMapping("/bankruptcy/declare")
+    public void declareBankruptcy(@DestinationVariable String sessionCode, @DestinationVariable Long playerId,
+                                  @Header(name = CORRELATION_ID, required = false) String correlationId,
+                                  @Payload BankruptcyRequest request) {
+        reply(sessionCode, playerId, correlationId,
+                "/api/bankruptcy/declare", request,
+                () -> sessionCommandExecutor.executeForPlayerAsync(sessionCode, request.getBankruptPlayerId(), () -> {
+                    bankruptcyService.declareBankruptcy(
+                            request.getBankruptPlayerId(),
+                            request.getCreditorPlayerId()
+                    );
+                    return Map.of(
+                            "status", "SUCCESS",
+                            "message", request.getCreditorPlayerId() != null ?
+                                    "Proprietà trasferite al creditore" :
+                                    "Proprietà liquidate alla Banca"
+                    );
+                }));
+    }
+
+    // ===== Scambi =====
+
+    @MessageMapping("/trade/propose")
+    public void proposeTrade(@DestinationVariable String sessionCode, @DestinationVariable Long playerId,
+                             @Header(name = CORRELATION_ID, required = false) String correlationId,
+                             @Payload TradeProposalRequest request) {
+        reply(sessionCode, playerId, correlationId,
+                "/api/sessions/" + sessionCode + "/trades", request,
+                () -> sessionCommandExecutor.executeAsync(sessionCode,
+                        () -> tradeService.propose(sessionCode, request)));
+    }
+
+    @MessageMapping("/trade/{tradeId}/accept")
+    public void acceptTrade(@DestinationVariable String sessionCode, @DestinationVariable Long playerId,
+                            @DestinationVariable String tradeId,
+                            @Header(name = CORRELATION_ID, required = false) String correlationId) {
+        reply(sessionCode, playerId, correlationId,
+                "/api/sessions/" + sessionCode + "/trades/" + tradeId + "/accept?playerId=" + playerId, null,
+                () -> sessionCommandExecutor.executeAsync(sessionCode,
+                        () -> tradeService.accept(sessionCode, tradeId, playerId)));
+    }
+
+    @MessageMapping("/trade/{tradeId}/reject")
+    public void rejectTrade(@DestinationVariable String sessionCode, @DestinationVariable Long playerId,
+                            @DestinationVariable String tradeId,
+                            @Header(name = CORRELATION_ID, required = false) String correlationId) {
+        reply(sessionCode, playerId, correlationId,
+                "/api/sessions/" + sessionCode + "/trades/" + tradeId + "/reject?playerId=" + playerId, null,
+                () -> sessionCommandExecutor.executeAsync(sessionCode,
+                        () -> tradeService.reject(sessionCode, tradeId, playerId)));
+    }
+
+    @MessageMapping("/trade/{tradeId}/cancel")
+    public void cancelTrade(@DestinationVariable String sessionCode, @DestinationVariable Long playerId,
+                            @DestinationVariable String tradeId,
+                            @Header(name = CORRELATION_ID, required = false) String correlationId) {
+        reply(sessionCode, playerId, correlationId,
+                "/api/sessions/" + sessionCode + "/trades/" + tradeId + "/cancel?playerId=" + playerId, null,
+                () -> sessionCommandExecutor.executeAsync(sessionCode,
+                        () -> tradeService.cancel(sessionCode, tradeId, playerId)));
+    }
+
+    /**
+     * Accoda il comando e invia l'esito sulla coda del giocatore quando è pronto, con gli stessi esiti
+     * delle API REST: il thread del canale STOMP non resta in attesa del comando né dell'inoltro
+     */
+    private void reply(String sessionCode, Long playerId, String correlationId,
+                       String restPath, Object body, Supplier<CompletableFuture<?>> command) {
+        System.out.println("=== STOMP COMMAND " + restPath + " === Session: " + sessionCode
+                + ", Player ID: " + playerId + ", Correlation ID: " + correlationId);
+
+        CompletableFuture<?> result;
+        try {
+            result = command.get();
+        } catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+
+        result.whenComplete((value, error) -> {
+            Throwable cause = causeOf(error);
+            if (cause instanceof SessionOwnedElsewhereException e) {
+                forward(sessionCode, e.getOwnerUrl(), restPath, body)
+                        .thenAccept(reply -> send(sessionCode, playerId, correlationId, reply));
+            } else {
+                send(sessionCode, playerId, correlationId, cause == null
+                        ? new WebSocketMessage(COMMAND_RESULT, sessionCode, value)
+                        : failure(sessionCode, restPath, cause));
+            }
+        });
+    }
+
+    private void send(String sessionCode, Long playerId, String correlationId, WebSocketMessage reply) {
+        reply.setCorrelationId(correlationId);
+        webSocketService.sendToPlayer(sessionCode, playerId, reply);
+    }
+
+    private WebSocketMessage failure(String sessionCode, String restPath, Throwable e) {
+        if (e instanceof PlayerNotFoundException || e instanceof PropertyNotFoundException
+                || e instanceof SessionNotFoundException || e instanceof TradeNotFoundException) {
+            System.err.println("Not found error: " + e.getMessage());
+            return error(sessionCode, "NOT_FOUND", e);
+        }
+        if (e instanceof UnauthorizedException) {
+            System.err.println("Unauthorized: " + e.getMessage());
+            return error(sessionCode, "FORBIDDEN", e);
+        }
+        if (e instanceof InvalidTransactionException || e instanceof InsufficientFundsException
+                || e instanceof PropertyAlreadyOwnedException || e instanceof InvalidPropertyActionException
+                || e instanceof IllegalArgumentException) {
+            System.err.println("Bad request error: " + e.getMessage());
+            return error(sessionCode, "BAD_REQUEST", e);
+        }
+        if (e instanceof SessionLeaseHeldException) {
+            System.err.println("Session unavailable: " + e.getMessage());
+            return error(sessionCode, "UNAVAILABLE", e);
+        }
+        System.err.println("Unexpected error in STOMP command " + restPath + ": " + e.getMessage());
+        e.printStackTrace();
+        return error(sessionCode, "ERROR", e);
+    }
+
+    /**
+     * Esegue il comando sul nodo proprietario tramite l'API REST e ne traduce la risposta
+     */
+    private CompletableFuture<WebSocketMessage> forward(String sessionCode, String ownerUrl, String restPath, Object body) {
+        byte[] payload;
+        try {
+            payload = body != null ? objectMapper.writeValueAsBytes(body) : null;
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.completedFuture(error(sessionCode, "ERROR", e));
+        }
+
+        return sessionForwarder.forwardAsync(ownerUrl, "POST", restPath, MediaType.APPLICATION_JSON_VALUE, payload)
+                .thenApply(response -> {
+                    String responseBody = new String(response.body(), StandardCharsets.UTF_8);
+                    return switch (response.statusCode()) {
+                        case 200 -> new WebSocketMessage(COMMAND_RESULT, sessionCode,
+                                responseBody.isEmpty() ? null : new RawValue(responseBody));
+                        case 404 -> error(sessionCode, "NOT_FOUND", responseBody);
+                        case 400 -> error(sessionCode, "BAD_REQUEST", responseBody);
+                        case 403 -> error(sessionCode, "FORBIDDEN", responseBody);
+                        default -> error(sessionCode, "ERROR", responseBody);
+                    };
+                })
+                .exceptionally(error -> {
+                    Throwable cause = causeOf(error);
+                    System.err.println("❌ Error forwarding STOMP command " + restPath + " to " + ownerUrl + ": " + cause.getMessage());
+                    return error(sessionCode, "ERROR", cause);
+                });
+    }
+
+    private static Throwable causeOf(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    private WebSocketMessage error(String sessionCode, String status, Throwable e) {
+        return error(sessionCode, status, Objects.toString(e.getMessage(), ""));
+    }
+
+    private WebSocketMessage error(String sessionCode, String status, String message) {
+        return new WebSocketMessage(COMMAND_ERROR, sessionCode, Map.of(
+                "status", status,
+                "message", message
+        ));
+    }
+}
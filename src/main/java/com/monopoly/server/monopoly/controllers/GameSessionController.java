@@ -1,12 +1,21 @@
 package com.monopoly.server.monopoly.controllers;
 
 import com.monopoly.server.monopoly.classes.dto.GameSessionDto;
+import com.monopoly.server.monopoly.classes.dto.GameSnapshotDto;
+import com.monopoly.server.monopoly.classes.dto.ReplayDto;
+import com.monopoly.server.monopoly.classes.dto.SessionDeltaDto;
 import com.monopoly.server.monopoly.classes.request.CreateSessionRequest;
 import com.monopoly.server.monopoly.classes.request.JoinSessionRequest;
 import com.monopoly.server.monopoly.classes.request.StartGameRequest;
 import com.monopoly.server.monopoly.exceptions.*;
 import com.monopoly.server.monopoly.services.GameSessionService;
+import com.monopoly.server.monopoly.services.GameSnapshotService;
+import com.monopoly.server.monopoly.services.SessionCommandExecutor;
+import com.monopoly.server.monopoly.services.SessionDeltaService;
+import com.monopoly.server.monopoly.services.SessionShardRouter;
+import com.monopoly.server.monopoly.services.WebSocketService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -19,6 +28,21 @@ public class GameSessionController {
     @Autowired
     private GameSessionService gameSessionService;
 
+    @Autowired
+    private SessionCommandExecutor sessionCommandExecutor;
+
+    @Autowired
+    private SessionDeltaService sessionDeltaService;
+
+    @Autowired
+    private GameSnapshotService gameSnapshotService;
+
+    @Autowired
+    private WebSocketService webSocketService;
+
+    @Autowired
+    private SessionShardRouter sessionShardRouter;
+
     @PostMapping
     public ResponseEntity<GameSessionDto> createSession(@RequestBody CreateSessionRequest request) {
         try {
@@ -32,23 +56,81 @@ public class GameSessionController {
     @GetMapping("/{sessionCode}")
     public ResponseEntity<GameSessionDto> getSession(@PathVariable String sessionCode) {
         try {
-            GameSessionDto session = gameSessionService.getSession(sessionCode);
+            GameSessionDto session = sessionCommandExecutor.execute(sessionCode,
+                    () -> gameSessionService.getSession(sessionCode));
             return ResponseEntity.ok(session);
         } catch (SessionNotFoundException e) {
             return ResponseEntity.notFound().build();
         }
     }
 
+    /**
+     * Sessione, possessi con affitti e ultime transazioni in una sola risposta.
+     * Con If-None-Match uguale all'ETag corrente risponde 304 senza ricostruirla.
+     */
+    @GetMapping("/{sessionCode}/snapshot")
+    public ResponseEntity<GameSnapshotDto> getSnapshot(
+            @PathVariable String sessionCode,
+            @RequestParam(defaultValue = "20") int transactions,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        try {
+            if (ifNoneMatch != null) {
+                String eTag = sessionCommandExecutor.execute(sessionCode,
+                        () -> gameSnapshotService.currentETag(sessionCode, transactions));
+                if (ifNoneMatch.contains(eTag)) {
+                    return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+                }
+            }
+
+            GameSnapshotDto snapshot = sessionCommandExecutor.execute(sessionCode,
+                    () -> gameSnapshotService.getSnapshot(sessionCode, transactions));
+            return ResponseEntity.ok()
+                    .eTag(gameSnapshotService.eTagOf(snapshot))
+                    .body(snapshot);
+        } catch (SessionNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Modifiche successive alla versione "since" (resyncRequired se non più disponibili)
+     */
+    @GetMapping("/{sessionCode}/delta")
+    public ResponseEntity<SessionDeltaDto> getDelta(
+            @PathVariable String sessionCode,
+            @RequestParam long since) {
+        try {
+            SessionDeltaDto delta = sessionCommandExecutor.execute(sessionCode,
+                    () -> sessionDeltaService.getDelta(sessionCode, since));
+            return ResponseEntity.ok(delta);
+        } catch (SessionNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Frame WebSocket persi da un client che si riconnette (resyncRequired se non più disponibili)
+     */
+    @GetMapping("/{sessionCode}/replay")
+    public ResponseEntity<ReplayDto> getReplay(
+            @PathVariable String sessionCode,
+            @RequestParam long after) {
+        // Il buffer dei frame è sul nodo proprietario: da un altro nodo la richiesta viene inoltrata
+        sessionShardRouter.requireLocal(sessionCode);
+        return ResponseEntity.ok(webSocketService.replay(sessionCode, after));
+    }
+
     @PostMapping("/{sessionCode}/join")
     public ResponseEntity<GameSessionDto> joinSession(
             @PathVariable String sessionCode,
             @RequestBody JoinSessionRequest request) {
         try {
-            GameSessionDto session = gameSessionService.joinSession(
-                    sessionCode,
-                    request.getPlayerName(),
-                    request.getColor()
-            );
+            GameSessionDto session = sessionCommandExecutor.execute(sessionCode,
+                    () -> gameSessionService.joinSession(
+                            sessionCode,
+                            request.getPlayerName(),
+                            request.getColor()
+                    ));
             return ResponseEntity.ok(session);
         } catch (SessionNotFoundException e) {
             return ResponseEntity.notFound().build();
@@ -62,7 +144,8 @@ public class GameSessionController {
             @PathVariable String sessionCode,
             @RequestBody StartGameRequest request) {
         try {
-            gameSessionService.startGame(sessionCode, request.getHostPlayerId());
+            sessionCommandExecutor.execute(sessionCode,
+                    () -> gameSessionService.startGame(sessionCode, request.getHostPlayerId()));
             return ResponseEntity.ok().build();
         } catch (SessionNotFoundException | PlayerNotFoundException e) {
             return ResponseEntity.notFound().build();
@@ -76,7 +159,8 @@ public class GameSessionController {
             @PathVariable String sessionCode,
             @RequestParam Long hostPlayerId) {
         try {
-            gameSessionService.endSession(sessionCode, hostPlayerId);
+            sessionCommandExecutor.execute(sessionCode,
+                    () -> gameSessionService.endSession(sessionCode, hostPlayerId));
             return ResponseEntity.ok().build();
         } catch (SessionNotFoundException | UnauthorizedException e) {
             return ResponseEntity.badRequest().build();
@@ -92,7 +176,9 @@ public class GameSessionController {
             System.out.println("Session Code: " + sessionCode);
             System.out.println("Host Player ID: " + hostPlayerId);
 
-            gameSessionService.deleteSession(sessionCode, hostPlayerId);
+            sessionCommandExecutor.execute(sessionCode,
+                    () -> gameSessionService.deleteSession(sessionCode, hostPlayerId));
+            sessionCommandExecutor.release(sessionCode);
 
             System.out.println("Session deleted successfully");
             return ResponseEntity.ok().build();
@@ -3,17 +3,18 @@ package com.monopoly.server.monopoly.controllers;
 import com.monopoly.server.monopoly.classes.dto.PropertyDto;
 import com.monopoly.server.monopoly.classes.dto.PropertyOwnershipDto;
 import com.monopoly.server.monopoly.classes.dto.TransactionDto;
+import com.monopoly.server.monopoly.classes.money.Money;
 import com.monopoly.server.monopoly.classes.request.CustomPurchaseRequest;
 import com.monopoly.server.monopoly.classes.request.MultipleTransferRequest;
 import com.monopoly.server.monopoly.classes.request.PayRentRequest;
 import com.monopoly.server.monopoly.classes.request.TransferPropertyRequest;
 import com.monopoly.server.monopoly.exceptions.*;
 import com.monopoly.server.monopoly.services.PropertyService;
+import com.monopoly.server.monopoly.services.SessionCommandExecutor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.math.BigDecimal;
 import java.util.List;
 
 @RestController
@@ -24,6 +25,9 @@ public class PropertyController {
     @Autowired
     private PropertyService propertyService;
 
+    @Autowired
+    private SessionCommandExecutor sessionCommandExecutor;
+
     @GetMapping
     public ResponseEntity<List<PropertyDto>> getAllProperties() {
         try {
@@ -49,11 +53,12 @@ public class PropertyController {
                     ", Player ID: " + request.getPlayerId() +
                     ", Custom Price: " + request.getCustomPrice());
 
-            PropertyOwnershipDto ownership = propertyService.purchasePropertyCustomPrice(
-                    request.getPlayerId(),
-                    propertyId,
-                    request.getCustomPrice()
-            );
+            PropertyOwnershipDto ownership = sessionCommandExecutor.executeForPlayer(request.getPlayerId(),
+                    () -> propertyService.purchasePropertyCustomPrice(
+                            request.getPlayerId(),
+                            propertyId,
+                            request.getCustomPrice()
+                    ));
 
             System.out.println("Property purchased successfully at custom price: " +
                     ownership.getPropertyName() + " for " + request.getCustomPrice());
@@ -83,7 +88,8 @@ public class PropertyController {
             System.out.println("=== PURCHASE PROPERTY REQUEST ===");
             System.out.println("Property ID: " + propertyId + ", Player ID: " + playerId);
 
-            PropertyOwnershipDto ownership = propertyService.purchaseProperty(playerId, propertyId);
+            PropertyOwnershipDto ownership = sessionCommandExecutor.executeForPlayer(playerId,
+                    () -> propertyService.purchaseProperty(playerId, propertyId));
             System.out.println("Property purchased successfully: " + ownership.getPropertyName());
             return ResponseEntity.ok(ownership);
         } catch (PlayerNotFoundException | PropertyNotFoundException e) {
@@ -110,11 +116,12 @@ public class PropertyController {
             System.out.println("=== PAY RENT REQUEST ===");
             System.out.println("Property ID: " + propertyId + ", Tenant ID: " + request.getTenantPlayerId() + ", Dice: " + request.getDiceRoll());
 
-            TransactionDto transaction = propertyService.payRent(
-                    propertyId,
-                    request.getTenantPlayerId(),
-                    request.getDiceRoll()
-            );
+            TransactionDto transaction = sessionCommandExecutor.executeForPlayer(request.getTenantPlayerId(),
+                    () -> propertyService.payRent(
+                            propertyId,
+                            request.getTenantPlayerId(),
+                            request.getDiceRoll()
+                    ));
             System.out.println("Rent paid successfully: " + transaction.getAmount());
             return ResponseEntity.ok(transaction);
         } catch (PlayerNotFoundException | PropertyNotFoundException e) {
@@ -142,11 +149,12 @@ public class PropertyController {
             System.out.println("Ownership ID: " + ownershipId + ", New Owner ID: " + request.getNewOwnerId());
             System.out.println("Price: " + request.getPrice());
 
-            PropertyOwnershipDto ownership = propertyService.transferProperty(
-                    ownershipId,
-                    request.getNewOwnerId(),
-                    request.getPrice()
-            );
+            PropertyOwnershipDto ownership = sessionCommandExecutor.executeForOwnership(ownershipId,
+                    () -> propertyService.transferProperty(
+                            ownershipId,
+                            request.getNewOwnerId(),
+                            request.getPrice()
+                    ));
             System.out.println("Property transferred successfully: " + ownership.getPropertyName());
             return ResponseEntity.ok(ownership);
         } catch (PlayerNotFoundException | PropertyNotFoundException e) {
@@ -168,7 +176,8 @@ public class PropertyController {
             System.out.println("=== GET PLAYER PROPERTIES REQUEST ===");
             System.out.println("Player ID: " + playerId);
 
-            List<PropertyOwnershipDto> properties = propertyService.getPlayerProperties(playerId);
+            List<PropertyOwnershipDto> properties = sessionCommandExecutor.executeForPlayer(playerId,
+                    () -> propertyService.getPlayerProperties(playerId));
             System.out.println("Properties found for player: " + properties.size());
             properties.forEach(p -> System.out.println("- " + p.getPropertyName() +
                     " (Houses: " + p.getHouses() + ", Hotel: " + p.isHasHotel() + ", Mortgaged: " + p.isMortgaged() + ")"));
@@ -190,7 +199,8 @@ public class PropertyController {
             System.out.println("=== MORTGAGE PROPERTY REQUEST ===");
             System.out.println("Ownership ID: " + ownershipId);
 
-            PropertyOwnershipDto ownership = propertyService.mortgageProperty(ownershipId);
+            PropertyOwnershipDto ownership = sessionCommandExecutor.executeForOwnership(ownershipId,
+                    () -> propertyService.mortgageProperty(ownershipId));
             System.out.println("Property mortgaged: " + ownership.getPropertyName());
             return ResponseEntity.ok(ownership);
         } catch (PropertyNotFoundException e) {
@@ -212,7 +222,8 @@ public class PropertyController {
             System.out.println("=== REDEEM PROPERTY REQUEST ===");
             System.out.println("Ownership ID: " + ownershipId);
 
-            PropertyOwnershipDto ownership = propertyService.redeemProperty(ownershipId);
+            PropertyOwnershipDto ownership = sessionCommandExecutor.executeForOwnership(ownershipId,
+                    () -> propertyService.redeemProperty(ownershipId));
             System.out.println("Property redeemed: " + ownership.getPropertyName());
             return ResponseEntity.ok(ownership);
         } catch (PropertyNotFoundException e) {
@@ -234,7 +245,8 @@ public class PropertyController {
             System.out.println("=== BUILD HOUSE REQUEST ===");
             System.out.println("Ownership ID: " + ownershipId);
 
-            PropertyOwnershipDto ownership = propertyService.buildHouse(ownershipId);
+            PropertyOwnershipDto ownership = sessionCommandExecutor.executeForOwnership(ownershipId,
+                    () -> propertyService.buildHouse(ownershipId));
             System.out.println("House built on: " + ownership.getPropertyName() +
                     " (Total houses: " + ownership.getHouses() + ")");
             return ResponseEntity.ok(ownership);
@@ -257,7 +269,8 @@ public class PropertyController {
             System.out.println("=== BUILD HOTEL REQUEST ===");
             System.out.println("Ownership ID: " + ownershipId);
 
-            PropertyOwnershipDto ownership = propertyService.buildHotel(ownershipId);
+            PropertyOwnershipDto ownership = sessionCommandExecutor.executeForOwnership(ownershipId,
+                    () -> propertyService.buildHotel(ownershipId));
             System.out.println("Hotel built on: " + ownership.getPropertyName());
             return ResponseEntity.ok(ownership);
         } catch (PropertyNotFoundException e) {
@@ -282,7 +295,8 @@ public class PropertyController {
             System.out.println("=== SELL HOUSE REQUEST ===");
             System.out.println("Ownership ID: " + ownershipId);
 
-            PropertyOwnershipDto ownership = propertyService.sellHouse(ownershipId);
+            PropertyOwnershipDto ownership = sessionCommandExecutor.executeForOwnership(ownershipId,
+                    () -> propertyService.sellHouse(ownershipId));
             System.out.println("House sold from: " + ownership.getPropertyName() +
                     " (Remaining houses: " + ownership.getHouses() + ")");
             return ResponseEntity.ok(ownership);
@@ -308,7 +322,8 @@ public class PropertyController {
             System.out.println("=== SELL HOTEL REQUEST ===");
             System.out.println("Ownership ID: " + ownershipId);
 
-            PropertyOwnershipDto ownership = propertyService.sellHotel(ownershipId);
+            PropertyOwnershipDto ownership = sessionCommandExecutor.executeForOwnership(ownershipId,
+                    () -> propertyService.sellHotel(ownershipId));
             System.out.println("Hotel sold from: " + ownership.getPropertyName());
             return ResponseEntity.ok(ownership);
         } catch (PropertyNotFoundException e) {
@@ -325,17 +340,19 @@ public class PropertyController {
     }
 
     @GetMapping("/{propertyId}/rent")
-    public ResponseEntity<BigDecimal> calculateRent(
+    public ResponseEntity<Money> calculateRent(
             @PathVariable Long propertyId,
+            @RequestParam String sessionCode,
             @RequestParam(defaultValue = "7") int diceRoll) {
         try {
             System.out.println("=== CALCULATE RENT REQUEST ===");
-            System.out.println("Property ID: " + propertyId + ", Dice roll: " + diceRoll);
+            System.out.println("Session: " + sessionCode + ", Property ID: " + propertyId + ", Dice roll: " + diceRoll);
 
-            BigDecimal rent = propertyService.calculateRent(propertyId, diceRoll);
+            Money rent = sessionCommandExecutor.execute(sessionCode,
+                    () -> propertyService.calculateRent(sessionCode, propertyId, diceRoll));
             System.out.println("Calculated rent: " + rent);
             return ResponseEntity.ok(rent);
-        } catch (PropertyNotFoundException e) {
+        } catch (PropertyNotFoundException | SessionNotFoundException e) {
             System.err.println("Property not found for rent calculation: " + e.getMessage());
             return ResponseEntity.notFound().build();
         } catch (Exception e) {
@@ -354,7 +371,8 @@ public class PropertyController {
             System.out.println("=== GET SESSION PROPERTIES REQUEST ===");
             System.out.println("Session Code: " + sessionCode);
 
-            List<PropertyOwnershipDto> properties = propertyService.getSessionProperties(sessionCode);
+            List<PropertyOwnershipDto> properties = sessionCommandExecutor.execute(sessionCode,
+                    () -> propertyService.getSessionProperties(sessionCode));
             System.out.println("Properties found in session: " + properties.size());
             return ResponseEntity.ok(properties);
         } catch (Exception e) {
@@ -376,11 +394,12 @@ public class PropertyController {
             System.out.println("New Owner: " + request.getNewOwnerId());
             System.out.println("Compensation: " + request.getCompensationAmount());
 
-            List<PropertyOwnershipDto> result = propertyService.transferMultipleProperties(
-                    request.getOwnershipIds(),
-                    request.getNewOwnerId(),
-                    request.getCompensationAmount()
-            );
+            List<PropertyOwnershipDto> result = sessionCommandExecutor.executeForPlayer(request.getNewOwnerId(),
+                    () -> propertyService.transferMultipleProperties(
+                            request.getOwnershipIds(),
+                            request.getNewOwnerId(),
+                            request.getCompensationAmount()
+                    ));
 
             System.out.println("Multiple transfer completed successfully: " + result.size() + " properties");
             return ResponseEntity.ok(result);
@@ -0,0 +1,96 @@
+package com.monopoly.server.monopoly.controllers;
+
+import com.monopoly.server.monopoly.classes.dto.TradeDto;
+import com.monopoly.server.monopoly.classes.request.TradeProposalRequest;
+import com.monopoly.server.monopoly.exceptions.*;
+import com.monopoly.server.monopoly.services.SessionCommandExecutor;
+import com.monopoly.server.monopoly.services.TradeService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Scambi negoziati tra giocatori della stessa sessione
+ */
+@RestController
+@RequestMapping("/api/sessions/{sessionCode}/trades")
+@CrossOrigin(origins = "http://localhost:4200")
+public class TradeController {
+
+    @Autowired
+    private TradeService tradeService;
+
+    @Autowired
+    private SessionCommandExecutor sessionCommandExecutor;
+
+    @PostMapping
+    public ResponseEntity<TradeDto> proposeTrade(
+            @PathVariable String sessionCode,
+            @RequestBody TradeProposalRequest request) {
+        System.out.println("=== PROPOSE TRADE REQUEST ===");
+        return respond("propose", () -> sessionCommandExecutor.execute(sessionCode,
+                () -> tradeService.propose(sessionCode, request)));
+    }
+
+    @GetMapping
+    public ResponseEntity<List<TradeDto>> getPendingTrades(
+            @PathVariable String sessionCode,
+            @RequestParam(required = false) Long playerId) {
+        return respond("list", () -> sessionCommandExecutor.execute(sessionCode,
+                () -> tradeService.getPendingTrades(sessionCode, playerId)));
+    }
+
+    @PostMapping("/{tradeId}/accept")
+    public ResponseEntity<TradeDto> acceptTrade(
+            @PathVariable String sessionCode,
+            @PathVariable String tradeId,
+            @RequestParam Long playerId) {
+        System.out.println("=== ACCEPT TRADE REQUEST ===");
+        return respond("accept", () -> sessionCommandExecutor.execute(sessionCode,
+                () -> tradeService.accept(sessionCode, tradeId, playerId)));
+    }
+
+    @PostMapping("/{tradeId}/reject")
+    public ResponseEntity<TradeDto> rejectTrade(
+            @PathVariable String sessionCode,
+            @PathVariable String tradeId,
+            @RequestParam Long playerId) {
+        System.out.println("=== REJECT TRADE REQUEST ===");
+        return respond("reject", () -> sessionCommandExecutor.execute(sessionCode,
+                () -> tradeService.reject(sessionCode, tradeId, playerId)));
+    }
+
+    @PostMapping("/{tradeId}/cancel")
+    public ResponseEntity<TradeDto> cancelTrade(
+            @PathVariable String sessionCode,
+            @PathVariable String tradeId,
+            @RequestParam Long playerId) {
+        System.out.println("=== CANCEL TRADE REQUEST ===");
+        return respond("cancel", () -> sessionCommandExecutor.execute(sessionCode,
+                () -> tradeService.cancel(sessionCode, tradeId, playerId)));
+    }
+
+    private <T> ResponseEntity<T> respond(String action, Supplier<T> command) {
+        try {
+            return ResponseEntity.ok(command.get());
+        } catch (SessionNotFoundException | PlayerNotFoundException | PropertyNotFoundException
+                 | TradeNotFoundException e) {
+            System.err.println("Not found error: " + e.getMessage());
+            return ResponseEntity.notFound().build();
+        } catch (InvalidTransactionException | InsufficientFundsException e) {
+            System.err.println("Trade error: " + e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (UnauthorizedException e) {
+            System.err.println("Unauthorized: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        } catch (Exception e) {
+            System.err.println("Unexpected error in trade " + action + ": " + e.getMessage());
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+}
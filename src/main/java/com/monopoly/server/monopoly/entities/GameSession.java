@@ -13,7 +13,8 @@ import java.util.List;
 @Data
 public class GameSession {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "game_sessions_id")
+    @SequenceGenerator(name = "game_sessions_id", sequenceName = "game_sessions_seq", allocationSize = 50)
     private Long id;
 
     @Column(unique = true, nullable = false)
@@ -0,0 +1,39 @@
+package com.monopoly.server.monopoly.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Messaggio WebSocket scritto nella stessa transazione delle modifiche che lo generano
+ * (JSON già serializzato). La riga viene eliminata quando il messaggio è stato consegnato al broker.
+ */
+@Entity
+@Table(name = "session_outbox",
+        indexes = @Index(name = "idx_session_outbox_created_at", columnList = "created_at"))
+@Data
+public class OutboxMessage {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "session_outbox_id")
+    @SequenceGenerator(name = "session_outbox_id", sequenceName = "session_outbox_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "session_code", nullable = false)
+    private String sessionCode;
+
+    @Column(nullable = false, length = 1048576)
+    private byte[] payload;
+
+    // Assegnato alla creazione: l'INSERT avviene solo al flush
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+
+    public OutboxMessage() {}
+
+    public OutboxMessage(String sessionCode, byte[] payload) {
+        this.sessionCode = sessionCode;
+        this.payload = payload;
+    }
+}
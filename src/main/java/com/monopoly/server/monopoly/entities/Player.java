@@ -1,11 +1,11 @@
 package com.monopoly.server.monopoly.entities;
 
+import com.monopoly.server.monopoly.classes.money.Money;
 import com.monopoly.server.monopoly.enums.PlayerColor;
 import jakarta.persistence.*;
 import lombok.Data;
 import org.hibernate.annotations.CreationTimestamp;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.Set;
@@ -18,14 +18,15 @@ public class Player {
     private int version;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "players_id")
+    @SequenceGenerator(name = "players_id", sequenceName = "players_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
     private String name;
 
     @Column(nullable = false)
-    private BigDecimal balance;
+    private Money balance;
 
     @Enumerated(EnumType.STRING)
     private PlayerColor color;
@@ -51,7 +52,7 @@ public class Player {
         this.color = color;
         this.gameSession = gameSession;
         this.isHost = isHost;
-        this.balance = new BigDecimal("1500"); // Starting money in Monopoly
+        this.balance = Money.of(1500); // Starting money in Monopoly
     }
 
 }
\ No newline at end of file
@@ -1,12 +1,12 @@
 package com.monopoly.server.monopoly.entities;
 
+import com.monopoly.server.monopoly.classes.money.Money;
 import com.monopoly.server.monopoly.enums.PropertyColor;
 import com.monopoly.server.monopoly.enums.PropertyType;
 import jakarta.persistence.*;
 import lombok.Data;
 import org.hibernate.annotations.CreationTimestamp;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 
@@ -22,21 +22,21 @@ public class Property {
     private String name;
 
     @Column(nullable = false)
-    private BigDecimal price;
+    private Money price;
 
     @Column(nullable = false)
-    private BigDecimal rent;
+    private Money rent;
 
     @Column(name = "rent_house_1")
-    private BigDecimal rentWith1House;
+    private Money rentWith1House;
     @Column(name = "rent_house_2")
-    private BigDecimal rentWith2Houses;
+    private Money rentWith2Houses;
     @Column(name = "rent_house_3")
-    private BigDecimal rentWith3Houses;
+    private Money rentWith3Houses;
     @Column(name = "rent_house_4")
-    private BigDecimal rentWith4Houses;
+    private Money rentWith4Houses;
     @Column(name = "rent_hotel")
-    private BigDecimal rentHotel;
+    private Money rentHotel;
 
     @Enumerated(EnumType.STRING)
     private PropertyColor colorGroup;
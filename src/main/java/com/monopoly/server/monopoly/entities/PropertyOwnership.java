@@ -1,17 +1,22 @@
 package com.monopoly.server.monopoly.entities;
 import jakarta.persistence.*;
 import lombok.Data;
-import org.hibernate.annotations.CreationTimestamp;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 
 @Entity
-@Table(name = "property_ownership")
+@Table(name = "property_ownership",
+        uniqueConstraints = @UniqueConstraint(name = "uk_ownership_session_property",
+                columnNames = {"session_id", "property_id"}),
+        indexes = @Index(name = "idx_ownership_session_property_player",
+                columnList = "session_id, property_id, player_id"))
 @Data
 public class PropertyOwnership {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "property_ownership_id")
+    @SequenceGenerator(name = "property_ownership_id", sequenceName = "property_ownership_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -22,12 +27,17 @@ public class PropertyOwnership {
     @JoinColumn(name = "property_id")
     private Property property;
 
+    // Ogni proprietà può essere posseduta una sola volta per sessione
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "session_id", nullable = false)
+    private GameSession gameSession;
+
     private int houses;
     private Boolean hasHotel;
     private Boolean mortgaged;
 
-    @CreationTimestamp
-    private LocalDateTime purchasedAt;
+    // Assegnato alla creazione: l'INSERT avviene solo al flush
+    private LocalDateTime purchasedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
 
 
 }
@@ -0,0 +1,50 @@
+package com.monopoly.server.monopoly.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Blocco append-only del journal di una sessione: gli eventi di un flush, in codifica binaria
+ * (SessionStateCodec). Le righe non vengono mai aggiornate.
+ */
+@Entity
+@Table(name = "session_journal",
+        indexes = @Index(name = "idx_session_journal_sequence", columnList = "session_id, last_sequence"))
+@Data
+public class SessionJournalBlock {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "session_journal_id")
+    @SequenceGenerator(name = "session_journal_id", sequenceName = "session_journal_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "session_id", nullable = false)
+    private Long sessionId;
+
+    @Column(name = "first_sequence", nullable = false)
+    private long firstSequence;
+
+    @Column(name = "last_sequence", nullable = false)
+    private long lastSequence;
+
+    @Column(name = "event_count", nullable = false)
+    private int eventCount;
+
+    @Column(nullable = false, length = 1048576)
+    private byte[] payload;
+
+    @CreationTimestamp
+    private LocalDateTime appendedAt;
+
+    public SessionJournalBlock() {}
+
+    public SessionJournalBlock(Long sessionId, long firstSequence, long lastSequence, int eventCount, byte[] payload) {
+        this.sessionId = sessionId;
+        this.firstSequence = firstSequence;
+        this.lastSequence = lastSequence;
+        this.eventCount = eventCount;
+        this.payload = payload;
+    }
+}
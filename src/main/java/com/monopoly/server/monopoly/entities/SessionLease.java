@@ -0,0 +1,32 @@
+package com.monopoly.server.monopoly.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lease del nodo che ha una sessione in memoria (sharding). Scritto solo con gli UPDATE condizionati di
+ * SessionLeaseRepository: epoch cresce a ogni acquisizione e fa da token per le scritture del proprietario.
+ * Tabella separata da game_sessions, così il lease non attende i lock delle transazioni dei comandi.
+ */
+@Entity
+@Table(name = "session_leases")
+@Data
+public class SessionLease {
+    @Id
+    @Column(name = "session_id")
+    private Long sessionId;
+
+    // null: sessione rilasciata
+    @Column(name = "owner_node")
+    private String ownerNode;
+
+    @Column(nullable = false)
+    private long epoch;
+
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
+
+    public SessionLease() {}
+}
@@ -0,0 +1,37 @@
+package com.monopoly.server.monopoly.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ultimo snapshot binario di giocatori e possessi di una sessione (SessionStateCodec).
+ * Il recupero parte da qui e riapplica solo gli eventi del journal successivi a version.
+ */
+@Entity
+@Table(name = "session_snapshots")
+@Data
+public class SessionSnapshot {
+    @Id
+    @Column(name = "session_id")
+    private Long sessionId;
+
+    @Column(nullable = false)
+    private long version;
+
+    @Column(nullable = false, length = 1048576)
+    private byte[] payload;
+
+    @UpdateTimestamp
+    private LocalDateTime takenAt;
+
+    public SessionSnapshot() {}
+
+    public SessionSnapshot(Long sessionId, long version, byte[] payload) {
+        this.sessionId = sessionId;
+        this.version = version;
+        this.payload = payload;
+    }
+}
@@ -1,26 +1,27 @@
 package com.monopoly.server.monopoly.entities;
 
+import com.monopoly.server.monopoly.classes.money.Money;
 import com.monopoly.server.monopoly.enums.TransactionType;
 import jakarta.persistence.*;
 import lombok.Data;
-import org.hibernate.annotations.CreationTimestamp;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 
 @Entity
 @Table(name = "transactions")
 @Data
 public class Transaction {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_id")
+    @SequenceGenerator(name = "transactions_id", sequenceName = "transactions_seq", allocationSize = 50)
     private Long id;
 
     @Enumerated(EnumType.STRING)
     private TransactionType type;
 
     @Column(nullable = false, precision = 10, scale = 2)
-    private BigDecimal amount;
+    private Money amount;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "from_player_id")
@@ -36,13 +37,13 @@ public class Transaction {
 
     private String description;
 
-    @CreationTimestamp
-    private LocalDateTime timestamp;
+    // Assegnato alla creazione: l'INSERT avviene solo al flush
+    private LocalDateTime timestamp = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
 
     // Constructors, getters, setters
     public Transaction() {}
 
-    public Transaction(TransactionType type, BigDecimal amount, Player fromPlayer,
+    public Transaction(TransactionType type, Money amount, Player fromPlayer,
                        Player toPlayer, GameSession gameSession, String description) {
         this.type = type;
         this.amount = amount;
@@ -0,0 +1,12 @@
+package com.monopoly.server.monopoly.enums;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Broker STOMP dei topic: SIMPLE in memoria (un solo nodo), RELAY verso un broker esterno,
+ * EMBEDDED verso un broker avviato nel processo a cui possono collegarsi anche altri nodi in RELAY
+ */
+@RequiredArgsConstructor
+public enum BrokerMode {
+    SIMPLE, RELAY, EMBEDDED
+}
@@ -1,8 +1,15 @@
 package com.monopoly.server.monopoly.enums;
 
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 
+/**
+ * Il codice è quello scritto nei journal e negli snapshot delle sessioni: non va cambiato né riusato
+ */
+@Getter
 @RequiredArgsConstructor
 public enum GameStatus {
-    WAITING, IN_PROGRESS, FINISHED
+    WAITING(0), IN_PROGRESS(1), FINISHED(2);
+
+    private final int code;
 }
\ No newline at end of file
@@ -0,0 +1,12 @@
+package com.monopoly.server.monopoly.enums;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Comportamento della coda WebSocket di una sessione quando è piena:
+ * MERGE unisce i messaggi in coda in un unico frame BATCH, DROP_OLDEST scarta il più vecchio
+ */
+@RequiredArgsConstructor
+public enum OutboundOverflowPolicy {
+    MERGE, DROP_OLDEST
+}
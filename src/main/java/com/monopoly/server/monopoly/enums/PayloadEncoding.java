@@ -0,0 +1,27 @@
+package com.monopoly.server.monopoly.enums;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.util.MimeType;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Codifica dei frame /topic/session/** richiesta dal client con l'header content-type del SUBSCRIBE
+ */
+@Getter
+@RequiredArgsConstructor
+public enum PayloadEncoding {
+    JSON(new MimeType("application", "json")),
+    CBOR(new MimeType("application", "cbor")),
+    SMILE(new MimeType("application", "x-jackson-smile"));
+
+    private final MimeType mimeType;
+
+    public static Optional<PayloadEncoding> of(MimeType contentType) {
+        return Arrays.stream(values())
+                .filter(encoding -> encoding.mimeType.equalsTypeAndSubtype(contentType))
+                .findFirst();
+    }
+}
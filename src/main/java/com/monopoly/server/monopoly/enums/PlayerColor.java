@@ -1,9 +1,17 @@
 package com.monopoly.server.monopoly.enums;
 
 import lombok.Data;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 
+/**
+ * Il codice è quello scritto nei journal e negli snapshot delle sessioni (0 = nessun colore):
+ * non va cambiato né riusato
+ */
+@Getter
 @RequiredArgsConstructor
 public enum PlayerColor {
-    RED, BLUE, GREEN, YELLOW, PURPLE, ORANGE, BLACK, WHITE
+    RED(1), BLUE(2), GREEN(3), YELLOW(4), PURPLE(5), ORANGE(6), BLACK(7), WHITE(8);
+
+    private final int code;
 }
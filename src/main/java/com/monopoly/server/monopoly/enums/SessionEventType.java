@@ -0,0 +1,18 @@
+package com.monopoly.server.monopoly.enums;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Tipi di evento del journal. Il codice è quello scritto da SessionStateCodec nei journal e negli
+ * snapshot durevoli: non va cambiato né riusato, i nuovi tipi prendono un codice nuovo.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum SessionEventType {
+    PLAYER_JOINED(0), BALANCE_ADJUSTED(1), STATUS_CHANGED(2),
+    OWNERSHIP_ADDED(3), OWNERSHIP_REMOVED(4),
+    OWNER_CHANGED(5), HOUSES_CHANGED(6), HOTEL_CHANGED(7), MORTGAGE_CHANGED(8);
+
+    private final int code;
+}
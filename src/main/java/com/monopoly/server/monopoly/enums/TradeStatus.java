@@ -0,0 +1,8 @@
+package com.monopoly.server.monopoly.enums;
+
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+public enum TradeStatus {
+    PENDING, ACCEPTED, REJECTED, CANCELLED
+}
@@ -0,0 +1,19 @@
+package com.monopoly.server.monopoly.exceptions;
+
+import lombok.Getter;
+
+/**
+ * La sessione è ancora in memoria su un altro nodo: si può caricare qui solo dopo che quel nodo
+ * l'ha rilasciata o il suo lease è scaduto
+ */
+@Getter
+public class SessionLeaseHeldException extends RuntimeException {
+
+    private final String ownerUrl;
+
+    public SessionLeaseHeldException(String sessionCode, String ownerUrl) {
+        // Senza stack trace: esito atteso durante il passaggio di consegne tra nodi
+        super("Sessione " + sessionCode + " ancora assegnata al nodo " + ownerUrl, null, false, false);
+        this.ownerUrl = ownerUrl;
+    }
+}
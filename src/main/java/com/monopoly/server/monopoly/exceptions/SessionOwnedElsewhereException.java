@@ -0,0 +1,18 @@
+package com.monopoly.server.monopoly.exceptions;
+
+import lombok.Getter;
+
+/**
+ * La sessione appartiene a un altro nodo del cluster: il comando va inoltrato a ownerUrl
+ */
+@Getter
+public class SessionOwnedElsewhereException extends RuntimeException {
+
+    private final String ownerUrl;
+
+    public SessionOwnedElsewhereException(String sessionCode, String ownerUrl) {
+        // Senza stack trace: è un esito atteso, stampato dai controller come una riga sola
+        super("Sessione " + sessionCode + " gestita dal nodo " + ownerUrl, null, false, false);
+        this.ownerUrl = ownerUrl;
+    }
+}
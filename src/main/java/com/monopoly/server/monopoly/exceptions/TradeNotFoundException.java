@@ -0,0 +1,7 @@
+package com.monopoly.server.monopoly.exceptions;
+
+public class TradeNotFoundException extends RuntimeException {
+    public TradeNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -17,7 +17,23 @@ public interface GameSessionRepository extends JpaRepository<GameSession, Long>
     Optional<GameSession> findBySessionCode(String sessionCode);
     List<GameSession> findByStatus(GameStatus status);
 
+    // Sessioni con i giocatori in una sola query (la raccolta EAGER farebbe una SELECT per sessione)
+    @Query("SELECT g FROM GameSession g LEFT JOIN FETCH g.players WHERE g.status = :status ORDER BY g.id")
+    List<GameSession> findWithPlayersByStatus(@Param("status") GameStatus status);
+
+    /**
+     * Id e codice delle sessioni create prima del limite, senza caricare i giocatori
+     */
+    @Query("SELECT g.id AS id, g.sessionCode AS sessionCode FROM GameSession g WHERE g.createdAt < :cutoffTime")
+    List<SessionKey> findKeysCreatedBefore(@Param("cutoffTime") LocalDateTime cutoffTime);
+
     @Modifying
     @Query("DELETE FROM GameSession g WHERE g.createdAt < :cutoffTime")
     void deleteOldSessions(@Param("cutoffTime") LocalDateTime cutoffTime);
+
+    interface SessionKey {
+        Long getId();
+
+        String getSessionCode();
+    }
 }
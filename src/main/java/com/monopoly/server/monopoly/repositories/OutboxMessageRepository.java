@@ -0,0 +1,18 @@
+package com.monopoly.server.monopoly.repositories;
+
+import com.monopoly.server.monopoly.entities.OutboxMessage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+
+    /**
+     * Messaggi rimasti nell'outbox oltre il tempo di consegna normale, in ordine di scrittura
+     */
+    List<OutboxMessage> findByCreatedAtBeforeOrderByIdAsc(LocalDateTime createdBefore, Pageable pageable);
+}
@@ -16,7 +16,18 @@ public interface PlayerRepository extends JpaRepository<Player, Long> {
     List<Player> findByGameSessionAndIsHost(GameSession gameSession, boolean isHost);
     Optional<Player> findByGameSessionAndName(GameSession gameSession, String name);
 
+    @Query("SELECT p.gameSession.sessionCode FROM Player p WHERE p.id = :playerId")
+    Optional<String> findSessionCodeById(@Param("playerId") Long playerId);
+
     @Modifying
     @Query("DELETE FROM Player p WHERE p.gameSession.id = :sessionId")
     void deleteByGameSessionId(@Param("sessionId") Long sessionId);
+
+    /**
+     * Righe delle sessioni create prima del limite, in un'unica DELETE (pulizia periodica)
+     */
+    @Modifying
+    @Query("DELETE FROM Player p WHERE p.gameSession.id IN "
+            + "(SELECT g.id FROM GameSession g WHERE g.createdAt < :cutoffTime)")
+    void deleteBySessionCreatedBefore(@Param("cutoffTime") LocalDateTime cutoffTime);
 }
@@ -1,5 +1,6 @@
 package com.monopoly.server.monopoly.repositories;
 
+import com.monopoly.server.monopoly.classes.state.OwnershipSlot;
 import com.monopoly.server.monopoly.entities.Player;
 import com.monopoly.server.monopoly.entities.Property;
 import com.monopoly.server.monopoly.entities.PropertyOwnership;
@@ -10,6 +11,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,17 +24,48 @@ public interface PropertyOwnershipRepository extends JpaRepository<PropertyOwner
 
     List<PropertyOwnership> findByPlayer(Player player);
 
-    Optional<PropertyOwnership> findByProperty(Property property);
+    List<PropertyOwnership> findByGameSession_Id(Long sessionId);
+
+    // Righe della sessione come slot in memoria: una sola query, senza entità né proxy
+    @Query("SELECT new com.monopoly.server.monopoly.classes.state.OwnershipSlot(po.id, po.property.id, po.player.id, " +
+            "po.houses, COALESCE(po.hasHotel, false), COALESCE(po.mortgaged, false), po.purchasedAt) " +
+            "FROM PropertyOwnership po WHERE po.gameSession.id = :sessionId ORDER BY po.id")
+    List<OwnershipSlot> findSlotsByGameSessionId(@Param("sessionId") Long sessionId);
+
+    Optional<PropertyOwnership> findByGameSession_IdAndProperty_Id(Long sessionId, Long propertyId);
+    Optional<PropertyOwnership> findByGameSession_SessionCodeAndProperty_Id(String sessionCode, Long propertyId);
+    boolean existsByGameSession_IdAndProperty_Id(Long sessionId, Long propertyId);
+
     List<PropertyOwnership> findByPlayerAndProperty_ColorGroup(Player player, PropertyColor colorGroup);
     Optional<PropertyOwnership> findByPlayerAndProperty(Player player, Property property);
-    boolean existsByProperty(Property property);
 
     @Query("SELECT COUNT(po) FROM PropertyOwnership po join po.player pl WHERE po.player.id = :playerId order by pl.color")
     int countByPlayerId(@Param("playerId") Long playerId);
 
+    // Numero di proprietà per giocatore di più sessioni, con una sola query raggruppata
+    @Query("SELECT po.player.id AS playerId, COUNT(po) AS propertiesCount FROM PropertyOwnership po " +
+            "WHERE po.gameSession.id IN :sessionIds GROUP BY po.player.id")
+    List<PlayerPropertiesCount> countByPlayerForSessions(@Param("sessionIds") Collection<Long> sessionIds);
+
+    interface PlayerPropertiesCount {
+        Long getPlayerId();
+        long getPropertiesCount();
+    }
+
     List<PropertyOwnership> findByPlayerId(Long playerId);
 
+    @Query("SELECT po.gameSession.sessionCode FROM PropertyOwnership po WHERE po.id = :ownershipId")
+    Optional<String> findSessionCodeById(@Param("ownershipId") Long ownershipId);
+
     @Modifying
     @Query("DELETE FROM PropertyOwnership po WHERE po.player.id = :playerId")
     void deleteByPlayerId(@Param("playerId") Long playerId);
+
+    /**
+     * Righe delle sessioni create prima del limite, in un'unica DELETE (pulizia periodica)
+     */
+    @Modifying
+    @Query("DELETE FROM PropertyOwnership po WHERE po.gameSession.id IN "
+            + "(SELECT g.id FROM GameSession g WHERE g.createdAt < :cutoffTime)")
+    void deleteBySessionCreatedBefore(@Param("cutoffTime") LocalDateTime cutoffTime);
 }
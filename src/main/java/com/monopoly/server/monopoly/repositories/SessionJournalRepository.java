@@ -0,0 +1,24 @@
+package com.monopoly.server.monopoly.repositories;
+
+import com.monopoly.server.monopoly.entities.SessionJournalBlock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface SessionJournalRepository extends JpaRepository<SessionJournalBlock, Long> {
+
+    /**
+     * Coda del journal: i blocchi che contengono eventi successivi alla versione indicata
+     */
+    List<SessionJournalBlock> findBySessionIdAndLastSequenceGreaterThanOrderByFirstSequenceAsc(Long sessionId,
+                                                                                                long version);
+
+    @Modifying
+    @Query("DELETE FROM SessionJournalBlock b WHERE b.sessionId = :sessionId")
+    void deleteBySessionId(@Param("sessionId") Long sessionId);
+}
@@ -0,0 +1,46 @@
+package com.monopoly.server.monopoly.repositories;
+
+import com.monopoly.server.monopoly.entities.SessionLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface SessionLeaseRepository extends JpaRepository<SessionLease, Long> {
+
+    /**
+     * Primo lease della sessione; fallisce (chiave duplicata) se un altro nodo l'ha appena creato
+     */
+    @Modifying
+    @Query(value = "INSERT INTO session_leases (session_id, owner_node, epoch, expires_at) VALUES (:sessionId, :node, 1, :until)",
+            nativeQuery = true)
+    int create(@Param("sessionId") Long sessionId, @Param("node") String node, @Param("until") LocalDateTime until);
+
+    /**
+     * Acquisisce la sessione se è libera, già del nodo o con il lease scaduto, incrementando l'epoch
+     */
+    @Modifying
+    @Query("UPDATE SessionLease l SET l.ownerNode = :node, l.epoch = l.epoch + 1, l.expiresAt = :until "
+            + "WHERE l.sessionId = :sessionId AND (l.ownerNode IS NULL OR l.ownerNode = :node OR l.expiresAt < :now)")
+    int acquire(@Param("sessionId") Long sessionId, @Param("node") String node,
+                @Param("now") LocalDateTime now, @Param("until") LocalDateTime until);
+
+    /**
+     * Rinnova il lease solo se l'epoch è ancora quello acquisito (0 righe: sessione passata a un altro nodo)
+     */
+    @Modifying
+    @Query("UPDATE SessionLease l SET l.expiresAt = :until WHERE l.sessionId = :sessionId AND l.epoch = :epoch")
+    int renew(@Param("sessionId") Long sessionId, @Param("epoch") long epoch, @Param("until") LocalDateTime until);
+
+    @Modifying
+    @Query("UPDATE SessionLease l SET l.ownerNode = NULL, l.expiresAt = NULL WHERE l.sessionId = :sessionId AND l.epoch = :epoch")
+    int release(@Param("sessionId") Long sessionId, @Param("epoch") long epoch);
+
+    @Modifying
+    @Query("DELETE FROM SessionLease l WHERE l.sessionId = :sessionId")
+    void deleteBySessionId(@Param("sessionId") Long sessionId);
+}
@@ -0,0 +1,16 @@
+package com.monopoly.server.monopoly.repositories;
+
+import com.monopoly.server.monopoly.entities.SessionSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SessionSnapshotRepository extends JpaRepository<SessionSnapshot, Long> {
+
+    @Modifying
+    @Query("DELETE FROM SessionSnapshot s WHERE s.sessionId = :sessionId")
+    void deleteBySessionId(@Param("sessionId") Long sessionId);
+}
@@ -1,27 +1,43 @@
 package com.monopoly.server.monopoly.repositories;
+import com.monopoly.server.monopoly.classes.money.Money;
 import com.monopoly.server.monopoly.entities.GameSession;
 import com.monopoly.server.monopoly.entities.Player;
 import com.monopoly.server.monopoly.entities.Transaction;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
     List<Transaction> findByGameSessionOrderByTimestampDesc(GameSession gameSession);
+    /**
+     * Ultime transazioni della sessione (limite dalla pagina), senza caricare sessione e giocatori
+     */
+    @Query("SELECT t FROM Transaction t WHERE t.gameSession.id = :sessionId ORDER BY t.timestamp DESC, t.id DESC")
+    List<Transaction> findRecentBySessionId(@Param("sessionId") Long sessionId, Pageable pageable);
+
     List<Transaction> findByFromPlayerOrToPlayerOrderByTimestampDesc(Player fromPlayer, Player toPlayer);
 
     @Query("SELECT SUM(t.amount) FROM Transaction t WHERE t.toPlayer = :player AND t.type = 'BANK_TO_PLAYER'")
-    BigDecimal sumBankPaymentsToPlayer(@Param("player") Player player);
+    Money sumBankPaymentsToPlayer(@Param("player") Player player);
 
     @Query("SELECT SUM(t.amount) FROM Transaction t WHERE t.fromPlayer = :player AND t.type = 'PLAYER_TO_BANK'")
-    BigDecimal sumPlayerPaymentsToBank(@Param("player") Player player);
+    Money sumPlayerPaymentsToBank(@Param("player") Player player);
 
     @Modifying
     @Query("DELETE FROM Transaction t WHERE t.gameSession.id = :sessionId")
     void deleteByGameSessionId(@Param("sessionId") Long sessionId);
+
+    /**
+     * Righe delle sessioni create prima del limite, in un'unica DELETE (pulizia periodica)
+     */
+    @Modifying
+    @Query("DELETE FROM Transaction t WHERE t.gameSession.id IN "
+            + "(SELECT g.id FROM GameSession g WHERE g.createdAt < :cutoffTime)")
+    void deleteBySessionCreatedBefore(@Param("cutoffTime") LocalDateTime cutoffTime);
 }
@@ -3,6 +3,10 @@ package com.monopoly.server.monopoly.services;
 import com.monopoly.server.monopoly.classes.dto.PlayerDto;
 import com.monopoly.server.monopoly.classes.dto.TransactionDto;
 import com.monopoly.server.monopoly.classes.dto.WebSocketMessage;
+import com.monopoly.server.monopoly.classes.money.LedgerEntry;
+import com.monopoly.server.monopoly.classes.money.Money;
+import com.monopoly.server.monopoly.classes.state.PlayerState;
+import com.monopoly.server.monopoly.classes.state.SessionState;
 import com.monopoly.server.monopoly.entities.GameSession;
 import com.monopoly.server.monopoly.entities.Player;
 import com.monopoly.server.monopoly.entities.Transaction;
@@ -15,10 +19,11 @@ import com.monopoly.server.monopoly.exceptions.PlayerNotFoundException;
 import com.monopoly.server.monopoly.exceptions.SessionNotFoundException;
 import com.monopoly.server.monopoly.repositories.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -31,7 +36,7 @@ public class BankService {
     private PlayerRepository playerRepository;
 
     @Autowired
-    private PropertyOwnershipRepository propertyOwnershipRepository;
+    private SessionStateStore sessionStateStore;
 
     @Autowired
     private TransactionRepository transactionRepository;
@@ -43,46 +48,37 @@ public class BankService {
     private WebSocketService webSocketService;
 
     @Transactional
-    public TransactionDto transferMoney(Long fromPlayerId, Long toPlayerId, BigDecimal amount, String description) {
-        Player fromPlayer = playerRepository.findById(fromPlayerId)
-                .orElseThrow(() -> new PlayerNotFoundException("Giocatore mittente non trovato"));
+    public TransactionDto transferMoney(Long fromPlayerId, Long toPlayerId, Money amount, String description) {
+        SessionState state = sessionStateStore.forPlayer(fromPlayerId);
 
-        Player toPlayer = playerRepository.findById(toPlayerId)
-                .orElseThrow(() -> new PlayerNotFoundException("Giocatore destinatario non trovato"));
+        PlayerState fromPlayer = state.findPlayer(fromPlayerId)
+                .orElseThrow(() -> new PlayerNotFoundException("Giocatore mittente non trovato"));
 
-        if (!fromPlayer.getGameSession().equals(toPlayer.getGameSession())) {
-            throw new InvalidTransactionException("I giocatori devono essere nella stessa sessione");
-        }
+        // Un destinatario assente dallo stato appartiene a un'altra sessione (o non esiste)
+        PlayerState toPlayer = state.findPlayer(toPlayerId)
+                .orElseThrow(() -> playerRepository.existsById(toPlayerId)
+                        ? new InvalidTransactionException("I giocatori devono essere nella stessa sessione")
+                        : new PlayerNotFoundException("Giocatore destinatario non trovato"));
 
-        if (fromPlayer.getBalance().compareTo(amount) < 0) {
+        if (fromPlayer.getBalance().isLessThan(amount)) {
             throw new InsufficientFundsException("Fondi insufficienti");
         }
 
-        // Effettua il trasferimento
-        fromPlayer.setBalance(fromPlayer.getBalance().subtract(amount));
-        toPlayer.setBalance(toPlayer.getBalance().add(amount));
-
-        playerRepository.save(fromPlayer);
-        playerRepository.save(toPlayer);
-
         // Registra la transazione
-        Transaction transaction = new Transaction(
-                TransactionType.PLAYER_TO_PLAYER,
-                amount,
-                fromPlayer,
-                toPlayer,
-                fromPlayer.getGameSession(),
-                description
-        );
-        transaction = transactionRepository.save(transaction);
+        Transaction transaction = recordTransaction(state, TransactionType.PLAYER_TO_PLAYER,
+                amount, fromPlayer, toPlayer, description);
+
+        // Effettua il trasferimento (persistito in differita)
+        state.debit(fromPlayer, amount);
+        state.credit(toPlayer, amount);
 
-        // Crea DTOs direttamente dalle entità aggiornate
-        PlayerDto fromPlayerDto = mapToPlayerDto(fromPlayer);
-        PlayerDto toPlayerDto = mapToPlayerDto(toPlayer);
-        TransactionDto transactionDto = mapToTransactionDto(transaction);
+        // Crea DTOs direttamente dallo stato aggiornato
+        PlayerDto fromPlayerDto = mapToPlayerDto(state, fromPlayer);
+        PlayerDto toPlayerDto = mapToPlayerDto(state, toPlayer);
+        TransactionDto transactionDto = mapToTransactionDto(transaction, fromPlayer, toPlayer);
 
         // CORREZIONE: Notifica WebSocket migliorata con più dettagli
-        String sessionCode = fromPlayer.getGameSession().getSessionCode();
+        String sessionCode = state.getSessionCode();
 
         // Invia aggiornamento balance
         webSocketService.broadcastBalanceUpdate(sessionCode, Map.of(
@@ -104,32 +100,24 @@ public class BankService {
     }
 
     @Transactional
-    public TransactionDto payToBank(Long playerId, BigDecimal amount, String description) {
-        Player player = playerRepository.findById(playerId)
+    public TransactionDto payToBank(Long playerId, Money amount, String description) {
+        SessionState state = sessionStateStore.forPlayer(playerId);
+        PlayerState player = state.findPlayer(playerId)
                 .orElseThrow(() -> new PlayerNotFoundException("Giocatore non trovato"));
 
-        if (player.getBalance().compareTo(amount) < 0) {
+        if (player.getBalance().isLessThan(amount)) {
             throw new InsufficientFundsException("Fondi insufficienti");
         }
 
-        player.setBalance(player.getBalance().subtract(amount));
-        playerRepository.save(player);
+        Transaction transaction = recordTransaction(state, TransactionType.PLAYER_TO_BANK,
+                amount, player, null, description);
+        state.debit(player, amount);
 
-        Transaction transaction = new Transaction(
-                TransactionType.PLAYER_TO_BANK,
-                amount,
-                player,
-                null,
-                player.getGameSession(),
-                description
-        );
-        transaction = transactionRepository.save(transaction);
-
-        PlayerDto playerDto = mapToPlayerDto(player);
-        TransactionDto transactionDto = mapToTransactionDto(transaction);
+        PlayerDto playerDto = mapToPlayerDto(state, player);
+        TransactionDto transactionDto = mapToTransactionDto(transaction, player, null);
 
         // CORREZIONE: Notifica WebSocket migliorata
-        String sessionCode = player.getGameSession().getSessionCode();
+        String sessionCode = state.getSessionCode();
 
         webSocketService.broadcastBalanceUpdate(sessionCode, Map.of(
                 "type", "PLAYER_TO_BANK_PAYMENT",
@@ -143,28 +131,20 @@ public class BankService {
     }
 
     @Transactional
-    public TransactionDto payFromBank(Long playerId, BigDecimal amount, String description) {
-        Player player = playerRepository.findById(playerId)
+    public TransactionDto payFromBank(Long playerId, Money amount, String description) {
+        SessionState state = sessionStateStore.forPlayer(playerId);
+        PlayerState player = state.findPlayer(playerId)
                 .orElseThrow(() -> new PlayerNotFoundException("Giocatore non trovato"));
 
-        player.setBalance(player.getBalance().add(amount));
-        playerRepository.save(player);
+        Transaction transaction = recordTransaction(state, TransactionType.BANK_TO_PLAYER,
+                amount, null, player, description);
+        state.credit(player, amount);
 
-        Transaction transaction = new Transaction(
-                TransactionType.BANK_TO_PLAYER,
-                amount,
-                null,
-                player,
-                player.getGameSession(),
-                description
-        );
-        transaction = transactionRepository.save(transaction);
-
-        PlayerDto playerDto = mapToPlayerDto(player);
-        TransactionDto transactionDto = mapToTransactionDto(transaction);
+        PlayerDto playerDto = mapToPlayerDto(state, player);
+        TransactionDto transactionDto = mapToTransactionDto(transaction, null, player);
 
         // CORREZIONE: Notifica WebSocket migliorata
-        String sessionCode = player.getGameSession().getSessionCode();
+        String sessionCode = state.getSessionCode();
 
         webSocketService.broadcastBalanceUpdate(sessionCode, Map.of(
                 "type", "BANK_TO_PLAYER_PAYMENT",
@@ -177,6 +157,64 @@ public class BankService {
         return transactionDto;
     }
 
+    /**
+     * Registra più movimenti con un solo saveAll e li applica ai saldi, senza notifiche:
+     * chi chiama ha già verificato i fondi e invia un unico messaggio.
+     */
+    @Transactional
+    public List<TransactionDto> settle(SessionState state, List<LedgerEntry> entries) {
+        List<Transaction> transactions = new ArrayList<>(entries.size());
+        List<PlayerState> payers = new ArrayList<>(entries.size());
+        List<PlayerState> payees = new ArrayList<>(entries.size());
+        for (LedgerEntry entry : entries) {
+            PlayerState from = entry.getFromPlayerId() != null ? findPlayer(state, entry.getFromPlayerId()) : null;
+            PlayerState to = entry.getToPlayerId() != null ? findPlayer(state, entry.getToPlayerId()) : null;
+            transactions.add(newTransaction(state, entry.getType(), entry.getAmount(), from, to, entry.getDescription()));
+            payers.add(from);
+            payees.add(to);
+        }
+        transactionRepository.saveAll(transactions);
+
+        List<TransactionDto> result = new ArrayList<>(transactions.size());
+        for (int i = 0; i < transactions.size(); i++) {
+            Transaction transaction = transactions.get(i);
+            if (payers.get(i) != null) {
+                state.debit(payers.get(i), transaction.getAmount());
+            }
+            if (payees.get(i) != null) {
+                state.credit(payees.get(i), transaction.getAmount());
+            }
+            result.add(mapToTransactionDto(transaction, payers.get(i), payees.get(i)));
+        }
+        return result;
+    }
+
+    private PlayerState findPlayer(SessionState state, Long playerId) {
+        return state.findPlayer(playerId)
+                .orElseThrow(() -> new PlayerNotFoundException("Giocatore non trovato"));
+    }
+
+    /**
+     * La riga del registro viene inserita subito: il suo id è restituito al client.
+     * I riferimenti a giocatori e sessione sono proxy, senza SELECT.
+     */
+    private Transaction recordTransaction(SessionState state, TransactionType type, Money amount,
+                                          PlayerState fromPlayer, PlayerState toPlayer, String description) {
+        return transactionRepository.save(newTransaction(state, type, amount, fromPlayer, toPlayer, description));
+    }
+
+    private Transaction newTransaction(SessionState state, TransactionType type, Money amount,
+                                       PlayerState fromPlayer, PlayerState toPlayer, String description) {
+        return new Transaction(
+                type,
+                amount,
+                fromPlayer != null ? playerRepository.getReferenceById(fromPlayer.getId()) : null,
+                toPlayer != null ? playerRepository.getReferenceById(toPlayer.getId()) : null,
+                gameSessionRepository.getReferenceById(state.getSessionId()),
+                description
+        );
+    }
+
     public List<TransactionDto> getSessionTransactions(String sessionCode) {
         GameSession session = gameSessionRepository.findBySessionCode(sessionCode)
                 .orElseThrow(() -> new SessionNotFoundException("Sessione non trovata"));
@@ -187,23 +225,73 @@ public class BankService {
                 .collect(Collectors.toList());
     }
 
-    private PlayerDto mapToPlayerDto(Player player) {
-        int propertiesCount = 0;
-        try {
-            // Usa il repository corretto per contare le proprietà
-            propertiesCount = propertyOwnershipRepository.countByPlayerId(player.getId());
-        } catch (Exception e) {
-            System.err.println("Errore nel conteggio delle proprietà per il giocatore " + player.getId());
-            propertiesCount = 0;
+    /**
+     * Ultime transazioni della sessione: una query, nomi dei giocatori dallo stato in memoria
+     */
+    public List<TransactionDto> getRecentTransactions(String sessionCode, int limit) {
+        SessionState state = sessionStateStore.get(sessionCode);
+        if (limit <= 0) {
+            return List.of();
         }
 
+        return transactionRepository.findRecentBySessionId(state.getSessionId(), PageRequest.of(0, limit))
+                .stream()
+                .map(transaction -> mapToTransactionDto(transaction,
+                        nameOf(state, transaction.getFromPlayer()),
+                        nameOf(state, transaction.getToPlayer())))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Nome del giocatore della transazione letto dallo stato (l'id del proxy non richiede SELECT).
+     * Un giocatore assente dallo stato non blocca la lista: il nome arriva dalla riga collegata.
+     */
+    private String nameOf(SessionState state, Player player) {
+        if (player == null) {
+            return "Banca";
+        }
+        return state.findPlayer(player.getId())
+                .map(PlayerState::getName)
+                .orElseGet(player::getName);
+    }
+
+    private PlayerDto mapToPlayerDto(SessionState state, PlayerState player) {
         return PlayerDto.builder()
                 .id(player.getId())
                 .name(player.getName())
                 .balance(player.getBalance())
                 .color(player.getColor())
                 .isHost(player.isHost())
-                .propertiesCount(propertiesCount)
+                .propertiesCount(state.countOwnershipsOf(player.getId()))
+                .build();
+    }
+
+    /**
+     * Descrizione di un movimento su più proprietà: il registro ha una colonna VARCHAR(255),
+     * quindi oltre la prima proprietà si indica solo quante altre ne sono coinvolte
+     */
+    public static String describe(String action, List<String> propertyNames) {
+        if (propertyNames.size() <= 1) {
+            return action + " " + String.join("", propertyNames);
+        }
+        return action + " " + propertyNames.get(0) + " +" + (propertyNames.size() - 1);
+    }
+
+    private TransactionDto mapToTransactionDto(Transaction transaction, PlayerState fromPlayer, PlayerState toPlayer) {
+        return mapToTransactionDto(transaction,
+                fromPlayer != null ? fromPlayer.getName() : "Banca",
+                toPlayer != null ? toPlayer.getName() : "Banca");
+    }
+
+    private TransactionDto mapToTransactionDto(Transaction transaction, String fromPlayerName, String toPlayerName) {
+        return TransactionDto.builder()
+                .id(transaction.getId())
+                .type(transaction.getType())
+                .amount(transaction.getAmount())
+                .fromPlayerName(fromPlayerName)
+                .toPlayerName(toPlayerName)
+                .description(transaction.getDescription())
+                .timestamp(transaction.getTimestamp())
                 .build();
     }
 
@@ -2,18 +2,21 @@ package com.monopoly.server.monopoly.services;
 
 import com.monopoly.server.monopoly.classes.dto.PlayerDto;
 import com.monopoly.server.monopoly.classes.dto.WebSocketMessage;
-import com.monopoly.server.monopoly.entities.Player;
-import com.monopoly.server.monopoly.entities.PropertyOwnership;
+import com.monopoly.server.monopoly.classes.money.Money;
+import com.monopoly.server.monopoly.classes.state.OwnershipSlot;
+import com.monopoly.server.monopoly.classes.state.PlayerState;
+import com.monopoly.server.monopoly.classes.state.SessionState;
+import com.monopoly.server.monopoly.entities.Property;
 import com.monopoly.server.monopoly.enums.PropertyColor;
 import com.monopoly.server.monopoly.exceptions.InsufficientFundsException;
 import com.monopoly.server.monopoly.exceptions.PlayerNotFoundException;
-import com.monopoly.server.monopoly.repositories.PlayerRepository;
+import com.monopoly.server.monopoly.exceptions.PropertyNotFoundException;
 import com.monopoly.server.monopoly.repositories.PropertyOwnershipRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -22,11 +25,14 @@ import java.util.Map;
 public class BankruptcyService {
 
     @Autowired
-    private PlayerRepository playerRepository;
+    private BoardCatalog boardCatalog;
 
     @Autowired
     private PropertyOwnershipRepository ownershipRepository;
 
+    @Autowired
+    private SessionStateStore sessionStateStore;
+
     @Autowired
     private PropertyService propertyService;
 
@@ -39,30 +45,31 @@ public class BankruptcyService {
     /**
      * Verifica se un giocatore può pagare un debito vendendo proprietà
      */
-    public BigDecimal calculateLiquidationValue(Long playerId) {
-        Player player = playerRepository.findById(playerId)
-                .orElseThrow(() -> new PlayerNotFoundException("Giocatore non trovato"));
+    public Money calculateLiquidationValue(Long playerId) {
+        SessionState state = sessionStateStore.forPlayer(playerId);
+        PlayerState player = findPlayer(state, playerId, "Giocatore non trovato");
+
+        Money totalValue = player.getBalance();
+        List<OwnershipSlot> properties = state.getOwnershipsOf(player.getId());
 
-        BigDecimal totalValue = player.getBalance();
-        List<PropertyOwnership> properties = ownershipRepository.findByPlayer(player);
+        for (OwnershipSlot ownership : properties) {
+            Property property = propertyOf(ownership);
 
-        for (PropertyOwnership ownership : properties) {
             // Valore degli edifici (venduti al 50%)
-            if (ownership.getHasHotel()) {
-                BigDecimal hotelCost = getHouseCost(ownership.getProperty().getColorGroup());
-                totalValue = totalValue.add(hotelCost.divide(BigDecimal.valueOf(2)));
+            if (ownership.isHasHotel()) {
+                Money hotelCost = getHouseCost(property.getColorGroup());
+                totalValue = totalValue.plus(hotelCost.half());
             }
             if (ownership.getHouses() > 0) {
-                BigDecimal houseCost = getHouseCost(ownership.getProperty().getColorGroup());
-                BigDecimal houseValue = houseCost.multiply(BigDecimal.valueOf(ownership.getHouses()))
-                        .divide(BigDecimal.valueOf(2));
-                totalValue = totalValue.add(houseValue);
+                Money houseCost = getHouseCost(property.getColorGroup());
+                Money houseValue = houseCost.times(ownership.getHouses()).half();
+                totalValue = totalValue.plus(houseValue);
             }
 
             // Valore ipoteca (50% del prezzo proprietà)
-            if (!ownership.getMortgaged()) {
-                BigDecimal mortgageValue = ownership.getProperty().getPrice().divide(BigDecimal.valueOf(2));
-                totalValue = totalValue.add(mortgageValue);
+            if (!ownership.isMortgaged()) {
+                Money mortgageValue = property.getPrice().half();
+                totalValue = totalValue.plus(mortgageValue);
             }
         }
 
@@ -73,34 +80,32 @@ public class BankruptcyService {
      * Liquidazione forzata di tutte le proprietà di un giocatore
      */
     @Transactional
-    public BigDecimal liquidatePlayerAssets(Long playerId) {
-        Player player = playerRepository.findById(playerId)
-                .orElseThrow(() -> new PlayerNotFoundException("Giocatore non trovato"));
+    public Money liquidatePlayerAssets(Long playerId) {
+        SessionState state = sessionStateStore.forPlayer(playerId);
+        PlayerState player = findPlayer(state, playerId, "Giocatore non trovato");
 
-        BigDecimal totalLiquidated = BigDecimal.ZERO;
-        List<PropertyOwnership> properties = ownershipRepository.findByPlayer(player);
+        Money totalLiquidated = Money.ZERO;
+        List<OwnershipSlot> properties = state.getOwnershipsOf(player.getId());
 
         // 1. Vendi tutti gli edifici
-        for (PropertyOwnership ownership : properties) {
-            if (ownership.getHasHotel() || ownership.getHouses() > 0) {
-                BigDecimal buildingValue = liquidateBuildings(ownership);
-                totalLiquidated = totalLiquidated.add(buildingValue);
+        for (OwnershipSlot ownership : properties) {
+            if (ownership.isHasHotel() || ownership.getHouses() > 0) {
+                Money buildingValue = liquidateBuildings(state, ownership);
+                totalLiquidated = totalLiquidated.plus(buildingValue);
             }
         }
 
         // 2. Ipoteca tutte le proprietà non ipotecate
-        for (PropertyOwnership ownership : properties) {
-            if (!ownership.getMortgaged()) {
-                BigDecimal mortgageValue = ownership.getProperty().getPrice().divide(BigDecimal.valueOf(2));
-                ownership.setMortgaged(true);
-                ownershipRepository.save(ownership);
-                totalLiquidated = totalLiquidated.add(mortgageValue);
+        for (OwnershipSlot ownership : properties) {
+            if (!ownership.isMortgaged()) {
+                Money mortgageValue = propertyOf(ownership).getPrice().half();
+                state.setMortgaged(ownership, true);
+                totalLiquidated = totalLiquidated.plus(mortgageValue);
             }
         }
 
         // 3. Aggiorna il bilancio del giocatore
-        player.setBalance(player.getBalance().add(totalLiquidated));
-        playerRepository.save(player);
+        state.credit(player, totalLiquidated);
 
         return totalLiquidated;
     }
@@ -110,40 +115,38 @@ public class BankruptcyService {
      */
     @Transactional
     public void declareBankruptcy(Long bankruptPlayerId, Long creditorPlayerId) {
-        Player bankruptPlayer = playerRepository.findById(bankruptPlayerId)
-                .orElseThrow(() -> new PlayerNotFoundException("Giocatore in bancarotta non trovato"));
+        SessionState state = sessionStateStore.forPlayer(bankruptPlayerId);
+        PlayerState bankruptPlayer = findPlayer(state, bankruptPlayerId, "Giocatore in bancarotta non trovato");
 
-        Player creditor = null;
+        // Il creditore deve essere un giocatore della stessa sessione
+        PlayerState creditor = null;
         if (creditorPlayerId != null) {
-            creditor = playerRepository.findById(creditorPlayerId)
-                    .orElseThrow(() -> new PlayerNotFoundException("Creditore non trovato"));
+            creditor = findPlayer(state, creditorPlayerId, "Creditore non trovato");
         }
 
-        List<PropertyOwnership> properties = ownershipRepository.findByPlayer(bankruptPlayer);
+        List<OwnershipSlot> properties = state.getOwnershipsOf(bankruptPlayer.getId());
 
         if (creditor != null) {
             // Bancarotta verso un giocatore: trasferisci tutto al creditore
-            transferAllPropertiesToPlayer(properties, creditor);
+            transferAllPropertiesToPlayer(state, properties, creditor);
 
             // Trasferisci anche il denaro rimasto
-            if (bankruptPlayer.getBalance().compareTo(BigDecimal.ZERO) > 0) {
-                creditor.setBalance(creditor.getBalance().add(bankruptPlayer.getBalance()));
-                playerRepository.save(creditor);
+            if (bankruptPlayer.getBalance().isPositive()) {
+                state.credit(creditor, bankruptPlayer.getBalance());
             }
         } else {
             // Bancarotta verso la banca: metti tutto all'asta (per ora elimina)
-            liquidateToBank(properties);
+            liquidateToBank(state, properties);
         }
 
         // Rimuovi il giocatore dalla partita
-        bankruptPlayer.setBalance(BigDecimal.ZERO);
-        playerRepository.save(bankruptPlayer);
+        state.setBalance(bankruptPlayer, Money.ZERO);
 
         // Notifica WebSocket
         webSocketService.broadcastToSession(
-                bankruptPlayer.getGameSession().getSessionCode(),
+                state.getSessionCode(),
                 new WebSocketMessage("PLAYER_BANKRUPT",
-                        bankruptPlayer.getGameSession().getSessionCode(),
+                        state.getSessionCode(),
                         Map.of(
                                 "bankruptPlayer", bankruptPlayer.getName(),
                                 "creditor", creditor != null ? creditor.getName() : "Banca",
@@ -155,134 +158,138 @@ public class BankruptcyService {
     /**
      * Trasferisce tutte le proprietà a un giocatore (regole bancarotta)
      */
-    private void transferAllPropertiesToPlayer(List<PropertyOwnership> properties, Player newOwner) {
-        for (PropertyOwnership ownership : properties) {
+    private void transferAllPropertiesToPlayer(SessionState state, List<OwnershipSlot> properties, PlayerState newOwner) {
+        for (OwnershipSlot ownership : properties) {
             // Prima liquida tutti gli edifici
-            liquidateBuildings(ownership);
+            liquidateBuildings(state, ownership);
 
             // Trasferisci la proprietà
-            ownership.setPlayer(newOwner);
+            state.setOwner(ownership, newOwner.getId());
 
             // Se era ipotecata, il nuovo proprietario può scegliere:
             // - Pagare il 10% per mantenerla ipotecata
             // - Estinguere l'ipoteca (55% del valore)
             // Per semplicità, manteniamo l'ipoteca e il nuovo proprietario può decidere dopo
-            if (ownership.getMortgaged()) {
-                BigDecimal mortgageTax = ownership.getProperty().getPrice()
-                        .multiply(BigDecimal.valueOf(0.1));
+            if (ownership.isMortgaged()) {
+                Money mortgageTax = propertyOf(ownership).getPrice().percent(10);
 
                 // Se il nuovo proprietario ha fondi, paga la tassa
-                if (newOwner.getBalance().compareTo(mortgageTax) >= 0) {
-                    newOwner.setBalance(newOwner.getBalance().subtract(mortgageTax));
+                if (!newOwner.getBalance().isLessThan(mortgageTax)) {
+                    state.debit(newOwner, mortgageTax);
                     // Altrimenti la proprietà rimane ipotecata senza tassa
                 }
             }
-
-            ownershipRepository.save(ownership);
         }
-        playerRepository.save(newOwner);
     }
 
     /**
      * Liquidazione alla banca (per bancarotta verso la banca)
      */
-    private void liquidateToBank(List<PropertyOwnership> properties) {
+    private void liquidateToBank(SessionState state, List<OwnershipSlot> properties) {
         // Per ora semplicemente elimina le proprietà
         // In futuro si potrebbe implementare un sistema d'asta
-        for (PropertyOwnership ownership : properties) {
-            liquidateBuildings(ownership);
-            ownershipRepository.delete(ownership);
+        List<Long> ownershipIds = new ArrayList<>(properties.size());
+        for (OwnershipSlot ownership : properties) {
+            liquidateBuildings(state, ownership);
+            sessionStateStore.removeOwnership(state, ownership);
+            ownershipIds.add(ownership.getId());
+        }
+
+        // Eliminazione immediata con un solo DELETE: le proprietà tornano acquistabili
+        // e i nuovi INSERT non devono collidere
+        if (!ownershipIds.isEmpty()) {
+            ownershipRepository.deleteAllByIdInBatch(ownershipIds);
         }
     }
 
     /**
      * Liquida tutti gli edifici di una proprietà (vendita forzata al 50%)
      */
-    private BigDecimal liquidateBuildings(PropertyOwnership ownership) {
-        BigDecimal liquidatedValue = BigDecimal.ZERO;
-        BigDecimal houseCost = getHouseCost(ownership.getProperty().getColorGroup());
-        BigDecimal sellPrice = houseCost.divide(BigDecimal.valueOf(2));
-
-        if (ownership.getHasHotel()) {
-            liquidatedValue = liquidatedValue.add(sellPrice);
-            ownership.setHasHotel(false);
+    private Money liquidateBuildings(SessionState state, OwnershipSlot ownership) {
+        Money liquidatedValue = Money.ZERO;
+        Money houseCost = getHouseCost(propertyOf(ownership).getColorGroup());
+        Money sellPrice = houseCost.half();
+
+        if (ownership.isHasHotel()) {
+            liquidatedValue = liquidatedValue.plus(sellPrice);
+            state.setHasHotel(ownership, false);
         }
 
         if (ownership.getHouses() > 0) {
-            liquidatedValue = liquidatedValue.add(
-                    sellPrice.multiply(BigDecimal.valueOf(ownership.getHouses()))
+            liquidatedValue = liquidatedValue.plus(
+                    sellPrice.times(ownership.getHouses())
             );
-            ownership.setHouses(0);
+            state.setHouses(ownership, 0);
         }
 
-        if (liquidatedValue.compareTo(BigDecimal.ZERO) > 0) {
+        if (liquidatedValue.isPositive()) {
             // Paga il proprietario
-            Player owner = ownership.getPlayer();
-            owner.setBalance(owner.getBalance().add(liquidatedValue));
-            playerRepository.save(owner);
+            PlayerState owner = findPlayer(state, ownership.getOwnerId(), "Proprietario non trovato");
+            state.credit(owner, liquidatedValue);
         }
 
-        ownershipRepository.save(ownership);
         return liquidatedValue;
     }
 
     /**
      * Verifica se un giocatore è in bancarotta
      */
-    public boolean isPlayerBankrupt(Long playerId, BigDecimal debtAmount) {
-        BigDecimal liquidationValue = calculateLiquidationValue(playerId);
-        return liquidationValue.compareTo(debtAmount) < 0;
+    public boolean isPlayerBankrupt(Long playerId, Money debtAmount) {
+        Money liquidationValue = calculateLiquidationValue(playerId);
+        return liquidationValue.isLessThan(debtAmount);
     }
 
     /**
      * Costi delle case per gruppo colore
      */
-    private BigDecimal getHouseCost(PropertyColor colorGroup) {
-        Map<PropertyColor, BigDecimal> costs = Map.of(
-                PropertyColor.BROWN, BigDecimal.valueOf(50),
-                PropertyColor.LIGHT_BLUE, BigDecimal.valueOf(50),
-                PropertyColor.PINK, BigDecimal.valueOf(100),
-                PropertyColor.ORANGE, BigDecimal.valueOf(100),
-                PropertyColor.RED, BigDecimal.valueOf(150),
-                PropertyColor.YELLOW, BigDecimal.valueOf(150),
-                PropertyColor.GREEN, BigDecimal.valueOf(200),
-                PropertyColor.DARK_BLUE, BigDecimal.valueOf(200)
-        );
-        return costs.getOrDefault(colorGroup, BigDecimal.valueOf(100));
+    private Money getHouseCost(PropertyColor colorGroup) {
+        return boardCatalog.getHouseCost(colorGroup);
     }
 
     /**
      * Calcola il patrimonio totale di un giocatore
      */
-    public BigDecimal calculatePlayerNetWorth(Long playerId) {
-        Player player = playerRepository.findById(playerId)
-                .orElseThrow(() -> new PlayerNotFoundException("Giocatore non trovato"));
+    public Money calculatePlayerNetWorth(Long playerId) {
+        SessionState state = sessionStateStore.forPlayer(playerId);
+        PlayerState player = findPlayer(state, playerId, "Giocatore non trovato");
+
+        Money netWorth = player.getBalance();
+        List<OwnershipSlot> properties = state.getOwnershipsOf(player.getId());
 
-        BigDecimal netWorth = player.getBalance();
-        List<PropertyOwnership> properties = ownershipRepository.findByPlayer(player);
+        for (OwnershipSlot ownership : properties) {
+            Property property = propertyOf(ownership);
 
-        for (PropertyOwnership ownership : properties) {
             // Valore della proprietà
-            if (ownership.getMortgaged()) {
+            if (ownership.isMortgaged()) {
                 // Se ipotecata, vale solo il valore di riscatto rimanente
-                BigDecimal remainingValue = ownership.getProperty().getPrice()
-                        .multiply(BigDecimal.valueOf(0.05)); // 55% - 50% = 5%
-                netWorth = netWorth.add(remainingValue);
+                Money remainingValue = property.getPrice()
+                        .percent(5); // 55% - 50% = 5%
+                netWorth = netWorth.plus(remainingValue);
             } else {
-                netWorth = netWorth.add(ownership.getProperty().getPrice());
+                netWorth = netWorth.plus(property.getPrice());
             }
 
             // Valore degli edifici
-            if (ownership.getHasHotel()) {
-                netWorth = netWorth.add(getHouseCost(ownership.getProperty().getColorGroup()));
+            if (ownership.isHasHotel()) {
+                netWorth = netWorth.plus(getHouseCost(property.getColorGroup()));
             }
             if (ownership.getHouses() > 0) {
-                BigDecimal houseValue = getHouseCost(ownership.getProperty().getColorGroup())
-                        .multiply(BigDecimal.valueOf(ownership.getHouses()));
-                netWorth = netWorth.add(houseValue);
+                Money houseValue = getHouseCost(property.getColorGroup())
+                        .times(ownership.getHouses());
+                netWorth = netWorth.plus(houseValue);
             }
         }
 
         return netWorth;
     }
+
+    private PlayerState findPlayer(SessionState state, Long playerId, String notFoundMessage) {
+        return state.findPlayer(playerId)
+                .orElseThrow(() -> new PlayerNotFoundException(notFoundMessage));
+    }
+
+    private Property propertyOf(OwnershipSlot ownership) {
+        return boardCatalog.findById(ownership.getPropertyId())
+                .orElseThrow(() -> new PropertyNotFoundException("Proprietà non trovata: " + ownership.getPropertyId()));
+    }
 }
\ No newline at end of file
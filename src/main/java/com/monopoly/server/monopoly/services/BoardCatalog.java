@@ -0,0 +1,144 @@
+package com.monopoly.server.monopoly.services;
+
+import com.monopoly.server.monopoly.classes.money.Money;
+import com.monopoly.server.monopoly.classes.state.BoardLayout;
+import com.monopoly.server.monopoly.entities.Property;
+import com.monopoly.server.monopoly.enums.PropertyColor;
+import com.monopoly.server.monopoly.enums.PropertyType;
+import com.monopoly.server.monopoly.repositories.PropertyRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Catalogo immutabile del tabellone, caricato una sola volta all'avvio da data.sql.
+ * Sostituisce le query su PropertyRepository nei percorsi caldi (affitti, monopoli, costruzioni).
+ * Le liste sono immutabili; le Property restituite sono entità staccate e condivise tra tutte
+ * le richieste: vanno solo lette, i setter non devono essere usati.
+ */
+@Component
+@DependsOnDatabaseInitialization
+public class BoardCatalog {
+
+    // Costi delle case (e dell'hotel) secondo le regole ufficiali
+    private static final Map<PropertyColor, Money> HOUSE_COSTS = new EnumMap<>(Map.of(
+            PropertyColor.BROWN, Money.of(50),
+            PropertyColor.LIGHT_BLUE, Money.of(50),
+            PropertyColor.PINK, Money.of(100),
+            PropertyColor.ORANGE, Money.of(100),
+            PropertyColor.RED, Money.of(150),
+            PropertyColor.YELLOW, Money.of(150),
+            PropertyColor.GREEN, Money.of(200),
+            PropertyColor.DARK_BLUE, Money.of(200)
+    ));
+    private static final Money DEFAULT_HOUSE_COST = Money.of(100);
+
+    @Autowired
+    private PropertyRepository propertyRepository;
+
+    // Array denso indicizzato per id della proprietà (lo slot 0 resta vuoto)
+    private Property[] propertiesById;
+
+    // Gruppi colore e tipi indicizzati per ordinal() dell'enum
+    private List<List<Property>> propertiesByColor;
+    private int[] colorGroupSizes;
+    private List<List<Property>> propertiesByType;
+
+    private List<Property> allProperties;
+
+    private BoardLayout layout;
+
+    @PostConstruct
+    void load() {
+        List<Property> loaded = new ArrayList<>(propertyRepository.findAll());
+        loaded.sort(Comparator.comparing(Property::getId));
+
+        int maxId = loaded.isEmpty() ? 0 : loaded.get(loaded.size() - 1).getId().intValue();
+        Property[] byId = new Property[maxId + 1];
+        for (Property property : loaded) {
+            byId[property.getId().intValue()] = property;
+        }
+
+        PropertyColor[] colors = PropertyColor.values();
+        List<List<Property>> byColor = new ArrayList<>(colors.length);
+        int[] groupSizes = new int[colors.length];
+        for (PropertyColor color : colors) {
+            List<Property> group = loaded.stream()
+                    .filter(p -> p.getColorGroup() == color)
+                    .toList();
+            byColor.add(group);
+            groupSizes[color.ordinal()] = group.size();
+        }
+
+        List<List<Property>> byType = new ArrayList<>();
+        for (PropertyType type : PropertyType.values()) {
+            byType.add(loaded.stream()
+                    .filter(p -> p.getType() == type)
+                    .toList());
+        }
+
+        this.propertiesById = byId;
+        this.propertiesByColor = Collections.unmodifiableList(byColor);
+        this.colorGroupSizes = groupSizes;
+        this.propertiesByType = Collections.unmodifiableList(byType);
+        this.allProperties = Collections.unmodifiableList(loaded);
+
+        PropertyColor[] colorById = new PropertyColor[maxId + 1];
+        PropertyType[] typeById = new PropertyType[maxId + 1];
+        Money[][] rentsById = new Money[maxId + 1][];
+        for (Property property : loaded) {
+            colorById[property.getId().intValue()] = property.getColorGroup();
+            typeById[property.getId().intValue()] = property.getType();
+            rentsById[property.getId().intValue()] = new Money[]{
+                    property.getRent(), property.getRentWith1House(), property.getRentWith2Houses(),
+                    property.getRentWith3Houses(), property.getRentWith4Houses(), property.getRentHotel()
+            };
+        }
+        this.layout = new BoardLayout(colorById, typeById, rentsById, groupSizes);
+
+        System.out.println("✅ Board catalog loaded: " + loaded.size() + " properties");
+    }
+
+    public Optional<Property> findById(Long propertyId) {
+        if (propertyId == null || propertyId <= 0 || propertyId >= propertiesById.length) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(propertiesById[propertyId.intValue()]);
+    }
+
+    public List<Property> findAll() {
+        return allProperties;
+    }
+
+    public List<Property> findByColorGroup(PropertyColor colorGroup) {
+        return propertiesByColor.get(colorGroup.ordinal());
+    }
+
+    public int getColorGroupSize(PropertyColor colorGroup) {
+        return colorGroupSizes[colorGroup.ordinal()];
+    }
+
+    public List<Property> findByType(PropertyType type) {
+        return propertiesByType.get(type.ordinal());
+    }
+
+    public Money getHouseCost(PropertyColor colorGroup) {
+        return HOUSE_COSTS.getOrDefault(colorGroup, DEFAULT_HOUSE_COST);
+    }
+
+    /**
+     * Struttura del tabellone usata dallo stato delle sessioni
+     */
+    public BoardLayout getLayout() {
+        return layout;
+    }
+}
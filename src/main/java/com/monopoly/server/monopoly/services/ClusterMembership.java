@@ -0,0 +1,111 @@
+package com.monopoly.server.monopoly.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Nodi attivi del cluster per lo sharding delle sessioni (monopoly.sharding.enabled).
+ * Sostituto in memoria di un servizio di membership: l'elenco dei nodi viene dalla configurazione
+ * e un nodo resta nel cluster finché risponde su /actuator/health. Basta quindi avviare più JVM
+ * sulla stessa macchina con lo stesso elenco e self-url diversi.
+ */
+@Component
+public class ClusterMembership {
+
+    private final boolean enabled;
+
+    private final String selfUrl;
+
+    private final List<String> nodes;
+
+    private final HttpClient httpClient;
+
+    private volatile Set<String> liveNodes;
+
+    public ClusterMembership(@Value("${monopoly.sharding.enabled:false}") boolean enabled,
+                             @Value("${monopoly.sharding.self-url:http://localhost:8080}") String selfUrl,
+                             @Value("${monopoly.sharding.nodes:}") String nodes,
+                             @Value("${monopoly.sharding.probe-timeout-ms:1000}") long probeTimeoutMs) {
+        this.enabled = enabled;
+        this.selfUrl = normalize(selfUrl);
+        this.nodes = Arrays.stream(nodes.split(","))
+                .map(String::trim)
+                .filter(node -> !node.isEmpty())
+                .map(ClusterMembership::normalize)
+                .distinct()
+                .toList();
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(probeTimeoutMs))
+                .build();
+        // All'avvio tutti i nodi configurati sono considerati attivi fino al primo controllo
+        TreeSet<String> initial = new TreeSet<>(this.nodes);
+        initial.add(this.selfUrl);
+        this.liveNodes = Collections.unmodifiableSet(initial);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String getSelfUrl() {
+        return selfUrl;
+    }
+
+    /**
+     * Nodi attivi, sempre incluso questo; l'insieme cambia identità solo quando cambia il contenuto
+     */
+    public Set<String> getLiveNodes() {
+        return liveNodes;
+    }
+
+    @Scheduled(fixedDelayString = "${monopoly.sharding.probe-interval-ms:2000}")
+    public void probe() {
+        if (!enabled) {
+            return;
+        }
+
+        TreeSet<String> alive = new TreeSet<>();
+        alive.add(selfUrl);
+        for (String node : nodes) {
+            if (!node.equals(selfUrl) && isAlive(node)) {
+                alive.add(node);
+            }
+        }
+
+        if (!alive.equals(liveNodes)) {
+            System.out.println("📡 Cluster membership changed: " + liveNodes + " -> " + alive);
+            liveNodes = Collections.unmodifiableSet(alive);
+        }
+    }
+
+    private boolean isAlive(String node) {
+        try {
+            HttpResponse<Void> response = httpClient.send(HttpRequest.newBuilder(URI.create(node + "/actuator/health"))
+                    .timeout(httpClient.connectTimeout().orElseThrow())
+                    .GET()
+                    .build(), HttpResponse.BodyHandlers.discarding());
+            return response.statusCode() == 200;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static String normalize(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+}
@@ -0,0 +1,76 @@
+package com.monopoly.server.monopoly.services;
+
+import com.monopoly.server.monopoly.classes.state.SessionEvent;
+import com.monopoly.server.monopoly.classes.state.SessionState;
+import com.monopoly.server.monopoly.classes.state.SessionStateCodec;
+import com.monopoly.server.monopoly.entities.SessionJournalBlock;
+import com.monopoly.server.monopoly.entities.SessionSnapshot;
+import com.monopoly.server.monopoly.repositories.SessionJournalRepository;
+import com.monopoly.server.monopoly.repositories.SessionSnapshotRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Journal sulle tabelle session_journal e session_snapshots: ogni flush aggiunge
+ * un solo blocco binario, lo snapshot sostituisce il precedente.
+ */
+@Component
+@ConditionalOnProperty(name = "monopoly.journal.mode", havingValue = "database", matchIfMissing = true)
+public class DatabaseSessionJournal implements SessionJournal {
+
+    @Autowired
+    private SessionJournalRepository journalRepository;
+
+    @Autowired
+    private SessionSnapshotRepository snapshotRepository;
+
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void append(Long sessionId, List<SessionEvent> events) {
+        journalRepository.save(new SessionJournalBlock(
+                sessionId,
+                events.get(0).getSequence(),
+                events.get(events.size() - 1).getSequence(),
+                events.size(),
+                SessionStateCodec.encodeEvents(events)));
+    }
+
+    @Override
+    public void saveSnapshot(SessionState state) {
+        snapshotRepository.save(new SessionSnapshot(
+                state.getSessionId(), state.getVersion(), SessionStateCodec.encodeSnapshot(state)));
+    }
+
+    @Override
+    public Optional<SessionStateCodec.Snapshot> findSnapshot(Long sessionId) {
+        return snapshotRepository.findById(sessionId)
+                .map(snapshot -> SessionStateCodec.decodeSnapshot(snapshot.getPayload()));
+    }
+
+    @Override
+    public List<SessionEvent> readAfter(Long sessionId, long version) {
+        List<SessionEvent> events = new ArrayList<>();
+        for (SessionJournalBlock block : journalRepository
+                .findBySessionIdAndLastSequenceGreaterThanOrderByFirstSequenceAsc(sessionId, version)) {
+            for (SessionEvent event : SessionStateCodec.decodeEvents(block.getPayload())) {
+                if (event.getSequence() > version) {
+                    events.add(event);
+                }
+            }
+        }
+        return events;
+    }
+
+    @Override
+    public void delete(Long sessionId) {
+        journalRepository.deleteBySessionId(sessionId);
+        snapshotRepository.deleteBySessionId(sessionId);
+    }
+}
@@ -3,6 +3,8 @@ package com.monopoly.server.monopoly.services;
 import com.monopoly.server.monopoly.classes.dto.GameSessionDto;
 import com.monopoly.server.monopoly.classes.dto.PlayerDto;
 import com.monopoly.server.monopoly.classes.dto.WebSocketMessage;
+import com.monopoly.server.monopoly.classes.state.PlayerState;
+import com.monopoly.server.monopoly.classes.state.SessionState;
 import com.monopoly.server.monopoly.entities.GameSession;
 import com.monopoly.server.monopoly.entities.Player;
 import com.monopoly.server.monopoly.enums.GameStatus;
@@ -15,12 +17,16 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -39,9 +45,24 @@ public class GameSessionService {
     @Autowired
     private PlayerRepository playerRepository;
 
+    @Autowired
+    private SessionLeaseRepository sessionLeaseRepository;
+
     @Autowired
     private WebSocketService webSocketService;
 
+    @Autowired
+    private SessionStateStore sessionStateStore;
+
+    @Autowired
+    private SessionCommandExecutor sessionCommandExecutor;
+
+    @Autowired
+    private SessionShardRouter sessionShardRouter;
+
+    @Autowired
+    private SessionJournal sessionJournal;
+
     @PersistenceContext
     private EntityManager entityManager;
 
@@ -77,7 +98,11 @@ public class GameSessionService {
                 System.out.println("Player: " + p.getName() + ", isHost: " + p.isHost() + ", ID: " + p.getId())
         );
 
+        // Carica subito lo stato: lo snapshot di base rende la sessione recuperabile dal journal
+        SessionState state = sessionStateStore.get(sessionCode);
+
         GameSessionDto dto = mapToDto(session);
+        dto.setVersion(state.getVersion());
         System.out.println("DTO created with players count: " + dto.getPlayers().size());
         dto.getPlayers().forEach(p ->
                 System.out.println("DTO Player: " + p.getName() + ", isHost: " + p.isHost() + ", ID: " + p.getId())
@@ -109,11 +134,17 @@ public class GameSessionService {
             throw new ColorTakenException("Colore già scelto da un altro giocatore");
         }
 
+        // Lo stato va caricato prima dell'inserimento: il join deve finire nel journal
+        SessionState state = sessionStateStore.get(sessionCode);
+
         // Crea il nuovo player
         Player newPlayer = new Player(playerName, color, session, false);
         newPlayer = playerRepository.save(newPlayer);
         System.out.println("New player created: " + newPlayer.getName() + ", ID: " + newPlayer.getId());
 
+        sessionStateStore.addPlayer(state, new PlayerState(newPlayer.getId(), newPlayer.getName(),
+                newPlayer.getColor(), newPlayer.isHost(), newPlayer.getBalance()));
+
         // Flush e ricarica
         entityManager.flush();
         entityManager.clear();
@@ -127,7 +158,9 @@ public class GameSessionService {
         webSocketService.broadcastToSession(sessionCode,
                 new WebSocketMessage("PLAYER_JOINED", sessionCode, mapToPlayerDto(newPlayer)));
 
-        return mapToDto(session);
+        GameSessionDto dto = mapToDto(session);
+        dto.setVersion(state.getVersion());
+        return dto;
     }
 
     public void startGame(String sessionCode, Long hostPlayerId) {
@@ -153,6 +186,9 @@ public class GameSessionService {
         session.setStatus(GameStatus.IN_PROGRESS);
         gameSessionRepository.save(session);
 
+        // Da qui lo stato in memoria è la fonte di verità della partita
+        sessionStateStore.get(sessionCode).setStatus(GameStatus.IN_PROGRESS);
+
         webSocketService.broadcastToSession(sessionCode,
                 new WebSocketMessage("GAME_STARTED", sessionCode, null));
 
@@ -163,62 +199,96 @@ public class GameSessionService {
         String code;
         do {
             code = StringUtils.leftPad(String.valueOf((int)(Math.random() * 10000)), 4, "0");
-        } while (gameSessionRepository.findBySessionCode(code).isPresent());
+            // Con lo sharding il codice viene scelto tra quelli di questo nodo, che resta il proprietario
+        } while (!sessionShardRouter.isLocal(code) || gameSessionRepository.findBySessionCode(code).isPresent());
         return code;
     }
 
     private GameSessionDto mapToDto(GameSession session) {
+        return mapToDto(session, propertiesCountByPlayer(List.of(session)));
+    }
+
+    private GameSessionDto mapToDto(GameSession session, Map<Long, Integer> propertiesCounts) {
         return GameSessionDto.builder()
                 .id(session.getId())
                 .sessionCode(session.getSessionCode())
                 .hostName(session.getHostName())
                 .status(session.getStatus())
                 .players(session.getPlayers().stream()
-                        .map(this::mapToPlayerDto)
+                        .map(player -> mapToPlayerDto(player, propertiesCounts))
                         .collect(Collectors.toList()))
                 .createdAt(session.getCreatedAt())
                 .build();
     }
 
     private PlayerDto mapToPlayerDto(Player player) {
-        int propertiesCount = 0;
-        try {
-            // Usa il repository corretto per contare le proprietà
-            propertiesCount = propertyOwnershipRepository.countByPlayerId(player.getId());
-        } catch (Exception e) {
-            System.err.println("Errore nel conteggio delle proprietà per il giocatore " + player.getId());
-            propertiesCount = 0;
-        }
+        return mapToPlayerDto(player, propertiesCountByPlayer(List.of(player.getGameSession())));
+    }
 
+    private PlayerDto mapToPlayerDto(Player player, Map<Long, Integer> propertiesCounts) {
         return PlayerDto.builder()
                 .id(player.getId())
                 .name(player.getName())
                 .balance(player.getBalance())
                 .color(player.getColor())
                 .isHost(player.isHost())
-                .propertiesCount(propertiesCount)
+                .propertiesCount(propertiesCounts.getOrDefault(player.getId(), 0))
                 .build();
     }
+
+    /**
+     * Proprietà per giocatore con una sola query raggruppata, anche per le sessioni in memoria:
+     * lo stato va letto solo dal worker della sessione, e i conteggi restano allineati ai saldi
+     * delle entità con cui vengono mostrati
+     */
+    private Map<Long, Integer> propertiesCountByPlayer(List<GameSession> sessions) {
+        Map<Long, Integer> counts = new HashMap<>();
+        List<Long> sessionIds = sessions.stream().map(GameSession::getId).toList();
+        if (sessionIds.isEmpty()) {
+            return counts;
+        }
+
+        try {
+            propertyOwnershipRepository.countByPlayerForSessions(sessionIds).forEach(row ->
+                    counts.put(row.getPlayerId(), (int) row.getPropertiesCount()));
+        } catch (Exception e) {
+            System.err.println("Errore nel conteggio delle proprietà per le sessioni " + sessionIds);
+        }
+        return counts;
+    }
+
     @Transactional(readOnly = true, isolation = Isolation.READ_COMMITTED)
     public GameSessionDto getSession(String sessionCode) {
         System.out.println("=== GETTING SESSION: " + sessionCode + " ===");
 
-        GameSession session = gameSessionRepository.findBySessionCode(sessionCode)
-                .orElseThrow(() -> new SessionNotFoundException("Sessione non trovata"));
+        // Saldi e conteggi arrivano dallo stato in memoria (il database può essere indietro)
+        SessionState state = sessionStateStore.get(sessionCode);
+        return mapToDto(state);
+    }
 
-        // Forza l'inizializzazione delle collezioni in modo controllato
-        session.getPlayers().forEach(player -> {
-            try {
-                // Inizializza la collezione properties se non è già caricata
-                if (player.getProperties() instanceof org.hibernate.collection.spi.PersistentCollection) {
-                    org.hibernate.Hibernate.initialize(player.getProperties());
-                }
-            } catch (Exception e) {
-                System.err.println("Errore nell'inizializzazione delle proprietà per il giocatore " + player.getId());
-            }
-        });
+    private GameSessionDto mapToDto(SessionState state) {
+        return GameSessionDto.builder()
+                .id(state.getSessionId())
+                .sessionCode(state.getSessionCode())
+                .hostName(state.getHostName())
+                .status(state.getStatus())
+                .players(state.getPlayers().stream()
+                        .map(player -> mapToPlayerDto(state, player))
+                        .collect(Collectors.toList()))
+                .createdAt(state.getCreatedAt())
+                .version(state.getVersion())
+                .build();
+    }
 
-        return mapToDto(session);
+    private PlayerDto mapToPlayerDto(SessionState state, PlayerState player) {
+        return PlayerDto.builder()
+                .id(player.getId())
+                .name(player.getName())
+                .balance(player.getBalance())
+                .color(player.getColor())
+                .isHost(player.isHost())
+                .propertiesCount(state.countOwnershipsOf(player.getId()))
+                .build();
     }
 
 
@@ -268,6 +338,10 @@ public class GameSessionService {
                     .executeUpdate();
             System.out.println("Players deleted");
 
+            // Elimina journal e snapshot della sessione
+            sessionJournal.delete(sessionId);
+            System.out.println("Journal deleted");
+
             // Elimina la sessione stessa
             entityManager.createNativeQuery(
                             "DELETE FROM game_sessions WHERE id = ?")
@@ -278,6 +352,9 @@ public class GameSessionService {
             // Flush finale per assicurarsi che tutto sia persistito
             entityManager.flush();
 
+            // Le modifiche ancora in memoria non vanno più scritte
+            sessionStateStore.evict(sessionCode);
+
             System.out.println("=== SESSION " + sessionCode + " DELETED COMPLETELY ===");
 
         } catch (Exception e) {
@@ -304,6 +381,15 @@ public class GameSessionService {
         session.setStatus(GameStatus.FINISHED);
         gameSessionRepository.save(session);
 
+        // Partita finita: lo stato cambia dal worker della sessione (annullato se la transazione fallisce)
+        sessionCommandExecutor.execute(sessionCode,
+                () -> sessionStateStore.get(sessionCode).setStatus(GameStatus.FINISHED));
+
+        // Lo stato viene persistito, liberato e tolto dal journal solo dopo il commit, dalla mailbox della sessione
+        Long sessionId = session.getId();
+        afterCommit(() -> sessionCommandExecutor.submit(sessionCode,
+                () -> sessionStateStore.retire(sessionCode, sessionId)));
+
         webSocketService.broadcastToSession(sessionCode,
                 new WebSocketMessage("GAME_ENDED", sessionCode, null));
 
@@ -311,15 +397,46 @@ public class GameSessionService {
     }
 
     public List<GameSessionDto> getActiveSessions() {
-        return gameSessionRepository.findByStatus(GameStatus.WAITING)
-                .stream()
-                .map(this::mapToDto)
+        List<GameSession> sessions = gameSessionRepository.findWithPlayersByStatus(GameStatus.WAITING);
+        Map<Long, Integer> propertiesCounts = propertiesCountByPlayer(sessions);
+        return sessions.stream()
+                .map(session -> mapToDto(session, propertiesCounts))
                 .collect(Collectors.toList());
     }
 
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
     @Scheduled(fixedRate = 3600000) // Ogni ora
     public void cleanupOldSessions() {
         LocalDateTime cutoffTime = LocalDateTime.now().minusHours(24);
+        List<GameSessionRepository.SessionKey> expired = gameSessionRepository.findKeysCreatedBefore(cutoffTime);
+        if (expired.isEmpty()) {
+            return;
+        }
+
+        for (GameSessionRepository.SessionKey key : expired) {
+            // Stato scartato dal worker della sessione: nessun comando può più riscriverne le righe
+            sessionCommandExecutor.submit(key.getSessionCode(), () -> sessionStateStore.evict(key.getSessionCode())).join();
+            sessionCommandExecutor.release(key.getSessionCode());
+            sessionJournal.delete(key.getId());
+            sessionLeaseRepository.deleteBySessionId(key.getId());
+        }
+        // Una DELETE per tabella, prima le righe che referenziano giocatori e sessioni
+        propertyOwnershipRepository.deleteBySessionCreatedBefore(cutoffTime);
+        transactionRepository.deleteBySessionCreatedBefore(cutoffTime);
+        playerRepository.deleteBySessionCreatedBefore(cutoffTime);
         gameSessionRepository.deleteOldSessions(cutoffTime);
+        System.out.println("✅ Cleaned up " + expired.size() + " old sessions");
     }
 }
\ No newline at end of file
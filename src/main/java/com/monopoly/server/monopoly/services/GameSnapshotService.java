@@ -0,0 +1,64 @@
+package com.monopoly.server.monopoly.services;
+
+import com.monopoly.server.monopoly.classes.dto.GameSnapshotDto;
+import com.monopoly.server.monopoly.classes.state.SessionState;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Vista completa di una partita per il caricamento di una schermata: giocatori e possessi
+ * dallo stato in memoria, ultime transazioni con una sola query.
+ * Va chiamato dal worker della sessione (SessionCommandExecutor), come le altre letture.
+ */
+@Service
+public class GameSnapshotService {
+
+    @Autowired
+    private SessionStateStore sessionStateStore;
+
+    @Autowired
+    private GameSessionService gameSessionService;
+
+    @Autowired
+    private PropertyService propertyService;
+
+    @Autowired
+    private BankService bankService;
+
+    @Value("${monopoly.snapshot.max-transactions:100}")
+    private int maxTransactions;
+
+    public GameSnapshotDto getSnapshot(String sessionCode, int transactionLimit) {
+        SessionState state = sessionStateStore.get(sessionCode);
+        int limit = limitOf(transactionLimit);
+
+        return GameSnapshotDto.builder()
+                .version(state.getVersion())
+                .transactionLimit(limit)
+                .session(gameSessionService.getSession(sessionCode))
+                .ownerships(propertyService.getSessionProperties(sessionCode))
+                .transactions(bankService.getRecentTransactions(sessionCode, limit))
+                .build();
+    }
+
+    /**
+     * ETag della vista attuale, per rispondere 304 senza costruirla. Ogni transazione
+     * muove dei saldi, quindi la versione dello stato copre anche il registro.
+     */
+    public String currentETag(String sessionCode, int transactionLimit) {
+        return eTag(sessionStateStore.get(sessionCode).getVersion(), limitOf(transactionLimit));
+    }
+
+    public String eTagOf(GameSnapshotDto snapshot) {
+        return eTag(snapshot.getVersion(), snapshot.getTransactionLimit());
+    }
+
+    private int limitOf(int transactionLimit) {
+        return Math.max(0, Math.min(transactionLimit, maxTransactions));
+    }
+
+    private static String eTag(long version, int transactionLimit) {
+        return "\"v" + version + "-t" + transactionLimit + "\"";
+    }
+}
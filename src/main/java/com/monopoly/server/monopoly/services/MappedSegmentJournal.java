@@ -0,0 +1,587 @@
+package com.monopoly.server.monopoly.services;
+
+import com.monopoly.server.monopoly.classes.state.SessionEvent;
+import com.monopoly.server.monopoly.classes.state.SessionState;
+import com.monopoly.server.monopoly.classes.state.SessionStateCodec;
+import com.monopoly.server.monopoly.enums.GameStatus;
+import com.monopoly.server.monopoly.repositories.GameSessionRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Journal durevole su file: segmenti di dimensione fissa mappati in memoria, quindi
+ * un append costa una copia in memoria e gli eventi vengono scritti a fine di ogni comando.
+ * Un thread di sync esegue il force dei byte scritti ogni sync-interval-ms e libera insieme
+ * tutti i comandi in attesa (group commit).
+ * <p>
+ * Record: lunghezza (int), CRC32 (int), tipo (byte), id sessione (long), versione (long), payload.
+ * Quando un segmento è pieno se ne apre uno nuovo, vi si ricopiano snapshot e coda di ogni sessione
+ * ancora viva e i segmenti precedenti vengono eliminati. All'avvio i segmenti vengono riletti fino al
+ * primo record incompleto o con CRC errato e le sessioni mancanti vengono ricreate nel database.
+ */
+@Component
+@ConditionalOnProperty(name = "monopoly.journal.mode", havingValue = "mapped")
+public class MappedSegmentJournal implements SessionJournal {
+
+    private static final byte EVENTS = 1;
+    private static final byte SNAPSHOT = 2;
+    private static final byte DELETED = 3;
+
+    // lunghezza + CRC
+    private static final int RECORD_PREFIX_BYTES = 8;
+    // tipo + id sessione + versione
+    private static final int RECORD_HEADER_BYTES = 17;
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    @Autowired
+    private GameSessionRepository gameSessionRepository;
+
+    @Autowired
+    private BoardCatalog boardCatalog;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final ScheduledExecutorService syncThread;
+
+    // Stato protetto da writeLock
+    private final Object writeLock = new Object();
+    private final Map<Long, SessionLog> sessions = new HashMap<>();
+    private final List<CompletableFuture<Void>> pendingSyncs = new ArrayList<>();
+    private Segment current;
+
+    public MappedSegmentJournal(@Value("${monopoly.journal.directory:data/journal}") String directory,
+                                @Value("${monopoly.journal.segment-size-bytes:16777216}") int segmentSize,
+                                @Value("${monopoly.journal.sync-interval-ms:2}") long syncIntervalMs) throws IOException {
+        this.directory = Path.of(directory);
+        this.segmentSize = segmentSize;
+
+        Files.createDirectories(this.directory);
+        recover();
+
+        this.syncThread = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "journal-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.syncThread.scheduleWithFixedDelay(this::syncWritten, syncIntervalMs, syncIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    // ===== SessionJournal =====
+
+    @Override
+    public void append(Long sessionId, List<SessionEvent> events) {
+        long version = events.get(events.size() - 1).getSequence();
+        write(EVENTS, sessionId, version, SessionStateCodec.encodeEvents(events));
+    }
+
+    @Override
+    public void saveSnapshot(SessionState state) {
+        write(SNAPSHOT, state.getSessionId(), state.getVersion(), encodeSnapshotRecord(state));
+    }
+
+    @Override
+    public Optional<SessionStateCodec.Snapshot> findSnapshot(Long sessionId) {
+        byte[] payload;
+        synchronized (writeLock) {
+            SessionLog log = sessions.get(sessionId);
+            payload = log != null ? log.snapshot : null;
+        }
+        return Optional.ofNullable(payload).map(bytes -> SessionStateCodec.decodeSnapshot(snapshotOf(bytes)));
+    }
+
+    @Override
+    public List<SessionEvent> readAfter(Long sessionId, long version) {
+        List<byte[]> blocks = new ArrayList<>();
+        synchronized (writeLock) {
+            SessionLog log = sessions.get(sessionId);
+            if (log != null) {
+                log.blocks.stream().filter(block -> block.version > version).forEach(block -> blocks.add(block.payload));
+            }
+        }
+
+        List<SessionEvent> events = new ArrayList<>();
+        for (byte[] block : blocks) {
+            for (SessionEvent event : SessionStateCodec.decodeEvents(block)) {
+                if (event.getSequence() > version) {
+                    events.add(event);
+                }
+            }
+        }
+        return events;
+    }
+
+    /**
+     * La cancellazione viene scritta solo se la transazione che elimina le righe va a buon fine
+     */
+    @Override
+    public void delete(Long sessionId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            write(DELETED, sessionId, 0, new byte[0]);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                write(DELETED, sessionId, 0, new byte[0]);
+            }
+        });
+    }
+
+    @Override
+    public boolean appendsOnCommit() {
+        return true;
+    }
+
+    @Override
+    public CompletableFuture<Void> sync() {
+        CompletableFuture<Void> synced = new CompletableFuture<>();
+        synchronized (writeLock) {
+            pendingSyncs.add(synced);
+        }
+        return synced;
+    }
+
+    @PreDestroy
+    void close() {
+        syncThread.shutdown();
+        syncWritten();
+    }
+
+    // ===== Scrittura =====
+
+    private void write(byte type, long sessionId, long version, byte[] payload) {
+        synchronized (writeLock) {
+            try {
+                int recordSize = RECORD_PREFIX_BYTES + RECORD_HEADER_BYTES + payload.length;
+                if (current.remaining() < recordSize) {
+                    roll(recordSize);
+                }
+                current.put(type, sessionId, version, payload);
+                apply(type, sessionId, version, payload);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Scrittura del journal fallita", e);
+            }
+        }
+    }
+
+    /**
+     * Group commit: un solo force per tutti i record scritti dall'ultimo giro
+     */
+    private void syncWritten() {
+        Segment segment;
+        int from;
+        int to;
+        List<CompletableFuture<Void>> waiting;
+        synchronized (writeLock) {
+            segment = current;
+            from = segment.syncedPosition;
+            to = segment.position;
+            waiting = new ArrayList<>(pendingSyncs);
+            pendingSyncs.clear();
+        }
+
+        try {
+            if (to > from) {
+                segment.buffer.force(from, to - from);
+            }
+        } catch (RuntimeException e) {
+            // syncedPosition resta indietro: il giro successivo riprova lo stesso intervallo
+            System.err.println("❌ Journal sync failed: " + e.getMessage());
+            waiting.forEach(synced -> synced.completeExceptionally(e));
+            return;
+        }
+
+        synchronized (writeLock) {
+            segment.syncedPosition = Math.max(segment.syncedPosition, to);
+        }
+        waiting.forEach(synced -> synced.complete(null));
+    }
+
+    /**
+     * Apre il segmento successivo. Se i dati ancora vivi ci stanno vengono ricopiati e i segmenti
+     * precedenti eliminati, altrimenti restano su disco fino a un roll successivo.
+     */
+    private void roll(int recordSize) throws IOException {
+        if (recordSize > segmentSize) {
+            throw new IllegalStateException("Record del journal più grande di un segmento: " + recordSize + " byte");
+        }
+
+        current.buffer.force();
+        current = Segment.create(directory, current.index + 1, segmentSize);
+
+        if (liveBytes() + recordSize > segmentSize) {
+            System.err.println("❌ Journal segment " + current.index + " opened without compaction: "
+                    + "active sessions exceed the segment size");
+            return;
+        }
+
+        for (Map.Entry<Long, SessionLog> entry : sessions.entrySet()) {
+            SessionLog log = entry.getValue();
+            if (log.snapshot != null) {
+                current.put(SNAPSHOT, entry.getKey(), log.snapshotVersion, log.snapshot);
+            }
+            for (Block block : log.blocks) {
+                current.put(EVENTS, entry.getKey(), block.version, block.payload);
+            }
+        }
+        current.buffer.force();
+        current.syncedPosition = current.position;
+
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(MappedSegmentJournal::isSegment).toList()) {
+                if (Segment.indexOf(file) < current.index) {
+                    Files.delete(file);
+                }
+            }
+        }
+        System.out.println("✅ Journal rolled to segment " + current.index + " (" + sessions.size() + " sessions carried over)");
+    }
+
+    private long liveBytes() {
+        long total = 0;
+        for (SessionLog log : sessions.values()) {
+            if (log.snapshot != null) {
+                total += RECORD_PREFIX_BYTES + RECORD_HEADER_BYTES + log.snapshot.length;
+            }
+            for (Block block : log.blocks) {
+                total += RECORD_PREFIX_BYTES + RECORD_HEADER_BYTES + block.payload.length;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Aggiorna l'indice in memoria. Idempotente: i record ricopiati da roll() possono
+     * comparire due volte se il processo si ferma prima dell'eliminazione dei vecchi segmenti.
+     */
+    private void apply(byte type, long sessionId, long version, byte[] payload) {
+        if (type == DELETED) {
+            sessions.remove(sessionId);
+            return;
+        }
+
+        SessionLog log = sessions.computeIfAbsent(sessionId, id -> new SessionLog());
+        if (type == SNAPSHOT && version >= log.snapshotVersion) {
+            log.snapshot = payload;
+            log.snapshotVersion = version;
+            log.blocks.removeIf(block -> block.version <= version);
+            log.lastVersion = Math.max(log.lastVersion, version);
+        } else if (type == EVENTS && version > log.lastVersion) {
+            log.blocks.add(new Block(version, payload));
+            log.lastVersion = version;
+        }
+    }
+
+    // ===== Recupero =====
+
+    private void recover() throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(MappedSegmentJournal::isSegment)
+                    .sorted((a, b) -> Long.compare(Segment.indexOf(a), Segment.indexOf(b)))
+                    .toList();
+        }
+
+        int records = 0;
+        for (Path file : files) {
+            Segment segment = Segment.open(file, segmentSize);
+            records += scan(segment);
+            current = segment;
+        }
+        if (current == null) {
+            current = Segment.create(directory, 0, segmentSize);
+        }
+        current.syncedPosition = current.position;
+
+        System.out.println("✅ Journal recovered from " + directory.toAbsolutePath() + ": " + files.size()
+                + " segments, " + records + " records, " + sessions.size() + " sessions");
+    }
+
+    /**
+     * Rilegge i record validi del segmento; un record troncato o con CRC errato chiude il segmento
+     * e il resto viene azzerato, così le scritture successive ripartono da lì
+     */
+    private int scan(Segment segment) {
+        MappedByteBuffer buffer = segment.buffer;
+        int position = 0;
+        int records = 0;
+        while (position + RECORD_PREFIX_BYTES <= segmentSize) {
+            int length = buffer.getInt(position);
+            if (length == 0) {
+                break;
+            }
+
+            int checksum = buffer.getInt(position + 4);
+            byte[] record = length >= RECORD_HEADER_BYTES && position + RECORD_PREFIX_BYTES + length <= segmentSize
+                    ? new byte[length] : null;
+            if (record != null) {
+                buffer.get(position + RECORD_PREFIX_BYTES, record);
+            }
+            if (record == null || checksum != crc(record)) {
+                System.err.println("❌ Journal segment " + segment.index + " truncated at byte " + position
+                        + ": incomplete or corrupted record");
+                buffer.put(position, new byte[segmentSize - position]);
+                buffer.force();
+                break;
+            }
+
+            ByteBuffer header = ByteBuffer.wrap(record);
+            byte type = header.get();
+            long sessionId = header.getLong();
+            long version = header.getLong();
+            byte[] payload = new byte[record.length - RECORD_HEADER_BYTES];
+            header.get(payload);
+            apply(type, sessionId, version, payload);
+
+            position += RECORD_PREFIX_BYTES + length;
+            records++;
+        }
+        segment.position = position;
+        return records;
+    }
+
+    /**
+     * Con il database in memoria un riavvio perde tutte le righe: le sessioni presenti
+     * nel journal vengono ricreate con gli id originali (senza lo storico delle transazioni)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void restoreSessions() {
+        List<Long> sessionIds;
+        synchronized (writeLock) {
+            sessionIds = new ArrayList<>(sessions.keySet());
+        }
+
+        int restored = 0;
+        for (Long sessionId : sessionIds) {
+            if (gameSessionRepository.existsById(sessionId)) {
+                continue;
+            }
+            SessionState state = rebuild(sessionId);
+            if (state != null) {
+                insertRows(state);
+                restored++;
+            }
+        }
+
+        if (restored > 0) {
+            restartSequence("game_sessions");
+            restartSequence("players");
+            restartSequence("property_ownership");
+            System.out.println("✅ Restored " + restored + " sessions from the journal");
+        }
+    }
+
+    private SessionState rebuild(Long sessionId) {
+        byte[] record;
+        synchronized (writeLock) {
+            SessionLog log = sessions.get(sessionId);
+            record = log != null ? log.snapshot : null;
+        }
+        if (record == null) {
+            return null;
+        }
+
+        ByteBuffer in = ByteBuffer.wrap(record);
+        String sessionCode = readString(in);
+        String hostName = readString(in);
+        LocalDateTime createdAt = LocalDateTime.ofEpochSecond(in.getLong(), in.getInt(), ZoneOffset.UTC);
+        GameStatus status = SessionStateCodec.statusOf(in.get() & 0xFF);
+
+        SessionState state = new SessionState(sessionId, sessionCode, hostName, createdAt, status,
+                boardCatalog.getLayout());
+        SessionStateCodec.Snapshot snapshot = SessionStateCodec.decodeSnapshot(snapshotOf(record));
+        state.load(snapshot.getPlayers(), snapshot.getOwnerships(), snapshot.getVersion());
+        readAfter(sessionId, state.getVersion()).forEach(state::replay);
+        return state;
+    }
+
+    private void insertRows(SessionState state) {
+        entityManager.createNativeQuery(
+                        "INSERT INTO game_sessions (id, session_code, host_name, status, created_at) VALUES (?, ?, ?, ?, ?)")
+                .setParameter(1, state.getSessionId())
+                .setParameter(2, state.getSessionCode())
+                .setParameter(3, state.getHostName())
+                .setParameter(4, state.getStatus().name())
+                .setParameter(5, state.getCreatedAt())
+                .executeUpdate();
+
+        state.getPlayers().forEach(player -> entityManager.createNativeQuery(
+                        "INSERT INTO players (id, version, name, balance, color, is_host, session_id) VALUES (?, 0, ?, ?, ?, ?, ?)")
+                .setParameter(1, player.getId())
+                .setParameter(2, player.getName())
+                .setParameter(3, player.getBalance().toBigDecimal())
+                .setParameter(4, player.getColor() != null ? player.getColor().name() : null)
+                .setParameter(5, player.isHost())
+                .setParameter(6, state.getSessionId())
+                .executeUpdate());
+
+        state.getOwnerships().forEach(slot -> entityManager.createNativeQuery(
+                        "INSERT INTO property_ownership (id, player_id, property_id, session_id, houses, has_hotel, mortgaged, purchased_at) "
+                                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)")
+                .setParameter(1, slot.getId())
+                .setParameter(2, slot.getOwnerId())
+                .setParameter(3, slot.getPropertyId())
+                .setParameter(4, state.getSessionId())
+                .setParameter(5, slot.getHouses())
+                .setParameter(6, slot.isHasHotel())
+                .setParameter(7, slot.isMortgaged())
+                .setParameter(8, slot.getPurchasedAt())
+                .executeUpdate());
+    }
+
+    // Con l'optimizer pooled-lo il valore della sequenza è il primo id del blocco successivo
+    private void restartSequence(String table) {
+        Number next = (Number) entityManager.createNativeQuery("SELECT COALESCE(MAX(id), 0) + 1 FROM " + table)
+                .getSingleResult();
+        entityManager.createNativeQuery("ALTER SEQUENCE " + table + "_seq RESTART WITH " + next.longValue())
+                .executeUpdate();
+    }
+
+    // ===== Formato dello snapshot: intestazione della sessione + SessionStateCodec =====
+
+    private static byte[] encodeSnapshotRecord(SessionState state) {
+        byte[] code = state.getSessionCode().getBytes(StandardCharsets.UTF_8);
+        byte[] host = state.getHostName().getBytes(StandardCharsets.UTF_8);
+        byte[] snapshot = SessionStateCodec.encodeSnapshot(state);
+        LocalDateTime createdAt = state.getCreatedAt() != null ? state.getCreatedAt() : LocalDateTime.now();
+
+        return ByteBuffer.allocate(4 + code.length + 4 + host.length + 8 + 4 + 1 + snapshot.length)
+                .putInt(code.length).put(code)
+                .putInt(host.length).put(host)
+                .putLong(createdAt.toEpochSecond(ZoneOffset.UTC)).putInt(createdAt.getNano())
+                .put((byte) state.getStatus().getCode())
+                .put(snapshot)
+                .array();
+    }
+
+    private static byte[] snapshotOf(byte[] record) {
+        ByteBuffer in = ByteBuffer.wrap(record);
+        readString(in);
+        readString(in);
+        in.position(in.position() + 8 + 4 + 1);
+        byte[] snapshot = new byte[in.remaining()];
+        in.get(snapshot);
+        return snapshot;
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int crc(byte[] record) {
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        return (int) crc.getValue();
+    }
+
+    private static boolean isSegment(Path file) {
+        return file.getFileName().toString().endsWith(SEGMENT_SUFFIX);
+    }
+
+    /**
+     * Snapshot più recente e blocchi di eventi successivi di una sessione
+     */
+    private static final class SessionLog {
+        private byte[] snapshot;
+        private long snapshotVersion = -1;
+        private long lastVersion;
+        private final List<Block> blocks = new ArrayList<>();
+    }
+
+    private static final class Block {
+        private final long version;
+        private final byte[] payload;
+
+        private Block(long version, byte[] payload) {
+            this.version = version;
+            this.payload = payload;
+        }
+    }
+
+    private static final class Segment {
+        private final long index;
+        private final MappedByteBuffer buffer;
+        private int position;
+        private int syncedPosition;
+
+        private Segment(long index, MappedByteBuffer buffer) {
+            this.index = index;
+            this.buffer = buffer;
+        }
+
+        static Segment create(Path directory, long index, int size) throws IOException {
+            return open(directory.resolve(String.format("%020d%s", index, SEGMENT_SUFFIX)), size);
+        }
+
+        static Segment open(Path file, int size) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                // La mappatura resta valida anche dopo la chiusura del canale
+                return new Segment(indexOf(file), channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+            }
+        }
+
+        static long indexOf(Path file) {
+            String name = file.getFileName().toString();
+            return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+        }
+
+        int remaining() {
+            return buffer.capacity() - position;
+        }
+
+        void put(byte type, long sessionId, long version, byte[] payload) {
+            byte[] record = ByteBuffer.allocate(RECORD_HEADER_BYTES + payload.length)
+                    .put(type).putLong(sessionId).putLong(version).put(payload)
+                    .array();
+            if (remaining() < RECORD_PREFIX_BYTES + record.length) {
+                throw new IllegalStateException("Segmento del journal pieno");
+            }
+            // Lunghezza per ultima: un record interrotto a metà resta invisibile o fallisce il CRC
+            buffer.putInt(position + 4, crc(record));
+            buffer.put(position + RECORD_PREFIX_BYTES, record);
+            buffer.putInt(position, record.length);
+            position += RECORD_PREFIX_BYTES + record.length;
+        }
+    }
+}
@@ -1,23 +1,28 @@
 package com.monopoly.server.monopoly.services;
 
+import com.monopoly.server.monopoly.classes.dto.PlayerDto;
 import com.monopoly.server.monopoly.classes.dto.PropertyDto;
 import com.monopoly.server.monopoly.classes.dto.PropertyOwnershipDto;
 import com.monopoly.server.monopoly.classes.dto.WebSocketMessage;
 import com.monopoly.server.monopoly.classes.dto.TransactionDto;
-import com.monopoly.server.monopoly.entities.Player;
+import com.monopoly.server.monopoly.classes.money.LedgerEntry;
+import com.monopoly.server.monopoly.classes.money.Money;
+import com.monopoly.server.monopoly.classes.state.OwnershipSlot;
+import com.monopoly.server.monopoly.classes.state.PlayerState;
+import com.monopoly.server.monopoly.classes.state.SessionState;
 import com.monopoly.server.monopoly.entities.Property;
 import com.monopoly.server.monopoly.entities.PropertyOwnership;
 import com.monopoly.server.monopoly.enums.PropertyColor;
 import com.monopoly.server.monopoly.enums.PropertyType;
+import com.monopoly.server.monopoly.enums.TransactionType;
 import com.monopoly.server.monopoly.exceptions.*;
+import com.monopoly.server.monopoly.repositories.GameSessionRepository;
 import com.monopoly.server.monopoly.repositories.PlayerRepository;
 import com.monopoly.server.monopoly.repositories.PropertyOwnershipRepository;
-import com.monopoly.server.monopoly.repositories.PropertyRepository;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -26,7 +31,7 @@ import java.util.stream.Collectors;
 public class PropertyService {
 
     @Autowired
-    private PropertyRepository propertyRepository;
+    private BoardCatalog boardCatalog;
 
     @Autowired
     private PropertyOwnershipRepository ownershipRepository;
@@ -34,6 +39,12 @@ public class PropertyService {
     @Autowired
     private PlayerRepository playerRepository;
 
+    @Autowired
+    private GameSessionRepository gameSessionRepository;
+
+    @Autowired
+    private SessionStateStore sessionStateStore;
+
     @Autowired
     private BankService bankService;
 
@@ -41,19 +52,20 @@ public class PropertyService {
     private WebSocketService webSocketService;
 
     public PropertyOwnershipDto purchaseProperty(Long playerId, Long propertyId) {
-        Player player = playerRepository.findById(playerId)
+        SessionState state = sessionStateStore.forPlayer(playerId);
+        PlayerState player = state.findPlayer(playerId)
                 .orElseThrow(() -> new PlayerNotFoundException("Giocatore non trovato"));
 
-        Property property = propertyRepository.findById(propertyId)
+        Property property = boardCatalog.findById(propertyId)
                 .orElseThrow(() -> new PropertyNotFoundException("Proprietà non trovata"));
 
-        // Verifica se la proprietà è già posseduta
-        if (ownershipRepository.existsByProperty(property)) {
+        // Verifica se la proprietà è già posseduta in questa sessione
+        if (state.isOwned(propertyId)) {
             throw new PropertyAlreadyOwnedException("Proprietà già posseduta");
         }
 
         // Verifica fondi sufficienti
-        if (player.getBalance().compareTo(property.getPrice()) < 0) {
+        if (player.getBalance().isLessThan(property.getPrice())) {
             throw new InsufficientFundsException("Fondi insufficienti per l'acquisto");
         }
 
@@ -62,20 +74,13 @@ public class PropertyService {
                 "Acquisto " + property.getName());
 
         // Crea ownership
-        PropertyOwnership ownership = new PropertyOwnership();
-        ownership.setPlayer(player);
-        ownership.setProperty(property);
-        ownership.setHouses(0);
-        ownership.setHasHotel(false);
-        ownership.setMortgaged(false);
-
-        ownership = ownershipRepository.save(ownership);
+        OwnershipSlot ownership = createOwnership(state, player, property);
 
         // Notifica WebSocket
         webSocketService.broadcastToSession(
-                player.getGameSession().getSessionCode(),
+                state.getSessionCode(),
                 new WebSocketMessage("PROPERTY_PURCHASED",
-                        player.getGameSession().getSessionCode(),
+                        state.getSessionCode(),
                         Map.of(
                                 "player", player.getName(),
                                 "property", property.getName(),
@@ -83,7 +88,28 @@ public class PropertyService {
                         ))
         );
 
-        return mapToOwnershipDto(ownership);
+        return mapToOwnershipDto(state, ownership);
+    }
+
+    /**
+     * L'id della riga di possesso (assegnato dalla sequenza al save) identifica il possesso
+     * nelle API; l'INSERT parte al flush insieme alle altre scritture del comando
+     */
+    private OwnershipSlot createOwnership(SessionState state, PlayerState player, Property property) {
+        PropertyOwnership ownership = new PropertyOwnership();
+        ownership.setPlayer(playerRepository.getReferenceById(player.getId()));
+        ownership.setProperty(property);
+        ownership.setGameSession(gameSessionRepository.getReferenceById(state.getSessionId()));
+        ownership.setHouses(0);
+        ownership.setHasHotel(false);
+        ownership.setMortgaged(false);
+
+        ownership = ownershipRepository.save(ownership);
+
+        OwnershipSlot slot = new OwnershipSlot(ownership.getId(), property.getId(), player.getId(),
+                0, false, false, ownership.getPurchasedAt());
+        sessionStateStore.addOwnership(state, slot);
+        return slot;
     }
 
     /**
@@ -94,16 +120,18 @@ public class PropertyService {
         System.out.println("=== PAY RENT REQUEST ===");
         System.out.println("Property ID: " + propertyId + ", Tenant ID: " + tenantPlayerId + ", Dice: " + diceRoll);
 
-        Property property = propertyRepository.findById(propertyId)
+        Property property = boardCatalog.findById(propertyId)
                 .orElseThrow(() -> new PropertyNotFoundException("Proprietà non trovata"));
 
-        PropertyOwnership ownership = ownershipRepository.findByProperty(property)
-                .orElseThrow(() -> new PropertyNotFoundException("Proprietà non posseduta da nessuno"));
-
-        Player tenant = playerRepository.findById(tenantPlayerId)
+        SessionState state = sessionStateStore.forPlayer(tenantPlayerId);
+        PlayerState tenant = state.findPlayer(tenantPlayerId)
                 .orElseThrow(() -> new PlayerNotFoundException("Giocatore inquilino non trovato"));
 
-        Player owner = ownership.getPlayer();
+        // L'affitto si paga al proprietario nella sessione dell'inquilino
+        OwnershipSlot ownership = state.findOwnershipOfProperty(propertyId)
+                .orElseThrow(() -> new PropertyNotFoundException("Proprietà non posseduta da nessuno"));
+
+        PlayerState owner = ownerOf(state, ownership);
 
         System.out.println("Property: " + property.getName() + ", Owner: " + owner.getName() + ", Tenant: " + tenant.getName());
 
@@ -114,22 +142,22 @@ public class PropertyService {
         }
 
         // Proprietà ipotecata non genera affitto
-        if (ownership.getMortgaged()) {
+        if (ownership.isMortgaged()) {
             System.out.println("ERROR: Property is mortgaged");
             throw new InvalidTransactionException("Non si paga affitto su proprietà ipotecate");
         }
 
         // Calcola affitto
-        BigDecimal rentAmount = calculatePropertyRent(ownership, diceRoll);
+        Money rentAmount = state.rentOf(ownership, diceRoll);
         System.out.println("Calculated rent amount: " + rentAmount);
 
-        if (rentAmount.compareTo(BigDecimal.ZERO) <= 0) {
+        if (!rentAmount.isPositive()) {
             System.out.println("ERROR: No rent due");
             throw new InvalidTransactionException("Affitto non dovuto");
         }
 
         // Verifica fondi sufficienti
-        if (tenant.getBalance().compareTo(rentAmount) < 0) {
+        if (tenant.getBalance().isLessThan(rentAmount)) {
             System.out.println("ERROR: Insufficient funds. Tenant balance: " + tenant.getBalance() + ", Rent: " + rentAmount);
             throw new InsufficientFundsException("Fondi insufficienti per pagare l'affitto");
         }
@@ -147,36 +175,55 @@ public class PropertyService {
     }
 
     // NUOVO: Metodo helper per vendita edifici nel trasferimento
-    private void sellAllBuildings(PropertyOwnership ownership) {
-        BigDecimal totalRefund = BigDecimal.ZERO;
-        BigDecimal houseCost = getHouseCost(ownership.getProperty().getColorGroup());
-        BigDecimal sellPrice = houseCost.divide(BigDecimal.valueOf(2));
+    private void sellAllBuildings(SessionState state, OwnershipSlot ownership) {
+        Property property = propertyOf(ownership);
+        Money totalRefund = removeAllBuildings(state, ownership);
+
+        if (totalRefund.isPositive()) {
+            bankService.payFromBank(ownership.getOwnerId(), totalRefund,
+                    "Vendita forzata edifici da " + property.getName());
+            System.out.println("Total refund: " + totalRefund);
+        }
+
+        System.out.println("✅ All buildings sold successfully");
+    }
+
+    /**
+     * Toglie case e hotel dalla proprietà e restituisce quanto spetta al proprietario, senza pagarlo
+     */
+    private Money removeAllBuildings(SessionState state, OwnershipSlot ownership) {
+        Property property = propertyOf(ownership);
+        Money totalRefund = Money.ZERO;
+        Money houseCost = getHouseCost(property.getColorGroup());
+        Money sellPrice = houseCost.half();
 
         System.out.println("=== SELLING ALL BUILDINGS ===");
-        System.out.println("Property: " + ownership.getProperty().getName());
-        System.out.println("Has hotel: " + ownership.getHasHotel() + ", Houses: " + ownership.getHouses());
+        System.out.println("Property: " + property.getName());
+        System.out.println("Has hotel: " + ownership.isHasHotel() + ", Houses: " + ownership.getHouses());
 
-        if (ownership.getHasHotel()) {
-            totalRefund = totalRefund.add(sellPrice);
-            ownership.setHasHotel(false);
+        if (ownership.isHasHotel()) {
+            totalRefund = totalRefund.plus(sellPrice);
+            state.setHasHotel(ownership, false);
             System.out.println("Sold hotel for: " + sellPrice);
         }
 
         if (ownership.getHouses() > 0) {
-            BigDecimal housesRefund = sellPrice.multiply(BigDecimal.valueOf(ownership.getHouses()));
-            totalRefund = totalRefund.add(housesRefund);
+            Money housesRefund = sellPrice.times(ownership.getHouses());
+            totalRefund = totalRefund.plus(housesRefund);
             System.out.println("Sold " + ownership.getHouses() + " houses for: " + housesRefund);
-            ownership.setHouses(0);
+            state.setHouses(ownership, 0);
         }
 
-        if (totalRefund.compareTo(BigDecimal.ZERO) > 0) {
-            bankService.payFromBank(ownership.getPlayer().getId(), totalRefund,
-                    "Vendita forzata edifici da " + ownership.getProperty().getName());
-            System.out.println("Total refund: " + totalRefund);
-        }
+        return totalRefund;
+    }
 
-        ownershipRepository.save(ownership);
-        System.out.println("✅ All buildings sold successfully");
+    /**
+     * Quanto spetterebbe al proprietario per case e hotel della proprietà, senza toglierli
+     */
+    private Money buildingsRefundOf(OwnershipSlot ownership) {
+        Money sellPrice = getHouseCost(propertyOf(ownership).getColorGroup()).half();
+        int buildings = ownership.getHouses() + (ownership.isHasHotel() ? 1 : 0);
+        return sellPrice.times(buildings);
     }
 
     /**
@@ -184,36 +231,36 @@ public class PropertyService {
      */
     @Transactional
     public PropertyOwnershipDto sellHouse(Long ownershipId) {
-        PropertyOwnership ownership = ownershipRepository.findById(ownershipId)
-                .orElseThrow(() -> new PropertyNotFoundException("Proprietà non trovata"));
+        SessionState state = sessionStateStore.forOwnership(ownershipId);
+        OwnershipSlot ownership = findOwnership(state, ownershipId);
+        Property property = propertyOf(ownership);
 
         if (ownership.getHouses() <= 0) {
             throw new InvalidPropertyActionException("Nessuna casa da vendere");
         }
 
-        if (ownership.getHasHotel()) {
+        if (ownership.isHasHotel()) {
             throw new InvalidPropertyActionException("Vendi prima l'hotel");
         }
 
         // Verifica costruzione equilibrata nel gruppo
-        if (!canSellHouseFromGroup(ownership)) {
+        if (!canSellHouseFromGroup(state, ownership)) {
             throw new InvalidPropertyActionException(
                     "Non puoi vendere: mantieni la costruzione equilibrata nel gruppo colore");
         }
 
         // Calcola prezzo vendita (50% del costo)
-        BigDecimal houseCost = getHouseCost(ownership.getProperty().getColorGroup());
-        BigDecimal sellPrice = houseCost.divide(BigDecimal.valueOf(2));
+        Money houseCost = getHouseCost(property.getColorGroup());
+        Money sellPrice = houseCost.half();
 
         // Vendi casa
-        ownership.setHouses(ownership.getHouses() - 1);
-        ownership = ownershipRepository.save(ownership);
+        state.setHouses(ownership, ownership.getHouses() - 1);
 
         // Paga il giocatore
-        bankService.payFromBank(ownership.getPlayer().getId(), sellPrice,
-                "Vendita casa da " + ownership.getProperty().getName());
+        bankService.payFromBank(ownership.getOwnerId(), sellPrice,
+                "Vendita casa da " + property.getName());
 
-        return mapToOwnershipDto(ownership);
+        return mapToOwnershipDto(state, ownership);
     }
 
     /**
@@ -221,49 +268,48 @@ public class PropertyService {
      */
     @Transactional
     public PropertyOwnershipDto sellHotel(Long ownershipId) {
-        PropertyOwnership ownership = ownershipRepository.findById(ownershipId)
-                .orElseThrow(() -> new PropertyNotFoundException("Proprietà non trovata"));
+        SessionState state = sessionStateStore.forOwnership(ownershipId);
+        OwnershipSlot ownership = findOwnership(state, ownershipId);
+        Property property = propertyOf(ownership);
 
-        if (!ownership.getHasHotel()) {
+        if (!ownership.isHasHotel()) {
             throw new InvalidPropertyActionException("Nessun hotel da vendere");
         }
 
         // Calcola prezzo vendita hotel (50% del costo)
-        BigDecimal hotelCost = getHouseCost(ownership.getProperty().getColorGroup());
-        BigDecimal sellPrice = hotelCost.divide(BigDecimal.valueOf(2));
+        Money hotelCost = getHouseCost(property.getColorGroup());
+        Money sellPrice = hotelCost.half();
 
         // Vendi hotel e ripristina 4 case
-        ownership.setHasHotel(false);
-        ownership.setHouses(4);
-        ownership = ownershipRepository.save(ownership);
+        state.setHasHotel(ownership, false);
+        state.setHouses(ownership, 4);
 
         // Paga il giocatore
-        bankService.payFromBank(ownership.getPlayer().getId(), sellPrice,
-                "Vendita hotel da " + ownership.getProperty().getName());
+        bankService.payFromBank(ownership.getOwnerId(), sellPrice,
+                "Vendita hotel da " + property.getName());
 
-        return mapToOwnershipDto(ownership);
+        return mapToOwnershipDto(state, ownership);
     }
 
     /**
      * NUOVO: Trasferimento proprietà tra giocatori
      */
     @Transactional
-    public PropertyOwnershipDto transferProperty(Long ownershipId, Long newOwnerId, BigDecimal price) {
+    public PropertyOwnershipDto transferProperty(Long ownershipId, Long newOwnerId, Money price) {
         System.out.println("=== TRANSFERRING PROPERTY ===");
         System.out.println("Ownership ID: " + ownershipId + ", New Owner ID: " + newOwnerId + ", Price: " + price);
 
-        PropertyOwnership ownership = ownershipRepository.findById(ownershipId)
-                .orElseThrow(() -> new PropertyNotFoundException("Proprietà non trovata"));
+        SessionState state = sessionStateStore.forOwnership(ownershipId);
+        OwnershipSlot ownership = findOwnership(state, ownershipId);
+        Property property = propertyOf(ownership);
 
-        Player newOwner = playerRepository.findById(newOwnerId)
-                .orElseThrow(() -> new PlayerNotFoundException("Nuovo proprietario non trovato"));
+        // Verifica che siano nella stessa sessione: chi non è nello stato appartiene a un'altra
+        PlayerState newOwner = state.findPlayer(newOwnerId)
+                .orElseThrow(() -> playerRepository.existsById(newOwnerId)
+                        ? new InvalidTransactionException("I giocatori devono essere nella stessa sessione")
+                        : new PlayerNotFoundException("Nuovo proprietario non trovato"));
 
-        Player currentOwner = ownership.getPlayer();
-
-        // Verifica che siano nella stessa sessione
-        if (!currentOwner.getGameSession().equals(newOwner.getGameSession())) {
-            throw new InvalidTransactionException("I giocatori devono essere nella stessa sessione");
-        }
+        PlayerState currentOwner = ownerOf(state, ownership);
 
         // Non può trasferire a se stesso
         if (currentOwner.getId().equals(newOwner.getId())) {
@@ -271,16 +317,16 @@ public class PropertyService {
         }
 
         // CORREZIONE: Verifica se il proprietario corrente aveva il gruppo completo PRIMA del trasferimento
-        boolean currentOwnerHadCompleteGroup = hasColorGroupMonopoly(currentOwner, ownership.getProperty().getColorGroup());
+        boolean currentOwnerHadCompleteGroup = hasColorGroupMonopoly(state, currentOwner.getId(), property.getColorGroup());
 
         // Prima di trasferire, vendi tutti gli edifici se presenti
-        if (ownership.getHouses() > 0 || ownership.getHasHotel()) {
-            sellAllBuildings(ownership);
+        if (ownership.getHouses() > 0 || ownership.isHasHotel()) {
+            sellAllBuildings(state, ownership);
         }
 
         // Se c'è un prezzo, effettua il pagamento
-        if (price != null && price.compareTo(BigDecimal.ZERO) > 0) {
-            if (newOwner.getBalance().compareTo(price) < 0) {
+        if (price != null && price.isPositive()) {
+            if (newOwner.getBalance().isLessThan(price)) {
                 throw new InsufficientFundsException("Fondi insufficienti per l'acquisto");
             }
 
@@ -288,56 +334,43 @@ public class PropertyService {
                     newOwner.getId(),
                     currentOwner.getId(),
                     price,
-                    "Acquisto " + ownership.getProperty().getName() + " da " + currentOwner.getName()
+                    "Acquisto " + property.getName() + " da " + currentOwner.getName()
             );
         }
 
         // Gestisci ipoteca: nuovo proprietario può estinguere o pagare 10%
-        if (ownership.getMortgaged()) {
-            BigDecimal mortgageTax = ownership.getProperty().getPrice()
-                    .multiply(BigDecimal.valueOf(0.1));
+        if (ownership.isMortgaged()) {
+            Money mortgageTax = property.getPrice().percent(10);
 
-            if (newOwner.getBalance().compareTo(mortgageTax) >= 0) {
+            if (!newOwner.getBalance().isLessThan(mortgageTax)) {
                 bankService.payToBank(newOwner.getId(), mortgageTax,
-                        "Tassa trasferimento ipoteca " + ownership.getProperty().getName());
+                        "Tassa trasferimento ipoteca " + property.getName());
             }
             // Se non può pagare la tassa, la proprietà rimane ipotecata
         }
 
         // Trasferisci proprietà
-        ownership.setPlayer(newOwner);
-        ownership = ownershipRepository.save(ownership);
-
-        // NUOVO: Ricalcola affitti per entrambi i giocatori se necessario
-        PropertyColor colorGroup = ownership.getProperty().getColorGroup();
-
-        // Ricalcola per il vecchio proprietario (se aveva il gruppo completo)
-        if (currentOwnerHadCompleteGroup) {
-            recalculateGroupRents(currentOwner, colorGroup);
-        }
+        state.setOwner(ownership, newOwner.getId());
 
-        // Ricalcola per il nuovo proprietario (se ora ha il gruppo completo)
-        boolean newOwnerHasCompleteGroup = hasColorGroupMonopoly(newOwner, colorGroup);
-        if (newOwnerHasCompleteGroup) {
-            recalculateGroupRents(newOwner, colorGroup);
-        }
+        // Gli affitti del gruppo sono già stati ricalcolati da SessionState al cambio di proprietario
+        boolean newOwnerHasCompleteGroup = hasColorGroupMonopoly(state, newOwner.getId(), property.getColorGroup());
 
         // Notifica WebSocket
         webSocketService.broadcastPropertyUpdate(
-                currentOwner.getGameSession().getSessionCode(),
+                state.getSessionCode(),
                 Map.of(
                         "action", "PROPERTY_TRANSFERRED",
-                        "property", ownership.getProperty().getName(),
+                        "property", property.getName(),
                         "fromPlayer", currentOwner.getName(),
                         "toPlayer", newOwner.getName(),
-                        "price", price != null ? price : BigDecimal.ZERO,
+                        "price", price != null ? price : Money.ZERO,
                         "currentOwnerHadCompleteGroup", currentOwnerHadCompleteGroup,
                         "newOwnerHasCompleteGroup", newOwnerHasCompleteGroup
                 )
         );
 
         System.out.println("✅ Property transfer completed successfully");
-        return mapToOwnershipDto(ownership);
+        return mapToOwnershipDto(state, ownership);
     }
 
     /**
@@ -347,7 +380,7 @@ public class PropertyService {
     public List<PropertyOwnershipDto> transferMultipleProperties(
             List<Long> ownershipIds,
             Long newOwnerId,
-            BigDecimal compensationAmount) {
+            Money compensationAmount) {
 
         System.out.println("=== TRANSFERRING MULTIPLE PROPERTIES ===");
         System.out.println("Ownership IDs: " + ownershipIds + ", New Owner: " + newOwnerId + ", Compensation: " + compensationAmount);
@@ -356,89 +389,111 @@ public class PropertyService {
             throw new InvalidTransactionException("Nessuna proprietà da trasferire");
         }
 
-        Player newOwner = playerRepository.findById(newOwnerId)
+        SessionState state = sessionStateStore.forPlayer(newOwnerId);
+        PlayerState newOwner = state.findPlayer(newOwnerId)
                 .orElseThrow(() -> new PlayerNotFoundException("Nuovo proprietario non trovato"));
 
-        List<PropertyOwnershipDto> transferredProperties = new ArrayList<>();
-        Player currentOwner = null;
-        Set<PropertyColor> affectedColorGroups = new HashSet<>();
-
-        // Trasferisci tutte le proprietà
+        // Verifica tutte le proprietà prima di modificare qualsiasi cosa
+        List<OwnershipSlot> ownerships = new ArrayList<>(ownershipIds.size());
+        Set<Long> seen = new HashSet<>();
+        PlayerState currentOwner = null;
         for (Long ownershipId : ownershipIds) {
-            PropertyOwnership ownership = ownershipRepository.findById(ownershipId)
-                    .orElseThrow(() -> new PropertyNotFoundException("Proprietà non trovata: " + ownershipId));
+            if (!seen.add(ownershipId)) {
+                throw new InvalidTransactionException("Proprietà ripetuta nel trasferimento: " + ownershipId);
+            }
+
+            // Verifica sessione: un possesso assente dallo stato appartiene a un'altra sessione
+            OwnershipSlot ownership = state.findOwnership(ownershipId)
+                    .orElseThrow(() -> sessionStateStore.findSessionCodeOfOwnership(ownershipId).isPresent()
+                            ? new InvalidTransactionException("I giocatori devono essere nella stessa sessione")
+                            : new PropertyNotFoundException("Proprietà non trovata: " + ownershipId));
 
             // Verifica che tutte le proprietà appartengano allo stesso giocatore
             if (currentOwner == null) {
-                currentOwner = ownership.getPlayer();
-            } else if (!currentOwner.getId().equals(ownership.getPlayer().getId())) {
+                currentOwner = ownerOf(state, ownership);
+            } else if (!ownership.isOwnedBy(currentOwner.getId())) {
                 throw new InvalidTransactionException("Tutte le proprietà devono appartenere allo stesso giocatore");
             }
+            ownerships.add(ownership);
+        }
 
-            // Verifica sessione
-            if (!currentOwner.getGameSession().equals(newOwner.getGameSession())) {
-                throw new InvalidTransactionException("I giocatori devono essere nella stessa sessione");
-            }
-
-            // Vendi edifici se presenti
-            if (ownership.getHouses() > 0 || ownership.getHasHotel()) {
-                sellAllBuildings(ownership);
-            }
+        // Edifici venduti e tasse di ipoteca sommati: un solo movimento per tipo, qualunque sia il numero di proprietà
+        Money buildingsRefund = Money.ZERO;
+        Money mortgageTaxes = Money.ZERO;
+        Money newOwnerBalance = newOwner.getBalance();
+        List<String> taxedProperties = new ArrayList<>();
+        Set<PropertyColor> affectedColorGroups = new HashSet<>();
 
-            // Gestisci ipoteca
-            if (ownership.getMortgaged()) {
-                BigDecimal mortgageTax = ownership.getProperty().getPrice()
-                        .multiply(BigDecimal.valueOf(0.1));
-                if (newOwner.getBalance().compareTo(mortgageTax) >= 0) {
-                    bankService.payToBank(newOwner.getId(), mortgageTax,
-                            "Tassa trasferimento ipoteca " + ownership.getProperty().getName());
+        for (OwnershipSlot ownership : ownerships) {
+            Property property = propertyOf(ownership);
+            buildingsRefund = buildingsRefund.plus(buildingsRefundOf(ownership));
+
+            // Gestisci ipoteca: la tassa si paga finché il saldo del nuovo proprietario la copre
+            if (ownership.isMortgaged()) {
+                Money mortgageTax = property.getPrice().percent(10);
+                if (!newOwnerBalance.isLessThan(mortgageTax)) {
+                    newOwnerBalance = newOwnerBalance.minus(mortgageTax);
+                    mortgageTaxes = mortgageTaxes.plus(mortgageTax);
+                    taxedProperties.add(property.getName());
                 }
             }
 
-            // Trasferisci
-            affectedColorGroups.add(ownership.getProperty().getColorGroup());
-            ownership.setPlayer(newOwner);
-            ownership = ownershipRepository.save(ownership);
+            affectedColorGroups.add(property.getColorGroup());
+        }
 
-            transferredProperties.add(mapToOwnershipDto(ownership));
+        // Compenso verificato sui saldi dopo rimborso e tasse, prima di modificare qualsiasi cosa
+        Money currentOwnerBalance = currentOwner.getBalance().plus(buildingsRefund);
+        if (compensationAmount != null && compensationAmount.isPositive()
+                && newOwnerBalance.isLessThan(compensationAmount)) {
+            throw new InsufficientFundsException("Fondi insufficienti per il compenso");
+        }
+        if (compensationAmount != null && compensationAmount.isNegative()
+                && currentOwnerBalance.isLessThan(compensationAmount.abs())) {
+            throw new InsufficientFundsException("Fondi insufficienti per il pagamento");
         }
 
-        // Gestisci compenso monetario
-        if (compensationAmount != null && compensationAmount.compareTo(BigDecimal.ZERO) != 0) {
-            if (compensationAmount.compareTo(BigDecimal.ZERO) > 0) {
-                // Il current owner riceve denaro
-                if (newOwner.getBalance().compareTo(compensationAmount) < 0) {
-                    throw new InsufficientFundsException("Fondi insufficienti per il compenso");
-                }
-                bankService.transferMoney(newOwnerId, currentOwner.getId(), compensationAmount,
-                        "Compenso scambio proprietà multiple");
-            } else {
-                // Il current owner paga denaro
-                BigDecimal paymentAmount = compensationAmount.abs();
-                if (currentOwner.getBalance().compareTo(paymentAmount) < 0) {
-                    throw new InsufficientFundsException("Fondi insufficienti per il pagamento");
-                }
-                bankService.transferMoney(currentOwner.getId(), newOwnerId, paymentAmount,
-                        "Pagamento scambio proprietà multiple");
-            }
+        List<LedgerEntry> entries = new ArrayList<>(3);
+        if (buildingsRefund.isPositive()) {
+            entries.add(new LedgerEntry(TransactionType.BANK_TO_PLAYER, buildingsRefund, null, currentOwner.getId(),
+                    "Vendita forzata edifici da " + ownerships.size() + " proprietà"));
+        }
+        if (mortgageTaxes.isPositive()) {
+            entries.add(new LedgerEntry(TransactionType.PLAYER_TO_BANK, mortgageTaxes, newOwner.getId(), null,
+                    BankService.describe("Tassa trasferimento ipoteca", taxedProperties)));
+        }
+        if (compensationAmount != null && compensationAmount.isPositive()) {
+            // Il current owner riceve denaro
+            entries.add(new LedgerEntry(TransactionType.PLAYER_TO_PLAYER, compensationAmount,
+                    newOwner.getId(), currentOwner.getId(), "Compenso scambio proprietà multiple"));
+        } else if (compensationAmount != null && compensationAmount.isNegative()) {
+            // Il current owner paga denaro
+            entries.add(new LedgerEntry(TransactionType.PLAYER_TO_PLAYER, compensationAmount.abs(),
+                    currentOwner.getId(), newOwner.getId(), "Pagamento scambio proprietà multiple"));
         }
 
-        // Ricalcola affitti per tutti i gruppi di colore coinvolti
-        for (PropertyColor colorGroup : affectedColorGroups) {
-            recalculateGroupRents(currentOwner, colorGroup);
-            recalculateGroupRents(newOwner, colorGroup);
+        // Un solo blocco di movimenti, poi edifici e passaggi di proprietà
+        List<TransactionDto> transactions = bankService.settle(state, entries);
+        List<PropertyOwnershipDto> transferredProperties = new ArrayList<>(ownerships.size());
+        for (OwnershipSlot ownership : ownerships) {
+            if (ownership.getHouses() > 0 || ownership.isHasHotel()) {
+                removeAllBuildings(state, ownership);
+            }
+            state.setOwner(ownership, newOwner.getId());
+            transferredProperties.add(mapToOwnershipDto(state, ownership));
         }
 
-        // Notifica WebSocket
+        // Notifica WebSocket: un solo messaggio con movimenti e saldi aggiornati
         webSocketService.broadcastPropertyUpdate(
-                currentOwner.getGameSession().getSessionCode(),
+                state.getSessionCode(),
                 Map.of(
                         "action", "MULTIPLE_PROPERTIES_TRANSFERRED",
                         "propertiesCount", transferredProperties.size(),
                         "fromPlayer", currentOwner.getName(),
                         "toPlayer", newOwner.getName(),
-                        "compensation", compensationAmount != null ? compensationAmount : BigDecimal.ZERO,
-                        "affectedColorGroups", affectedColorGroups.size()
+                        "compensation", compensationAmount != null ? compensationAmount : Money.ZERO,
+                        "affectedColorGroups", affectedColorGroups.size(),
+                        "transactions", transactions,
+                        "players", List.of(mapToPlayerDto(state, currentOwner), mapToPlayerDto(state, newOwner))
                 )
         );
 
@@ -447,144 +502,119 @@ public class PropertyService {
     }
 
     public List<PropertyOwnershipDto> getPlayerProperties(Long playerId) {
-        Player player = playerRepository.findById(playerId)
+        SessionState state = sessionStateStore.forPlayer(playerId);
+        PlayerState player = state.findPlayer(playerId)
                 .orElseThrow(() -> new PlayerNotFoundException("Giocatore non trovato"));
 
-        return ownershipRepository.findByPlayerById(player.getId())
+        // Stesso ordinamento della vecchia query: per nome del gruppo colore
+        return state.getOwnershipsOf(player.getId())
                 .stream()
-                .map(this::mapToOwnershipDto)
+                .sorted(Comparator.comparing(ownership -> propertyOf(ownership).getColorGroup().name()))
+                .map(ownership -> mapToOwnershipDto(state, ownership))
                 .collect(Collectors.toList());
     }
 
     public PropertyOwnershipDto mortgageProperty(Long ownershipId) {
-        PropertyOwnership ownership = ownershipRepository.findById(ownershipId)
-                .orElseThrow(() -> new PropertyNotFoundException("Proprietà non trovata"));
+        SessionState state = sessionStateStore.forOwnership(ownershipId);
+        OwnershipSlot ownership = findOwnership(state, ownershipId);
+        Property property = propertyOf(ownership);
+        PlayerState owner = ownerOf(state, ownership);
 
-        if (ownership.getMortgaged()) {
+        if (ownership.isMortgaged()) {
             throw new InvalidPropertyActionException("Proprietà già ipotecata");
         }
 
-        if (ownership.getHouses() > 0 || ownership.getHasHotel()) {
+        if (ownership.getHouses() > 0 || ownership.isHasHotel()) {
             throw new InvalidPropertyActionException("Rimuovi case/hotel prima di ipotecare");
         }
 
         // Verifica se questa proprietà fa parte di un gruppo completo PRIMA dell'ipoteca
-        boolean hadCompleteGroup = hasColorGroupMonopoly(ownership.getPlayer(), ownership.getProperty().getColorGroup());
+        boolean hadCompleteGroup = hasColorGroupMonopoly(state, owner.getId(), property.getColorGroup());
 
         // Calcola valore ipoteca (50% del prezzo)
-        BigDecimal mortgageValue = ownership.getProperty().getPrice().divide(BigDecimal.valueOf(2));
+        Money mortgageValue = property.getPrice().half();
 
         // Paga il giocatore
-        bankService.payFromBank(ownership.getPlayer().getId(), mortgageValue,
-                "Ipoteca " + ownership.getProperty().getName());
+        bankService.payFromBank(owner.getId(), mortgageValue,
+                "Ipoteca " + property.getName());
 
         // Ipoteca la proprietà
-        ownership.setMortgaged(true);
-        ownership = ownershipRepository.save(ownership);
-
-        // NUOVO: Se aveva il gruppo completo, ricalcola gli affitti delle altre proprietà
-        if (hadCompleteGroup) {
-            recalculateGroupRents(ownership.getPlayer(), ownership.getProperty().getColorGroup());
-        }
+        state.setMortgaged(ownership, true);
 
         // Notifica WebSocket
         webSocketService.broadcastPropertyUpdate(
-                ownership.getPlayer().getGameSession().getSessionCode(),
+                state.getSessionCode(),
                 Map.of(
                         "action", "PROPERTY_MORTGAGED",
-                        "propertyName", ownership.getProperty().getName(),
-                        "playerName", ownership.getPlayer().getName(),
+                        "propertyName", property.getName(),
+                        "playerName", owner.getName(),
                         "hadCompleteGroup", hadCompleteGroup
                 )
         );
 
-        return mapToOwnershipDto(ownership);
-    }
-
-    private void recalculateGroupRents(Player player, PropertyColor colorGroup) {
-        System.out.println("=== RECALCULATING GROUP RENTS ===");
-        System.out.println("Player: " + player.getName() + ", Color Group: " + colorGroup);
-
-        List<PropertyOwnership> groupProperties = ownershipRepository
-                .findByPlayerAndProperty_ColorGroup(player, colorGroup);
-
-        boolean hasCompleteGroup = hasColorGroupMonopoly(player, colorGroup);
-        System.out.println("Has complete group: " + hasCompleteGroup);
-
-        // Aggiorna ogni proprietà del gruppo
-        for (PropertyOwnership ownership : groupProperties) {
-            // Ricalcola solo se non è ipotecata
-            if (!ownership.getMortgaged()) {
-                System.out.println("Recalculating rent for: " + ownership.getProperty().getName());
-                // Il calcolo dell'affitto è già gestito nel metodo calculatePropertyRent
-                // Non serve salvare nulla, il calcolo è dinamico
-            }
-        }
-
-        System.out.println("Group rent recalculation completed");
+        return mapToOwnershipDto(state, ownership);
     }
 
     /**
      * CORRETTO: Riscatta proprietà con ricalcolo affitti gruppo
      */
     public PropertyOwnershipDto redeemProperty(Long ownershipId) {
-        PropertyOwnership ownership = ownershipRepository.findById(ownershipId)
-                .orElseThrow(() -> new PropertyNotFoundException("Proprietà non trovata"));
+        SessionState state = sessionStateStore.forOwnership(ownershipId);
+        OwnershipSlot ownership = findOwnership(state, ownershipId);
+        Property property = propertyOf(ownership);
+        PlayerState owner = ownerOf(state, ownership);
 
-        if (!ownership.getMortgaged()) {
+        if (!ownership.isMortgaged()) {
             throw new InvalidPropertyActionException("Proprietà non ipotecata");
         }
 
         // Calcola costo riscatto (55% del prezzo originale = valore ipoteca + 10%)
-        BigDecimal redeemCost = ownership.getProperty().getPrice()
-                .multiply(BigDecimal.valueOf(0.55));
+        Money redeemCost = property.getPrice().percent(55);
 
-        if (ownership.getPlayer().getBalance().compareTo(redeemCost) < 0) {
+        if (owner.getBalance().isLessThan(redeemCost)) {
             throw new InsufficientFundsException("Fondi insufficienti per il riscatto");
         }
 
         // Paga alla banca
-        bankService.payToBank(ownership.getPlayer().getId(), redeemCost,
-                "Riscatto " + ownership.getProperty().getName());
+        bankService.payToBank(owner.getId(), redeemCost,
+                "Riscatto " + property.getName());
 
         // Riscatta la proprietà
-        ownership.setMortgaged(false);
-        ownership = ownershipRepository.save(ownership);
+        state.setMortgaged(ownership, false);
 
-        // NUOVO: Verifica se ora ha il gruppo completo e ricalcola affitti
-        boolean hasCompleteGroupNow = hasColorGroupMonopoly(ownership.getPlayer(), ownership.getProperty().getColorGroup());
-        if (hasCompleteGroupNow) {
-            recalculateGroupRents(ownership.getPlayer(), ownership.getProperty().getColorGroup());
-        }
+        // Verifica se ora ha il gruppo completo (gli affitti li ha già ricalcolati SessionState)
+        boolean hasCompleteGroupNow = hasColorGroupMonopoly(state, owner.getId(), property.getColorGroup());
 
         // Notifica WebSocket
         webSocketService.broadcastPropertyUpdate(
-                ownership.getPlayer().getGameSession().getSessionCode(),
+                state.getSessionCode(),
                 Map.of(
                         "action", "PROPERTY_REDEEMED",
-                        "propertyName", ownership.getProperty().getName(),
-                        "playerName", ownership.getPlayer().getName(),
+                        "propertyName", property.getName(),
+                        "playerName", owner.getName(),
                         "hasCompleteGroupNow", hasCompleteGroupNow
                 )
         );
 
-        return mapToOwnershipDto(ownership);
+        return mapToOwnershipDto(state, ownership);
     }
 
 
     public PropertyOwnershipDto buildHouse(Long ownershipId) {
-        PropertyOwnership ownership = ownershipRepository.findById(ownershipId)
-                .orElseThrow(() -> new PropertyNotFoundException("Proprietà non trovata"));
+        SessionState state = sessionStateStore.forOwnership(ownershipId);
+        OwnershipSlot ownership = findOwnership(state, ownershipId);
+        Property property = propertyOf(ownership);
+        PlayerState owner = ownerOf(state, ownership);
 
-        if (ownership.getProperty().getType() != PropertyType.STREET) {
+        if (property.getType() != PropertyType.STREET) {
             throw new InvalidPropertyActionException("Solo le strade possono avere case");
         }
 
-        if (ownership.getMortgaged()) {
+        if (ownership.isMortgaged()) {
             throw new InvalidPropertyActionException("Non puoi costruire su proprietà ipotecate");
         }
 
-        if (ownership.getHasHotel()) {
+        if (ownership.isHasHotel()) {
             throw new InvalidPropertyActionException("La proprietà ha già un hotel");
         }
 
@@ -593,67 +623,67 @@ public class PropertyService {
         }
 
         // Verifica monopolio del gruppo colore
-        if (!hasColorGroupMonopoly(ownership.getPlayer(), ownership.getProperty().getColorGroup())) {
+        if (!hasColorGroupMonopoly(state, owner.getId(), property.getColorGroup())) {
             throw new InvalidPropertyActionException("Devi possedere tutto il gruppo colore");
         }
 
         // NUOVO: Verifica costruzione equilibrata
-        if (!canBuildHouseInGroup(ownership)) {
+        if (!canBuildHouseInGroup(state, ownership)) {
             throw new InvalidPropertyActionException(
                     "Costruzione non equilibrata: tutte le proprietà del gruppo devono avere lo stesso numero di case");
         }
 
         // Costo casa (varia per gruppo)
-        BigDecimal houseCost = getHouseCost(ownership.getProperty().getColorGroup());
+        Money houseCost = getHouseCost(property.getColorGroup());
 
-        if (ownership.getPlayer().getBalance().compareTo(houseCost) < 0) {
+        if (owner.getBalance().isLessThan(houseCost)) {
             throw new InsufficientFundsException("Fondi insufficienti per costruire");
         }
 
         // Paga e costruisci
-        bankService.payToBank(ownership.getPlayer().getId(), houseCost,
-                "Casa su " + ownership.getProperty().getName());
+        bankService.payToBank(owner.getId(), houseCost,
+                "Casa su " + property.getName());
 
-        ownership.setHouses(ownership.getHouses() + 1);
-        ownership = ownershipRepository.save(ownership);
+        state.setHouses(ownership, ownership.getHouses() + 1);
 
-        return mapToOwnershipDto(ownership);
+        return mapToOwnershipDto(state, ownership);
     }
 
     public PropertyOwnershipDto buildHotel(Long ownershipId) {
-        PropertyOwnership ownership = ownershipRepository.findById(ownershipId)
-                .orElseThrow(() -> new PropertyNotFoundException("Proprietà non trovata"));
+        SessionState state = sessionStateStore.forOwnership(ownershipId);
+        OwnershipSlot ownership = findOwnership(state, ownershipId);
+        Property property = propertyOf(ownership);
+        PlayerState owner = ownerOf(state, ownership);
 
         if (ownership.getHouses() != 4) {
             throw new InvalidPropertyActionException("Servono 4 case per costruire un hotel");
         }
 
-        BigDecimal hotelCost = getHouseCost(ownership.getProperty().getColorGroup());
+        Money hotelCost = getHouseCost(property.getColorGroup());
 
-        if (ownership.getPlayer().getBalance().compareTo(hotelCost) < 0) {
+        if (owner.getBalance().isLessThan(hotelCost)) {
             throw new InsufficientFundsException("Fondi insufficienti per l'hotel");
         }
 
-        bankService.payToBank(ownership.getPlayer().getId(), hotelCost,
-                "Hotel su " + ownership.getProperty().getName());
+        bankService.payToBank(owner.getId(), hotelCost,
+                "Hotel su " + property.getName());
 
-        ownership.setHouses(0);
-        ownership.setHasHotel(true);
-        ownership = ownershipRepository.save(ownership);
+        state.setHouses(ownership, 0);
+        state.setHasHotel(ownership, true);
 
-        return mapToOwnershipDto(ownership);
+        return mapToOwnershipDto(state, ownership);
     }
 
     /**
      * NUOVO: Verifica costruzione equilibrata - regola ufficiale Monopoly
      */
-    private boolean canBuildHouseInGroup(PropertyOwnership ownership) {
-        List<PropertyOwnership> groupProperties = ownershipRepository
-                .findByPlayerAndProperty_ColorGroup(ownership.getPlayer(), ownership.getProperty().getColorGroup());
+    private boolean canBuildHouseInGroup(SessionState state, OwnershipSlot ownership) {
+        List<OwnershipSlot> groupProperties = groupOwnershipsOf(state, ownership.getOwnerId(),
+                propertyOf(ownership).getColorGroup());
 
         // Trova il numero minimo di case nel gruppo
         int minHouses = groupProperties.stream()
-                .mapToInt(PropertyOwnership::getHouses)
+                .mapToInt(OwnershipSlot::getHouses)
                 .min()
                 .orElse(0);
 
@@ -664,13 +694,13 @@ public class PropertyService {
     /**
      * NUOVO: Verifica se può vendere casa mantenendo equilibrio
      */
-    private boolean canSellHouseFromGroup(PropertyOwnership ownership) {
-        List<PropertyOwnership> groupProperties = ownershipRepository
-                .findByPlayerAndProperty_ColorGroup(ownership.getPlayer(), ownership.getProperty().getColorGroup());
+    private boolean canSellHouseFromGroup(SessionState state, OwnershipSlot ownership) {
+        List<OwnershipSlot> groupProperties = groupOwnershipsOf(state, ownership.getOwnerId(),
+                propertyOf(ownership).getColorGroup());
 
         // Trova il numero massimo di case nel gruppo
         int maxHouses = groupProperties.stream()
-                .mapToInt(PropertyOwnership::getHouses)
+                .mapToInt(OwnershipSlot::getHouses)
                 .max()
                 .orElse(0);
 
@@ -678,155 +708,75 @@ public class PropertyService {
         return ownership.getHouses() == maxHouses;
     }
 
-    public BigDecimal calculateRent(Long propertyId, int diceRoll) {
+    public Money calculateRent(String sessionCode, Long propertyId, int diceRoll) {
         System.out.println("=== CALCULATING RENT ===");
-        System.out.println("Property ID: " + propertyId + ", Dice Roll: " + diceRoll);
+        System.out.println("Session: " + sessionCode + ", Property ID: " + propertyId + ", Dice Roll: " + diceRoll);
 
-        Property property = propertyRepository.findById(propertyId)
+        boardCatalog.findById(propertyId)
                 .orElseThrow(() -> new PropertyNotFoundException("Proprietà non trovata"));
 
-        PropertyOwnership ownership = ownershipRepository.findByProperty(property)
-                .orElse(null);
+        SessionState state = sessionStateStore.get(sessionCode);
+        OwnershipSlot ownership = state.findOwnershipOfProperty(propertyId).orElse(null);
 
         if (ownership == null) {
             System.out.println("Property not owned, rent = 0");
-            return BigDecimal.ZERO;
+            return Money.ZERO;
         }
 
-        if (ownership.getMortgaged()) {
+        if (ownership.isMortgaged()) {
             System.out.println("Property is mortgaged, rent = 0");
-            return BigDecimal.ZERO;
+            return Money.ZERO;
         }
 
-        BigDecimal calculatedRent = calculatePropertyRent(ownership, diceRoll);
+        Money calculatedRent = state.rentOf(ownership, diceRoll);
         System.out.println("Calculated rent: " + calculatedRent);
         return calculatedRent;
     }
-    private boolean hasColorGroupMonopoly(Player player, PropertyColor colorGroup) {
-        List<Property> groupProperties = propertyRepository.findByColorGroup(colorGroup);
-        List<PropertyOwnership> playerGroupOwnership =
-                ownershipRepository.findByPlayerAndProperty_ColorGroup(player, colorGroup);
-
-        return groupProperties.size() == playerGroupOwnership.size();
-    }
-
-    private BigDecimal getHouseCost(PropertyColor colorGroup) {
-        // Costi delle case secondo le regole ufficiali
-        Map<PropertyColor, BigDecimal> costs = Map.of(
-                PropertyColor.BROWN, BigDecimal.valueOf(50),
-                PropertyColor.LIGHT_BLUE, BigDecimal.valueOf(50),
-                PropertyColor.PINK, BigDecimal.valueOf(100),
-                PropertyColor.ORANGE, BigDecimal.valueOf(100),
-                PropertyColor.RED, BigDecimal.valueOf(150),
-                PropertyColor.YELLOW, BigDecimal.valueOf(150),
-                PropertyColor.GREEN, BigDecimal.valueOf(200),
-                PropertyColor.DARK_BLUE, BigDecimal.valueOf(200)
-        );
-        return costs.getOrDefault(colorGroup, BigDecimal.valueOf(100));
-    }
-
-    private BigDecimal calculatePropertyRent(PropertyOwnership ownership, int diceRoll) {
-        // IMPORTANTE: Se la proprietà è ipotecata, affitto = 0
-        if (ownership.getMortgaged()) {
-            System.out.println("Property is mortgaged, rent = 0");
-            return BigDecimal.ZERO;
-        }
-
-        Property property = ownership.getProperty();
-
-        switch (property.getType()) {
-            case STREET:
-                return calculateStreetRent(ownership);
-            case RAILROAD:
-                return calculateRailroadRent(ownership);
-            case UTILITY:
-                return calculateUtilityRent(ownership, diceRoll);
-            default:
-                return BigDecimal.ZERO;
-        }
+    private boolean hasColorGroupMonopoly(SessionState state, Long playerId, PropertyColor colorGroup) {
+        return state.holdingsOf(playerId).hasFullGroup(colorGroup);
     }
 
-    private BigDecimal calculateStreetRent(PropertyOwnership ownership) {
-        // 1. Niente affitto se l'atto è ipotecato
-        if (ownership.getMortgaged()) {
-            return BigDecimal.ZERO;
-        }
-
-        Property p = ownership.getProperty();
-        int houses    = ownership.getHouses();
-        boolean hotel = ownership.getHasHotel();
-
-        // 2. Con hotel => valore “affittoHotel” salvato sul titolo
-        if (hotel) {
-            return p.getRentHotel();
-        }
-
-        // 3. Con case => valore puntuale per 1‑4 case
-        if (houses > 0) {
-            return switch (houses) {
-                case 1 -> p.getRentWith1House();
-                case 2 -> p.getRentWith2Houses();
-                case 3 -> p.getRentWith3Houses();
-                case 4 -> p.getRentWith4Houses();
-                default -> throw new IllegalStateException(
-                        "Numero di case non valido: " + houses);
-            };
-        }
-
-        // 4. Nessuna costruzione: check monopolio (solo atti non ipotecati)
-        BigDecimal baseRent = p.getRent();
-        if (hasCompleteColorGroupNonMortgaged(
-                ownership.getPlayer(), p.getColorGroup())) {
-            return baseRent.multiply(BigDecimal.valueOf(2));
-        }
-
-        // 5. Caso standard: affitto base
-        return baseRent;
+    /**
+     * Possessi del giocatore in un gruppo colore: scorre solo gli slot del gruppo
+     */
+    private List<OwnershipSlot> groupOwnershipsOf(SessionState state, Long playerId, PropertyColor colorGroup) {
+        List<OwnershipSlot> result = new ArrayList<>();
+        for (Property property : boardCatalog.findByColorGroup(colorGroup)) {
+            state.findOwnershipOfProperty(property.getId())
+                    .filter(ownership -> ownership.isOwnedBy(playerId))
+                    .ifPresent(result::add);
+        }
+        return result;
     }
 
-    private boolean hasCompleteColorGroupNonMortgaged(Player player, PropertyColor colorGroup) {
-        List<Property> allGroupProperties = propertyRepository.findByColorGroup(colorGroup);
-        List<PropertyOwnership> playerGroupOwnership = ownershipRepository
-                .findByPlayerAndProperty_ColorGroup(player, colorGroup);
-
-        // Deve possedere tutte le proprietà del gruppo
-        if (allGroupProperties.size() != playerGroupOwnership.size()) {
-            return false;
-        }
-
-        // IMPORTANTE: Tutte le proprietà del gruppo devono essere NON ipotecate
-        boolean allNonMortgaged = playerGroupOwnership.stream()
-                .allMatch(ownership -> !ownership.getMortgaged());
-
-        System.out.println("Complete group check for " + colorGroup + ": " +
-                "owns all=" + (allGroupProperties.size() == playerGroupOwnership.size()) +
-                ", all non-mortgaged=" + allNonMortgaged);
-
-        return allNonMortgaged;
+    private Money getHouseCost(PropertyColor colorGroup) {
+        // Costi delle case secondo le regole ufficiali
+        return boardCatalog.getHouseCost(colorGroup);
     }
 
-    public PropertyOwnershipDto purchasePropertyCustomPrice(Long playerId, Long propertyId, BigDecimal customPrice) {
+    public PropertyOwnershipDto purchasePropertyCustomPrice(Long playerId, Long propertyId, Money customPrice) {
         System.out.println("=== PURCHASE PROPERTY CUSTOM PRICE SERVICE ===");
         System.out.println("Player ID: " + playerId + ", Property ID: " + propertyId + ", Custom Price: " + customPrice);
 
         // Validazione prezzo personalizzato
-        if (customPrice == null || customPrice.compareTo(BigDecimal.ZERO) < 0) {
+        if (customPrice == null || customPrice.isNegative()) {
             throw new IllegalArgumentException("Il prezzo personalizzato deve essere maggiore o uguale a zero");
         }
 
-        Player player = playerRepository.findById(playerId)
+        SessionState state = sessionStateStore.forPlayer(playerId);
+        PlayerState player = state.findPlayer(playerId)
                 .orElseThrow(() -> new PlayerNotFoundException("Giocatore non trovato"));
 
-        Property property = propertyRepository.findById(propertyId)
+        Property property = boardCatalog.findById(propertyId)
                 .orElseThrow(() -> new PropertyNotFoundException("Proprietà non trovata"));
 
-        // Verifica se la proprietà è già posseduta
-        if (ownershipRepository.existsByProperty(property)) {
+        // Verifica se la proprietà è già posseduta in questa sessione
+        if (state.isOwned(propertyId)) {
             throw new PropertyAlreadyOwnedException("Proprietà già posseduta");
         }
 
         // Verifica fondi sufficienti per il prezzo personalizzato
-        if (player.getBalance().compareTo(customPrice) < 0) {
+        if (player.getBalance().isLessThan(customPrice)) {
             throw new InsufficientFundsException("Fondi insufficienti per l'acquisto al prezzo personalizzato di " + customPrice);
         }
 
@@ -839,14 +789,7 @@ public class PropertyService {
         bankService.payToBank(playerId, customPrice, description);
 
         // Crea ownership
-        PropertyOwnership ownership = new PropertyOwnership();
-        ownership.setProperty(property);
-        ownership.setPlayer(player);
-        ownership.setHouses(0);
-        ownership.setHasHotel(false);
-        ownership.setMortgaged(false);
-
-        ownership = ownershipRepository.save(ownership);
+        OwnershipSlot ownership = createOwnership(state, player, property);
 
         // Invia notifica WebSocket
         Map<String, Object> wsData = Map.of(
@@ -865,11 +808,11 @@ public class PropertyService {
 
         WebSocketMessage message = new WebSocketMessage(
                 "PROPERTY_PURCHASED_CUSTOM",
-                player.getGameSession().getSessionCode(),
+                state.getSessionCode(),
                 wsData
         );
 
-        webSocketService.broadcastToSession(player.getGameSession().getSessionCode(), message);
+        webSocketService.broadcastToSession(state.getSessionCode(), message);
 
         // Converti in DTO
         return PropertyOwnershipDto.builder()
@@ -880,62 +823,51 @@ public class PropertyService {
                 .propertyType(property.getType())
                 .colorGroup(property.getColorGroup())
                 .houses(ownership.getHouses())
-                .hasHotel(ownership.getHasHotel())
-                .mortgaged(ownership.getMortgaged())
-                .currentRent(calculatePropertyRent(ownership, 7)) // Usa il metodo esistente con dice roll di default
+                .hasHotel(ownership.isHasHotel())
+                .mortgaged(ownership.isMortgaged())
+                .currentRent(state.rentOf(ownership, 7)) // Affitto dalla tabella della sessione, dice roll di default
                 .purchasedAt(ownership.getPurchasedAt())
                 .build();
     }
 
-    private BigDecimal calculateRailroadRent(PropertyOwnership ownership) {
-        // Conta quante stazioni possiede il giocatore
-        long railroadCount = ownershipRepository.findByPlayer(ownership.getPlayer())
-                .stream()
-                .filter(o -> o.getProperty().getType() == PropertyType.RAILROAD)
-                .count();
-
-        // Affitti ufficiali per stazioni: 25, 50, 100, 200
-        int rentAmount = switch ((int) railroadCount) {
-            case 1 -> 25;
-            case 2 -> 50;
-            case 3 -> 100;
-            case 4 -> 200;
-            default -> 0;
-        };
-
-        return BigDecimal.valueOf(rentAmount);
+    /**
+     * Legge i dati della proprietà dal catalogo
+     */
+    private Property propertyOf(OwnershipSlot ownership) {
+        Long propertyId = ownership.getPropertyId();
+        return boardCatalog.findById(propertyId)
+                .orElseThrow(() -> new PropertyNotFoundException("Proprietà non trovata: " + propertyId));
     }
 
-    private BigDecimal calculateUtilityRent(PropertyOwnership ownership, int diceRoll) {
-        // Conta quante società possiede
-        long utilityCount = ownershipRepository.findByPlayer(ownership.getPlayer())
-                .stream()
-                .filter(o -> o.getProperty().getType() == PropertyType.UTILITY)
-                .count();
+    private OwnershipSlot findOwnership(SessionState state, Long ownershipId) {
+        return state.findOwnership(ownershipId)
+                .orElseThrow(() -> new PropertyNotFoundException("Proprietà non trovata"));
+    }
 
-        // Moltiplicatore ufficiale: x4 (1 società) o x10 (2 società)
-        int multiplier = utilityCount == 2 ? 10 : 4;
-        return BigDecimal.valueOf(diceRoll * multiplier);
+    private PlayerState ownerOf(SessionState state, OwnershipSlot ownership) {
+        return state.findPlayer(ownership.getOwnerId())
+                .orElseThrow(() -> new PlayerNotFoundException("Proprietario non trovato"));
     }
 
-    private PropertyOwnershipDto mapToOwnershipDto(PropertyOwnership ownership) {
+    private PropertyOwnershipDto mapToOwnershipDto(SessionState state, OwnershipSlot ownership) {
+        Property property = propertyOf(ownership);
         return PropertyOwnershipDto.builder()
                 .id(ownership.getId())
-                .propertyId(ownership.getProperty().getId())
-                .propertyName(ownership.getProperty().getName())
-                .propertyPrice(ownership.getProperty().getPrice())
-                .propertyType(ownership.getProperty().getType())
-                .colorGroup(ownership.getProperty().getColorGroup())
+                .propertyId(property.getId())
+                .propertyName(property.getName())
+                .propertyPrice(property.getPrice())
+                .propertyType(property.getType())
+                .colorGroup(property.getColorGroup())
                 .houses(ownership.getHouses())
-                .hasHotel(ownership.getHasHotel())
-                .mortgaged(ownership.getMortgaged())
-                .currentRent(calculatePropertyRent(ownership, 7)) // Default dice roll
+                .hasHotel(ownership.isHasHotel())
+                .mortgaged(ownership.isMortgaged())
+                .currentRent(state.rentOf(ownership, 7)) // Default dice roll
                 .purchasedAt(ownership.getPurchasedAt())
                 .build();
     }
 
     public List<PropertyDto> getAllProperties() {
-        return propertyRepository.findAll()
+        return boardCatalog.findAll()
                 .stream()
                 .map(this::mapToPropertyDto)
                 .collect(Collectors.toList());
@@ -946,13 +878,12 @@ public class PropertyService {
      */
     public List<PropertyOwnershipDto> getSessionProperties(String sessionCode) {
         try {
-            // Trova la sessione tramite un repository (dobbiamo aggiungerlo)
-            // Per ora usiamo una query più diretta
-            List<PropertyOwnership> allOwnerships = ownershipRepository.findAll();
+            SessionState state = sessionStateStore.get(sessionCode);
 
-            return allOwnerships.stream()
-                    .filter(ownership -> ownership.getPlayer().getGameSession().getSessionCode().equals(sessionCode))
-                    .map(this::mapToOwnershipDto)
+            // In ordine di acquisto, come le righe della tabella
+            return state.getOwnerships().stream()
+                    .sorted(Comparator.comparing(OwnershipSlot::getId))
+                    .map(ownership -> mapToOwnershipDto(state, ownership))
                     .collect(Collectors.toList());
         } catch (Exception e) {
             System.err.println("Error getting session properties: " + e.getMessage());
@@ -960,6 +891,17 @@ public class PropertyService {
         }
     }
 
+    private PlayerDto mapToPlayerDto(SessionState state, PlayerState player) {
+        return PlayerDto.builder()
+                .id(player.getId())
+                .name(player.getName())
+                .balance(player.getBalance())
+                .color(player.getColor())
+                .isHost(player.isHost())
+                .propertiesCount(state.countOwnershipsOf(player.getId()))
+                .build();
+    }
+
     private PropertyDto mapToPropertyDto(Property property) {
         return PropertyDto.builder()
                 .id(property.getId())
@@ -0,0 +1,274 @@
+package com.monopoly.server.monopoly.services;
+
+import com.monopoly.server.monopoly.exceptions.PlayerNotFoundException;
+import com.monopoly.server.monopoly.exceptions.PropertyNotFoundException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Esegue i comandi che modificano una sessione uno alla volta, in ordine di arrivo.
+ * Ogni sessione ha la propria mailbox; le mailbox condividono un unico pool di worker,
+ * quindi sessioni diverse procedono in parallelo senza contendersi le righe Player.
+ */
+@Component
+public class SessionCommandExecutor {
+
+    // Comandi eseguiti per turno prima di cedere il worker ad altre sessioni
+    private static final int COMMANDS_PER_TURN = 32;
+
+    // Sessione la cui mailbox è in esecuzione sul thread corrente (per chiamate annidate)
+    private static final ThreadLocal<String> CURRENT_SESSION = new ThreadLocal<>();
+
+    @Autowired
+    private SessionStateStore sessionStateStore;
+
+    @Autowired
+    private SessionDeltaService sessionDeltaService;
+
+    @Autowired
+    private SessionShardRouter sessionShardRouter;
+
+    private final ExecutorService workers;
+
+    private final ConcurrentHashMap<String, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+    public SessionCommandExecutor(@Value("${monopoly.commands.worker-threads:0}") int workerThreads) {
+        int threads = workerThreads > 0 ? workerThreads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "session-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        System.out.println("✅ Session command executor started with " + threads + " workers");
+    }
+
+    public <T> T execute(String sessionCode, Supplier<T> command) {
+        // Chiamata annidata dalla stessa sessione: già serializzata, esegui subito
+        if (sessionCode.equals(CURRENT_SESSION.get())) {
+            return command.get();
+        }
+
+        sessionShardRouter.requireLocal(sessionCode);
+        return await(enqueue(sessionCode, command));
+    }
+
+    public void execute(String sessionCode, Runnable command) {
+        execute(sessionCode, () -> {
+            command.run();
+            return null;
+        });
+    }
+
+    public <T> T executeForPlayer(Long playerId, Supplier<T> command) {
+        String sessionCode = sessionStateStore.findSessionCodeOfPlayer(playerId)
+                .orElseThrow(() -> new PlayerNotFoundException("Giocatore non trovato"));
+        return execute(sessionCode, command);
+    }
+
+    public void executeForPlayer(Long playerId, Runnable command) {
+        executeForPlayer(playerId, () -> {
+            command.run();
+            return null;
+        });
+    }
+
+    public <T> T executeForOwnership(Long ownershipId, Supplier<T> command) {
+        String sessionCode = sessionStateStore.findSessionCodeOfOwnership(ownershipId)
+                .orElseThrow(() -> new PropertyNotFoundException("Proprietà non trovata"));
+        return execute(sessionCode, command);
+    }
+
+    /**
+     * Accoda il comando senza bloccare il chiamante: il future si completa quando gli eventi del
+     * comando sono durevoli, o fallisce con SessionOwnedElsewhereException se la sessione è di un altro nodo
+     */
+    public <T> CompletableFuture<T> executeAsync(String sessionCode, Supplier<T> command) {
+        try {
+            sessionShardRouter.requireLocal(sessionCode);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return enqueue(sessionCode, command);
+    }
+
+    /**
+     * Come executeAsync, per un comando su un giocatore che deve appartenere alla sessione indicata
+     */
+    public <T> CompletableFuture<T> executeForPlayerAsync(String sessionCode, Long playerId, Supplier<T> command) {
+        if (playerId == null || !sessionCode.equals(sessionStateStore.findSessionCodeOfPlayer(playerId).orElse(null))) {
+            return CompletableFuture.failedFuture(
+                    new PlayerNotFoundException("Giocatore non trovato nella sessione " + sessionCode));
+        }
+        return executeAsync(sessionCode, command);
+    }
+
+    /**
+     * Come executeAsync, per un comando su una proprietà che deve appartenere alla sessione indicata
+     */
+    public <T> CompletableFuture<T> executeForOwnershipAsync(String sessionCode, Long ownershipId, Supplier<T> command) {
+        if (ownershipId == null || !sessionCode.equals(sessionStateStore.findSessionCodeOfOwnership(ownershipId).orElse(null))) {
+            return CompletableFuture.failedFuture(
+                    new PropertyNotFoundException("Proprietà non trovata nella sessione " + sessionCode));
+        }
+        return executeAsync(sessionCode, command);
+    }
+
+    /**
+     * Accoda un comando senza attenderne l'esito (usato dai job in background)
+     */
+    public CompletableFuture<Void> submit(String sessionCode, Runnable command) {
+        return enqueue(sessionCode, () -> {
+            command.run();
+            return null;
+        });
+    }
+
+    /**
+     * Rimuove la mailbox di una sessione terminata o eliminata se è inattiva. Le mailbox vengono
+     * comunque rimosse dal worker appena la coda si svuota (anche per codici inesistenti), e
+     * ricreate al comando successivo.
+     */
+    public void release(String sessionCode) {
+        Mailbox mailbox = mailboxes.get(sessionCode);
+        if (mailbox != null) {
+            mailbox.removeIfIdle();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        workers.shutdown();
+        if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+            System.err.println("❌ Session workers did not terminate in time");
+            workers.shutdownNow();
+        }
+    }
+
+    private <T> CompletableFuture<T> enqueue(String sessionCode, Supplier<T> command) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        post(sessionCode, () -> {
+            T value;
+            try {
+                value = command.get();
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+                return;
+            }
+            publishDelta(sessionCode);
+            // Risposta quando gli eventi del comando sono durevoli; il worker passa subito al successivo
+            sessionStateStore.commitEvents(sessionCode).whenComplete((synced, error) -> {
+                if (error != null) {
+                    // Comando applicato in memoria ma non durevole: il chiamante non riceve la conferma
+                    System.err.println("❌ Journal sync failed for session " + sessionCode + ": " + error.getMessage());
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(value);
+                }
+            });
+        });
+        return result;
+    }
+
+    /**
+     * Accoda nella mailbox corrente della sessione. L'aggiunta avviene nel lock della mappa,
+     * così una mailbox non può essere rimossa dopo aver ricevuto un comando non ancora eseguito.
+     */
+    private void post(String sessionCode, Runnable command) {
+        mailboxes.compute(sessionCode, (code, mailbox) -> {
+            Mailbox target = mailbox != null ? mailbox : new Mailbox(code);
+            target.queue.add(command);
+            return target;
+        }).schedule();
+    }
+
+    private void publishDelta(String sessionCode) {
+        try {
+            sessionDeltaService.publish(sessionCode);
+        } catch (RuntimeException e) {
+            // Il comando è già confermato: i client recupereranno con GET /delta
+            System.err.println("❌ Error publishing state delta for session " + sessionCode + ": " + e.getMessage());
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrotto in attesa del comando di sessione", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Coda FIFO di una sessione: al massimo un worker alla volta la svuota
+     */
+    private final class Mailbox implements Runnable {
+        private final String sessionCode;
+        private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private Mailbox(String sessionCode) {
+            this.sessionCode = sessionCode;
+        }
+
+        /**
+         * Rimuove la mailbox se nessun worker la sta eseguendo e la coda è vuota; altrimenti
+         * ci riprova il worker a fine turno
+         */
+        void removeIfIdle() {
+            mailboxes.computeIfPresent(sessionCode, (code, current) ->
+                    current == this && !scheduled.get() && queue.isEmpty() ? null : current);
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                workers.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            CURRENT_SESSION.set(sessionCode);
+            try {
+                Runnable command;
+                int executed = 0;
+                while (executed++ < COMMANDS_PER_TURN && (command = queue.poll()) != null) {
+                    command.run();
+                }
+            } finally {
+                CURRENT_SESSION.remove();
+                scheduled.set(false);
+                if (!queue.isEmpty()) {
+                    schedule();
+                } else {
+                    // Coda vuota: la mailbox non resta in memoria per sessioni inattive o inesistenti
+                    removeIfIdle();
+                }
+            }
+        }
+    }
+}
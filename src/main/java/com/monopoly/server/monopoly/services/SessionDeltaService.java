@@ -0,0 +1,137 @@
+package com.monopoly.server.monopoly.services;
+
+import com.monopoly.server.monopoly.classes.dto.OwnershipSlotDto;
+import com.monopoly.server.monopoly.classes.dto.PlayerDto;
+import com.monopoly.server.monopoly.classes.dto.SessionDeltaDto;
+import com.monopoly.server.monopoly.classes.dto.WebSocketMessage;
+import com.monopoly.server.monopoly.classes.state.OwnershipSlot;
+import com.monopoly.server.monopoly.classes.state.PlayerState;
+import com.monopoly.server.monopoly.classes.state.SessionEvent;
+import com.monopoly.server.monopoly.classes.state.SessionState;
+import com.monopoly.server.monopoly.enums.SessionEventType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Delta versionati dello stato delle sessioni: inviati via WebSocket a fine comando
+ * e restituiti su richiesta ai client che hanno perso dei messaggi.
+ */
+@Service
+public class SessionDeltaService {
+
+    public static final String STATE_DELTA = "STATE_DELTA";
+
+    @Autowired
+    private SessionStateStore sessionStateStore;
+
+    @Autowired
+    private WebSocketService webSocketService;
+
+    @Transactional(readOnly = true)
+    public SessionDeltaDto getDelta(String sessionCode, long since) {
+        return buildDelta(sessionStateStore.get(sessionCode), since);
+    }
+
+    /**
+     * Invia il delta delle modifiche successive all'ultimo invio. Da chiamare dal worker della
+     * sessione a comando completato, quando le modifiche sono confermate.
+     */
+    public void publish(String sessionCode) {
+        Optional<SessionState> loaded = sessionStateStore.find(sessionCode);
+        if (loaded.isEmpty() || loaded.get().getVersion() <= loaded.get().getPublishedVersion()) {
+            return;
+        }
+
+        SessionState state = loaded.get();
+        SessionDeltaDto delta = buildDelta(state, state.getPublishedVersion());
+        state.markPublished(delta.getVersion());
+
+        WebSocketMessage message = new WebSocketMessage(STATE_DELTA, sessionCode, delta);
+        message.setVersion(delta.getVersion());
+        webSocketService.broadcastToSession(sessionCode, message);
+    }
+
+    private SessionDeltaDto buildDelta(SessionState state, long since) {
+        SessionDeltaDto.SessionDeltaDtoBuilder delta = SessionDeltaDto.builder()
+                .sessionCode(state.getSessionCode())
+                .fromVersion(since)
+                .version(state.getVersion())
+                .status(state.getStatus());
+
+        Optional<List<SessionEvent>> events = state.eventsSince(since);
+        if (events.isEmpty()) {
+            System.out.println("❌ Delta since v" + since + " not available for session " + state.getSessionCode()
+                    + " (current v" + state.getVersion() + "), resync required");
+            return delta.resyncRequired(true).build();
+        }
+
+        Set<Long> playerIds = new LinkedHashSet<>();
+        Set<Long> ownershipIds = new LinkedHashSet<>();
+        boolean ownersChanged = false;
+        for (SessionEvent event : events.get()) {
+            if (event instanceof SessionEvent.PlayerJoined joined) {
+                playerIds.add(joined.getPlayerId());
+            } else if (event instanceof SessionEvent.BalanceAdjusted adjusted) {
+                playerIds.add(adjusted.getPlayerId());
+            } else if (event instanceof SessionEvent.OwnershipAdded added) {
+                ownershipIds.add(added.getOwnershipId());
+                ownersChanged = true;
+            } else if (event instanceof SessionEvent.OwnershipRemoved removed) {
+                ownershipIds.add(removed.getOwnershipId());
+                ownersChanged = true;
+            } else if (event instanceof SessionEvent.OwnershipChanged changed) {
+                ownershipIds.add(changed.getOwnershipId());
+                ownersChanged |= changed.getType() == SessionEventType.OWNER_CHANGED;
+            }
+        }
+
+        // Un cambio di proprietario modifica il numero di proprietà dei giocatori coinvolti
+        Collection<PlayerState> players = ownersChanged
+                ? state.getPlayers()
+                : playerIds.stream().map(state::findPlayer).flatMap(Optional::stream).toList();
+
+        List<OwnershipSlotDto> ownerships = new ArrayList<>();
+        List<Long> removedOwnershipIds = new ArrayList<>();
+        for (Long ownershipId : ownershipIds) {
+            state.findOwnership(ownershipId).ifPresentOrElse(
+                    slot -> ownerships.add(mapToSlotDto(slot)),
+                    () -> removedOwnershipIds.add(ownershipId));
+        }
+
+        return delta
+                .players(players.stream().map(player -> mapToPlayerDto(state, player)).toList())
+                .ownerships(ownerships)
+                .removedOwnershipIds(removedOwnershipIds)
+                .build();
+    }
+
+    private PlayerDto mapToPlayerDto(SessionState state, PlayerState player) {
+        return PlayerDto.builder()
+                .id(player.getId())
+                .name(player.getName())
+                .balance(player.getBalance())
+                .color(player.getColor())
+                .isHost(player.isHost())
+                .propertiesCount(state.countOwnershipsOf(player.getId()))
+                .build();
+    }
+
+    private OwnershipSlotDto mapToSlotDto(OwnershipSlot slot) {
+        return OwnershipSlotDto.builder()
+                .id(slot.getId())
+                .propertyId(slot.getPropertyId())
+                .ownerId(slot.getOwnerId())
+                .houses(slot.getHouses())
+                .hasHotel(slot.isHasHotel())
+                .mortgaged(slot.isMortgaged())
+                .build();
+    }
+}
@@ -0,0 +1,68 @@
+package com.monopoly.server.monopoly.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Inoltra al nodo proprietario della sessione le richieste REST ricevute da un altro nodo
+ */
+@Component
+public class SessionForwarder {
+
+    public static final String FORWARDED_HEADER = "X-Monopoly-Forwarded";
+
+    private final HttpClient httpClient;
+
+    private final Duration timeout;
+
+    public SessionForwarder(@Value("${monopoly.sharding.forward-timeout-ms:10000}") long forwardTimeoutMs) {
+        this.timeout = Duration.ofMillis(forwardTimeoutMs);
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(timeout)
+                .build();
+    }
+
+    public HttpResponse<byte[]> forward(String ownerUrl, String method, String pathAndQuery,
+                                        String contentType, byte[] body) throws IOException {
+        HttpRequest request = request(ownerUrl, method, pathAndQuery, contentType, body);
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Inoltro interrotto", e);
+        }
+    }
+
+    /**
+     * Come forward, senza bloccare il chiamante (comandi STOMP)
+     */
+    public CompletableFuture<HttpResponse<byte[]>> forwardAsync(String ownerUrl, String method, String pathAndQuery,
+                                                                String contentType, byte[] body) {
+        return httpClient.sendAsync(request(ownerUrl, method, pathAndQuery, contentType, body),
+                HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private HttpRequest request(String ownerUrl, String method, String pathAndQuery,
+                                String contentType, byte[] body) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(ownerUrl + pathAndQuery))
+                .timeout(timeout)
+                .header(FORWARDED_HEADER, "true")
+                .method(method, body != null && body.length > 0
+                        ? HttpRequest.BodyPublishers.ofByteArray(body)
+                        : HttpRequest.BodyPublishers.noBody());
+        if (contentType != null) {
+            request.header("Content-Type", contentType);
+        }
+
+        System.out.println("📡 Forwarding " + method + " " + pathAndQuery + " to " + ownerUrl);
+        return request.build();
+    }
+}
@@ -0,0 +1,48 @@
+package com.monopoly.server.monopoly.services;
+
+import com.monopoly.server.monopoly.classes.state.SessionEvent;
+import com.monopoly.server.monopoly.classes.state.SessionState;
+import com.monopoly.server.monopoly.classes.state.SessionStateCodec;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Journal append-only degli eventi di sessione e relativi snapshot.
+ * Implementazioni: tabelle del database (default) o segmenti mappati in memoria
+ * (monopoly.journal.mode=mapped).
+ */
+public interface SessionJournal {
+
+    void append(Long sessionId, List<SessionEvent> events);
+
+    /**
+     * Sostituisce lo snapshot della sessione; partecipa alla transazione che riscrive le righe
+     */
+    void saveSnapshot(SessionState state);
+
+    Optional<SessionStateCodec.Snapshot> findSnapshot(Long sessionId);
+
+    /**
+     * Eventi successivi alla versione indicata, in ordine di sequenza
+     */
+    List<SessionEvent> readAfter(Long sessionId, long version);
+
+    void delete(Long sessionId);
+
+    /**
+     * true se append costa quanto una copia in memoria: gli eventi vengono scritti
+     * a fine di ogni comando invece che al flush periodico
+     */
+    default boolean appendsOnCommit() {
+        return false;
+    }
+
+    /**
+     * Completato quando tutto ciò che è stato scritto finora è su disco
+     */
+    default CompletableFuture<Void> sync() {
+        return CompletableFuture.completedFuture(null);
+    }
+}
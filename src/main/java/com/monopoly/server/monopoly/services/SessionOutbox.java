@@ -0,0 +1,157 @@
+package com.monopoly.server.monopoly.services;
+
+import com.monopoly.server.monopoly.entities.OutboxMessage;
+import com.monopoly.server.monopoly.repositories.OutboxMessageRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Outbox transazionale dei messaggi WebSocket (monopoly.websocket.outbox.enabled).
+ * Il messaggio viene scritto nella transazione del comando e consegnato subito dopo il commit dalla
+ * coda di uscita di WebSocketService; le righe consegnate vengono eliminate in blocco dal relay.
+ * Il relay invia anche le righe rimaste senza consegna (riavvio tra commit e invio, invio fallito),
+ * attraverso WebSocketService perché ricevano il numero di sequenza e restino nel replay.
+ */
+@Component
+public class SessionOutbox {
+
+    @Autowired
+    private OutboxMessageRepository outboxRepository;
+
+    // Lazy: WebSocketService dipende a sua volta dall'outbox
+    @Autowired
+    @Lazy
+    private WebSocketService webSocketService;
+
+    @Value("${monopoly.websocket.outbox.enabled:false}")
+    private boolean enabled;
+
+    @Value("${monopoly.websocket.outbox.relay-after-ms:10000}")
+    private long relayAfterMs;
+
+    @Value("${monopoly.websocket.outbox.batch-size:500}")
+    private int batchSize;
+
+    // Righe scritte da questo processo e non ancora eliminate: il relay non le invia
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    // Righe consegnate, da eliminare al prossimo ciclo del relay
+    private final Queue<Long> delivered = new ConcurrentLinkedQueue<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Scrive il messaggio serializzato (senza numero di sequenza) nella transazione corrente
+     * e ne restituisce l'id
+     */
+    public Long write(String sessionCode, byte[] payload) {
+        OutboxMessage row = outboxRepository.save(new OutboxMessage(sessionCode, payload));
+        inFlight.add(row.getId());
+        return row.getId();
+    }
+
+    /**
+     * Messaggi consegnati al broker: le righe vengono eliminate al prossimo ciclo
+     */
+    public void delivered(Collection<Long> ids) {
+        delivered.addAll(ids);
+    }
+
+    /**
+     * Messaggi non consegnati (invio fallito) o mai scritti (rollback): tornano al relay
+     */
+    public void release(Collection<Long> ids) {
+        inFlight.removeAll(ids);
+    }
+
+    @Scheduled(fixedDelayString = "${monopoly.websocket.outbox.poll-interval-ms:1000}")
+    public void relay() {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            deleteDelivered();
+            relayStale();
+        } catch (RuntimeException e) {
+            System.err.println("❌ Outbox relay failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Allo spegnimento (dopo lo svuotamento delle code di WebSocketService) elimina le righe consegnate
+     */
+    @PreDestroy
+    void deleteDeliveredOnShutdown() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            deleteDelivered();
+        } catch (RuntimeException e) {
+            System.err.println("❌ Error deleting delivered outbox messages on shutdown: " + e.getMessage());
+        }
+    }
+
+    private void deleteDelivered() {
+        List<Long> ids = new ArrayList<>();
+        Long id;
+        while ((id = delivered.poll()) != null) {
+            ids.add(id);
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        try {
+            for (int from = 0; from < ids.size(); from += batchSize) {
+                outboxRepository.deleteAllByIdInBatch(ids.subList(from, Math.min(from + batchSize, ids.size())));
+            }
+            inFlight.removeAll(ids);
+        } catch (RuntimeException e) {
+            delivered.addAll(ids);
+            throw e;
+        }
+    }
+
+    private void relayStale() {
+        LocalDateTime createdBefore = LocalDateTime.now().minusNanos(relayAfterMs * 1_000_000L);
+        List<OutboxMessage> stale = outboxRepository.findByCreatedAtBeforeOrderByIdAsc(createdBefore,
+                PageRequest.of(0, batchSize));
+
+        List<Long> relayed = new ArrayList<>();
+        for (OutboxMessage row : stale) {
+            if (inFlight.contains(row.getId())) {
+                continue;
+            }
+            try {
+                webSocketService.relay(row.getSessionCode(), row.getPayload());
+                relayed.add(row.getId());
+            } catch (Exception e) {
+                System.err.println("❌ Outbox relay of message " + row.getId() + " failed: " + e.getMessage());
+                break;
+            }
+        }
+
+        if (!relayed.isEmpty()) {
+            outboxRepository.deleteAllByIdInBatch(relayed);
+            System.out.println("✅ Outbox relayed " + relayed.size() + " undelivered messages");
+        }
+    }
+}
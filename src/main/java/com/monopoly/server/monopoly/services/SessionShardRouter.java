@@ -0,0 +1,117 @@
+package com.monopoly.server.monopoly.services;
+
+import com.monopoly.server.monopoly.exceptions.SessionOwnedElsewhereException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Assegna ogni sessione a un solo nodo con un anello di hash consistente sul codice sessione,
+ * così lo stato in memoria di una partita vive su un nodo e i comandi non si contendono le righe
+ * Player tra nodi. Quando un nodo entra o esce si spostano solo le sessioni del suo tratto di anello.
+ */
+@Component
+public class SessionShardRouter {
+
+    // Attributo della richiesta HTTP con il nodo a cui inoltrarla (letto da SessionForwardingFilter)
+    public static final String FORWARD_TO_ATTRIBUTE = "monopoly.sharding.forwardTo";
+
+    @Autowired
+    private ClusterMembership clusterMembership;
+
+    @Value("${monopoly.sharding.virtual-nodes:64}")
+    private int virtualNodes;
+
+    private volatile Ring ring;
+
+    public boolean isEnabled() {
+        return clusterMembership.isEnabled();
+    }
+
+    public String ownerOf(String sessionCode) {
+        return ring().ownerOf(hash(sessionCode));
+    }
+
+    public boolean isLocal(String sessionCode) {
+        return !isEnabled() || ownerOf(sessionCode).equals(clusterMembership.getSelfUrl());
+    }
+
+    /**
+     * Da chiamare prima di eseguire un comando: se la sessione è di un altro nodo segnala alla richiesta
+     * HTTP corrente dove inoltrarla e interrompe il comando. Le richieste già inoltrate si eseguono
+     * comunque qui, per non rimbalzare tra nodi con viste diverse del cluster.
+     */
+    public void requireLocal(String sessionCode) {
+        if (isLocal(sessionCode)) {
+            return;
+        }
+
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servletAttributes
+                && servletAttributes.getRequest().getHeader(SessionForwarder.FORWARDED_HEADER) != null) {
+            return;
+        }
+
+        String owner = ownerOf(sessionCode);
+        if (attributes != null) {
+            attributes.setAttribute(FORWARD_TO_ATTRIBUTE, owner, RequestAttributes.SCOPE_REQUEST);
+        }
+        throw new SessionOwnedElsewhereException(sessionCode, owner);
+    }
+
+    private Ring ring() {
+        Set<String> nodes = clusterMembership.getLiveNodes();
+        Ring current = ring;
+        if (current == null || current.nodes != nodes) {
+            current = new Ring(nodes, virtualNodes);
+            ring = current;
+        }
+        return current;
+    }
+
+    private static long hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            long hash = 0;
+            for (int i = 0; i < 8; i++) {
+                hash = (hash << 8) | (digest[i] & 0xff);
+            }
+            return hash;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Anello immutabile costruito per un insieme di nodi attivi
+     */
+    private static final class Ring {
+        private final Set<String> nodes;
+        private final NavigableMap<Long, String> points = new TreeMap<>();
+
+        private Ring(Set<String> nodes, int virtualNodes) {
+            this.nodes = nodes;
+            for (String node : nodes) {
+                for (int i = 0; i < virtualNodes; i++) {
+                    points.put(hash(node + "#" + i), node);
+                }
+            }
+        }
+
+        String ownerOf(long hash) {
+            Map.Entry<Long, String> entry = points.ceilingEntry(hash);
+            return (entry != null ? entry : points.firstEntry()).getValue();
+        }
+    }
+}
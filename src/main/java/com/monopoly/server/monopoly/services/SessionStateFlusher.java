@@ -0,0 +1,69 @@
+package com.monopoly.server.monopoly.services;
+
+import com.monopoly.server.monopoly.classes.state.SessionState;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persistenza in differita delle sessioni in memoria: flush periodico del journal, rinnovo dei lease,
+ * scarico delle sessioni inattive o passate a un altro nodo e scarico finale allo spegnimento (che rilascia
+ * i lease). I flush passano dalla mailbox della sessione, quindi non si sovrappongono mai ai comandi.
+ */
+@Component
+public class SessionStateFlusher {
+
+    @Autowired
+    private SessionStateStore sessionStateStore;
+
+    @Autowired
+    private SessionCommandExecutor sessionCommandExecutor;
+
+    @Autowired
+    private SessionShardRouter sessionShardRouter;
+
+    @Value("${monopoly.state.idle-eviction-ms:1800000}")
+    private long idleEvictionMs;
+
+    @Scheduled(fixedDelayString = "${monopoly.state.flush-interval-ms:500}")
+    public void flushDirtySessions() {
+        long now = System.currentTimeMillis();
+        for (SessionState state : sessionStateStore.getLoadedSessions()) {
+            String sessionCode = state.getSessionCode();
+            // Passaggio di consegne: il nuovo proprietario ricarica la sessione dal database
+            if (now - state.getLastAccess() > idleEvictionMs || !sessionShardRouter.isLocal(sessionCode)) {
+                sessionCommandExecutor.submit(sessionCode, () -> sessionStateStore.unload(sessionCode));
+            } else {
+                if (state.getJournaledVersion() < state.getVersion()) {
+                    sessionCommandExecutor.submit(sessionCode, () -> sessionStateStore.flush(state));
+                }
+                if (sessionStateStore.isLeaseRenewalDue(state)) {
+                    sessionCommandExecutor.submit(sessionCode, () -> sessionStateStore.renewLease(state));
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        for (SessionState state : sessionStateStore.getLoadedSessions()) {
+            String sessionCode = state.getSessionCode();
+            pending.add(sessionCommandExecutor.submit(sessionCode, () -> sessionStateStore.unload(sessionCode)));
+        }
+
+        try {
+            CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+            System.out.println("✅ Flushed " + pending.size() + " sessions on shutdown");
+        } catch (Exception e) {
+            System.err.println("❌ Error flushing sessions on shutdown: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,458 @@
+package com.monopoly.server.monopoly.services;
+
+import com.monopoly.server.monopoly.classes.state.OwnershipSlot;
+import com.monopoly.server.monopoly.classes.state.PlayerState;
+import com.monopoly.server.monopoly.classes.state.SessionEvent;
+import com.monopoly.server.monopoly.classes.state.SessionState;
+import com.monopoly.server.monopoly.classes.state.SessionStateCodec;
+import com.monopoly.server.monopoly.entities.GameSession;
+import com.monopoly.server.monopoly.entities.Player;
+import com.monopoly.server.monopoly.entities.PropertyOwnership;
+import com.monopoly.server.monopoly.entities.SessionLease;
+import com.monopoly.server.monopoly.exceptions.PlayerNotFoundException;
+import com.monopoly.server.monopoly.exceptions.PropertyNotFoundException;
+import com.monopoly.server.monopoly.exceptions.SessionLeaseHeldException;
+import com.monopoly.server.monopoly.exceptions.SessionNotFoundException;
+import com.monopoly.server.monopoly.repositories.GameSessionRepository;
+import com.monopoly.server.monopoly.repositories.PlayerRepository;
+import com.monopoly.server.monopoly.repositories.PropertyOwnershipRepository;
+import com.monopoly.server.monopoly.repositories.SessionLeaseRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Registro delle sessioni caricate in memoria. Una sessione viene caricata all'avvio della partita
+ * (o al primo comando dopo un riavvio) e da quel momento SessionState è la fonte di verità.
+ * Ogni flush aggiunge al journal gli eventi accumulati; le tabelle players e property_ownership
+ * vengono riscritte solo insieme allo snapshot, ogni snapshot-every-events eventi o allo scarico.
+ * Con lo sharding una sessione si carica solo con il lease del database (SessionLease):
+ * journal e snapshot vengono scritti solo finché il lease è valido, e lo snapshot ricontrolla l'epoch
+ * nella sua transazione, così un nodo che ha perso la sessione non sovrascrive il nuovo proprietario.
+ */
+@Component
+public class SessionStateStore {
+
+    @Autowired
+    private GameSessionRepository gameSessionRepository;
+
+    @Autowired
+    private PlayerRepository playerRepository;
+
+    @Autowired
+    private PropertyOwnershipRepository ownershipRepository;
+
+    @Autowired
+    private BoardCatalog boardCatalog;
+
+    @Autowired
+    private SessionJournal sessionJournal;
+
+    @Autowired
+    private SessionLeaseRepository sessionLeaseRepository;
+
+    @Autowired
+    private ClusterMembership clusterMembership;
+
+    @Value("${monopoly.journal.snapshot-every-events:200}")
+    private long snapshotEveryEvents;
+
+    @Value("${monopoly.sharding.lease-ms:10000}")
+    private long leaseMs;
+
+    private final TransactionTemplate flushTransaction;
+
+    private final ConcurrentHashMap<String, SessionState> states = new ConcurrentHashMap<>();
+
+    // Indici inversi per instradare i comandi senza interrogare il database
+    private final ConcurrentHashMap<Long, String> sessionCodeByPlayer = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, String> sessionCodeByOwnership = new ConcurrentHashMap<>();
+
+    public SessionStateStore(PlatformTransactionManager transactionManager) {
+        this.flushTransaction = new TransactionTemplate(transactionManager);
+        this.flushTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Stato della sessione, caricato dal database se necessario.
+     * Da chiamare dal worker della sessione.
+     */
+    public SessionState get(String sessionCode) {
+        SessionState state = states.get(sessionCode);
+        if (state == null) {
+            SessionState loaded = load(sessionCode);
+            state = states.putIfAbsent(sessionCode, loaded);
+            if (state == null) {
+                state = loaded;
+            }
+        }
+        state.touch();
+        return state;
+    }
+
+    public SessionState forPlayer(Long playerId) {
+        return get(findSessionCodeOfPlayer(playerId)
+                .orElseThrow(() -> new PlayerNotFoundException("Giocatore non trovato")));
+    }
+
+    public SessionState forOwnership(Long ownershipId) {
+        return get(findSessionCodeOfOwnership(ownershipId)
+                .orElseThrow(() -> new PropertyNotFoundException("Proprietà non trovata")));
+    }
+
+    public Optional<SessionState> find(String sessionCode) {
+        return Optional.ofNullable(states.get(sessionCode));
+    }
+
+    public Collection<SessionState> getLoadedSessions() {
+        return states.values();
+    }
+
+    public Optional<String> findSessionCodeOfPlayer(Long playerId) {
+        String sessionCode = sessionCodeByPlayer.get(playerId);
+        return sessionCode != null ? Optional.of(sessionCode) : playerRepository.findSessionCodeById(playerId);
+    }
+
+    public Optional<String> findSessionCodeOfOwnership(Long ownershipId) {
+        String sessionCode = sessionCodeByOwnership.get(ownershipId);
+        return sessionCode != null ? Optional.of(sessionCode) : ownershipRepository.findSessionCodeById(ownershipId);
+    }
+
+    public void addPlayer(SessionState state, PlayerState player) {
+        state.addPlayer(player);
+        sessionCodeByPlayer.put(player.getId(), state.getSessionCode());
+    }
+
+    public void addOwnership(SessionState state, OwnershipSlot slot) {
+        state.addOwnership(slot);
+        sessionCodeByOwnership.put(slot.getId(), state.getSessionCode());
+    }
+
+    public void removeOwnership(SessionState state, OwnershipSlot slot) {
+        state.removeOwnership(slot);
+        sessionCodeByOwnership.remove(slot.getId());
+    }
+
+    /**
+     * Flush periodico: aggiunge al journal gli eventi in coda e, se ne sono passati abbastanza
+     * dall'ultimo, scrive uno snapshot. Da chiamare dal worker della sessione.
+     */
+    public void flush(SessionState state) {
+        appendEvents(state);
+        if (state.getVersion() - state.getSnapshotVersion() >= snapshotEveryEvents) {
+            snapshot(state);
+        }
+    }
+
+    /**
+     * Fine di un comando: con un journal che lo consente gli eventi vengono scritti subito e il
+     * future si completa quando sono su disco. Altrimenti restano in coda per il flush periodico.
+     */
+    public CompletableFuture<Void> commitEvents(String sessionCode) {
+        SessionState state = states.get(sessionCode);
+        if (state == null || !sessionJournal.appendsOnCommit() || state.getJournaledVersion() == state.getVersion()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        flush(state);
+        if (states.get(sessionCode) != state) {
+            // Lease perso durante il flush: gli eventi del comando non sono stati scritti
+            return CompletableFuture.failedFuture(
+                    new IllegalStateException("Sessione " + sessionCode + " passata a un altro nodo"));
+        }
+        return sessionJournal.sync();
+    }
+
+    /**
+     * Journal e snapshot completi, per lo scarico della sessione e lo spegnimento
+     */
+    public void checkpoint(SessionState state) {
+        appendEvents(state);
+        if (state.getVersion() > state.getSnapshotVersion() || state.isDirty()) {
+            snapshot(state);
+        }
+    }
+
+    /**
+     * Persiste e rimuove dalla memoria una sessione (fine partita o inattività)
+     */
+    public void unload(String sessionCode) {
+        SessionState state = states.get(sessionCode);
+        if (state != null) {
+            checkpoint(state);
+            if (state.isDirty() || state.getJournaledVersion() < state.getVersion()
+                    || state.getSnapshotVersion() < state.getVersion()) {
+                // Scrittura fallita: la sessione resta in memoria per il prossimo tentativo
+                return;
+            }
+            evict(sessionCode);
+            releaseLease(state);
+        }
+    }
+
+    /**
+     * Partita conclusa: persiste e scarica lo stato, poi toglie la sessione dal journal.
+     * Le righe riscritte dal checkpoint bastano a ricaricarla e il journal mappato smette
+     * di ricopiarla a ogni roll.
+     */
+    public void retire(String sessionCode, Long sessionId) {
+        unload(sessionCode);
+        if (states.containsKey(sessionCode)) {
+            // Checkpoint fallito: il journal resta l'unica copia aggiornata
+            System.err.println("❌ Session " + sessionCode + " not retired: checkpoint failed");
+            return;
+        }
+        sessionJournal.delete(sessionId);
+    }
+
+    /**
+     * Rimuove dalla memoria una sessione senza persisterla (sessione eliminata)
+     */
+    public void evict(String sessionCode) {
+        SessionState state = states.remove(sessionCode);
+        if (state != null) {
+            state.getPlayers().forEach(player -> sessionCodeByPlayer.remove(player.getId()));
+            state.getOwnerships().forEach(slot -> sessionCodeByOwnership.remove(slot.getId()));
+        }
+    }
+
+    // ===== Lease (sharding) =====
+
+    /**
+     * Il lease scade entro metà durata: va rinnovato dal worker della sessione (renewLease)
+     */
+    public boolean isLeaseRenewalDue(SessionState state) {
+        return clusterMembership.isEnabled()
+                && state.getLeaseExpiresAt() - System.currentTimeMillis() < leaseMs / 2;
+    }
+
+    /**
+     * Rinnova il lease con lo stesso epoch. Se la sessione è stata acquisita da un altro nodo lo stato
+     * in memoria non è più valido e viene scartato. Da chiamare dal worker della sessione.
+     */
+    public boolean renewLease(SessionState state) {
+        if (!clusterMembership.isEnabled()) {
+            return true;
+        }
+
+        long now = System.currentTimeMillis();
+        try {
+            flushTransaction.executeWithoutResult(status -> fence(state));
+        } catch (SessionLeaseHeldException e) {
+            fenced(state, e);
+            return false;
+        } catch (RuntimeException e) {
+            // Database non raggiungibile: si riprova al prossimo flush, finché il lease non scade
+            System.err.println("❌ Lease renewal failed for session " + state.getSessionCode() + ": " + e.getMessage());
+            return false;
+        }
+        state.holdLease(state.getOwnerEpoch(), now + leaseMs);
+        return true;
+    }
+
+    /**
+     * Il nodo precedente rilascia la sessione allo scarico; se si è fermato senza farlo, la sessione
+     * viene rifiutata (SessionLeaseHeldException) finché il suo lease non scade
+     */
+    private void acquireLease(SessionState state) {
+        Long sessionId = state.getSessionId();
+        String self = clusterMembership.getSelfUrl();
+        long now = System.currentTimeMillis();
+        LocalDateTime at = LocalDateTime.now();
+        LocalDateTime until = at.plus(leaseMs, ChronoUnit.MILLIS);
+
+        SessionLease lease;
+        try {
+            lease = flushTransaction.execute(status -> {
+                if (sessionLeaseRepository.acquire(sessionId, self, at, until) == 0
+                        && !sessionLeaseRepository.existsById(sessionId)) {
+                    sessionLeaseRepository.create(sessionId, self, until);
+                }
+                return sessionLeaseRepository.findById(sessionId).orElseThrow();
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Primo lease creato nello stesso momento da un altro nodo
+            throw new SessionLeaseHeldException(state.getSessionCode(), null);
+        }
+        if (!self.equals(lease.getOwnerNode())) {
+            throw new SessionLeaseHeldException(state.getSessionCode(), lease.getOwnerNode());
+        }
+        state.holdLease(lease.getEpoch(), now + leaseMs);
+    }
+
+    /**
+     * Nella transazione corrente: estende il lease se l'epoch è ancora quello della sessione in memoria
+     */
+    private void fence(SessionState state) {
+        if (sessionLeaseRepository.renew(state.getSessionId(), state.getOwnerEpoch(),
+                LocalDateTime.now().plus(leaseMs, ChronoUnit.MILLIS)) == 0) {
+            String owner = sessionLeaseRepository.findById(state.getSessionId())
+                    .map(SessionLease::getOwnerNode)
+                    .orElse(null);
+            throw new SessionLeaseHeldException(state.getSessionCode(), owner);
+        }
+    }
+
+    private boolean holdsLease(SessionState state) {
+        return !clusterMembership.isEnabled()
+                || System.currentTimeMillis() < state.getLeaseExpiresAt()
+                || renewLease(state);
+    }
+
+    private void fenced(SessionState state, SessionLeaseHeldException e) {
+        System.err.println("❌ Session " + state.getSessionCode() + " lost its lease (epoch " + state.getOwnerEpoch()
+                + "): " + e.getMessage() + ", dropping in-memory state");
+        if (states.get(state.getSessionCode()) == state) {
+            evict(state.getSessionCode());
+        }
+    }
+
+    private void releaseLease(SessionState state) {
+        if (!clusterMembership.isEnabled()) {
+            return;
+        }
+        try {
+            flushTransaction.executeWithoutResult(status ->
+                    sessionLeaseRepository.release(state.getSessionId(), state.getOwnerEpoch()));
+        } catch (RuntimeException e) {
+            // Il nuovo proprietario attenderà la scadenza del lease
+            System.err.println("❌ Lease release failed for session " + state.getSessionCode() + ": " + e.getMessage());
+        }
+    }
+
+    private SessionState load(String sessionCode) {
+        GameSession session = gameSessionRepository.findBySessionCode(sessionCode)
+                .orElseThrow(() -> new SessionNotFoundException("Sessione non trovata"));
+
+        SessionState state = new SessionState(
+                session.getId(),
+                session.getSessionCode(),
+                session.getHostName(),
+                session.getCreatedAt(),
+                session.getStatus(),
+                boardCatalog.getLayout()
+        );
+        if (clusterMembership.isEnabled()) {
+            acquireLease(state);
+        }
+
+        Optional<SessionStateCodec.Snapshot> snapshot = sessionJournal.findSnapshot(session.getId());
+        if (snapshot.isPresent()) {
+            state.load(snapshot.get().getPlayers(), snapshot.get().getOwnerships(), snapshot.get().getVersion());
+        } else {
+            // Nessuno snapshot: le righe sono ancora quelle iniziali e ne diventano la base
+            state.load(loadPlayers(session), loadOwnerships(session), 0);
+            snapshot(state);
+        }
+
+        // Coda del journal: eventi scritti dopo lo snapshot
+        long baseVersion = state.getVersion();
+        List<SessionEvent> tail = sessionJournal.readAfter(session.getId(), baseVersion);
+        tail.forEach(state::replay);
+
+        state.getPlayers().forEach(player -> sessionCodeByPlayer.put(player.getId(), sessionCode));
+        state.getOwnerships().forEach(slot -> sessionCodeByOwnership.put(slot.getId(), sessionCode));
+
+        System.out.println("✅ Session state loaded: " + sessionCode + " (" + state.getPlayers().size() + " players, "
+                + state.getOwnerships().size() + " properties owned, "
+                + (snapshot.isPresent() ? "snapshot v" + baseVersion : "rows") + " + " + tail.size() + " events)");
+        return state;
+    }
+
+    private List<PlayerState> loadPlayers(GameSession session) {
+        return session.getPlayers().stream()
+                .sorted(Comparator.comparing(Player::getId))
+                .map(player -> new PlayerState(
+                        player.getId(),
+                        player.getName(),
+                        player.getColor(),
+                        player.isHost(),
+                        player.getBalance()))
+                .toList();
+    }
+
+    private List<OwnershipSlot> loadOwnerships(GameSession session) {
+        return ownershipRepository.findSlotsByGameSessionId(session.getId());
+    }
+
+    private void appendEvents(SessionState state) {
+        if (!state.hasPendingEvents() || !holdsLease(state)) {
+            return;
+        }
+        List<SessionEvent> events = state.drainEvents();
+
+        try {
+            sessionJournal.append(state.getSessionId(), events);
+            state.markJournaled(events.get(events.size() - 1).getSequence());
+        } catch (RuntimeException e) {
+            System.err.println("❌ Journal append failed for session " + state.getSessionCode() + ": " + e.getMessage());
+            state.requeueEvents(events);
+        }
+    }
+
+    /**
+     * Scrive in un'unica transazione le righe modificate e lo snapshot binario.
+     * In caso di errore le righe restano in coda e lo snapshot precedente resta valido.
+     */
+    private void snapshot(SessionState state) {
+        List<PlayerState> players = state.drainDirtyPlayers();
+        List<OwnershipSlot> ownerships = state.drainDirtyOwnerships();
+        long version = state.getVersion();
+
+        long now = System.currentTimeMillis();
+        try {
+            flushTransaction.executeWithoutResult(status -> {
+                if (clusterMembership.isEnabled()) {
+                    fence(state);
+                }
+                persist(players, ownerships);
+                sessionJournal.saveSnapshot(state);
+            });
+            state.markSnapshot(version);
+            if (clusterMembership.isEnabled()) {
+                state.holdLease(state.getOwnerEpoch(), now + leaseMs);
+            }
+        } catch (SessionLeaseHeldException e) {
+            fenced(state, e);
+        } catch (RuntimeException e) {
+            System.err.println("❌ Snapshot failed for session " + state.getSessionCode() + ": " + e.getMessage());
+            state.requeue(players, ownerships);
+        }
+    }
+
+    private void persist(List<PlayerState> players, List<OwnershipSlot> ownerships) {
+        // Le entità caricate vengono aggiornate dal dirty checking: Hibernate raggruppa gli UPDATE in batch
+        Map<Long, PlayerState> playersById = players.stream()
+                .collect(Collectors.toMap(PlayerState::getId, Function.identity()));
+        for (Player player : playerRepository.findAllById(playersById.keySet())) {
+            player.setBalance(playersById.get(player.getId()).getBalance());
+        }
+
+        Map<Long, OwnershipSlot> slotsById = ownerships.stream()
+                .collect(Collectors.toMap(OwnershipSlot::getId, Function.identity()));
+        for (PropertyOwnership ownership : ownershipRepository.findAllById(slotsById.keySet())) {
+            OwnershipSlot slot = slotsById.get(ownership.getId());
+            if (!ownership.getPlayer().getId().equals(slot.getOwnerId())) {
+                ownership.setPlayer(playerRepository.getReferenceById(slot.getOwnerId()));
+            }
+            ownership.setHouses(slot.getHouses());
+            ownership.setHasHotel(slot.isHasHotel());
+            ownership.setMortgaged(slot.isMortgaged());
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package com.monopoly.server.monopoly.services;
+
+import com.monopoly.server.monopoly.classes.dto.PlayerDto;
+import com.monopoly.server.monopoly.classes.dto.TradeDto;
+import com.monopoly.server.monopoly.classes.dto.TransactionDto;
+import com.monopoly.server.monopoly.classes.dto.WebSocketMessage;
+import com.monopoly.server.monopoly.classes.money.LedgerEntry;
+import com.monopoly.server.monopoly.classes.money.Money;
+import com.monopoly.server.monopoly.classes.request.TradeProposalRequest;
+import com.monopoly.server.monopoly.classes.state.OwnershipSlot;
+import com.monopoly.server.monopoly.classes.state.PlayerState;
+import com.monopoly.server.monopoly.classes.state.SessionState;
+import com.monopoly.server.monopoly.entities.Property;
+import com.monopoly.server.monopoly.enums.PropertyColor;
+import com.monopoly.server.monopoly.enums.TradeStatus;
+import com.monopoly.server.monopoly.enums.TransactionType;
+import com.monopoly.server.monopoly.exceptions.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Scambi negoziati tra due giocatori: ciascuna parte offre proprietà e denaro.
+ * Le proposte restano in memoria fino ad accettazione, rifiuto, ritiro o scadenza (non nel DB:
+ * si perdono al riavvio o allo spostamento della sessione su un altro nodo).
+ * All'accettazione entrambe le parti vengono riverificate sullo stato corrente della sessione e lo
+ * scambio viene eseguito in un'unica transazione, con un solo blocco di movimenti e una sola notifica.
+ * Da chiamare dal worker della sessione (SessionCommandExecutor).
+ */
+@Service
+public class TradeService {
+
+    public static final String TRADE_PROPOSED = "TRADE_PROPOSED";
+    public static final String TRADE_REJECTED = "TRADE_REJECTED";
+    public static final String TRADE_CANCELLED = "TRADE_CANCELLED";
+
+    @Autowired
+    private SessionStateStore sessionStateStore;
+
+    @Autowired
+    private BoardCatalog boardCatalog;
+
+    @Autowired
+    private BankService bankService;
+
+    @Autowired
+    private WebSocketService webSocketService;
+
+    @Value("${monopoly.trade.proposal-ttl-ms:300000}")
+    private long proposalTtlMs;
+
+    @Value("${monopoly.trade.max-pending-per-session:20}")
+    private int maxPendingPerSession;
+
+    // Proposte in attesa, per id
+    private final ConcurrentHashMap<String, TradeDto> pending = new ConcurrentHashMap<>();
+
+    public TradeDto propose(String sessionCode, TradeProposalRequest request) {
+        System.out.println("=== PROPOSING TRADE ===");
+        System.out.println("Session: " + sessionCode + ", Proposer: " + request.getProposerPlayerId()
+                + ", Recipient: " + request.getRecipientPlayerId());
+
+        LocalDateTime now = LocalDateTime.now();
+        TradeDto trade = TradeDto.builder()
+                .id(UUID.randomUUID().toString())
+                .sessionCode(sessionCode)
+                .proposerPlayerId(request.getProposerPlayerId())
+                .recipientPlayerId(request.getRecipientPlayerId())
+                .offeredOwnershipIds(request.getOfferedOwnershipIds() != null
+                        ? new ArrayList<>(request.getOfferedOwnershipIds()) : new ArrayList<>())
+                .offeredMoney(request.getOfferedMoney() != null ? request.getOfferedMoney() : Money.ZERO)
+                .requestedOwnershipIds(request.getRequestedOwnershipIds() != null
+                        ? new ArrayList<>(request.getRequestedOwnershipIds()) : new ArrayList<>())
+                .requestedMoney(request.getRequestedMoney() != null ? request.getRequestedMoney() : Money.ZERO)
+                .status(TradeStatus.PENDING)
+                .createdAt(now)
+                .expiresAt(now.plusNanos(proposalTtlMs * 1_000_000L))
+                .build();
+
+        // Verifica subito che lo scambio sia eseguibile con lo stato attuale
+        settlementOf(sessionStateStore.get(sessionCode), trade);
+
+        long open = pending.values().stream().filter(t -> t.getSessionCode().equals(sessionCode)).count();
+        if (open >= maxPendingPerSession) {
+            throw new InvalidTransactionException("Troppe proposte di scambio in attesa nella sessione");
+        }
+        pending.put(trade.getId(), trade);
+
+        webSocketService.sendToPlayer(sessionCode, trade.getRecipientPlayerId(),
+                new WebSocketMessage(TRADE_PROPOSED, sessionCode, trade));
+
+        System.out.println("✅ Trade " + trade.getId() + " proposed, expires at " + trade.getExpiresAt());
+        return trade;
+    }
+
+    public List<TradeDto> getPendingTrades(String sessionCode, Long playerId) {
+        LocalDateTime now = LocalDateTime.now();
+        return pending.values().stream()
+                .filter(trade -> trade.getSessionCode().equals(sessionCode))
+                .filter(trade -> trade.getExpiresAt().isAfter(now))
+                .filter(trade -> playerId == null
+                        || trade.getProposerPlayerId().equals(playerId)
+                        || trade.getRecipientPlayerId().equals(playerId))
+                .sorted((a, b) -> a.getCreatedAt().compareTo(b.getCreatedAt()))
+                .toList();
+    }
+
+    /**
+     * Esegue lo scambio. Una proposta non più valida (proprietà cedute o ipotecate, fondi
+     * insufficienti) viene scartata.
+     */
+    @Transactional
+    public TradeDto accept(String sessionCode, String tradeId, Long playerId) {
+        System.out.println("=== ACCEPTING TRADE ===");
+        System.out.println("Session: " + sessionCode + ", Trade: " + tradeId + ", Player: " + playerId);
+
+        TradeDto trade = findPending(sessionCode, tradeId);
+        if (!trade.getRecipientPlayerId().equals(playerId)) {
+            throw new UnauthorizedException("Solo il destinatario può accettare lo scambio");
+        }
+        pending.remove(tradeId);
+
+        SessionState state = sessionStateStore.get(sessionCode);
+        List<LedgerEntry> entries = settlementOf(state, trade);
+
+        // Un solo blocco di movimenti, poi i passaggi di proprietà
+        List<TransactionDto> transactions = bankService.settle(state, entries);
+        for (Long ownershipId : trade.getOfferedOwnershipIds()) {
+            state.setOwner(state.findOwnership(ownershipId).orElseThrow(), trade.getRecipientPlayerId());
+        }
+        for (Long ownershipId : trade.getRequestedOwnershipIds()) {
+            state.setOwner(state.findOwnership(ownershipId).orElseThrow(), trade.getProposerPlayerId());
+        }
+
+        TradeDto completed = trade.toBuilder()
+                .status(TradeStatus.ACCEPTED)
+                .transactions(transactions)
+                .build();
+
+        PlayerState proposer = findPlayer(state, trade.getProposerPlayerId());
+        PlayerState recipient = findPlayer(state, trade.getRecipientPlayerId());
+        webSocketService.broadcastPropertyUpdate(sessionCode, Map.of(
+                "action", "TRADE_COMPLETED",
+                "trade", completed,
+                "players", List.of(mapToPlayerDto(state, proposer), mapToPlayerDto(state, recipient))
+        ));
+
+        System.out.println("✅ Trade " + tradeId + " completed: " + transactions.size() + " transactions");
+        return completed;
+    }
+
+    public TradeDto reject(String sessionCode, String tradeId, Long playerId) {
+        TradeDto trade = findPending(sessionCode, tradeId);
+        if (!trade.getRecipientPlayerId().equals(playerId)) {
+            throw new UnauthorizedException("Solo il destinatario può rifiutare lo scambio");
+        }
+        pending.remove(tradeId);
+
+        TradeDto rejected = trade.toBuilder().status(TradeStatus.REJECTED).build();
+        webSocketService.sendToPlayer(sessionCode, trade.getProposerPlayerId(),
+                new WebSocketMessage(TRADE_REJECTED, sessionCode, rejected));
+        System.out.println("✅ Trade " + tradeId + " rejected");
+        return rejected;
+    }
+
+    public TradeDto cancel(String sessionCode, String tradeId, Long playerId) {
+        TradeDto trade = findPending(sessionCode, tradeId);
+        if (!trade.getProposerPlayerId().equals(playerId)) {
+            throw new UnauthorizedException("Solo chi ha proposto lo scambio può ritirarlo");
+        }
+        pending.remove(tradeId);
+
+        TradeDto cancelled = trade.toBuilder().status(TradeStatus.CANCELLED).build();
+        webSocketService.sendToPlayer(sessionCode, trade.getRecipientPlayerId(),
+                new WebSocketMessage(TRADE_CANCELLED, sessionCode, cancelled));
+        System.out.println("✅ Trade " + tradeId + " cancelled");
+        return cancelled;
+    }
+
+    @Scheduled(fixedDelayString = "${monopoly.trade.sweep-interval-ms:30000}")
+    public void evictExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        int before = pending.size();
+        pending.values().removeIf(trade -> !trade.getExpiresAt().isAfter(now));
+        int evicted = before - pending.size();
+        if (evicted > 0) {
+            System.out.println("✅ Evicted " + evicted + " expired trade proposals");
+        }
+    }
+
+    private TradeDto findPending(String sessionCode, String tradeId) {
+        TradeDto trade = pending.get(tradeId);
+        if (trade == null || !trade.getSessionCode().equals(sessionCode)) {
+            throw new TradeNotFoundException("Proposta di scambio non trovata");
+        }
+        if (!trade.getExpiresAt().isAfter(LocalDateTime.now())) {
+            pending.remove(tradeId);
+            throw new TradeNotFoundException("Proposta di scambio scaduta");
+        }
+        return trade;
+    }
+
+    /**
+     * Verifica entrambe le parti sullo stato della sessione e restituisce i movimenti dello scambio:
+     * denaro tra i giocatori e tassa del 10% per le proprietà ipotecate ricevute
+     */
+    private List<LedgerEntry> settlementOf(SessionState state, TradeDto trade) {
+        if (trade.getProposerPlayerId() == null || trade.getRecipientPlayerId() == null) {
+            throw new InvalidTransactionException("Giocatori dello scambio mancanti");
+        }
+        if (trade.getProposerPlayerId().equals(trade.getRecipientPlayerId())) {
+            throw new InvalidTransactionException("Non puoi proporre uno scambio a te stesso");
+        }
+        PlayerState proposer = findPlayer(state, trade.getProposerPlayerId());
+        PlayerState recipient = findPlayer(state, trade.getRecipientPlayerId());
+
+        if (trade.getOfferedMoney().isNegative() || trade.getRequestedMoney().isNegative()) {
+            throw new InvalidTransactionException("Gli importi dello scambio non possono essere negativi");
+        }
+        if (trade.getOfferedOwnershipIds().isEmpty() && trade.getRequestedOwnershipIds().isEmpty()) {
+            throw new InvalidTransactionException("Lo scambio deve includere almeno una proprietà");
+        }
+
+        Set<Long> seen = new HashSet<>();
+        List<String> recipientTaxed = new ArrayList<>();
+        List<String> proposerTaxed = new ArrayList<>();
+        Money recipientTax = Money.ZERO;
+        Money proposerTax = Money.ZERO;
+
+        for (Long ownershipId : trade.getOfferedOwnershipIds()) {
+            Property property = checkTradable(state, ownershipId, proposer, seen);
+            if (state.findOwnership(ownershipId).orElseThrow().isMortgaged()) {
+                recipientTax = recipientTax.plus(property.getPrice().percent(10));
+                recipientTaxed.add(property.getName());
+            }
+        }
+        for (Long ownershipId : trade.getRequestedOwnershipIds()) {
+            Property property = checkTradable(state, ownershipId, recipient, seen);
+            if (state.findOwnership(ownershipId).orElseThrow().isMortgaged()) {
+                proposerTax = proposerTax.plus(property.getPrice().percent(10));
+                proposerTaxed.add(property.getName());
+            }
+        }
+
+        // Ogni parte deve coprire con il saldo attuale ciò che paga, senza contare ciò che riceve
+        if (proposer.getBalance().isLessThan(trade.getOfferedMoney().plus(proposerTax))) {
+            throw new InsufficientFundsException("Fondi insufficienti per lo scambio: " + proposer.getName());
+        }
+        if (recipient.getBalance().isLessThan(trade.getRequestedMoney().plus(recipientTax))) {
+            throw new InsufficientFundsException("Fondi insufficienti per lo scambio: " + recipient.getName());
+        }
+
+        List<LedgerEntry> entries = new ArrayList<>();
+        if (trade.getOfferedMoney().isPositive()) {
+            entries.add(new LedgerEntry(TransactionType.PLAYER_TO_PLAYER, trade.getOfferedMoney(),
+                    proposer.getId(), recipient.getId(), "Scambio con " + recipient.getName()));
+        }
+        if (trade.getRequestedMoney().isPositive()) {
+            entries.add(new LedgerEntry(TransactionType.PLAYER_TO_PLAYER, trade.getRequestedMoney(),
+                    recipient.getId(), proposer.getId(), "Scambio con " + proposer.getName()));
+        }
+        if (proposerTax.isPositive()) {
+            entries.add(new LedgerEntry(TransactionType.PLAYER_TO_BANK, proposerTax,
+                    proposer.getId(), null, BankService.describe("Tassa trasferimento ipoteca", proposerTaxed)));
+        }
+        if (recipientTax.isPositive()) {
+            entries.add(new LedgerEntry(TransactionType.PLAYER_TO_BANK, recipientTax,
+                    recipient.getId(), null, BankService.describe("Tassa trasferimento ipoteca", recipientTaxed)));
+        }
+        return entries;
+    }
+
+    /**
+     * La proprietà deve essere del giocatore e il suo gruppo di colore senza edifici
+     */
+    private Property checkTradable(SessionState state, Long ownershipId, PlayerState owner, Set<Long> seen) {
+        if (ownershipId == null || !seen.add(ownershipId)) {
+            throw new InvalidTransactionException("Proprietà ripetuta o mancante nello scambio: " + ownershipId);
+        }
+
+        OwnershipSlot ownership = state.findOwnership(ownershipId)
+                .orElseThrow(() -> new PropertyNotFoundException("Proprietà non trovata: " + ownershipId));
+        Property property = propertyOf(ownership);
+        if (!ownership.isOwnedBy(owner.getId())) {
+            throw new InvalidTransactionException(property.getName() + " non appartiene a " + owner.getName());
+        }
+
+        PropertyColor colorGroup = property.getColorGroup();
+        boolean groupHasBuildings = colorGroup != null && state.getOwnershipsOf(owner.getId()).stream()
+                .filter(slot -> slot.getHouses() > 0 || slot.isHasHotel())
+                .anyMatch(slot -> colorGroup == propertyOf(slot).getColorGroup());
+        if (groupHasBuildings) {
+            throw new InvalidTransactionException("Vendi prima gli edifici del gruppo di " + property.getName());
+        }
+        return property;
+    }
+
+    private Property propertyOf(OwnershipSlot ownership) {
+        Long propertyId = ownership.getPropertyId();
+        return boardCatalog.findById(propertyId)
+                .orElseThrow(() -> new PropertyNotFoundException("Proprietà non trovata: " + propertyId));
+    }
+
+    private PlayerState findPlayer(SessionState state, Long playerId) {
+        return state.findPlayer(playerId)
+                .orElseThrow(() -> new PlayerNotFoundException("Giocatore non trovato: " + playerId));
+    }
+
+    private PlayerDto mapToPlayerDto(SessionState state, PlayerState player) {
+        return PlayerDto.builder()
+                .id(player.getId())
+                .name(player.getName())
+                .balance(player.getBalance())
+                .color(player.getColor())
+                .isHost(player.isHost())
+                .propertiesCount(state.countOwnershipsOf(player.getId()))
+                .build();
+    }
+}
@@ -1,26 +1,132 @@
 package com.monopoly.server.monopoly.services;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.monopoly.server.monopoly.classes.dto.PlayerDto;
+import com.monopoly.server.monopoly.classes.dto.ReplayDto;
 import com.monopoly.server.monopoly.classes.dto.WebSocketMessage;
+import com.monopoly.server.monopoly.enums.OutboundOverflowPolicy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.MimeTypeUtils;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Invio dei messaggi WebSocket alle sessioni.
+ * I messaggi prodotti in una transazione partono solo dopo il commit (e vengono scartati in caso di
+ * rollback); con l'outbox attivo vengono anche scritti nella transazione (SessionOutbox). L'invio avviene su un executor dedicato, attraverso una coda limitata per sessione che
+ * mantiene l'ordine; a coda piena si applica monopoly.websocket.overflow-policy.
+ * Con monopoly.websocket.coalesce-ms > 0 la coda viene svuotata dopo coalesce-ms e i messaggi
+ * accumulati partono come un unico frame BATCH.
+ * Gli ultimi replay-capacity frame di ogni sessione restano disponibili, numerati, per i client
+ * che si riconnettono (GET /api/sessions/{code}/replay).
+ */
 @Service
 public class WebSocketService {
 
+    private static final String BATCH = "BATCH";
+    private static final String SESSION_UPDATE = "SESSION_UPDATE";
+
     private final SimpMessagingTemplate messagingTemplate;
 
-    public WebSocketService(SimpMessagingTemplate messagingTemplate) {
+    private final SessionOutbox sessionOutbox;
+
+    private final ObjectMapper objectMapper;
+
+    private final long coalesceMs;
+
+    private final int outboundCapacity;
+
+    private final OutboundOverflowPolicy overflowPolicy;
+
+    private final ScheduledThreadPoolExecutor outbound;
+
+    private final ConcurrentHashMap<String, OutboundQueue> queues = new ConcurrentHashMap<>();
+
+    private final int replayCapacity;
+
+    private final long replayRetentionMs;
+
+    private final ConcurrentHashMap<String, ReplayRing> replays = new ConcurrentHashMap<>();
+
+    // Metriche (/actuator/metrics/monopoly.websocket.outbound.*)
+    private final AtomicInteger queuedMessages = new AtomicInteger();
+    private final Counter sentFrames;
+    private final Counter droppedMessages;
+    private final Counter mergedMessages;
+
+    public WebSocketService(SimpMessagingTemplate messagingTemplate,
+                            SessionOutbox sessionOutbox,
+                            ObjectMapper objectMapper,
+                            MeterRegistry meterRegistry,
+                            @Value("${monopoly.websocket.coalesce-ms:0}") long coalesceMs,
+                            @Value("${monopoly.websocket.outbound-capacity:256}") int outboundCapacity,
+                            @Value("${monopoly.websocket.overflow-policy:MERGE}") OutboundOverflowPolicy overflowPolicy,
+                            @Value("${monopoly.websocket.outbound-threads:2}") int outboundThreads,
+                            @Value("${monopoly.websocket.replay-capacity:128}") int replayCapacity,
+                            @Value("${monopoly.websocket.replay-retention-ms:1800000}") long replayRetentionMs) {
         this.messagingTemplate = messagingTemplate;
+        this.sessionOutbox = sessionOutbox;
+        this.objectMapper = objectMapper;
+        this.replayCapacity = Math.max(replayCapacity, 1);
+        this.replayRetentionMs = replayRetentionMs;
+        this.coalesceMs = coalesceMs;
+        this.outboundCapacity = Math.max(outboundCapacity, 1);
+        this.overflowPolicy = overflowPolicy;
+
+        AtomicInteger counter = new AtomicInteger();
+        this.outbound = new ScheduledThreadPoolExecutor(Math.max(outboundThreads, 1), runnable -> {
+            Thread thread = new Thread(runnable, "websocket-outbound-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("monopoly.websocket.outbound.depth", queuedMessages, AtomicInteger::get)
+                .description("Messaggi in attesa di invio, tutte le sessioni")
+                .register(meterRegistry);
+        Gauge.builder("monopoly.websocket.outbound.sessions", queues, Map::size)
+                .description("Sessioni con messaggi in attesa di invio")
+                .register(meterRegistry);
+        this.sentFrames = meterRegistry.counter("monopoly.websocket.outbound.sent");
+        this.droppedMessages = meterRegistry.counter("monopoly.websocket.outbound.dropped");
+        this.mergedMessages = meterRegistry.counter("monopoly.websocket.outbound.merged");
     }
 
     public void broadcastToSession(String sessionCode, WebSocketMessage message) {
-        try {
-            System.out.println("📡 Broadcasting WebSocket message to session " + sessionCode + ": " + message.getType());
-            messagingTemplate.convertAndSend("/topic/session/" + sessionCode, message);
-            System.out.println("✅ WebSocket message sent successfully");
-        } catch (Exception e) {
-            System.err.println("❌ Error sending WebSocket message: " + e.getMessage());
-            e.printStackTrace();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            Pending pending = transactionBuffer().computeIfAbsent(sessionCode, code -> new Pending());
+            if (sessionOutbox.isEnabled()) {
+                // Serializzato una sola volta: gli stessi byte vanno nell'outbox e al broker
+                byte[] payload = serialize(message);
+                pending.frames.add(new Frame(message, payload, List.of(sessionOutbox.write(sessionCode, payload))));
+            } else {
+                pending.frames.add(new Frame(message, null, List.of()));
+            }
+        } else {
+            enqueue(sessionCode, List.of(new Frame(message, null, List.of())));
         }
     }
 
@@ -40,7 +146,7 @@ public class WebSocketService {
 
     // AGGIUNTO: Metodo per inviare aggiornamenti di sessione
     public void broadcastSessionUpdate(String sessionCode, Object sessionData) {
-        WebSocketMessage message = new WebSocketMessage("SESSION_UPDATE", sessionCode, sessionData);
+        WebSocketMessage message = new WebSocketMessage(SESSION_UPDATE, sessionCode, sessionData);
         broadcastToSession(sessionCode, message);
     }
 
@@ -61,4 +167,358 @@ public class WebSocketService {
         WebSocketMessage message = new WebSocketMessage("TRANSACTION_UPDATE", sessionCode, transactionData);
         broadcastToSession(sessionCode, message);
     }
-}
\ No newline at end of file
+
+    /**
+     * Invia un messaggio rimasto nell'outbox (relay): viene numerato e conservato per il replay
+     * come quelli inviati dalla coda di uscita
+     */
+    public void relay(String sessionCode, byte[] payload) {
+        System.out.println("📡 Relaying outbox message to session " + sessionCode);
+        publish(sessionCode, payload);
+    }
+
+    /**
+     * Frame inviati alla sessione dopo il numero indicato (resyncRequired se non più disponibili)
+     */
+    public ReplayDto replay(String sessionCode, long after) {
+        ReplayRing ring = replays.get(sessionCode);
+        if (ring == null) {
+            return ReplayDto.builder()
+                    .sessionCode(sessionCode)
+                    .after(after)
+                    .resyncRequired(true)
+                    .build();
+        }
+        return ring.after(sessionCode, after);
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void evictIdleReplays() {
+        long idleSince = System.currentTimeMillis() - replayRetentionMs;
+        replays.values().removeIf(ring -> ring.lastFrameAt < idleSince);
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        // I drain già pianificati (anche quelli ritardati dalla coalescenza) vengono eseguiti
+        outbound.shutdown();
+        if (!outbound.awaitTermination(5, TimeUnit.SECONDS)) {
+            System.err.println("❌ WebSocket outbound queue did not drain in time");
+            outbound.shutdownNow();
+        }
+    }
+
+    // ===== Dopo il commit =====
+
+    /**
+     * Buffer dei messaggi della transazione corrente, accodati per l'invio dopo il commit
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Pending> transactionBuffer() {
+        Map<String, Pending> buffer = (Map<String, Pending>) TransactionSynchronizationManager.getResource(this);
+        if (buffer == null) {
+            Map<String, Pending> created = new LinkedHashMap<>();
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(WebSocketService.this);
+                    if (status != STATUS_COMMITTED) {
+                        System.out.println("❌ Transaction rolled back, WebSocket messages discarded for sessions "
+                                + created.keySet());
+                        created.values().forEach(pending -> sessionOutbox.release(outboxIdsOf(pending.frames)));
+                        return;
+                    }
+                    created.forEach((sessionCode, pending) -> enqueue(sessionCode, pending.frames));
+                }
+            });
+            buffer = created;
+        }
+        return buffer;
+    }
+
+    /**
+     * Messaggi di una sessione prodotti nella transazione
+     */
+    private static final class Pending {
+        private final List<Frame> frames = new ArrayList<>();
+    }
+
+    /**
+     * Messaggio in uscita, con il JSON (senza numero) già scritto nell'outbox se presente e le
+     * righe dell'outbox che copre (più di una per un BATCH unito a coda piena)
+     */
+    private record Frame(WebSocketMessage message, byte[] payload, List<Long> outboxIds) {
+    }
+
+    private static List<Long> outboxIdsOf(Collection<Frame> frames) {
+        List<Long> ids = new ArrayList<>();
+        frames.forEach(frame -> ids.addAll(frame.outboxIds()));
+        return ids;
+    }
+
+    // ===== Coda di uscita =====
+
+    private void enqueue(String sessionCode, List<Frame> frames) {
+        // Una coda appena svuotata viene chiusa e rimossa: in quel caso se ne crea una nuova
+        while (!queues.computeIfAbsent(sessionCode, OutboundQueue::new).offer(frames)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Messaggi in attesa di una sessione: al massimo un thread di uscita alla volta la svuota
+     */
+    private final class OutboundQueue implements Runnable {
+        private final String sessionCode;
+        private final ArrayDeque<Frame> frames = new ArrayDeque<>();
+        private boolean scheduled;
+        private boolean closed;
+
+        private OutboundQueue(String sessionCode) {
+            this.sessionCode = sessionCode;
+        }
+
+        boolean offer(List<Frame> incoming) {
+            synchronized (this) {
+                if (closed) {
+                    return false;
+                }
+                for (Frame frame : incoming) {
+                    if (frames.size() >= outboundCapacity) {
+                        overflow();
+                    }
+                    frames.addLast(frame);
+                    queuedMessages.incrementAndGet();
+                }
+                if (scheduled) {
+                    return true;
+                }
+                scheduled = true;
+            }
+            schedule();
+            return true;
+        }
+
+        private void overflow() {
+            if (overflowPolicy == OutboundOverflowPolicy.DROP_OLDEST) {
+                Frame dropped = frames.removeFirst();
+                queuedMessages.decrementAndGet();
+                droppedMessages.increment();
+                System.err.println("❌ WebSocket queue full for session " + sessionCode + ", dropped " + dropped.message().getType());
+                // Un messaggio dell'outbox non va perso: la riga torna al relay, che lo reinvia
+                sessionOutbox.release(dropped.outboxIds());
+                return;
+            }
+            int merged = frames.size();
+            WebSocketMessage batch = coalesce(sessionCode, messagesOf(frames));
+            List<Long> mergedOutboxIds = outboxIdsOf(frames);
+            frames.clear();
+            frames.addLast(new Frame(batch, null, mergedOutboxIds));
+            queuedMessages.addAndGet(1 - merged);
+            mergedMessages.increment(merged);
+            System.err.println("❌ WebSocket queue full for session " + sessionCode + ", merged " + merged + " messages");
+        }
+
+        private void schedule() {
+            if (coalesceMs > 0) {
+                outbound.schedule(this, coalesceMs, TimeUnit.MILLISECONDS);
+            } else {
+                outbound.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            List<Frame> drained;
+            synchronized (this) {
+                drained = new ArrayList<>(frames);
+                frames.clear();
+            }
+            queuedMessages.addAndGet(-drained.size());
+
+            try {
+                if (coalesceMs > 0 && drained.size() > 1) {
+                    System.out.println("📦 Coalescing " + drained.size() + " WebSocket messages for session " + sessionCode);
+                    settle(new Frame(coalesce(sessionCode, messagesOf(drained)), null, outboxIdsOf(drained)));
+                } else {
+                    drained.forEach(this::settle);
+                }
+            } finally {
+                boolean reschedule;
+                synchronized (this) {
+                    reschedule = !frames.isEmpty();
+                    if (!reschedule) {
+                        scheduled = false;
+                        closed = true;
+                        queues.remove(sessionCode, this);
+                    }
+                }
+                if (reschedule) {
+                    schedule();
+                }
+            }
+        }
+
+        /**
+         * Invia il frame e segna le sue righe dell'outbox come consegnate, o le restituisce al relay
+         */
+        private void settle(Frame frame) {
+            if (send(sessionCode, frame)) {
+                sessionOutbox.delivered(frame.outboxIds());
+            } else {
+                sessionOutbox.release(frame.outboxIds());
+            }
+        }
+    }
+
+    /**
+     * Frame già serializzato: il broker lo inoltra a tutti gli iscritti senza riconvertirlo
+     */
+    private static Message<byte[]> jsonFrame(byte[] payload) {
+        return MessageBuilder
+                .withPayload(payload)
+                .setHeader(MessageHeaders.CONTENT_TYPE, MimeTypeUtils.APPLICATION_JSON)
+                .build();
+    }
+
+    // ===== Replay =====
+
+    /**
+     * Ultimi frame inviati a una sessione, serializzati, in un buffer circolare a capacità fissa.
+     * La numerazione parte dall'istante di creazione in ms, così resta crescente anche dopo un riavvio.
+     * Il lock del buffer copre anche l'invio al broker, così i frame partono nell'ordine dei numeri.
+     */
+    private final class ReplayRing {
+        private final byte[][] frames = new byte[replayCapacity][];
+        private final long firstSequence;
+        private long lastSequence;
+        private volatile long lastFrameAt = System.currentTimeMillis();
+
+        private ReplayRing() {
+            this.lastSequence = System.currentTimeMillis();
+            this.firstSequence = lastSequence + 1;
+        }
+
+        /**
+         * Numera il frame inserendo "sequence" in testa al JSON già serializzato (che non lo contiene);
+         * i byte restituiti sono quelli inviati al broker
+         */
+        synchronized byte[] append(byte[] unsequenced) {
+            long sequence = lastSequence + 1;
+            byte[] prefix = ("{\"sequence\":" + sequence + ",").getBytes(StandardCharsets.US_ASCII);
+            byte[] payload = new byte[prefix.length + unsequenced.length - 1];
+            System.arraycopy(prefix, 0, payload, 0, prefix.length);
+            System.arraycopy(unsequenced, 1, payload, prefix.length, unsequenced.length - 1);
+            frames[(int) (sequence % frames.length)] = payload;
+            lastSequence = sequence;
+            lastFrameAt = System.currentTimeMillis();
+            return payload;
+        }
+
+        synchronized ReplayDto after(String sessionCode, long after) {
+            ReplayDto.ReplayDtoBuilder replay = ReplayDto.builder()
+                    .sessionCode(sessionCode)
+                    .after(after)
+                    .latestSequence(lastSequence);
+
+            long oldest = Math.max(firstSequence, lastSequence - frames.length + 1);
+            if (after > lastSequence || after < oldest - 1) {
+                return replay.resyncRequired(true).build();
+            }
+
+            List<RawValue> missed = new ArrayList<>((int) (lastSequence - after));
+            for (long sequence = after + 1; sequence <= lastSequence; sequence++) {
+                missed.add(new RawValue(new String(frames[(int) (sequence % frames.length)], StandardCharsets.UTF_8)));
+            }
+            return replay.frames(missed).build();
+        }
+    }
+
+    // ===== Coalescenza =====
+
+    /**
+     * Unisce i messaggi in un frame BATCH: i messaggi restano in ordine, di SESSION_UPDATE resta solo
+     * l'ultimo e "players" contiene lo stato più recente di ogni giocatore citato nel batch
+     */
+    private WebSocketMessage coalesce(String sessionCode, List<WebSocketMessage> messages) {
+        List<WebSocketMessage> kept = new ArrayList<>(messages.size());
+        Map<Long, PlayerDto> players = new LinkedHashMap<>();
+        for (WebSocketMessage message : flatten(messages)) {
+            collectPlayers(message.getData(), players);
+            if (SESSION_UPDATE.equals(message.getType())) {
+                kept.removeIf(previous -> SESSION_UPDATE.equals(previous.getType()));
+            }
+            kept.add(message);
+        }
+
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("messages", kept);
+        data.put("players", new ArrayList<>(players.values()));
+        return new WebSocketMessage(BATCH, sessionCode, data);
+    }
+
+    private static List<WebSocketMessage> messagesOf(Collection<Frame> frames) {
+        List<WebSocketMessage> messages = new ArrayList<>(frames.size());
+        frames.forEach(frame -> messages.add(frame.message()));
+        return messages;
+    }
+
+    /**
+     * Espande i BATCH già formati (coda piena unita più volte)
+     */
+    @SuppressWarnings("unchecked")
+    private static List<WebSocketMessage> flatten(List<WebSocketMessage> messages) {
+        List<WebSocketMessage> flat = new ArrayList<>(messages.size());
+        for (WebSocketMessage message : messages) {
+            if (BATCH.equals(message.getType()) && message.getData() instanceof Map<?, ?> data) {
+                flat.addAll((List<WebSocketMessage>) data.get("messages"));
+            } else {
+                flat.add(message);
+            }
+        }
+        return flat;
+    }
+
+    private static void collectPlayers(Object data, Map<Long, PlayerDto> players) {
+        if (data instanceof PlayerDto player) {
+            players.put(player.getId(), player);
+        } else if (data instanceof Map<?, ?> map) {
+            map.values().forEach(value -> collectPlayers(value, players));
+        } else if (data instanceof Collection<?> collection) {
+            collection.forEach(value -> collectPlayers(value, players));
+        }
+    }
+
+    private byte[] serialize(WebSocketMessage message) {
+        try {
+            return objectMapper.writeValueAsBytes(message);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Messaggio WebSocket non serializzabile: " + message.getType(), e);
+        }
+    }
+
+    private boolean send(String sessionCode, Frame frame) {
+        try {
+            System.out.println("📡 Broadcasting WebSocket message to session " + sessionCode + ": " + frame.message().getType());
+            publish(sessionCode, frame.payload() != null ? frame.payload() : serialize(frame.message()));
+            System.out.println("✅ WebSocket message sent successfully");
+            return true;
+        } catch (Exception e) {
+            System.err.println("❌ Error sending WebSocket message: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Numera il frame, lo conserva per il replay e lo consegna al broker
+     */
+    private void publish(String sessionCode, byte[] unsequenced) {
+        ReplayRing ring = replays.computeIfAbsent(sessionCode, code -> new ReplayRing());
+        synchronized (ring) {
+            messagingTemplate.send("/topic/session/" + sessionCode, jsonFrame(ring.append(unsequenced)));
+        }
+        sentFrames.increment();
+    }
+}
@@ -0,0 +1,139 @@
+package com.monopoly.server.monopoly;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.monopoly.server.monopoly.classes.dto.GameSessionDto;
+import com.monopoly.server.monopoly.enums.PlayerColor;
+import com.monopoly.server.monopoly.services.GameSessionService;
+import com.monopoly.server.monopoly.services.SessionCommandExecutor;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.net.ServerSocket;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Due nodi sulla stessa macchina: A avvia il broker STOMP embedded, B vi si collega in modalità RELAY.
+ * Un broadcast generato su A deve arrivare a un client iscritto su B.
+ */
+class BrokerRelayTwoNodeTests {
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeAll
+    static void startNodes() throws IOException {
+        int brokerPort = freePort();
+        nodeA = startNode("nodeA", "EMBEDDED", brokerPort);
+        nodeB = startNode("nodeB", "RELAY", brokerPort);
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        if (nodeB != null) {
+            nodeB.close();
+        }
+        if (nodeA != null) {
+            nodeA.close();
+        }
+    }
+
+    @Test
+    void broadcastFromOneNodeReachesSubscribersOnTheOther() throws Exception {
+        GameSessionService sessionsOnA = nodeA.getBean(GameSessionService.class);
+        SessionCommandExecutor executorOnA = nodeA.getBean(SessionCommandExecutor.class);
+        String code = sessionsOnA.createSession("Host").getSessionCode();
+
+        BlockingQueue<JsonNode> received = new LinkedBlockingQueue<>();
+        ThreadPoolTaskScheduler receiptScheduler = new ThreadPoolTaskScheduler();
+        receiptScheduler.initialize();
+        WebSocketStompClient client = new WebSocketStompClient(new StandardWebSocketClient());
+        client.setTaskScheduler(receiptScheduler);
+        StompSession session = client.connectAsync("ws://localhost:" + portOf(nodeB) + "/ws",
+                new StompSessionHandlerAdapter() {
+                }).get(10, TimeUnit.SECONDS);
+        try {
+            // La ricevuta arriva quando il broker ha registrato l'iscrizione inoltrata da B
+            CompletableFuture<Void> subscribed = new CompletableFuture<>();
+            session.setAutoReceipt(true);
+            session.subscribe("/topic/session/" + code, new StompFrameHandler() {
+                @Override
+                public Type getPayloadType(StompHeaders headers) {
+                    return byte[].class;
+                }
+
+                @Override
+                public void handleFrame(StompHeaders headers, Object payload) {
+                    try {
+                        received.add(objectMapper.readTree((byte[]) payload));
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            }).addReceiptTask(() -> subscribed.complete(null));
+            subscribed.get(10, TimeUnit.SECONDS);
+
+            GameSessionDto joined = executorOnA.execute(code,
+                    () -> sessionsOnA.joinSession(code, "Guest", PlayerColor.BLUE));
+            assertThat(joined.getPlayers()).hasSize(2);
+
+            JsonNode message = awaitType(received, "PLAYER_JOINED");
+            assertThat(message.path("sessionCode").asText()).isEqualTo(code);
+            assertThat(message.path("data").path("name").asText()).isEqualTo("Guest");
+        } finally {
+            session.disconnect();
+            client.stop();
+            receiptScheduler.shutdown();
+        }
+    }
+
+    private static JsonNode awaitType(BlockingQueue<JsonNode> received, String type) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (System.nanoTime() < deadline) {
+            JsonNode message = received.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (message != null && type.equals(message.path("type").asText())) {
+                return message;
+            }
+        }
+        throw new AssertionError("Nessun messaggio " + type + " ricevuto");
+    }
+
+    private static ConfigurableApplicationContext startNode(String name, String brokerMode, int brokerPort) {
+        // Argomenti da riga di comando: hanno la precedenza su application.properties
+        return new SpringApplicationBuilder(MonopolyApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:" + name,
+                "--monopoly.websocket.broker.mode=" + brokerMode,
+                "--monopoly.websocket.broker.relay-port=" + brokerPort);
+    }
+
+    private static int portOf(ConfigurableApplicationContext context) {
+        return ((WebServerApplicationContext) context).getWebServer().getPort();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
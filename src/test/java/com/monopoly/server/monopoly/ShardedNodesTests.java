@@ -0,0 +1,139 @@
+package com.monopoly.server.monopoly;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.monopoly.server.monopoly.services.ClusterMembership;
+import com.monopoly.server.monopoly.services.SessionShardRouter;
+import com.monopoly.server.monopoly.services.SessionStateStore;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Due nodi con lo sharding attivo sullo stesso database H2 in memoria, con la membership
+ * configurata per elenco: i comandi ricevuti dal nodo sbagliato vengono eseguiti dal proprietario
+ * e, quando il proprietario si ferma, le sue sessioni passano al nodo rimasto.
+ */
+class ShardedNodesTests {
+
+    private static final String DATABASE_URL = "jdbc:h2:mem:sharded;DB_CLOSE_DELAY=-1";
+
+    private static String urlA;
+    private static String urlB;
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeAll
+    static void startNodes() throws IOException, InterruptedException {
+        urlA = "http://localhost:" + freePort();
+        urlB = "http://localhost:" + freePort();
+        // A crea lo schema e i dati iniziali (senza eliminarli alla chiusura), B li usa
+        nodeA = startNode(urlA, "--spring.jpa.hibernate.ddl-auto=create");
+        nodeB = startNode(urlB, "--spring.jpa.hibernate.ddl-auto=none", "--spring.sql.init.mode=never");
+
+        // Durante l'avvio di B il nodo A lo ha escluso: si parte quando entrambi vedono l'intero cluster
+        awaitLiveNodes(nodeA, Set.of(urlA, urlB));
+        awaitLiveNodes(nodeB, Set.of(urlA, urlB));
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        if (nodeB != null) {
+            nodeB.close();
+        }
+        if (nodeA != null && nodeA.isActive()) {
+            nodeA.close();
+        }
+    }
+
+    @Test
+    void commandsRunOnTheOwnerAndOwnershipMovesWhenItStops() throws Exception {
+        JsonNode created = post(urlA, "/api/sessions", "{\"hostName\":\"Anna\"}");
+        String code = created.path("sessionCode").asText();
+        assertThat(nodeB.getBean(SessionShardRouter.class).ownerOf(code)).isEqualTo(urlA);
+
+        // Join ricevuto da B: inoltrato ad A, che ne tiene lo stato in memoria
+        JsonNode joined = post(urlB, "/api/sessions/" + code + "/join",
+                "{\"playerName\":\"Bob\",\"color\":\"BLUE\"}");
+        assertThat(joined.path("players")).hasSize(2);
+        assertThat(nodeA.getBean(SessionStateStore.class).find(code)).isPresent();
+        assertThat(nodeB.getBean(SessionStateStore.class).find(code)).isEmpty();
+
+        // Replay chiesto a B: risponde A, che ha numerato e conservato i frame della sessione
+        JsonNode replay = get(urlB, "/api/sessions/" + code + "/replay?after=0");
+        assertThat(replay.path("latestSequence").asLong()).isPositive();
+
+        // A si ferma (rilasciando il lease): B se ne accorge e diventa proprietario della sessione
+        nodeA.close();
+        awaitLiveNodes(nodeB, Set.of(urlB));
+        assertThat(nodeB.getBean(SessionShardRouter.class).ownerOf(code)).isEqualTo(urlB);
+
+        JsonNode rejoined = post(urlB, "/api/sessions/" + code + "/join",
+                "{\"playerName\":\"Carla\",\"color\":\"GREEN\"}");
+        assertThat(rejoined.path("players")).hasSize(3);
+        assertThat(nodeB.getBean(SessionStateStore.class).find(code)).isPresent();
+    }
+
+    private JsonNode post(String node, String path, String body) throws Exception {
+        HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(URI.create(node + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertThat(response.statusCode()).as("POST %s%s: %s", node, path, response.body()).isEqualTo(200);
+        return objectMapper.readTree(response.body());
+    }
+
+    private JsonNode get(String node, String path) throws Exception {
+        HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(URI.create(node + path)).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertThat(response.statusCode()).as("GET %s%s: %s", node, path, response.body()).isEqualTo(200);
+        return objectMapper.readTree(response.body());
+    }
+
+    private static void awaitLiveNodes(ConfigurableApplicationContext node, Set<String> expected)
+            throws InterruptedException {
+        ClusterMembership membership = node.getBean(ClusterMembership.class);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!membership.getLiveNodes().equals(expected) && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+        }
+        assertThat(membership.getLiveNodes()).isEqualTo(expected);
+    }
+
+    private static ConfigurableApplicationContext startNode(String selfUrl, String... extraArgs) {
+        String[] args = {
+                "--server.port=" + URI.create(selfUrl).getPort(),
+                "--spring.datasource.url=" + DATABASE_URL,
+                "--monopoly.sharding.enabled=true",
+                "--monopoly.sharding.self-url=" + selfUrl,
+                "--monopoly.sharding.nodes=" + urlA + "," + urlB,
+                "--monopoly.sharding.probe-interval-ms=200"
+        };
+        String[] all = new String[args.length + extraArgs.length];
+        System.arraycopy(args, 0, all, 0, args.length);
+        System.arraycopy(extraArgs, 0, all, args.length, extraArgs.length);
+        return new SpringApplicationBuilder(MonopolyApplication.class).run(all);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
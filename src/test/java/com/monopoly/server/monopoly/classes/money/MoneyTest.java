@@ -0,0 +1,89 @@
+package com.monopoly.server.monopoly.classes.money;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MoneyTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void arithmeticWorksInCents() {
+        Money balance = Money.of(1500);
+
+        assertThat(balance.getCents()).isEqualTo(150_000);
+        assertThat(balance.plus(Money.ofCents(50)).getCents()).isEqualTo(150_050);
+        assertThat(balance.minus(Money.of(1600))).isEqualTo(Money.of(-100));
+        assertThat(Money.of(25).times(4)).isEqualTo(Money.of(100));
+        assertThat(Money.of(-7).abs()).isEqualTo(Money.of(7));
+        assertThat(Money.ofCents(0)).isSameAs(Money.ZERO);
+    }
+
+    @Test
+    void percentRoundsHalfUpAwayFromZero() {
+        // 10% di 1.05 = 0.105 -> 0.11; 50% di 0.01 = 0.005 -> 0.01
+        assertThat(Money.ofCents(105).percent(10).getCents()).isEqualTo(11);
+        assertThat(Money.ofCents(1).half().getCents()).isEqualTo(1);
+        assertThat(Money.ofCents(-1).half().getCents()).isEqualTo(-1);
+        assertThat(Money.ofCents(104).percent(10).getCents()).isEqualTo(10);
+        assertThat(Money.of(350).half()).isEqualTo(Money.of(175));
+    }
+
+    @Test
+    void overflowIsRejected() {
+        Money max = Money.ofCents(Long.MAX_VALUE);
+
+        assertThatThrownBy(() -> max.plus(Money.ofCents(1))).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> max.times(2)).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Money.ofCents(Long.MIN_VALUE).negate()).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Money.of(Long.MAX_VALUE / 10)).isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void convertsFromBigDecimalRoundingToTheCent() {
+        assertThat(Money.of(new BigDecimal("100.005")).getCents()).isEqualTo(10_001);
+        assertThat(Money.of(new BigDecimal("100.004")).getCents()).isEqualTo(10_000);
+        assertThat(Money.of(new BigDecimal("12.5")).toBigDecimal()).isEqualByComparingTo("12.50");
+    }
+
+    @Test
+    void comparesAndFormats() {
+        assertThat(Money.of(5).isLessThan(Money.of(6))).isTrue();
+        assertThat(Money.of(5).compareTo(Money.ofCents(500))).isZero();
+        assertThat(Money.of(5)).isEqualTo(Money.ofCents(500)).hasSameHashCodeAs(Money.ofCents(500));
+
+        assertThat(Money.of(1500)).hasToString("1500");
+        assertThat(Money.ofCents(10_050)).hasToString("100.50");
+        assertThat(Money.ofCents(10_005)).hasToString("100.05");
+        assertThat(Money.ofCents(-5)).hasToString("-0.05");
+        assertThat(Money.ofCents(-150)).hasToString("-1.50");
+    }
+
+    @Test
+    void jsonRoundTrip() throws Exception {
+        assertThat(objectMapper.writeValueAsString(Money.of(1500))).isEqualTo("1500");
+        assertThat(objectMapper.writeValueAsString(Money.ofCents(10_050))).isEqualTo("100.50");
+
+        assertThat(objectMapper.readValue("1500", Money.class)).isEqualTo(Money.of(1500));
+        assertThat(objectMapper.readValue("100.5", Money.class)).isEqualTo(Money.ofCents(10_050));
+        assertThat(objectMapper.readValue("\" 12.50 \"", Money.class)).isEqualTo(Money.ofCents(1_250));
+        assertThatThrownBy(() -> objectMapper.readValue("\"abc\"", Money.class))
+                .isInstanceOf(JsonMappingException.class);
+    }
+
+    @Test
+    void attributeConverterKeepsDecimalColumns() {
+        MoneyAttributeConverter converter = new MoneyAttributeConverter();
+
+        assertThat(converter.convertToDatabaseColumn(Money.ofCents(10_050))).isEqualByComparingTo("100.50");
+        assertThat(converter.convertToEntityAttribute(new BigDecimal("60.00"))).isEqualTo(Money.of(60));
+        assertThat(converter.convertToDatabaseColumn(null)).isNull();
+        assertThat(converter.convertToEntityAttribute(null)).isNull();
+    }
+}
@@ -0,0 +1,80 @@
+package com.monopoly.server.monopoly.classes.state;
+
+import com.monopoly.server.monopoly.enums.PropertyColor;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PlayerHoldingsTest {
+
+    private final BoardLayout board = TestBoards.small();
+
+    @Test
+    void countsByTypeAndColor() {
+        PlayerHoldings holdings = new PlayerHoldings();
+        holdings.apply(board, slot(1, false), 1);
+        holdings.apply(board, slot(3, false), 1);
+        holdings.apply(board, slot(4, true), 1);
+        holdings.apply(board, slot(5, false), 1);
+
+        assertThat(holdings.getCount()).isEqualTo(4);
+        assertThat(holdings.getRailroads()).isEqualTo(2);
+        assertThat(holdings.getUtilities()).isEqualTo(1);
+        assertThat(holdings.ownedIn(PropertyColor.BROWN)).isEqualTo(1);
+        assertThat(holdings.ownedIn(PropertyColor.BLACK)).isEqualTo(2);
+        assertThat(holdings.unmortgagedIn(PropertyColor.BLACK)).isEqualTo(1);
+        assertThat(holdings.ownedIn(null)).isZero();
+    }
+
+    @Test
+    void fullGroupMasksFollowOwnershipAndMortgages() {
+        PlayerHoldings holdings = new PlayerHoldings();
+        holdings.apply(board, slot(1, false), 1);
+        assertThat(holdings.hasFullGroup(PropertyColor.BROWN)).isFalse();
+
+        OwnershipSlot second = slot(2, true);
+        holdings.apply(board, second, 1);
+        assertThat(holdings.hasFullGroup(PropertyColor.BROWN)).isTrue();
+        assertThat(holdings.hasFullUnmortgagedGroup(PropertyColor.BROWN)).isFalse();
+        assertThat(holdings.getFullGroups()).isEqualTo(1 << PropertyColor.BROWN.ordinal());
+
+        // Riscatto: lo slot esce con il vecchio stato ed entra con il nuovo, come in SessionState
+        holdings.apply(board, second, -1);
+        second.setMortgaged(false);
+        holdings.apply(board, second, 1);
+        assertThat(holdings.hasFullUnmortgagedGroup(PropertyColor.BROWN)).isTrue();
+
+        holdings.apply(board, second, -1);
+        assertThat(holdings.hasFullGroup(PropertyColor.BROWN)).isFalse();
+        assertThat(holdings.hasFullUnmortgagedGroup(PropertyColor.BROWN)).isFalse();
+        assertThat(holdings.getFullGroups()).isZero();
+        assertThat(holdings.hasFullGroup(null)).isFalse();
+    }
+
+    @Test
+    void sessionStateKeepsHoldingsAlignedWithSlots() {
+        SessionState state = TestBoards.state();
+        OwnershipSlot first = slot(1, false);
+        OwnershipSlot second = slot(2, false);
+        state.addOwnership(first);
+        state.addOwnership(second);
+        assertThat(state.holdingsOf(10L).hasFullUnmortgagedGroup(PropertyColor.BROWN)).isTrue();
+
+        state.setMortgaged(second, true);
+        assertThat(state.holdingsOf(10L).hasFullGroup(PropertyColor.BROWN)).isTrue();
+        assertThat(state.holdingsOf(10L).hasFullUnmortgagedGroup(PropertyColor.BROWN)).isFalse();
+
+        state.setOwner(second, 11L);
+        assertThat(state.countOwnershipsOf(10L)).isEqualTo(1);
+        assertThat(state.holdingsOf(10L).hasFullGroup(PropertyColor.BROWN)).isFalse();
+        assertThat(state.holdingsOf(11L).ownedIn(PropertyColor.BROWN)).isEqualTo(1);
+        assertThat(state.holdingsOf(11L).unmortgagedIn(PropertyColor.BROWN)).isZero();
+
+        state.removeOwnership(first);
+        assertThat(state.holdingsOf(10L)).isSameAs(PlayerHoldings.NONE);
+    }
+
+    private static OwnershipSlot slot(long propertyId, boolean mortgaged) {
+        return new OwnershipSlot(100 + propertyId, propertyId, 10L, 0, false, mortgaged, null);
+    }
+}
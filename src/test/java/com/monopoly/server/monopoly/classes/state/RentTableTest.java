@@ -0,0 +1,116 @@
+package com.monopoly.server.monopoly.classes.state;
+
+import com.monopoly.server.monopoly.classes.money.Money;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RentTableTest {
+
+    private final BoardLayout board = TestBoards.small();
+
+    @Test
+    void bankOwnedAndMortgagedPropertiesRentNothing() {
+        RentTable rents = new RentTable(board.getMaxPropertyId() + 1);
+        assertThat(rents.rentOf(1L, 7)).isEqualTo(Money.ZERO);
+
+        OwnershipSlot mortgaged = slot(1, 0, false, true);
+        rents.refresh(board, 1, mortgaged, holdingsOf(mortgaged));
+        assertThat(rents.rentOf(1L, 7)).isEqualTo(Money.ZERO);
+
+        rents.refresh(board, 1, null, null);
+        assertThat(rents.rentOf(1L, 7)).isEqualTo(Money.ZERO);
+    }
+
+    @Test
+    void streetRentFollowsBuildingsAndFullGroup() {
+        RentTable rents = new RentTable(board.getMaxPropertyId() + 1);
+        OwnershipSlot first = slot(1, 0, false, false);
+        OwnershipSlot second = slot(2, 0, false, false);
+
+        rents.refresh(board, 1, first, holdingsOf(first));
+        assertThat(rents.rentOf(1L, 7)).isEqualTo(Money.of(2));
+
+        // Gruppo completo senza ipoteche: affitto base doppio
+        rents.refresh(board, 1, first, holdingsOf(first, second));
+        assertThat(rents.rentOf(1L, 7)).isEqualTo(Money.of(4));
+
+        // Gruppo completo ma con un atto ipotecato: affitto base semplice
+        OwnershipSlot mortgaged = slot(2, 0, false, true);
+        rents.refresh(board, 1, first, holdingsOf(first, mortgaged));
+        assertThat(rents.rentOf(1L, 7)).isEqualTo(Money.of(2));
+
+        first.setHouses(3);
+        rents.refresh(board, 1, first, holdingsOf(first, second));
+        assertThat(rents.rentOf(1L, 7)).isEqualTo(Money.of(90));
+
+        first.setHouses(0);
+        first.setHasHotel(true);
+        rents.refresh(board, 1, first, holdingsOf(first, second));
+        assertThat(rents.rentOf(1L, 7)).isEqualTo(Money.of(250));
+    }
+
+    @Test
+    void invalidHouseCountIsRejected() {
+        RentTable rents = new RentTable(board.getMaxPropertyId() + 1);
+        OwnershipSlot slot = slot(1, 5, false, false);
+
+        assertThatThrownBy(() -> rents.refresh(board, 1, slot, holdingsOf(slot)))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void railroadAndUtilityRentsDependOnHowManyAreOwned() {
+        RentTable rents = new RentTable(board.getMaxPropertyId() + 1);
+        OwnershipSlot railroad = slot(3, 0, false, false);
+        OwnershipSlot utility = slot(5, 0, false, false);
+
+        rents.refresh(board, 3, railroad, holdingsOf(railroad));
+        assertThat(rents.rentOf(3L, 7)).isEqualTo(Money.of(25));
+        rents.refresh(board, 3, railroad, holdingsOf(railroad, slot(4, 0, false, false)));
+        assertThat(rents.rentOf(3L, 7)).isEqualTo(Money.of(50));
+
+        rents.refresh(board, 5, utility, holdingsOf(utility));
+        assertThat(rents.rentOf(5L, 7)).isEqualTo(Money.of(28));
+        rents.refresh(board, 5, utility, holdingsOf(utility, slot(6, 0, false, false)));
+        assertThat(rents.rentOf(5L, 7)).isEqualTo(Money.of(70));
+    }
+
+    @Test
+    void sessionStateRefreshesTheWholeGroup() {
+        SessionState state = TestBoards.state();
+        OwnershipSlot first = slot(1, 0, false, false);
+        OwnershipSlot second = slot(2, 0, false, false);
+        state.addOwnership(first);
+        assertThat(state.rentOf(first, 7)).isEqualTo(Money.of(2));
+
+        // L'acquisto della seconda strada raddoppia anche l'affitto della prima
+        state.addOwnership(second);
+        assertThat(state.rentOf(first, 7)).isEqualTo(Money.of(4));
+
+        state.setMortgaged(second, true);
+        assertThat(state.rentOf(first, 7)).isEqualTo(Money.of(2));
+        assertThat(state.rentOf(second, 7)).isEqualTo(Money.ZERO);
+
+        state.setMortgaged(second, false);
+        state.setHouses(second, 1);
+        assertThat(state.rentOf(first, 7)).isEqualTo(Money.of(4));
+        assertThat(state.rentOf(second, 7)).isEqualTo(Money.of(10));
+
+        state.setOwner(second, 11L);
+        assertThat(state.rentOf(first, 7)).isEqualTo(Money.of(2));
+    }
+
+    private static OwnershipSlot slot(long propertyId, int houses, boolean hasHotel, boolean mortgaged) {
+        return new OwnershipSlot(100 + propertyId, propertyId, 10L, houses, hasHotel, mortgaged, null);
+    }
+
+    private PlayerHoldings holdingsOf(OwnershipSlot... slots) {
+        PlayerHoldings holdings = new PlayerHoldings();
+        for (OwnershipSlot slot : slots) {
+            holdings.apply(board, slot, 1);
+        }
+        return holdings;
+    }
+}
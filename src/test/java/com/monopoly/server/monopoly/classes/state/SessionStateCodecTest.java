@@ -0,0 +1,142 @@
+package com.monopoly.server.monopoly.classes.state;
+
+import com.monopoly.server.monopoly.classes.money.Money;
+import com.monopoly.server.monopoly.enums.GameStatus;
+import com.monopoly.server.monopoly.enums.PlayerColor;
+import com.monopoly.server.monopoly.enums.SessionEventType;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SessionStateCodecTest {
+
+    // Microsecondi più qualche nanosecondo: il codec conserva solo i microsecondi
+    private static final LocalDateTime PURCHASED_AT = LocalDateTime.of(2025, 3, 14, 15, 9, 26, 535_897_932);
+
+    @Test
+    void eventsRoundTrip() {
+        List<SessionEvent> events = List.of(
+                new SessionEvent.PlayerJoined(1, 10, "Anna", PlayerColor.RED, true, 150_000),
+                new SessionEvent.PlayerJoined(2, 11, "Bruno", null, false, 150_000),
+                new SessionEvent.BalanceAdjusted(3, 10, -6_000),
+                new SessionEvent.StatusChanged(4, GameStatus.IN_PROGRESS),
+                new SessionEvent.OwnershipAdded(7, 100, 1, 10, 0, false, false, PURCHASED_AT),
+                new SessionEvent.OwnershipAdded(8, 101, 2, 11, 4, true, true, null),
+                new SessionEvent.OwnershipChanged(9, SessionEventType.OWNER_CHANGED, 100, 11),
+                new SessionEvent.OwnershipChanged(1_000_000, SessionEventType.HOUSES_CHANGED, 101, 3),
+                new SessionEvent.OwnershipRemoved(1_000_001, 100));
+
+        List<SessionEvent> decoded = SessionStateCodec.decodeEvents(SessionStateCodec.encodeEvents(events));
+
+        assertThat(decoded).hasSameSizeAs(events);
+        assertThat(decoded).extracting(SessionEvent::getSequence)
+                .containsExactly(1L, 2L, 3L, 4L, 7L, 8L, 9L, 1_000_000L, 1_000_001L);
+        assertThat(decoded).extracting(SessionEvent::getType)
+                .containsExactlyElementsOf(events.stream().map(SessionEvent::getType).toList());
+
+        SessionEvent.PlayerJoined host = (SessionEvent.PlayerJoined) decoded.get(0);
+        assertThat(host.getPlayerId()).isEqualTo(10);
+        assertThat(host.getName()).isEqualTo("Anna");
+        assertThat(host.getColor()).isEqualTo(PlayerColor.RED);
+        assertThat(host.isHost()).isTrue();
+        assertThat(host.getBalanceCents()).isEqualTo(150_000);
+        assertThat(((SessionEvent.PlayerJoined) decoded.get(1)).getColor()).isNull();
+
+        assertThat(((SessionEvent.BalanceAdjusted) decoded.get(2)).getDeltaCents()).isEqualTo(-6_000);
+        assertThat(((SessionEvent.StatusChanged) decoded.get(3)).getStatus()).isEqualTo(GameStatus.IN_PROGRESS);
+
+        SessionEvent.OwnershipAdded added = (SessionEvent.OwnershipAdded) decoded.get(4);
+        assertThat(added.getOwnershipId()).isEqualTo(100);
+        assertThat(added.getPropertyId()).isEqualTo(1);
+        assertThat(added.getOwnerId()).isEqualTo(10);
+        assertThat(added.getPurchasedAt()).isEqualTo(PURCHASED_AT.withNano(535_897_000));
+
+        SessionEvent.OwnershipAdded built = (SessionEvent.OwnershipAdded) decoded.get(5);
+        assertThat(built.getHouses()).isEqualTo(4);
+        assertThat(built.isHasHotel()).isTrue();
+        assertThat(built.isMortgaged()).isTrue();
+        assertThat(built.getPurchasedAt()).isNull();
+
+        SessionEvent.OwnershipChanged changed = (SessionEvent.OwnershipChanged) decoded.get(7);
+        assertThat(changed.getOwnershipId()).isEqualTo(101);
+        assertThat(changed.getValue()).isEqualTo(3);
+        assertThat(((SessionEvent.OwnershipRemoved) decoded.get(8)).getOwnershipId()).isEqualTo(100);
+    }
+
+    @Test
+    void emptyBatchRoundTrip() {
+        assertThat(SessionStateCodec.decodeEvents(SessionStateCodec.encodeEvents(List.of()))).isEmpty();
+    }
+
+    @Test
+    void snapshotRoundTrip() {
+        SessionState state = new SessionState(1L, "ABC123", "Anna", PURCHASED_AT, GameStatus.IN_PROGRESS,
+                TestBoards.small());
+        state.load(List.of(
+                        new PlayerState(10L, "Anna", PlayerColor.RED, true, Money.of(1500)),
+                        new PlayerState(11L, "Bruno", null, false, Money.ofCents(-250))),
+                List.of(
+                        new OwnershipSlot(100L, 1L, 10L, 2, false, false, PURCHASED_AT),
+                        new OwnershipSlot(101L, 3L, 11L, 0, false, true, null)),
+                42);
+
+        SessionStateCodec.Snapshot snapshot = SessionStateCodec.decodeSnapshot(SessionStateCodec.encodeSnapshot(state));
+
+        assertThat(snapshot.getVersion()).isEqualTo(42);
+        assertThat(snapshot.getPlayers()).hasSize(2);
+        PlayerState bruno = snapshot.getPlayers().get(1);
+        assertThat(bruno.getId()).isEqualTo(11L);
+        assertThat(bruno.getName()).isEqualTo("Bruno");
+        assertThat(bruno.getColor()).isNull();
+        assertThat(bruno.isHost()).isFalse();
+        assertThat(bruno.getBalance()).isEqualTo(Money.ofCents(-250));
+        assertThat(snapshot.getPlayers().get(0).isHost()).isTrue();
+
+        assertThat(snapshot.getOwnerships()).hasSize(2);
+        OwnershipSlot street = snapshot.getOwnerships().get(0);
+        assertThat(street.getId()).isEqualTo(100L);
+        assertThat(street.getPropertyId()).isEqualTo(1L);
+        assertThat(street.getOwnerId()).isEqualTo(10L);
+        assertThat(street.getHouses()).isEqualTo(2);
+        assertThat(street.getPurchasedAt()).isEqualTo(PURCHASED_AT.withNano(535_897_000));
+        OwnershipSlot railroad = snapshot.getOwnerships().get(1);
+        assertThat(railroad.isMortgaged()).isTrue();
+        assertThat(railroad.isHasHotel()).isFalse();
+        assertThat(railroad.getPurchasedAt()).isNull();
+    }
+
+    @Test
+    void unsupportedFormatIsRejected() {
+        byte[] payload = SessionStateCodec.encodeEvents(List.of(new SessionEvent.OwnershipRemoved(1, 100)));
+        payload[0] = 99;
+
+        assertThatThrownBy(() -> SessionStateCodec.decodeEvents(payload))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("99");
+    }
+
+    @Test
+    void eventsAreWrittenWithStableCodes() {
+        byte[] payload = SessionStateCodec.encodeEvents(List.of(
+                new SessionEvent.StatusChanged(1, GameStatus.IN_PROGRESS),
+                new SessionEvent.PlayerJoined(2, 10, "A", PlayerColor.WHITE, false, 0)));
+
+        // Formato, numero di eventi, poi tipo (2 = STATUS_CHANGED), delta di sequenza e stato (1 = IN_PROGRESS);
+        // PLAYER_JOINED (0) con id, nome, colore (8 = WHITE), host e saldo
+        assertThat(payload).containsExactly(1, 2, 2, 1, 1, 0, 1, 10, 1, 'A', 8, 0, 0);
+    }
+
+    @Test
+    void unknownEventTypeIsRejected() {
+        byte[] payload = SessionStateCodec.encodeEvents(List.of(new SessionEvent.OwnershipRemoved(1, 100)));
+        payload[2] = 42;
+
+        assertThatThrownBy(() -> SessionStateCodec.decodeEvents(payload))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("42");
+    }
+}
@@ -0,0 +1,46 @@
+package com.monopoly.server.monopoly.classes.state;
+
+import com.monopoly.server.monopoly.classes.money.Money;
+import com.monopoly.server.monopoly.enums.GameStatus;
+import com.monopoly.server.monopoly.enums.PropertyColor;
+import com.monopoly.server.monopoly.enums.PropertyType;
+
+import java.time.LocalDateTime;
+
+/**
+ * Tabellone minimo per i test dello stato: due strade marroni (1, 2), due stazioni (3, 4)
+ * e due società (5, 6)
+ */
+final class TestBoards {
+
+    static final Money[] STREET_RENTS = {
+            Money.of(2), Money.of(10), Money.of(30), Money.of(90), Money.of(160), Money.of(250)
+    };
+
+    private TestBoards() {
+    }
+
+    static BoardLayout small() {
+        PropertyColor[] colors = {null,
+                PropertyColor.BROWN, PropertyColor.BROWN,
+                PropertyColor.BLACK, PropertyColor.BLACK,
+                PropertyColor.WHITE, PropertyColor.WHITE};
+        PropertyType[] types = {null,
+                PropertyType.STREET, PropertyType.STREET,
+                PropertyType.RAILROAD, PropertyType.RAILROAD,
+                PropertyType.UTILITY, PropertyType.UTILITY};
+        int[] groupSizes = new int[PropertyColor.values().length];
+        groupSizes[PropertyColor.BROWN.ordinal()] = 2;
+        groupSizes[PropertyColor.BLACK.ordinal()] = 2;
+        groupSizes[PropertyColor.WHITE.ordinal()] = 2;
+        return new BoardLayout(colors, types,
+                new Money[][]{null, STREET_RENTS, STREET_RENTS, null, null, null, null}, groupSizes);
+    }
+
+    /**
+     * Sessione in corso sul tabellone minimo, senza giocatori né possessi
+     */
+    static SessionState state() {
+        return new SessionState(1L, "ABC123", "Anna", LocalDateTime.now(), GameStatus.IN_PROGRESS, small());
+    }
+}
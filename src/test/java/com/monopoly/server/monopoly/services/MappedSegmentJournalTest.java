@@ -0,0 +1,119 @@
+package com.monopoly.server.monopoly.services;
+
+import com.monopoly.server.monopoly.classes.state.SessionEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MappedSegmentJournalTest {
+
+    private static final int SEGMENT_SIZE = 1024;
+
+    @TempDir
+    Path directory;
+
+    private final List<MappedSegmentJournal> opened = new ArrayList<>();
+
+    @AfterEach
+    void closeJournals() {
+        opened.forEach(MappedSegmentJournal::close);
+    }
+
+    @Test
+    void recordsSurviveReopening() throws Exception {
+        MappedSegmentJournal journal = open();
+        for (long sequence = 1; sequence <= 5; sequence++) {
+            journal.append(1L, List.of(adjusted(sequence)));
+        }
+        journal.append(2L, List.of(adjusted(1), adjusted(2)));
+        journal.sync().get(5, TimeUnit.SECONDS);
+        journal.close();
+
+        MappedSegmentJournal reopened = open();
+        assertThat(reopened.readAfter(1L, 0)).extracting(SessionEvent::getSequence)
+                .containsExactly(1L, 2L, 3L, 4L, 5L);
+        assertThat(reopened.readAfter(1L, 3)).extracting(SessionEvent::getSequence)
+                .containsExactly(4L, 5L);
+        assertThat(reopened.readAfter(2L, 0)).hasSize(2);
+        assertThat(reopened.readAfter(3L, 0)).isEmpty();
+    }
+
+    @Test
+    void corruptedRecordTruncatesTheSegment() throws Exception {
+        MappedSegmentJournal journal = open();
+        for (long sequence = 1; sequence <= 3; sequence++) {
+            journal.append(1L, List.of(adjusted(sequence)));
+        }
+        journal.close();
+
+        // Un byte alterato nel payload del secondo record: il CRC non corrisponde più
+        Path segment = segments().get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer length = ByteBuffer.allocate(4);
+            channel.read(length, 0);
+            long second = 8 + length.flip().getInt();
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) 0xFF}), second + 8 + 20);
+        }
+
+        MappedSegmentJournal reopened = open();
+        assertThat(reopened.readAfter(1L, 0)).extracting(SessionEvent::getSequence).containsExactly(1L);
+
+        // Le scritture successive ripartono dal punto di troncamento e restano leggibili
+        reopened.append(1L, List.of(adjusted(2)));
+        reopened.close();
+        assertThat(open().readAfter(1L, 0)).extracting(SessionEvent::getSequence).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void fullSegmentRollsAndCarriesOverLiveSessions() throws Exception {
+        MappedSegmentJournal journal = open();
+        for (long sequence = 1; sequence <= 20; sequence++) {
+            journal.append(1L, List.of(adjusted(sequence)));
+        }
+        journal.delete(1L);
+        for (long sequence = 1; sequence <= 20; sequence++) {
+            journal.append(2L, List.of(adjusted(sequence)));
+        }
+
+        // Il segmento iniziale è stato sostituito: resta solo quello con i dati ricopiati
+        assertThat(segments()).hasSize(1);
+        assertThat(segments().get(0).getFileName().toString()).startsWith("00000000000000000001");
+        assertThat(journal.readAfter(1L, 0)).isEmpty();
+        assertThat(journal.readAfter(2L, 0)).hasSize(20);
+        journal.close();
+
+        MappedSegmentJournal reopened = open();
+        assertThat(reopened.readAfter(1L, 0)).isEmpty();
+        assertThat(reopened.readAfter(2L, 0)).extracting(SessionEvent::getSequence)
+                .startsWith(1L, 2L).endsWith(20L).doesNotHaveDuplicates();
+    }
+
+    private MappedSegmentJournal open() throws IOException {
+        MappedSegmentJournal journal = new MappedSegmentJournal(directory.toString(), SEGMENT_SIZE, 1);
+        opened.add(journal);
+        return journal;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".seg")).sorted().toList();
+        }
+    }
+
+    private static SessionEvent adjusted(long sequence) {
+        return new SessionEvent.BalanceAdjusted(sequence, 10, -2_500);
+    }
+}
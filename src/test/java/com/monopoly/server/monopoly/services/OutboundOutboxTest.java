@@ -0,0 +1,87 @@
+package com.monopoly.server.monopoly.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.monopoly.server.monopoly.classes.dto.ReplayDto;
+import com.monopoly.server.monopoly.classes.dto.WebSocketMessage;
+import com.monopoly.server.monopoly.repositories.OutboxMessageRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Coda di uscita piena con l'outbox attivo: il messaggio scartato da DROP_OLDEST non viene
+ * segnato come consegnato, resta nell'outbox e il relay lo reinvia
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:outbound-outbox",
+        "monopoly.websocket.outbox.enabled=true",
+        "monopoly.websocket.outbox.relay-after-ms=0",
+        // Il relay viene chiamato dal test
+        "monopoly.websocket.outbox.poll-interval-ms=3600000",
+        "monopoly.websocket.outbound-capacity=1",
+        "monopoly.websocket.overflow-policy=DROP_OLDEST",
+        // I due messaggi della transazione sono in coda insieme prima dello svuotamento
+        "monopoly.websocket.coalesce-ms=200"
+})
+class OutboundOutboxTest {
+
+    private static final String SESSION_CODE = "Q012";
+
+    @Autowired
+    private WebSocketService webSocketService;
+
+    @Autowired
+    private SessionOutbox sessionOutbox;
+
+    @Autowired
+    private OutboxMessageRepository outboxRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void droppedFrameStaysInTheOutboxAndIsRelayed() throws Exception {
+        transactionTemplate.executeWithoutResult(status -> {
+            webSocketService.broadcastToSession(SESSION_CODE, new WebSocketMessage("FIRST", SESSION_CODE, null));
+            webSocketService.broadcastToSession(SESSION_CODE, new WebSocketMessage("SECOND", SESSION_CODE, null));
+        });
+        assertThat(outboxRepository.count()).isEqualTo(2);
+
+        // Solo SECOND parte dalla coda: FIRST è stato scartato a coda piena
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (latestSequence() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(typesAfter(latestSequence() - 1)).containsExactly("SECOND");
+
+        // Il relay elimina la riga consegnata e reinvia quella scartata
+        Thread.sleep(5);
+        sessionOutbox.relay();
+        assertThat(outboxRepository.count()).isZero();
+        assertThat(typesAfter(latestSequence() - 2)).containsExactly("SECOND", "FIRST");
+    }
+
+    private long latestSequence() {
+        return webSocketService.replay(SESSION_CODE, 0).getLatestSequence();
+    }
+
+    private List<String> typesAfter(long after) throws Exception {
+        ReplayDto replay = webSocketService.replay(SESSION_CODE, after);
+        assertThat(replay.isResyncRequired()).isFalse();
+        List<String> types = new ArrayList<>();
+        for (RawValue frame : replay.getFrames()) {
+            types.add(objectMapper.readTree((String) frame.rawValue()).path("type").asText());
+        }
+        return types;
+    }
+}
@@ -0,0 +1,242 @@
+package com.monopoly.server.monopoly.services;
+
+import com.monopoly.server.monopoly.classes.dto.GameSessionDto;
+import com.monopoly.server.monopoly.classes.dto.PlayerDto;
+import com.monopoly.server.monopoly.classes.dto.PropertyOwnershipDto;
+import com.monopoly.server.monopoly.classes.money.LedgerEntry;
+import com.monopoly.server.monopoly.classes.money.Money;
+import com.monopoly.server.monopoly.enums.PlayerColor;
+import com.monopoly.server.monopoly.enums.TransactionType;
+import com.monopoly.server.monopoly.repositories.GameSessionRepository;
+import com.monopoly.server.monopoly.repositories.PlayerRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Conta le istruzioni JDBC delle scritture più frequenti: gli id arrivano a blocchi dalle sequenze
+ * e le righe toccate da un'operazione massiva vengono scritte in batch, non una alla volta
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:batching",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.monopoly.server.monopoly.services.PersistenceBatchingTest$StatementCounts",
+        // Nessun flush periodico durante le misure: snapshot solo su checkpoint esplicito
+        "monopoly.state.flush-interval-ms=3600000"
+})
+class PersistenceBatchingTest {
+
+    // Proprietà da 60 a 140: l'host può comprarle tutte con il saldo iniziale
+    private static final List<Long> PROPERTY_IDS = List.of(1L, 2L, 3L, 4L, 5L, 7L, 8L);
+
+    private static final PlayerColor[] GUEST_COLORS = {
+            PlayerColor.BLUE, PlayerColor.GREEN, PlayerColor.YELLOW, PlayerColor.PURPLE,
+            PlayerColor.ORANGE, PlayerColor.BLACK, PlayerColor.WHITE
+    };
+
+    @Autowired
+    private GameSessionService gameSessionService;
+
+    @Autowired
+    private PropertyService propertyService;
+
+    @Autowired
+    private BankService bankService;
+
+    @Autowired
+    private BankruptcyService bankruptcyService;
+
+    @Autowired
+    private SessionCommandExecutor sessionCommandExecutor;
+
+    @Autowired
+    private SessionStateStore sessionStateStore;
+
+    @Autowired
+    private GameSessionRepository gameSessionRepository;
+
+    @Autowired
+    private PlayerRepository playerRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void enableStatistics() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void joinsAndPurchasesDrawIdsFromPooledSequences() {
+        GameSessionDto session = gameSessionService.createSession("Host");
+        String code = session.getSessionCode();
+        Long hostId = session.getPlayers().get(0).getId();
+
+        reset();
+        for (int i = 0; i < GUEST_COLORS.length; i++) {
+            String name = "Guest" + i;
+            PlayerColor color = GUEST_COLORS[i];
+            sessionCommandExecutor.execute(code, () -> gameSessionService.joinSession(code, name, color));
+        }
+
+        // Un INSERT per giocatore; gli id vengono dal blocco già allocato alla creazione dell'host
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(GUEST_COLORS.length);
+        assertThat(StatementCounts.SEQUENCE_CALLS.get()).isZero();
+
+        reset();
+        for (Long propertyId : PROPERTY_IDS) {
+            sessionCommandExecutor.execute(code, () -> propertyService.purchaseProperty(hostId, propertyId));
+        }
+
+        // Possesso + movimento per acquisto, con al più una chiamata per sequenza; nessun'altra
+        // istruzione: gli INSERT non aspettano un id generato né rileggono le righe
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(2L * PROPERTY_IDS.size());
+        assertThat(StatementCounts.SEQUENCE_CALLS.get()).isLessThanOrEqualTo(2);
+        assertThat(statistics.getPrepareStatementCount())
+                .isEqualTo(statistics.getEntityInsertCount() + StatementCounts.SEQUENCE_CALLS.get());
+    }
+
+    @Test
+    void ledgerEntriesOfOneCommandAreInsertedInOneBatch() {
+        GameSessionDto session = gameSessionService.createSession("Banker");
+        String code = session.getSessionCode();
+        Long playerId = session.getPlayers().get(0).getId();
+        List<LedgerEntry> entries = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            entries.add(new LedgerEntry(TransactionType.BANK_TO_PLAYER, Money.of(1), null, playerId, "Bonus " + i));
+        }
+
+        reset();
+        sessionCommandExecutor.execute(code, () -> bankService.settle(sessionStateStore.get(code), entries));
+
+        // Dieci righe con un solo INSERT preparato (più l'eventuale lettura della sequenza)
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(entries.size());
+        assertThat(statistics.getPrepareStatementCount())
+                .isEqualTo(1 + StatementCounts.SEQUENCE_CALLS.get());
+    }
+
+    @Test
+    void bulkTransferIsWrittenInBatches() {
+        GameSessionDto session = gameSessionService.createSession("Seller");
+        String code = session.getSessionCode();
+        Long sellerId = session.getPlayers().get(0).getId();
+        GameSessionDto joined = sessionCommandExecutor.execute(code,
+                () -> gameSessionService.joinSession(code, "Buyer", PlayerColor.BLUE));
+        Long buyerId = joined.getPlayers().stream()
+                .filter(player -> !player.isHost())
+                .map(PlayerDto::getId)
+                .findFirst()
+                .orElseThrow();
+
+        List<Long> ownershipIds = new ArrayList<>();
+        for (Long propertyId : PROPERTY_IDS) {
+            PropertyOwnershipDto ownership = sessionCommandExecutor.execute(code,
+                    () -> propertyService.purchaseProperty(sellerId, propertyId));
+            ownershipIds.add(ownership.getId());
+        }
+        sessionCommandExecutor.execute(code, () -> sessionStateStore.checkpoint(sessionStateStore.get(code)));
+
+        reset();
+        sessionCommandExecutor.execute(code,
+                () -> propertyService.transferMultipleProperties(ownershipIds, buyerId, null));
+        sessionCommandExecutor.execute(code, () -> sessionStateStore.checkpoint(sessionStateStore.get(code)));
+
+        // Il trasferimento aggiorna tutte le righe al checkpoint, con un solo UPDATE preparato
+        // per tutti i possessi: le istruzioni non crescono con il numero di proprietà
+        assertThat(statistics.getEntityUpdateCount()).isGreaterThanOrEqualTo(PROPERTY_IDS.size());
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(PROPERTY_IDS.size());
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM property_ownership WHERE player_id = ?", Long.class, buyerId))
+                .isEqualTo(PROPERTY_IDS.size());
+    }
+
+    @Test
+    void cleanupDeletesExpiredSessionsInBulk() {
+        GameSessionDto session = gameSessionService.createSession("Expired");
+        String code = session.getSessionCode();
+        for (int i = 0; i < 3; i++) {
+            String name = "Guest" + i;
+            PlayerColor color = GUEST_COLORS[i];
+            sessionCommandExecutor.execute(code, () -> gameSessionService.joinSession(code, name, color));
+        }
+        Long hostId = session.getPlayers().get(0).getId();
+        for (Long propertyId : PROPERTY_IDS) {
+            sessionCommandExecutor.execute(code, () -> propertyService.purchaseProperty(hostId, propertyId));
+        }
+        jdbcTemplate.update("UPDATE game_sessions SET created_at = ? WHERE session_code = ?",
+                LocalDateTime.now().minusDays(2), code);
+
+        reset();
+        gameSessionService.cleanupOldSessions();
+
+        // Cancellazioni massive: nessuna entità caricata e rimossa una riga alla volta
+        assertThat(statistics.getEntityDeleteCount()).isZero();
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(gameSessionRepository.findBySessionCode(code)).isEmpty();
+        assertThat(playerRepository.findById(hostId)).isEmpty();
+    }
+
+    @Test
+    void bankruptcyToTheBankDeletesOwnershipsWithOneStatement() {
+        GameSessionDto session = gameSessionService.createSession("Bankrupt");
+        String code = session.getSessionCode();
+        Long playerId = session.getPlayers().get(0).getId();
+        for (Long propertyId : PROPERTY_IDS) {
+            sessionCommandExecutor.execute(code, () -> propertyService.purchaseProperty(playerId, propertyId));
+        }
+
+        reset();
+        sessionCommandExecutor.execute(code, () -> bankruptcyService.declareBankruptcy(playerId, null));
+
+        // Tutti i possessi con un solo DELETE, senza caricarli né rimuoverli uno alla volta
+        assertThat(StatementCounts.OWNERSHIP_DELETES.get()).isEqualTo(1);
+        assertThat(statistics.getEntityDeleteCount()).isZero();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM property_ownership WHERE player_id = ?", Long.class, playerId))
+                .isZero();
+    }
+
+    private void reset() {
+        statistics.clear();
+        StatementCounts.SEQUENCE_CALLS.set(0);
+        StatementCounts.OWNERSHIP_DELETES.set(0);
+    }
+
+    /**
+     * Conta le letture dalle sequenze degli id e i DELETE sulla tabella dei possessi
+     */
+    public static class StatementCounts implements StatementInspector {
+        static final AtomicInteger SEQUENCE_CALLS = new AtomicInteger();
+        static final AtomicInteger OWNERSHIP_DELETES = new AtomicInteger();
+
+        @Override
+        public String inspect(String sql) {
+            String lower = sql.toLowerCase();
+            if (lower.contains("next value for")) {
+                SEQUENCE_CALLS.incrementAndGet();
+            } else if (lower.startsWith("delete from property_ownership")) {
+                OWNERSHIP_DELETES.incrementAndGet();
+            }
+            return sql;
+        }
+    }
+}